@@ -29,4 +29,18 @@ public interface CoreDocument extends CoreParentNode {
     void coreSetStandalone(Boolean standalone);
     
     CoreElement coreGetDocumentElement() throws CoreModelException;
+    
+    /**
+     * Get the structure version of this document. The value is incremented whenever a child node
+     * is inserted, removed or moved in the tree (or one of the detached trees) owned by this
+     * document, when the children of a node are replaced by character data, or when an element is
+     * renamed. Changes to the value of character data nodes or attributes are not considered as
+     * structural modifications, and neither are nodes added by a builder while it is expanding an
+     * incomplete node (because they don't change the part of the tree that is already visible).
+     * Code that derives data from the document structure (such as live node lists) can use this
+     * value to check whether that data needs to be recomputed.
+     * 
+     * @return the current structure version
+     */
+    int coreGetStructureVersion();
 }
@@ -21,6 +21,21 @@ package org.apache.axiom.core;
 import java.util.Iterator;
 
 public interface CoreElement extends CoreChildNode, CoreMixedContentContainer, CoreNamedNode {
+    /**
+     * Report a change to the name or the attributes of this element to the monitored nodes (if
+     * any), i.e. this element and its parent. See {@link CoreParentNode#coreSetMonitored(boolean)}.
+     * Changes made using the methods defined by the core model are reported automatically.
+     */
+    void internalNotifyElementModified();
+    
+    /**
+     * Notify this element that the name of one of its attributes has changed. This must be called
+     * by implementations of methods that change the namespace URI or local name of an attribute
+     * and that are not defined by the core model. Elements with a large number of attributes use
+     * an index to look up attributes by name, and this index needs to be updated.
+     */
+    void internalNotifyAttributeRenamed();
+    
     /**
      * Get the first attribute of this element.
      * 
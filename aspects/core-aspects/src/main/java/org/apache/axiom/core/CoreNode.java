@@ -39,6 +39,12 @@ public interface CoreNode {
     
     void coreSetOwnerDocument(CoreDocument document);
     
+    /**
+     * Increment the structure version of the owner document of this node, if that document
+     * exists. See {@link CoreDocument#coreGetStructureVersion()}.
+     */
+    void internalNotifyStructureModified();
+    
     NodeFactory coreGetNodeFactory();
     
     <T extends CoreNode> T coreCreateNode(Class<T> type);
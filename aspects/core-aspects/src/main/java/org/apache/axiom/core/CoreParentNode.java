@@ -88,4 +88,22 @@ public interface CoreParentNode extends CoreNode {
     void coreRemoveChildren(Semantics semantics) throws CoreModelException;
     
     void coreDiscard(boolean consumeInput) throws CoreModelException;
+    
+    /**
+     * Enable or disable modification monitoring for this node. If monitoring is enabled,
+     * {@link #modified()} is invoked whenever a child is added to or removed from this node, or an
+     * attribute of this node or of one of its child elements is added, removed or changed. This
+     * allows implementations to maintain derived data (such as indexes) without having to
+     * intercept every API that may modify the tree.
+     * 
+     * @param monitored
+     *            <code>true</code> to enable monitoring, <code>false</code> to disable it
+     */
+    void coreSetMonitored(boolean monitored);
+    
+    /**
+     * Called when this node has been modified and monitoring is enabled. See
+     * {@link #coreSetMonitored(boolean)}. The default implementation does nothing.
+     */
+    void modified();
 }
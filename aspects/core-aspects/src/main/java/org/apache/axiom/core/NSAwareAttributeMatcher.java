@@ -62,6 +62,15 @@ public final class NSAwareAttributeMatcher implements AttributeMatcher {
         this.updatePrefix = updatePrefix;
     }
     
+    /**
+     * Determine whether this matcher also matches {@link CoreNSUnawareAttribute} instances.
+     * 
+     * @return the value of the <code>matchNSUnawareAttributes</code> constructor parameter
+     */
+    public boolean isMatchNSUnawareAttributes() {
+        return matchNSUnawareAttributes;
+    }
+
     public boolean matches(CoreAttribute attr, String namespaceURI, String name) {
         if (attr instanceof CoreNSAwareAttribute) {
             CoreNSAwareAttribute nsAwareAttr = (CoreNSAwareAttribute)attr;
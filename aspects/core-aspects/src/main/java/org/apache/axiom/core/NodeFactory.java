@@ -28,4 +28,29 @@ public interface NodeFactory {
     Object createNamespaceHelper();
     
     <T extends CoreNode> T createNode(Class<T> type);
+    
+    /**
+     * Create a character data node. This is equivalent to
+     * <code>createNode(CoreCharacterDataNode.class)</code>, but avoids the lookup of the node type.
+     * 
+     * @return the new node
+     */
+    CoreCharacterDataNode createCharacterDataNode();
+    
+    /**
+     * Create a namespace aware attribute. This is equivalent to
+     * <code>createNode(CoreNSAwareAttribute.class)</code>, but avoids the lookup of the node type.
+     * 
+     * @return the new node
+     */
+    CoreNSAwareAttribute createNSAwareAttribute();
+    
+    /**
+     * Create a namespace declaration. This is equivalent to
+     * <code>createNode(CoreNamespaceDeclaration.class)</code>, but avoids the lookup of the node
+     * type.
+     * 
+     * @return the new node
+     */
+    CoreNamespaceDeclaration createNamespaceDeclaration();
 }
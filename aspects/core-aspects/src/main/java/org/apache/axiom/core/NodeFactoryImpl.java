@@ -21,8 +21,6 @@ package org.apache.axiom.core;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -34,7 +32,10 @@ import org.apache.axiom.core.util.EdgeRelation;
 import org.apache.axiom.core.util.TopologicalSort;
 
 public abstract class NodeFactoryImpl implements NodeFactory {
-    private final Map<Class<?>,Constructor<?>> constructorMap;
+    private final Map<Class<?>,NodeInstantiator> instantiatorMap;
+    private final NodeInstantiator characterDataNodeInstantiator;
+    private final NodeInstantiator nsAwareAttributeInstantiator;
+    private final NodeInstantiator namespaceDeclarationInstantiator;
     
     public NodeFactoryImpl(ClassLoader cl, String... packages) {
         List<Class<?>> implementations = new ArrayList<Class<?>>();
@@ -67,7 +68,8 @@ public abstract class NodeFactoryImpl implements NodeFactory {
             }
         });
         Map<Class<?>,Class<?>> interfaceToImplementationMap = new HashMap<Class<?>,Class<?>>();
-        Map<Class<?>,Constructor<?>> implementationToConstructorMap = new HashMap<Class<?>,Constructor<?>>();
+        NodeInstantiatorGenerator generator = new NodeInstantiatorGenerator(cl);
+        Map<Class<?>,NodeInstantiator> implementationToInstantiatorMap = new HashMap<Class<?>,NodeInstantiator>();
         Set<Class<?>> ambiguousInterfaces = new HashSet<Class<?>>();
         for (Class<?> implementation : implementations) {
             Set<Class<?>> interfaces = new HashSet<Class<?>>();
@@ -83,18 +85,17 @@ public abstract class NodeFactoryImpl implements NodeFactory {
                     }
                 }
             }
-            try {
-                implementationToConstructorMap.put(implementation, implementation.getConstructor());
-            } catch (NoSuchMethodException ex) {
-                throw new NodeFactoryException("Failed to get constructor for " + implementation.getName(), ex);
-            }
+            implementationToInstantiatorMap.put(implementation, generator.createInstantiator(implementation));
         }
-        constructorMap = new HashMap<Class<?>,Constructor<?>>();
+        instantiatorMap = new HashMap<Class<?>,NodeInstantiator>();
         for (Map.Entry<Class<?>,Class<?>> entry : interfaceToImplementationMap.entrySet()) {
-            constructorMap.put(entry.getKey(), implementationToConstructorMap.get(entry.getValue()));
+            instantiatorMap.put(entry.getKey(), implementationToInstantiatorMap.get(entry.getValue()));
         }
         // TODO: this should eventually go away
-        constructorMap.putAll(implementationToConstructorMap);
+        instantiatorMap.putAll(implementationToInstantiatorMap);
+        characterDataNodeInstantiator = instantiatorMap.get(CoreCharacterDataNode.class);
+        nsAwareAttributeInstantiator = instantiatorMap.get(CoreNSAwareAttribute.class);
+        namespaceDeclarationInstantiator = instantiatorMap.get(CoreNamespaceDeclaration.class);
     }
 
     private static void collectInterfaces(Class<?> clazz, Set<Class<?>> interfaces) {
@@ -109,20 +110,27 @@ public abstract class NodeFactoryImpl implements NodeFactory {
         }
     }
     
-    public final <T extends CoreNode> T createNode(Class<T> type) {
-        Constructor<?> constructor = constructorMap.get(type);
-        if (constructor == null) {
+    private static <T extends CoreNode> T createNode(NodeInstantiator instantiator, Class<T> type) {
+        if (instantiator == null) {
             throw new NodeFactoryException("Unknown node type " + type.getName());
         } else {
-            try {
-                return type.cast(constructor.newInstance());
-            } catch (InvocationTargetException ex) {
-                throw new NodeFactoryException("Caught exception thrown by constructor", ex.getCause());
-            } catch (InstantiationException ex) {
-                throw new NodeFactoryException("Failed to invoke constructor", ex);
-            } catch (IllegalAccessException ex) {
-                throw new NodeFactoryException("Failed to invoke constructor", ex);
-            }
+            return type.cast(instantiator.newInstance());
         }
     }
+
+    public final <T extends CoreNode> T createNode(Class<T> type) {
+        return createNode(instantiatorMap.get(type), type);
+    }
+
+    public final CoreCharacterDataNode createCharacterDataNode() {
+        return createNode(characterDataNodeInstantiator, CoreCharacterDataNode.class);
+    }
+
+    public final CoreNSAwareAttribute createNSAwareAttribute() {
+        return createNode(nsAwareAttributeInstantiator, CoreNSAwareAttribute.class);
+    }
+
+    public final CoreNamespaceDeclaration createNamespaceDeclaration() {
+        return createNode(namespaceDeclarationInstantiator, CoreNamespaceDeclaration.class);
+    }
 }
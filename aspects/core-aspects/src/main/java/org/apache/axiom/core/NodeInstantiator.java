@@ -16,13 +16,13 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-package org.apache.axiom.util.xml;
+package org.apache.axiom.core;
 
-import java.util.concurrent.atomic.AtomicReference;
-
-import javax.xml.namespace.QName;
-
-@SuppressWarnings("serial")
-final class QNameCacheEntry extends AtomicReference<QName> {
-    
-}
\ No newline at end of file
+/**
+ * Creates instances of a given node implementation class. Instances of this interface are
+ * generated by {@link NodeFactoryImpl} when it loads the node types of an implementation. They
+ * should not be used directly by application code.
+ */
+public interface NodeInstantiator {
+    CoreNode newInstance();
+}
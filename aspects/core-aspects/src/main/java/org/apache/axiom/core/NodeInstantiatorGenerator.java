@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Generates {@link NodeInstantiator} implementations that invoke the constructor of a node
+ * implementation class directly (i.e. with a <code>new</code> instruction), so that node creation
+ * doesn't require reflection. The generated classes are defined in a dedicated class loader that
+ * delegates to the class loader of the node implementations. If class generation is not possible
+ * (e.g. because a security manager prevents the creation of class loaders), reflection is used
+ * as a fallback.
+ */
+final class NodeInstantiatorGenerator {
+    private static final String NODE_INSTANTIATOR = NodeInstantiator.class.getName().replace('.', '/');
+    private static final String CORE_NODE = CoreNode.class.getName().replace('.', '/');
+    
+    private static final class GeneratedClassLoader extends ClassLoader {
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+        
+        Class<?> defineClass(String name, byte[] b) {
+            return defineClass(name, b, 0, b.length);
+        }
+    }
+    
+    private static final class ReflectiveNodeInstantiator implements NodeInstantiator {
+        private final Constructor<?> constructor;
+
+        ReflectiveNodeInstantiator(Constructor<?> constructor) {
+            this.constructor = constructor;
+        }
+
+        @Override
+        public CoreNode newInstance() {
+            try {
+                return (CoreNode)constructor.newInstance();
+            } catch (InvocationTargetException ex) {
+                throw new NodeFactoryException("Caught exception thrown by constructor", ex.getCause());
+            } catch (InstantiationException ex) {
+                throw new NodeFactoryException("Failed to invoke constructor", ex);
+            } catch (IllegalAccessException ex) {
+                throw new NodeFactoryException("Failed to invoke constructor", ex);
+            }
+        }
+    }
+    
+    private final ClassLoader parent;
+    private GeneratedClassLoader classLoader;
+    private boolean disabled;
+
+    NodeInstantiatorGenerator(ClassLoader parent) {
+        this.parent = parent;
+    }
+
+    NodeInstantiator createInstantiator(Class<?> implementation) {
+        Constructor<?> constructor;
+        try {
+            constructor = implementation.getConstructor();
+        } catch (NoSuchMethodException ex) {
+            throw new NodeFactoryException("Failed to get constructor for " + implementation.getName(), ex);
+        }
+        if (!disabled) {
+            try {
+                if (classLoader == null) {
+                    classLoader = new GeneratedClassLoader(parent);
+                }
+                String className = implementation.getName() + "$$NodeInstantiator";
+                return (NodeInstantiator)classLoader.defineClass(className,
+                        generate(className.replace('.', '/'), implementation.getName().replace('.', '/'))).newInstance();
+            } catch (SecurityException ex) {
+                disabled = true;
+            } catch (LinkageError ex) {
+                disabled = true;
+            } catch (InstantiationException ex) {
+                disabled = true;
+            } catch (IllegalAccessException ex) {
+                disabled = true;
+            }
+        }
+        return new ReflectiveNodeInstantiator(constructor);
+    }
+
+    /**
+     * Generate the class file for a {@link NodeInstantiator} implementation. The code is
+     * equivalent to:
+     * <pre>
+     * public final class <i>className</i> implements NodeInstantiator {
+     *     public CoreNode newInstance() {
+     *         return new <i>implementation</i>();
+     *     }
+     * }</pre>
+     * The class file uses version 49, so that no stack map frames need to be generated.
+     * 
+     * @param className
+     *            the internal name of the class to generate
+     * @param implementation
+     *            the internal name of the node implementation class
+     * @return the class file
+     */
+    private static byte[] generate(String className, String implementation) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(baos);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(49);
+            // Constant pool
+            out.writeShort(17);
+            writeUtf8(out, className);              // #1
+            writeClass(out, 1);                     // #2
+            writeUtf8(out, "java/lang/Object");     // #3
+            writeClass(out, 3);                     // #4
+            writeUtf8(out, NODE_INSTANTIATOR);      // #5
+            writeClass(out, 5);                     // #6
+            writeUtf8(out, implementation);         // #7
+            writeClass(out, 7);                     // #8
+            writeUtf8(out, "<init>");               // #9
+            writeUtf8(out, "()V");                  // #10
+            out.writeByte(12);                      // #11: NameAndType <init>()V
+            out.writeShort(9);
+            out.writeShort(10);
+            writeMethodref(out, 4, 11);             // #12: Object.<init>()V
+            writeMethodref(out, 8, 11);             // #13: implementation.<init>()V
+            writeUtf8(out, "newInstance");          // #14
+            writeUtf8(out, "()L" + CORE_NODE + ";");// #15
+            writeUtf8(out, "Code");                 // #16
+            // ACC_PUBLIC | ACC_FINAL | ACC_SUPER
+            out.writeShort(0x0031);
+            out.writeShort(2);
+            out.writeShort(4);
+            out.writeShort(1);
+            out.writeShort(6);
+            // Fields
+            out.writeShort(0);
+            // Methods
+            out.writeShort(2);
+            // aload_0; invokespecial #12; return
+            writeMethod(out, 9, 10, 1, new byte[] { 0x2A, (byte)0xB7, 0, 12, (byte)0xB1 });
+            // new #8; dup; invokespecial #13; areturn
+            writeMethod(out, 14, 15, 2, new byte[] { (byte)0xBB, 0, 8, 0x59, (byte)0xB7, 0, 13, (byte)0xB0 });
+            // Attributes
+            out.writeShort(0);
+            out.flush();
+        } catch (IOException ex) {
+            // We should never get here
+            throw new Error(ex);
+        }
+        return baos.toByteArray();
+    }
+    
+    private static void writeUtf8(DataOutputStream out, String s) throws IOException {
+        out.writeByte(1);
+        out.writeUTF(s);
+    }
+    
+    private static void writeClass(DataOutputStream out, int nameIndex) throws IOException {
+        out.writeByte(7);
+        out.writeShort(nameIndex);
+    }
+    
+    private static void writeMethodref(DataOutputStream out, int classIndex, int nameAndTypeIndex) throws IOException {
+        out.writeByte(10);
+        out.writeShort(classIndex);
+        out.writeShort(nameAndTypeIndex);
+    }
+    
+    private static void writeMethod(DataOutputStream out, int nameIndex, int descriptorIndex, int maxStack, byte[] code) throws IOException {
+        out.writeShort(0x0001);
+        out.writeShort(nameIndex);
+        out.writeShort(descriptorIndex);
+        out.writeShort(1);
+        out.writeShort(16);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(1);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+}
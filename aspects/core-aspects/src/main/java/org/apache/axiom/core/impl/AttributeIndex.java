@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.impl;
+
+import org.apache.axiom.core.CoreAttribute;
+import org.apache.axiom.core.CoreElement;
+import org.apache.axiom.core.CoreNSAwareAttribute;
+import org.apache.axiom.core.CoreNSUnawareAttribute;
+import org.apache.axiom.core.NSAwareAttributeMatcher;
+
+/**
+ * Index of the attributes of an element with a large number of attributes. The attributes are
+ * still stored in a linked list (so that the iteration order is unchanged); the index keeps track
+ * of the last attribute in that list and maps the namespace URI and local name of
+ * {@link CoreNSAwareAttribute} instances to the first attribute in the list with that name, using
+ * an open addressing hash table with linear probing. Namespace declarations and namespace
+ * unaware attributes are not indexed.
+ * <p>
+ * The information about the structure of the list (last attribute, number of attributes) is
+ * always kept up to date. The hash table on the other hand may become invalid, e.g. when an
+ * indexed attribute is renamed (see {@link CoreElement#internalNotifyAttributeRenamed()}). It is
+ * then rebuilt the next time it is needed.
+ */
+public final class AttributeIndex {
+    /**
+     * The number of attributes at which an element starts using an index.
+     */
+    public static final int THRESHOLD = 16;
+
+    private CoreNSAwareAttribute[] table;
+    private int[] hashes;
+    private int size;
+    private boolean valid;
+    private boolean duplicates;
+    private int count;
+    private int nsUnawareCount;
+    private CoreAttribute last;
+
+    /**
+     * Create an index for a list of attributes.
+     * 
+     * @param firstAttribute
+     *            the first attribute in the list
+     */
+    public AttributeIndex(CoreAttribute firstAttribute) {
+        rebuild(firstAttribute);
+    }
+
+    /**
+     * Rebuild the index from scratch.
+     * 
+     * @param firstAttribute
+     *            the first attribute in the list
+     */
+    public void rebuild(CoreAttribute firstAttribute) {
+        table = new CoreNSAwareAttribute[2*THRESHOLD];
+        hashes = new int[2*THRESHOLD];
+        size = 0;
+        valid = true;
+        duplicates = false;
+        count = 0;
+        nsUnawareCount = 0;
+        last = null;
+        for (CoreAttribute attr = firstAttribute; attr != null; attr = attr.coreGetNextAttribute()) {
+            added(attr);
+        }
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Mark the hash table as invalid.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Get the number of attributes in the list.
+     * 
+     * @return the number of attributes
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public CoreAttribute getLast() {
+        return last;
+    }
+
+    /**
+     * Determine if the index can be used to look up attributes using a given matcher.
+     * 
+     * @param matcher
+     *            the matcher
+     * @param namespaceURI
+     *            the <code>namespaceURI</code> parameter for the matcher
+     * @return <code>true</code> if {@link #get(String, String)} returns the attribute the matcher
+     *         would select
+     */
+    public boolean supports(NSAwareAttributeMatcher matcher, String namespaceURI) {
+        return valid && (nsUnawareCount == 0 || namespaceURI.length() > 0
+                || !matcher.isMatchNSUnawareAttributes());
+    }
+
+    /**
+     * Get the first namespace aware attribute with the given name. This method must only be
+     * called if the index is valid.
+     * 
+     * @param namespaceURI
+     *            the namespace URI of the attribute
+     * @param localName
+     *            the local name of the attribute
+     * @return the attribute, or <code>null</code> if there is no such attribute
+     */
+    public CoreNSAwareAttribute get(String namespaceURI, String localName) {
+        int mask = table.length-1;
+        int hash = hash(namespaceURI, localName);
+        for (int i = hash & mask; ; i = (i+1) & mask) {
+            CoreNSAwareAttribute attr = table[i];
+            if (attr == null) {
+                return null;
+            } else if (hashes[i] == hash && matches(attr, namespaceURI, localName)) {
+                return attr;
+            }
+        }
+    }
+
+    /**
+     * Update the index after an attribute has been appended to the list.
+     * 
+     * @param attr
+     *            the new attribute
+     */
+    public void added(CoreAttribute attr) {
+        count++;
+        last = attr;
+        index(attr, true);
+    }
+
+    /**
+     * Update the index after an attribute has been removed from the list.
+     * 
+     * @param attr
+     *            the removed attribute
+     * @param previousAttr
+     *            the attribute that preceded the removed attribute, or <code>null</code> if it was
+     *            the first attribute
+     */
+    public void removed(CoreAttribute attr, CoreAttribute previousAttr) {
+        count--;
+        if (attr == last) {
+            last = previousAttr;
+        }
+        unindex(attr);
+    }
+
+    /**
+     * Update the index after an attribute has been replaced by another attribute at the same
+     * position in the list.
+     * 
+     * @param oldAttr
+     *            the attribute that was replaced
+     * @param newAttr
+     *            the new attribute
+     */
+    public void replaced(CoreAttribute oldAttr, CoreAttribute newAttr) {
+        if (oldAttr == last) {
+            last = newAttr;
+        }
+        unindex(oldAttr);
+        index(newAttr, false);
+    }
+
+    private static int hash(String namespaceURI, String localName) {
+        int h = 31*localName.hashCode() + namespaceURI.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(CoreNSAwareAttribute attr, String namespaceURI, String localName) {
+        return localName.equals(attr.coreGetLocalName()) && namespaceURI.equals(attr.coreGetNamespaceURI());
+    }
+
+    private void index(CoreAttribute attr, boolean append) {
+        if (attr instanceof CoreNSUnawareAttribute) {
+            nsUnawareCount++;
+        } else if (valid && attr instanceof CoreNSAwareAttribute) {
+            CoreNSAwareAttribute nsAwareAttr = (CoreNSAwareAttribute)attr;
+            String namespaceURI = nsAwareAttr.coreGetNamespaceURI();
+            String localName = nsAwareAttr.coreGetLocalName();
+            if (2*(size+1) > table.length) {
+                resize();
+            }
+            int mask = table.length-1;
+            int hash = hash(namespaceURI, localName);
+            int i = hash & mask;
+            while (table[i] != null) {
+                if (hashes[i] == hash && matches(table[i], namespaceURI, localName)) {
+                    // There are multiple attributes with the same name. If the new attribute has
+                    // been appended, then the existing entry is still the first one. Otherwise we
+                    // don't know the relative order of the two attributes.
+                    duplicates = true;
+                    if (!append) {
+                        valid = false;
+                    }
+                    return;
+                }
+                i = (i+1) & mask;
+            }
+            table[i] = nsAwareAttr;
+            hashes[i] = hash;
+            size++;
+        }
+    }
+
+    private void unindex(CoreAttribute attr) {
+        if (attr instanceof CoreNSUnawareAttribute) {
+            nsUnawareCount--;
+        } else if (valid && attr instanceof CoreNSAwareAttribute) {
+            int mask = table.length-1;
+            int i = hash(((CoreNSAwareAttribute)attr).coreGetNamespaceURI(),
+                    ((CoreNSAwareAttribute)attr).coreGetLocalName()) & mask;
+            while (table[i] != attr) {
+                if (table[i] == null) {
+                    // The attribute has been renamed without invalidating the index
+                    valid = false;
+                    return;
+                }
+                i = (i+1) & mask;
+            }
+            if (duplicates) {
+                // Another attribute with the same name may need to take the place of the removed
+                // attribute
+                valid = false;
+                return;
+            }
+            // Backward shift deletion
+            table[i] = null;
+            size--;
+            int j = i;
+            while (true) {
+                j = (j+1) & mask;
+                if (table[j] == null) {
+                    break;
+                }
+                int k = hashes[j] & mask;
+                if (i <= j ? i < k && k <= j : i < k || k <= j) {
+                    continue;
+                }
+                table[i] = table[j];
+                hashes[i] = hashes[j];
+                table[j] = null;
+                i = j;
+            }
+        }
+    }
+
+    private void resize() {
+        CoreNSAwareAttribute[] oldTable = table;
+        int[] oldHashes = hashes;
+        table = new CoreNSAwareAttribute[oldTable.length*2];
+        hashes = new int[oldTable.length*2];
+        int mask = table.length-1;
+        for (int i=0; i<oldTable.length; i++) {
+            CoreNSAwareAttribute attr = oldTable[i];
+            if (attr != null) {
+                int j = oldHashes[i] & mask;
+                while (table[j] != null) {
+                    j = (j+1) & mask;
+                }
+                table[j] = attr;
+                hashes[j] = oldHashes[i];
+            }
+        }
+    }
+}
@@ -44,4 +44,10 @@ public final class Flags {
      * Used to store the information returned by {@link CoreCharacterDataNode#coreIsIgnorable()}.
      */
     public static final int IGNORABLE = 32;
+    
+    /**
+     * Used by {@link CoreParentNode} instances to indicate that modifications must be reported to
+     * {@link CoreParentNode#modified()}. See {@link CoreParentNode#coreSetMonitored(boolean)}.
+     */
+    public static final int MONITORED = 64;
 }
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.dom;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.w3c.dom.Node;
+
+/**
+ * The list returned by {@link Node#getChildNodes()} for nodes that may have children.
+ */
+public final class ChildNodeList extends NodeListImpl {
+    public ChildNodeList(DOMParentNode node) {
+        super(node);
+    }
+
+    @Override
+    protected Iterator<? extends Node> createIterator() {
+        final Node firstChild = getNode().getFirstChild();
+        return new Iterator<Node>() {
+            private Node next = firstChild;
+            
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Node next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Node node = next;
+                next = node.getNextSibling();
+                return node;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
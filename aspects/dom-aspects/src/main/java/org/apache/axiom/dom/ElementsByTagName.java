@@ -26,16 +26,16 @@ import org.apache.axiom.core.Mappers;
 import org.w3c.dom.Node;
 
 public class ElementsByTagName extends NodeListImpl {
-    private final DOMParentNode node;
     private final String tagname;
     
     public ElementsByTagName(DOMParentNode node, String tagname) {
-        this.node = node;
+        super(node);
         this.tagname = tagname;
     }
 
     @Override
     protected Iterator<? extends Node> createIterator() {
+        DOMParentNode node = getNode();
         if (tagname.equals("*")) {
             return node.coreGetElements(Axis.DESCENDANTS, DOMElement.class, ElementMatcher.ANY, null, null, Mappers.<Node>identity(), DOMSemantics.INSTANCE);
         } else {
@@ -26,12 +26,11 @@ import org.apache.axiom.core.Mappers;
 import org.w3c.dom.Node;
 
 public class ElementsByTagNameNS extends NodeListImpl {
-    private final DOMParentNode node;
     private final String namespaceURI;
     private final String localName;
     
     public ElementsByTagNameNS(DOMParentNode node, String namespaceURI, String localName) {
-        this.node = node;
+        super(node);
         this.namespaceURI = namespaceURI == null ? "" : namespaceURI;
         this.localName = localName;
     }
@@ -40,6 +39,7 @@ public class ElementsByTagNameNS extends NodeListImpl {
     protected Iterator<? extends Node> createIterator() {
         boolean nsWildcard = "*".equals(namespaceURI);
         boolean localNameWildcard = localName.equals("*");
+        DOMParentNode node = getNode();
         if (nsWildcard && localNameWildcard) {
             // TODO: there seems to be no unit test checking whether the iterator should return DOM1 elements!
             return node.coreGetElements(Axis.DESCENDANTS, DOMElement.class, ElementMatcher.ANY, null, null, Mappers.<Node>identity(), DOMSemantics.INSTANCE);
@@ -16,31 +16,100 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-
 package org.apache.axiom.dom;
 
+import org.apache.axiom.core.CoreDocument;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import java.util.Iterator;
 
-/** Implementation of org.w3c.dom.NodeList */
+/**
+ * Implementation of org.w3c.dom.NodeList for live lists of nodes selected from the subtree of a
+ * given node. The nodes are materialized lazily and cached together with the iterator used to
+ * retrieve them, so that the usual access pattern (calling {@link #getLength()} and
+ * {@link #item(int)} in a loop) is linear instead of quadratic. The cache is discarded when the
+ * structure version of the owner document changes (see
+ * {@link CoreDocument#coreGetStructureVersion()}).
+ */
 public abstract class NodeListImpl implements NodeList {
+    private static final Node[] EMPTY = new Node[0];
+    
+    private final DOMParentNode node;
+    
+    /**
+     * The document for which the cache has been built, or <code>null</code> if there is no cache.
+     */
+    private CoreDocument document;
+    
+    private int structureVersion;
+    
+    /**
+     * The nodes materialized so far.
+     */
+    private Node[] nodes = EMPTY;
+    
+    private int size;
+    
+    /**
+     * The iterator used to materialize the remaining nodes, or <code>null</code> if all nodes have
+     * been materialized.
+     */
+    private Iterator<? extends Node> iterator;
+    
+    protected NodeListImpl(DOMParentNode node) {
+        this.node = node;
+    }
+    
+    protected final DOMParentNode getNode() {
+        return node;
+    }
+    
     protected abstract Iterator<? extends Node> createIterator();
 
+    private void validate() {
+        CoreDocument document = node.coreGetOwnerDocument(true);
+        int structureVersion = document.coreGetStructureVersion();
+        if (document != this.document || structureVersion != this.structureVersion) {
+            this.document = document;
+            this.structureVersion = structureVersion;
+            nodes = EMPTY;
+            size = 0;
+            iterator = createIterator();
+        }
+    }
+    
+    /**
+     * Materialize nodes until the node with the given index is available or there are no more
+     * nodes.
+     * 
+     * @param index
+     *            the index of the node
+     */
+    private void materialize(int index) {
+        while (size <= index && iterator != null) {
+            if (iterator.hasNext()) {
+                if (size == nodes.length) {
+                    Node[] newNodes = new Node[Math.max(16, nodes.length*2)];
+                    System.arraycopy(nodes, 0, newNodes, 0, size);
+                    nodes = newNodes;
+                }
+                nodes[size++] = iterator.next();
+            } else {
+                iterator = null;
+            }
+        }
+    }
+
     /**
      * Returns the number of nodes.
      *
      * @see org.w3c.dom.NodeList#getLength()
      */
     public int getLength() {
-        Iterator<? extends Node> children = createIterator();
-        int count = 0;
-        while (children.hasNext()) {
-            count++;
-            children.next();
-        }
-        return count;
+        validate();
+        materialize(Integer.MAX_VALUE);
+        return size;
     }
 
     /**
@@ -49,16 +118,11 @@ public abstract class NodeListImpl implements NodeList {
      * @see org.w3c.dom.NodeList#item(int)
      */
     public Node item(int index) {
-        Iterator<? extends Node> children = createIterator();
-        int count = 0;
-        while (children.hasNext()) {
-            if (count == index) {
-                return children.next();
-            } else {
-                children.next();
-            }
-            count++;
+        if (index < 0) {
+            return null;
         }
-        return null;
+        validate();
+        materialize(index);
+        return index < size ? nodes[index] : null;
     }
 }
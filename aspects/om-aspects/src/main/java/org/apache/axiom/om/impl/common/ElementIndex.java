@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.core.Axis;
+import org.apache.axiom.core.CoreAttribute;
+import org.apache.axiom.core.Mappers;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.impl.intf.AxiomAttribute;
+import org.apache.axiom.om.impl.intf.AxiomDocument;
+import org.apache.axiom.om.impl.intf.AxiomElement;
+
+/**
+ * Index of the elements of a {@link AxiomDocument} by ID and by name. The index is built by a
+ * single pass over the document (which builds the document completely). While doing so, it
+ * enables modification monitoring (see
+ * {@link org.apache.axiom.core.CoreParentNode#coreSetMonitored(boolean)}) on the document and all
+ * elements, so that the document can discard the index as soon as the tree is modified.
+ * <p>
+ * The iterators returned by this class operate on a snapshot and are therefore not affected by
+ * changes to the document.
+ */
+public final class ElementIndex {
+    private final Map<String,OMElement> elementsById = new HashMap<String,OMElement>();
+    private final Map<QName,List<OMElement>> elementsByName = new HashMap<QName,List<OMElement>>();
+
+    public ElementIndex(AxiomDocument document) {
+        document.coreSetMonitored(true);
+        for (Iterator<AxiomElement> it = document.coreGetNodes(Axis.DESCENDANTS, AxiomElement.class,
+                Mappers.<AxiomElement>identity(), AxiomSemantics.INSTANCE); it.hasNext(); ) {
+            AxiomElement element = it.next();
+            element.coreSetMonitored(true);
+            QName name = new QName(element.coreGetNamespaceURI(), element.coreGetLocalName());
+            List<OMElement> elements = elementsByName.get(name);
+            if (elements == null) {
+                elements = new ArrayList<OMElement>(4);
+                elementsByName.put(name, elements);
+            }
+            elements.add(element);
+            CoreAttribute attr = element.coreGetFirstAttribute();
+            while (attr != null) {
+                if (attr instanceof AxiomAttribute) {
+                    String id = getId((AxiomAttribute)attr);
+                    if (id != null && !elementsById.containsKey(id)) {
+                        elementsById.put(id, element);
+                    }
+                }
+                attr = attr.coreGetNextAttribute();
+            }
+        }
+    }
+
+    /**
+     * Get the ID defined by the given attribute.
+     * 
+     * @param attr
+     *            the attribute
+     * @return the ID, or {@code null} if the attribute is not an ID attribute
+     */
+    public static String getId(AxiomAttribute attr) {
+        if ("ID".equals(attr.getAttributeType())
+                || (attr.getLocalName().equals("id")
+                        && XMLConstants.XML_NS_URI.equals(attr.coreGetNamespaceURI()))) {
+            return attr.getAttributeValue();
+        } else {
+            return null;
+        }
+    }
+
+    public OMElement getElementById(String id) {
+        return elementsById.get(id);
+    }
+
+    public Iterator<OMElement> getElementsByName(QName name) {
+        List<OMElement> elements = elementsByName.get(name);
+        return elements == null ? Collections.<OMElement>emptyList().iterator()
+                : Collections.unmodifiableList(elements).iterator();
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common;
+
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.util.xml.CacheCounters;
+import org.apache.axiom.util.xml.InterningStats;
+import org.apache.axiom.util.xml.NamespaceURIInterner;
+
+/**
+ * Optional process-wide table of {@link OMNamespace} instances. If enabled, builders (on a miss
+ * in their own {@link org.apache.axiom.om.impl.common.builder.OMNamespaceCache}) and
+ * {@link org.apache.axiom.om.OMFactory#createOMNamespace(String, String)} return shared instances,
+ * so that the namespaces used by every message (SOAP, WS-Addressing, WS-Security, etc.) are only
+ * allocated once and can be compared by reference.
+ * <p>
+ * The table is set associative (with 4 entries per set), lock free and bounded. It is configured
+ * using the following system properties (which are read once, when the class is initialized):
+ * <dl>
+ * <dt>{@value #ENABLED_PROPERTY}
+ * <dd>Enables the table. This is disabled by default.
+ * <dt>{@value #SIZE_PROPERTY}
+ * <dd>The number of entries. The value is rounded up to a power of two. The default is 512.
+ * <dt>{@value #STATISTICS_PROPERTY}
+ * <dd>Enables the statistics returned by {@link #getStats()}. Disabled by default.
+ * </dl>
+ */
+public final class OMNamespaceInterner {
+    /**
+     * System property that enables the table.
+     */
+    public static final String ENABLED_PROPERTY = "org.apache.axiom.om.impl.common.OMNamespaceInterner.enabled";
+    
+    /**
+     * System property that specifies the number of entries.
+     */
+    public static final String SIZE_PROPERTY = "org.apache.axiom.om.impl.common.OMNamespaceInterner.size";
+    
+    /**
+     * System property that enables the collection of statistics.
+     */
+    public static final String STATISTICS_PROPERTY = "org.apache.axiom.om.impl.common.OMNamespaceInterner.statistics";
+    
+    private static final int WAYS = 4;
+    private static final int MAX_SIZE = 1 << 16;
+    
+    /**
+     * A set associative table of {@link OMNamespace} instances. The table is not synchronized:
+     * {@link OMNamespaceImpl} is immutable and its fields are final, so that a thread reading a slot
+     * always sees a fully initialized instance, and races between concurrent updates only cause
+     * entries to be lost.
+     */
+    static final class Table {
+        private final OMNamespace[] entries;
+        private final int setMask;
+        
+        /**
+         * The statistics counters, or <code>null</code> if statistics are disabled. The table is
+         * only consulted when a namespace is not found in the (per builder) namespace cache, so
+         * that a single stripe is enough.
+         */
+        private final CacheCounters counters;
+        
+        Table(int size, boolean statistics) {
+            size = Math.max(WAYS, Math.min(MAX_SIZE, size));
+            int roundedSize = Integer.highestOneBit(size);
+            if (roundedSize != size) {
+                roundedSize <<= 1;
+            }
+            entries = new OMNamespace[roundedSize];
+            setMask = roundedSize/WAYS - 1;
+            counters = statistics ? new CacheCounters(1) : null;
+        }
+        
+        OMNamespace get(String uri, String prefix) {
+            int h = uri.hashCode()*31 + prefix.hashCode();
+            int base = ((h ^ (h >>> 16)) & setMask) * WAYS;
+            int end = base + WAYS;
+            for (int i=base; i<end; i++) {
+                OMNamespace ns = entries[i];
+                if (ns == null) {
+                    break;
+                }
+                if (ns.getNamespaceURI().equals(uri) && ns.getPrefix().equals(prefix)) {
+                    if (counters != null) {
+                        counters.hit();
+                    }
+                    return ns;
+                }
+            }
+            OMNamespace ns = new OMNamespaceImpl(NamespaceURIInterner.intern(uri), prefix);
+            boolean evicted = entries[end-1] != null;
+            System.arraycopy(entries, base, entries, base+1, WAYS-1);
+            entries[base] = ns;
+            if (counters != null) {
+                counters.miss(evicted);
+            }
+            return ns;
+        }
+        
+        boolean isStatisticsEnabled() {
+            return counters != null;
+        }
+        
+        InterningStats getStats() {
+            return counters == null ? new InterningStats(0, 0, 0)
+                    : new InterningStats(counters.getHits(), counters.getMisses(), counters.getEvictions());
+        }
+        
+        void resetStats() {
+            if (counters != null) {
+                counters.reset();
+            }
+        }
+    }
+    
+    /**
+     * The process-wide table, or <code>null</code> if the table is disabled.
+     */
+    private static final Table table;
+    
+    static {
+        if (Boolean.parseBoolean(getProperty(ENABLED_PROPERTY))) {
+            int size = 512;
+            String value = getProperty(SIZE_PROPERTY);
+            if (value != null) {
+                try {
+                    size = Integer.parseInt(value.trim());
+                } catch (NumberFormatException ex) {
+                    // Use the default
+                }
+            }
+            table = new Table(size, Boolean.parseBoolean(getProperty(STATISTICS_PROPERTY)));
+        } else {
+            table = null;
+        }
+    }
+    
+    private OMNamespaceInterner() {}
+    
+    private static String getProperty(String name) {
+        try {
+            return System.getProperty(name);
+        } catch (SecurityException ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Determine whether the table has been enabled using the {@value #ENABLED_PROPERTY} system
+     * property.
+     * 
+     * @return <code>true</code> if the table is enabled, <code>false</code> otherwise
+     */
+    public static boolean isEnabled() {
+        return table != null;
+    }
+    
+    /**
+     * Get an {@link OMNamespace} instance for the given namespace URI and prefix. If the table is
+     * enabled, this returns a shared instance; otherwise a new instance is created.
+     * 
+     * @param uri
+     *            the namespace URI
+     * @param prefix
+     *            the prefix; may be <code>null</code>, in which case a new (non shared) instance is
+     *            returned
+     * @return the {@link OMNamespace} instance
+     */
+    public static OMNamespace getOMNamespace(String uri, String prefix) {
+        if (table == null || uri == null || prefix == null) {
+            return new OMNamespaceImpl(uri, prefix);
+        } else {
+            return table.get(uri, prefix);
+        }
+    }
+    
+    /**
+     * Determine whether the collection of statistics has been enabled using the
+     * {@value #STATISTICS_PROPERTY} system property.
+     * 
+     * @return <code>true</code> if statistics are collected, <code>false</code> otherwise
+     */
+    public static boolean isStatisticsEnabled() {
+        return table != null && table.isStatisticsEnabled();
+    }
+    
+    /**
+     * Get a snapshot of the statistics. If the table or the collection of statistics is not
+     * enabled, all counters are zero.
+     * 
+     * @return the statistics
+     */
+    public static InterningStats getStats() {
+        return table == null ? new InterningStats(0, 0, 0) : table.getStats();
+    }
+    
+    /**
+     * Reset the statistics.
+     */
+    public static void resetStats() {
+        if (table != null) {
+            table.resetStats();
+        }
+    }
+}
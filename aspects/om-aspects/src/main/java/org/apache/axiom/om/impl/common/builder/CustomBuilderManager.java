@@ -19,12 +19,15 @@
 package org.apache.axiom.om.impl.common.builder;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import org.apache.axiom.core.CoreModelException;
 import org.apache.axiom.core.CoreNode;
 import org.apache.axiom.core.impl.builder.BuilderListener;
+import org.apache.axiom.om.OMContainer;
 import org.apache.axiom.om.OMDataSource;
 import org.apache.axiom.om.ds.custombuilder.CustomBuilder;
+import org.apache.axiom.om.ds.custombuilder.ElementNameSelector;
 import org.apache.axiom.om.impl.common.AxiomExceptionTranslator;
 import org.apache.axiom.om.impl.common.AxiomSemantics;
 import org.apache.axiom.om.impl.common.OMNamespaceImpl;
@@ -40,78 +43,96 @@ import org.apache.commons.logging.LogFactory;
 final class CustomBuilderManager implements BuilderListener {
     private static final Log log = LogFactory.getLog(CustomBuilderManager.class);
     
-    private ArrayList<CustomBuilderRegistration> registrations;
+    private int registrationCount;
+    /**
+     * Registrations with an {@link ElementNameSelector}, indexed by local name. Each list is
+     * ordered by registration index.
+     */
+    private HashMap<String,ArrayList<CustomBuilderRegistration>> registrationsByLocalName;
+    /**
+     * Registrations with arbitrary selectors, ordered by registration index.
+     */
+    private ArrayList<CustomBuilderRegistration> otherRegistrations;
     private AxiomElement lastCandidateElement;
     private int lastCandidateDepth = -1;
     
     void register(CustomBuilder.Selector selector, CustomBuilder customBuilder) {
-        if (registrations == null) {
-            registrations = new ArrayList<CustomBuilderRegistration>();
+        CustomBuilderRegistration registration = new CustomBuilderRegistration(selector, customBuilder, registrationCount++);
+        if (selector instanceof ElementNameSelector) {
+            if (registrationsByLocalName == null) {
+                registrationsByLocalName = new HashMap<String,ArrayList<CustomBuilderRegistration>>();
+            }
+            String localName = ((ElementNameSelector)selector).getLocalName();
+            ArrayList<CustomBuilderRegistration> list = registrationsByLocalName.get(localName);
+            if (list == null) {
+                list = new ArrayList<CustomBuilderRegistration>(1);
+                registrationsByLocalName.put(localName, list);
+            }
+            list.add(registration);
+        } else {
+            if (otherRegistrations == null) {
+                otherRegistrations = new ArrayList<CustomBuilderRegistration>();
+            }
+            otherRegistrations.add(registration);
         }
-        registrations.add(new CustomBuilderRegistration(selector, customBuilder));
         // Try to apply the new custom builder to the element currently being built (unless it has
         // already been processed by another custom builder). This is important for custom builders
         // used to process the payload of a SOAP message: by the time the custom builder is
         // registered the payload root element may already have been created (e.g. because code
         // executed before the custom builder registration may have checked if the payload is a
         // SOAP fault).
-        if (lastCandidateElement != null) {
-            Runnable action = getAction(lastCandidateElement, lastCandidateDepth, registrations.size()-1);
-            if (action != null) {
-                action.run();
+        AxiomElement element = lastCandidateElement;
+        if (element != null) {
+            int depth = lastCandidateDepth;
+            String namespaceURI = element.coreGetNamespaceURI();
+            String localName = element.coreGetLocalName();
+            if (selector.accepts(element.getParent(), depth, namespaceURI, localName)) {
+                lastCandidateElement = null;
+                lastCandidateDepth = -1;
+                createAction(element, namespaceURI, localName, depth, customBuilder).run();
             }
         }
     }
     
     @Override
     public Runnable nodeAdded(CoreNode node, int depth) {
-        return getAction(node, depth, 0);
-    }
-    
-    private Runnable getAction(CoreNode node, int depth, int firstCustomBuilder) {
         lastCandidateElement = null;
         lastCandidateDepth = -1;
         if (node instanceof AxiomElement && (node instanceof AxiomSOAPHeaderBlock || !(node instanceof AxiomSOAPElement))) {
-            final AxiomElement element = (AxiomElement)node;
-            if (registrations != null) {
-                for (int i=firstCustomBuilder; i<registrations.size(); i++) {
-                    CustomBuilderRegistration registration = registrations.get(i);
-                    final String namespaceURI = element.coreGetNamespaceURI();
-                    final String localName = element.coreGetLocalName();
-                    if (registration.getSelector().accepts(element.getParent(), depth, namespaceURI, localName)) {
-                        final CustomBuilder customBuilder = registration.getCustomBuilder();
-                        if (log.isDebugEnabled()) {
-                            log.debug("Custom builder " + customBuilder + " accepted element {" + namespaceURI + "}" + localName + " at depth " + depth);
-                        }
-                        return new Runnable() {
-                            @Override
-                            public void run() {
-                                if (log.isDebugEnabled()) {
-                                    log.debug("Invoking custom builder " + customBuilder);
-                                }
-                                OMDataSource dataSource = customBuilder.create(element);
-                                Class<? extends AxiomSourcedElement> type;
-                                if (element instanceof AxiomSOAP11HeaderBlock) {
-                                    type = AxiomSOAP11HeaderBlock.class;
-                                } else if (element instanceof AxiomSOAP12HeaderBlock) {
-                                    type = AxiomSOAP12HeaderBlock.class;
-                                } else {
-                                    type = AxiomSourcedElement.class;
-                                }
-                                if (log.isDebugEnabled()) {
-                                    log.debug("Replacing element with new sourced element of type " + type);
-                                }
-                                AxiomSourcedElement newElement = element.coreCreateNode(type);
-                                newElement.init(localName, new OMNamespaceImpl(namespaceURI, null), dataSource);
-                                try {
-                                    element.coreReplaceWith(newElement, AxiomSemantics.INSTANCE);
-                                } catch (CoreModelException ex) {
-                                    throw AxiomExceptionTranslator.translate(ex);
-                                }
+            AxiomElement element = (AxiomElement)node;
+            if (registrationCount != 0) {
+                String namespaceURI = element.coreGetNamespaceURI();
+                String localName = element.coreGetLocalName();
+                OMContainer parent = element.getParent();
+                CustomBuilderRegistration match = null;
+                if (registrationsByLocalName != null) {
+                    ArrayList<CustomBuilderRegistration> candidates = registrationsByLocalName.get(localName);
+                    if (candidates != null) {
+                        for (int i=0; i<candidates.size(); i++) {
+                            CustomBuilderRegistration registration = candidates.get(i);
+                            if (registration.getSelector().accepts(parent, depth, namespaceURI, localName)) {
+                                match = registration;
+                                break;
                             }
-                        };
+                        }
+                    }
+                }
+                if (otherRegistrations != null) {
+                    // Only registrations that precede the match found above need to be evaluated
+                    for (int i=0; i<otherRegistrations.size(); i++) {
+                        CustomBuilderRegistration registration = otherRegistrations.get(i);
+                        if (match != null && registration.getIndex() > match.getIndex()) {
+                            break;
+                        }
+                        if (registration.getSelector().accepts(parent, depth, namespaceURI, localName)) {
+                            match = registration;
+                            break;
+                        }
                     }
                 }
+                if (match != null) {
+                    return createAction(element, namespaceURI, localName, depth, match.getCustomBuilder());
+                }
             }
             // Save a reference to the element so that we can process it when another custom builder is registered
             lastCandidateElement = element;
@@ -119,4 +140,38 @@ final class CustomBuilderManager implements BuilderListener {
         }
         return null;
     }
+    
+    private static Runnable createAction(final AxiomElement element, final String namespaceURI,
+            final String localName, int depth, final CustomBuilder customBuilder) {
+        if (log.isDebugEnabled()) {
+            log.debug("Custom builder " + customBuilder + " accepted element {" + namespaceURI + "}" + localName + " at depth " + depth);
+        }
+        return new Runnable() {
+            @Override
+            public void run() {
+                if (log.isDebugEnabled()) {
+                    log.debug("Invoking custom builder " + customBuilder);
+                }
+                OMDataSource dataSource = customBuilder.create(element);
+                Class<? extends AxiomSourcedElement> type;
+                if (element instanceof AxiomSOAP11HeaderBlock) {
+                    type = AxiomSOAP11HeaderBlock.class;
+                } else if (element instanceof AxiomSOAP12HeaderBlock) {
+                    type = AxiomSOAP12HeaderBlock.class;
+                } else {
+                    type = AxiomSourcedElement.class;
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Replacing element with new sourced element of type " + type);
+                }
+                AxiomSourcedElement newElement = element.coreCreateNode(type);
+                newElement.init(localName, new OMNamespaceImpl(namespaceURI, null), dataSource);
+                try {
+                    element.coreReplaceWith(newElement, AxiomSemantics.INSTANCE);
+                } catch (CoreModelException ex) {
+                    throw AxiomExceptionTranslator.translate(ex);
+                }
+            }
+        };
+    }
 }
@@ -24,10 +24,12 @@ import org.apache.axiom.om.ds.custombuilder.CustomBuilder.Selector;
 final class CustomBuilderRegistration {
     private final CustomBuilder.Selector selector;
     private final CustomBuilder customBuilder;
+    private final int index;
     
-    CustomBuilderRegistration(Selector selector, CustomBuilder customBuilder) {
+    CustomBuilderRegistration(Selector selector, CustomBuilder customBuilder, int index) {
         this.selector = selector;
         this.customBuilder = customBuilder;
+        this.index = index;
     }
 
     CustomBuilder.Selector getSelector() {
@@ -37,4 +39,14 @@ final class CustomBuilderRegistration {
     CustomBuilder getCustomBuilder() {
         return customBuilder;
     }
+
+    /**
+     * Get the position of this registration in the sequence of registrations. If more than one
+     * selector accepts an element, the one registered first wins.
+     * 
+     * @return the registration index
+     */
+    int getIndex() {
+        return index;
+    }
 }
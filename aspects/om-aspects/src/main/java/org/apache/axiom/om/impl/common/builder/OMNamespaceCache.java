@@ -19,7 +19,7 @@
 package org.apache.axiom.om.impl.common.builder;
 
 import org.apache.axiom.om.OMNamespace;
-import org.apache.axiom.om.impl.common.OMNamespaceImpl;
+import org.apache.axiom.om.impl.common.OMNamespaceInterner;
 
 public final class OMNamespaceCache {
     private OMNamespace[] items = new OMNamespace[16];
@@ -51,7 +51,7 @@ public final class OMNamespaceCache {
             }
             index = freeIndex(uri, prefix);
         }
-        OMNamespace ns = new OMNamespaceImpl(uri, prefix);
+        OMNamespace ns = OMNamespaceInterner.getOMNamespace(uri, prefix);
         items[index] = ns;
         size++;
         return ns;
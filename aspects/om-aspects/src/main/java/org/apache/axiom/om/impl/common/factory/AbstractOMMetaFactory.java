@@ -21,6 +21,8 @@ package org.apache.axiom.om.impl.common.factory;
 import static org.apache.axiom.om.impl.common.factory.BuilderFactory.OM;
 import static org.apache.axiom.om.impl.common.factory.BuilderFactory.SOAP;
 
+import java.util.List;
+
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.Source;
 import javax.xml.transform.sax.SAXSource;
@@ -28,10 +30,12 @@ import javax.xml.transform.sax.SAXSource;
 import org.apache.axiom.core.NodeFactory;
 import org.apache.axiom.mime.MultipartBody;
 import org.apache.axiom.om.OMAttachmentAccessor;
+import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMMetaFactory;
 import org.apache.axiom.om.OMMetaFactorySPI;
 import org.apache.axiom.om.OMXMLParserWrapper;
 import org.apache.axiom.om.util.StAXParserConfiguration;
+import org.apache.axiom.om.xpath.StreamingXPath;
 import org.apache.axiom.soap.SOAPModelBuilder;
 import org.w3c.dom.Node;
 import org.xml.sax.InputSource;
@@ -92,6 +96,11 @@ public abstract class AbstractOMMetaFactory implements OMMetaFactorySPI {
         return SOAP.createBuilder(nodeFactory, BuilderSpec.from(StAXParserConfiguration.SOAP, is));
     }
 
+    @Override
+    public SOAPModelBuilder createSOAPModelBuilderWithRawBody(InputSource is) {
+        return SOAP.createBuilder(nodeFactory, BuilderSpec.fromRawBody(StAXParserConfiguration.SOAP, is));
+    }
+
     @Override
     public SOAPModelBuilder createSOAPModelBuilder(Source source) {
         return SOAP.createBuilder(nodeFactory, BuilderSpec.from(StAXParserConfiguration.SOAP, source));
@@ -106,4 +115,14 @@ public abstract class AbstractOMMetaFactory implements OMMetaFactorySPI {
     public SOAPModelBuilder createSOAPModelBuilder(Source rootPart, OMAttachmentAccessor attachmentAccessor) {
         return SOAP.createBuilder(nodeFactory, BuilderSpec.from(StAXParserConfiguration.SOAP, rootPart, attachmentAccessor));
     }
+
+    @Override
+    public List<OMElement> selectElements(StreamingXPath xpath, Source source, int maxResults) {
+        return StreamingXPathEvaluator.selectElements(nodeFactory, xpath, source, maxResults);
+    }
+
+    @Override
+    public List<String> selectStringValues(StreamingXPath xpath, Source source, int maxResults) {
+        return StreamingXPathEvaluator.selectStringValues(xpath, source, maxResults);
+    }
 }
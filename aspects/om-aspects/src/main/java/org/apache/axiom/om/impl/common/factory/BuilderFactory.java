@@ -28,9 +28,12 @@ import org.apache.axiom.om.OMXMLParserWrapper;
 import org.apache.axiom.om.impl.common.builder.OMXMLParserWrapperImpl;
 import org.apache.axiom.soap.SOAPFactory;
 import org.apache.axiom.soap.SOAPModelBuilder;
+import org.apache.axiom.soap.impl.common.builder.RawSOAPBody;
+import org.apache.axiom.soap.impl.common.builder.RawSOAPBodyInput;
 import org.apache.axiom.soap.impl.common.builder.SOAPFilter;
 import org.apache.axiom.soap.impl.common.builder.SOAPModel;
 import org.apache.axiom.soap.impl.common.builder.SOAPModelBuilderImpl;
+import org.apache.axiom.soap.impl.intf.AxiomSOAPBody;
 import org.apache.axiom.soap.impl.intf.AxiomSOAPEnvelope;
 import org.apache.axiom.soap.impl.intf.AxiomSOAPMessage;
 
@@ -45,8 +48,9 @@ abstract class BuilderFactory<T extends OMXMLParserWrapper> {
 
     final static BuilderFactory<SOAPModelBuilder> SOAP = new BuilderFactory<SOAPModelBuilder>() {
         @Override
-        SOAPModelBuilder createBuilder(NodeFactory nodeFactory, BuilderSpec spec) {
-            BuilderImpl builder = new BuilderImpl(new FilteredXmlInput(spec.getInput(), SOAPFilter.INSTANCE), nodeFactory, new SOAPModel(), null);
+        SOAPModelBuilder createBuilder(final NodeFactory nodeFactory, BuilderSpec spec) {
+            final SOAPModel model = new SOAPModel();
+            final BuilderImpl builder = new BuilderImpl(new FilteredXmlInput(spec.getInput(), SOAPFilter.INSTANCE), nodeFactory, model, null);
             // The SOAPFactory instance linked to the SOAPMessage is unknown until we reach the
             // SOAPEnvelope. Register a post-processor that does the necessary updates on the
             // SOAPMessage.
@@ -63,6 +67,33 @@ abstract class BuilderFactory<T extends OMXMLParserWrapper> {
                     return null;
                 }
             });
+            if (spec.getInput() instanceof RawSOAPBodyInput) {
+                final RawSOAPBodyInput rawBodyInput = (RawSOAPBodyInput)spec.getInput();
+                // Once the end of the (apparently empty) SOAP body has been reached, attach a
+                // second builder that parses the captured body content on demand.
+                builder.addListener(new BuilderListener() {
+                    @Override
+                    public Runnable nodeAdded(CoreNode node, int depth) {
+                        if (!(node instanceof AxiomSOAPBody)) {
+                            return null;
+                        }
+                        final AxiomSOAPBody body = (AxiomSOAPBody)node;
+                        return new Runnable() {
+                            @Override
+                            public void run() {
+                                RawSOAPBody rawBody = rawBodyInput.getRawBody();
+                                if (rawBody != null) {
+                                    BuilderImpl contentBuilder = new BuilderImpl(
+                                            new FilteredXmlInput(rawBody.getContentInput(true), SOAPFilter.INSTANCE),
+                                            nodeFactory, model.createBodyContentModel(), body);
+                                    contentBuilder.setFacade(builder.getFacade());
+                                    body.initRawBody(rawBody, contentBuilder);
+                                }
+                            }
+                        };
+                    }
+                });
+            }
             return new SOAPModelBuilderImpl(builder, spec.getDetachable());
         }
     };
@@ -47,6 +47,7 @@ import org.apache.axiom.om.impl.stream.stax.pull.StAXPullInput;
 import org.apache.axiom.om.impl.stream.xop.XOPDecodingFilter;
 import org.apache.axiom.om.util.StAXParserConfiguration;
 import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.soap.impl.common.builder.RawSOAPBodyInput;
 import org.apache.axiom.util.stax.XMLFragmentStreamReader;
 import org.apache.axiom.util.xml.stream.XMLEventUtils;
 import org.w3c.dom.Node;
@@ -124,6 +125,20 @@ final class BuilderSpec {
         return new BuilderSpec(new StAXPullInput(reader, true, closeable), detachable);
     }
     
+    static BuilderSpec fromRawBody(StAXParserConfiguration configuration, InputSource is) {
+        InputStream in = is.getByteStream();
+        if (in == null || is.getSystemId() != null) {
+            return from(configuration, is);
+        }
+        DetachableInputStream detachableInputStream = new DetachableInputStream(in, false);
+        try {
+            return new BuilderSpec(new RawSOAPBodyInput(configuration, detachableInputStream,
+                    is.getEncoding()), detachableInputStream);
+        } catch (XMLStreamException ex) {
+            throw new OMException(ex);
+        }
+    }
+    
     static BuilderSpec from(XMLStreamReader reader) {
         int eventType = reader.getEventType();
         switch (eventType) {
@@ -49,6 +49,7 @@ import org.apache.axiom.om.OMText;
 import org.apache.axiom.om.impl.common.AxiomExceptionTranslator;
 import org.apache.axiom.om.impl.common.AxiomSemantics;
 import org.apache.axiom.om.impl.common.OMNamespaceImpl;
+import org.apache.axiom.om.impl.common.OMNamespaceInterner;
 import org.apache.axiom.om.impl.intf.AxiomAttribute;
 import org.apache.axiom.om.impl.intf.AxiomCDATASection;
 import org.apache.axiom.om.impl.intf.AxiomCharacterDataNode;
@@ -91,7 +92,7 @@ public class OMFactoryImpl implements OMFactory {
 
     @Override
     public final OMNamespace createOMNamespace(String uri, String prefix) {
-        return new OMNamespaceImpl(uri, prefix);
+        return OMNamespaceInterner.getOMNamespace(uri, prefix);
     }
     
     @Override
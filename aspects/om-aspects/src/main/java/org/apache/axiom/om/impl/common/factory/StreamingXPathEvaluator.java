@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common.factory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Source;
+
+import org.apache.axiom.core.NodeFactory;
+import org.apache.axiom.core.impl.builder.BuilderImpl;
+import org.apache.axiom.core.impl.builder.PlainXMLModel;
+import org.apache.axiom.core.stream.NullXmlHandler;
+import org.apache.axiom.core.stream.StreamException;
+import org.apache.axiom.core.stream.XmlHandler;
+import org.apache.axiom.core.stream.XmlInput;
+import org.apache.axiom.core.stream.XmlHandlerWrapper;
+import org.apache.axiom.core.stream.XmlReader;
+import org.apache.axiom.core.stream.util.CharacterDataAccumulator;
+import org.apache.axiom.core.stream.xpath.StreamingXPathExpression;
+import org.apache.axiom.core.stream.xpath.XPathFilterHandler;
+import org.apache.axiom.core.stream.xpath.XPathMatchHandler;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.impl.common.builder.OMXMLParserWrapperImpl;
+import org.apache.axiom.om.util.StAXParserConfiguration;
+import org.apache.axiom.om.xpath.StreamingXPath;
+
+/**
+ * Evaluates {@link StreamingXPath} expressions using {@link XPathFilterHandler}. Only the
+ * selected elements are built; all other events are discarded.
+ */
+final class StreamingXPathEvaluator {
+    /**
+     * {@link XmlInput} implementation that is used to get hold of the {@link XmlHandler} of a
+     * {@link BuilderImpl}, so that events can be pushed to the builder instead of having the
+     * builder pull them.
+     */
+    private static final class PushInput implements XmlInput {
+        XmlHandler handler;
+
+        @Override
+        public XmlReader createReader(XmlHandler handler) {
+            this.handler = handler;
+            return new XmlReader() {
+                @Override
+                public boolean proceed() throws StreamException {
+                    throw new IllegalStateException();
+                }
+
+                @Override
+                public void dispose() {
+                }
+            };
+        }
+    }
+
+    /**
+     * Collects the string value of a selected element, i.e. the concatenation of its text nodes.
+     */
+    private static final class StringValueHandler extends XmlHandlerWrapper {
+        private final List<String> results;
+        private final int index;
+        private final CharacterDataAccumulator buffer = new CharacterDataAccumulator();
+        private int ignoreDepth;
+
+        StringValueHandler(List<String> results, int index) {
+            super(NullXmlHandler.INSTANCE);
+            this.results = results;
+            this.index = index;
+        }
+
+        @Override
+        public void processCharacterData(Object data, boolean ignorable) throws StreamException {
+            if (ignoreDepth == 0) {
+                buffer.append(data);
+            }
+        }
+
+        @Override
+        public void startProcessingInstruction(String target) throws StreamException {
+            ignoreDepth++;
+        }
+
+        @Override
+        public void endProcessingInstruction() throws StreamException {
+            ignoreDepth--;
+        }
+
+        @Override
+        public void startComment() throws StreamException {
+            ignoreDepth++;
+        }
+
+        @Override
+        public void endComment() throws StreamException {
+            ignoreDepth--;
+        }
+
+        @Override
+        public void completed() throws StreamException {
+            results.set(index, buffer.toString());
+        }
+    }
+
+    private StreamingXPathEvaluator() {}
+
+    private static StreamingXPathExpression compile(StreamingXPath xpath) {
+        return StreamingXPathExpression.compile(xpath.getExpression(), xpath.getNamespaces());
+    }
+
+    private static boolean isFull(List<?> results, int maxResults) {
+        return maxResults >= 0 && results.size() >= maxResults;
+    }
+
+    private static void evaluate(StreamingXPathExpression expression, Source source,
+            XPathMatchHandler matchHandler, List<?> results, int maxResults) {
+        XPathFilterHandler filterHandler = new XPathFilterHandler(NullXmlHandler.INSTANCE,
+                expression, matchHandler);
+        XmlReader reader = BuilderSpec.from(StAXParserConfiguration.DEFAULT, source).getInput()
+                .createReader(filterHandler);
+        try {
+            while (!isFull(results, maxResults) || filterHandler.isCapturing()) {
+                if (reader.proceed()) {
+                    break;
+                }
+            }
+        } catch (StreamException ex) {
+            throw new OMException(ex);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    static List<OMElement> selectElements(final NodeFactory nodeFactory, StreamingXPath xpath,
+            Source source, final int maxResults) {
+        StreamingXPathExpression expression = compile(xpath);
+        if (expression.isAttributeExpression()) {
+            throw new IllegalArgumentException("The expression \"" + xpath.getExpression()
+                    + "\" selects attributes, not elements");
+        }
+        final List<OMElement> results = new ArrayList<OMElement>();
+        evaluate(expression, source, new XPathMatchHandler() {
+            @Override
+            public void attributeMatched(String namespaceURI, String localName, String value) {
+            }
+
+            @Override
+            public XmlHandler elementMatched(String namespaceURI, String localName) {
+                if (isFull(results, maxResults)) {
+                    return null;
+                }
+                // Reserve a slot now so that results are returned in document order even if
+                // selected elements are nested.
+                final int index = results.size();
+                results.add(null);
+                PushInput input = new PushInput();
+                final BuilderImpl builder = new BuilderImpl(input, nodeFactory,
+                        PlainXMLModel.INSTANCE, null);
+                return new XmlHandlerWrapper(input.handler) {
+                    @Override
+                    public void completed() throws StreamException {
+                        super.completed();
+                        results.set(index, new OMXMLParserWrapperImpl(builder, null)
+                                .getDocumentElement(true));
+                    }
+                };
+            }
+        }, results, maxResults);
+        return results;
+    }
+
+    static List<String> selectStringValues(StreamingXPath xpath, Source source,
+            final int maxResults) {
+        final List<String> results = new ArrayList<String>();
+        evaluate(compile(xpath), source, new XPathMatchHandler() {
+            @Override
+            public void attributeMatched(String namespaceURI, String localName, String value) {
+                if (!isFull(results, maxResults)) {
+                    results.add(value);
+                }
+            }
+
+            @Override
+            public XmlHandler elementMatched(String namespaceURI, String localName) {
+                if (isFull(results, maxResults)) {
+                    return null;
+                }
+                int index = results.size();
+                results.add(null);
+                return new StringValueHandler(results, index);
+            }
+        }, results, maxResults);
+        return results;
+    }
+}
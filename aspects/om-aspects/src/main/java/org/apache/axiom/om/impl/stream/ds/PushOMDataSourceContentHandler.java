@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.stream.ds;
+
+import org.apache.axiom.core.stream.StreamException;
+import org.apache.axiom.core.stream.XmlHandler;
+import org.apache.axiom.core.stream.sax.XmlHandlerContentHandler;
+import org.apache.axiom.om.SAXAwareOMDataSource;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+
+/**
+ * {@link ContentHandler} passed to {@link SAXAwareOMDataSource} implementations. Contrary to
+ * {@link XmlHandlerContentHandler}, this class only supports the subset of SAX used to serialize
+ * a single element (no DTD, entity references or lexical events) and avoids parsing qualified
+ * names where possible: the prefix of an element or attribute is looked up in the namespace
+ * bindings reported by {@link #startPrefixMapping(String, String)}. Qualified names may be empty
+ * (as permitted by SAX if the <code>namespace-prefixes</code> feature is disabled); in that case
+ * the prefix is determined from the namespace URI.
+ */
+final class PushOMDataSourceContentHandler implements ContentHandler {
+    private final XmlHandler handler;
+    
+    /**
+     * The namespace bindings in scope, stored as (prefix, uri) pairs.
+     */
+    private String[] bindings = new String[16];
+    
+    /**
+     * The number of namespace bindings in scope.
+     */
+    private int bindingCount;
+    
+    /**
+     * The number of bindings in {@link #bindings} that have been reported after the last call to
+     * {@link #startElement(String, String, String, Attributes)}.
+     */
+    private int pendingCount;
+    
+    /**
+     * For each open element, the value of {@link #bindingCount} before the element's own
+     * namespace declarations.
+     */
+    private int[] scopes = new int[16];
+    
+    private int depth;
+
+    PushOMDataSourceContentHandler(XmlHandler handler) {
+        this.handler = handler;
+    }
+
+    private static SAXException toSAXException(StreamException ex) {
+        return new SAXException(ex);
+    }
+
+    private String getPrefix(String namespaceURI, String localName, String qName, boolean attribute) {
+        if (qName.length() == 0) {
+            return lookupPrefix(namespaceURI, attribute);
+        }
+        int prefixLength = qName.length() - localName.length() - 1;
+        if (prefixLength <= 0) {
+            return "";
+        }
+        for (int i=bindingCount-1; i>=0; i--) {
+            String prefix = bindings[2*i];
+            if (prefix.length() == prefixLength && bindings[2*i+1].equals(namespaceURI)
+                    && qName.startsWith(prefix)) {
+                return prefix;
+            }
+        }
+        return qName.substring(0, prefixLength);
+    }
+
+    /**
+     * Find a prefix bound to the given namespace URI and not hidden by a more recent binding of the
+     * same prefix.
+     * 
+     * @param namespaceURI
+     *            the namespace URI
+     * @param attribute
+     *            <code>true</code> if the prefix is for an attribute, in which case the default
+     *            namespace is not taken into account
+     * @return the prefix, or the empty string if the namespace URI is empty or not bound
+     */
+    private String lookupPrefix(String namespaceURI, boolean attribute) {
+        if (namespaceURI.length() == 0) {
+            return "";
+        }
+        outer: for (int i=bindingCount-1; i>=0; i--) {
+            String prefix = bindings[2*i];
+            if (bindings[2*i+1].equals(namespaceURI) && !(attribute && prefix.length() == 0)) {
+                for (int j=i+1; j<bindingCount; j++) {
+                    if (bindings[2*j].equals(prefix)) {
+                        continue outer;
+                    }
+                }
+                return prefix;
+            }
+        }
+        return "";
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+    }
+
+    @Override
+    public void startPrefixMapping(String prefix, String uri) throws SAXException {
+        int index = bindingCount*2;
+        if (index == bindings.length) {
+            String[] newBindings = new String[bindings.length*2];
+            System.arraycopy(bindings, 0, newBindings, 0, bindings.length);
+            bindings = newBindings;
+        }
+        bindings[index] = prefix;
+        bindings[index+1] = uri;
+        bindingCount++;
+        pendingCount++;
+    }
+
+    @Override
+    public void endPrefixMapping(String prefix) throws SAXException {
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts)
+            throws SAXException {
+        if (depth == scopes.length) {
+            int[] newScopes = new int[scopes.length*2];
+            System.arraycopy(scopes, 0, newScopes, 0, scopes.length);
+            scopes = newScopes;
+        }
+        scopes[depth++] = bindingCount - pendingCount;
+        try {
+            handler.startElement(uri, localName, getPrefix(uri, localName, qName, false));
+            for (int i=bindingCount-pendingCount; i<bindingCount; i++) {
+                handler.processNamespaceDeclaration(bindings[2*i], bindings[2*i+1]);
+            }
+            pendingCount = 0;
+            for (int i=0, count=atts.getLength(); i<count; i++) {
+                String attrQName = atts.getQName(i);
+                // Some SAX producers report namespace declarations as attributes
+                if (!attrQName.equals("xmlns") && !attrQName.startsWith("xmlns:")) {
+                    String attrURI = atts.getURI(i);
+                    String attrLocalName = atts.getLocalName(i);
+                    handler.processAttribute(attrURI, attrLocalName,
+                            attrURI.length() == 0 ? "" : getPrefix(attrURI, attrLocalName, attrQName, true),
+                            atts.getValue(i), atts.getType(i), true);
+                }
+            }
+            handler.attributesCompleted();
+        } catch (StreamException ex) {
+            throw toSAXException(ex);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        bindingCount = scopes[--depth];
+        try {
+            handler.endElement();
+        } catch (StreamException ex) {
+            throw toSAXException(ex);
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        try {
+            handler.processCharacterData(new String(ch, start, length), false);
+        } catch (StreamException ex) {
+            throw toSAXException(ex);
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        try {
+            handler.processCharacterData(new String(ch, start, length), true);
+        } catch (StreamException ex) {
+            throw toSAXException(ex);
+        }
+    }
+
+    @Override
+    public void processingInstruction(String target, String data) throws SAXException {
+        try {
+            handler.startProcessingInstruction(target);
+            handler.processCharacterData(data, false);
+            handler.endProcessingInstruction();
+        } catch (StreamException ex) {
+            throw toSAXException(ex);
+        }
+    }
+
+    @Override
+    public void skippedEntity(String name) throws SAXException {
+        try {
+            handler.processEntityReference(name, null);
+        } catch (StreamException ex) {
+            throw toSAXException(ex);
+        }
+    }
+}
@@ -33,6 +33,7 @@ import org.apache.axiom.om.OMDataSource;
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMNamespace;
 import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.SAXAwareOMDataSource;
 import org.apache.axiom.om.impl.intf.AxiomSourcedElement;
 import org.apache.axiom.om.impl.stream.XmlDeclarationRewriterHandler;
 import org.apache.axiom.om.impl.stream.stax.push.AxiomXMLStreamWriterExtensionFactory;
@@ -70,24 +71,35 @@ final class PushOMDataSourceReader implements XmlReader {
         try {
             XMLStreamWriter writer = new XmlHandlerStreamWriter(handler, null,
                     AxiomXMLStreamWriterExtensionFactory.INSTANCE);
-            // Seed the namespace context with the namespace context from the parent
-            OMContainer parent = root.getParent();
-            if (parent instanceof OMElement) {
-                for (Iterator<OMNamespace> it = ((OMElement)parent).getNamespacesInScope(); it.hasNext(); ) {
-                    OMNamespace ns = it.next();
-                    writer.setPrefix(ns.getPrefix(), ns.getNamespaceURI());
+            MTOMXMLStreamWriterImpl mtomWriter = new MTOMXMLStreamWriterImpl(new PushOMDataSourceStreamWriter(writer), format);
+            if (dataSource instanceof SAXAwareOMDataSource) {
+                // Bypass the XMLStreamWriter adapter; in this case the writer is only used to
+                // give the data source access to the XOPHandler
+                handler.startFragment();
+                ((SAXAwareOMDataSource)dataSource).serialize(new PushOMDataSourceContentHandler(handler), mtomWriter);
+                handler.completed();
+            } else {
+                // Seed the namespace context with the namespace context from the parent
+                OMContainer parent = root.getParent();
+                if (parent instanceof OMElement) {
+                    for (Iterator<OMNamespace> it = ((OMElement)parent).getNamespacesInScope(); it.hasNext(); ) {
+                        OMNamespace ns = it.next();
+                        writer.setPrefix(ns.getPrefix(), ns.getNamespaceURI());
+                    }
                 }
+                handler.startFragment();
+                dataSource.serialize(mtomWriter);
+                handler.completed();
             }
-            handler.startFragment();
-            dataSource.serialize(new MTOMXMLStreamWriterImpl(new PushOMDataSourceStreamWriter(writer), format));
-            handler.completed();
         } catch (XMLStreamException ex) {
-            Throwable cause = ex.getCause();
-            if (cause instanceof StreamException) {
-                throw (StreamException)cause;
-            } else {
-                throw new StreamException(ex);
+            // Look for the original exception (which may have been wrapped by a SAXException
+            // and by an exception specific to the data source)
+            for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof StreamException) {
+                    throw (StreamException)cause;
+                }
             }
+            throw new StreamException(ex);
         }
         return true;
     }
@@ -65,7 +65,18 @@ public class RolePlayerChecker implements ElementMatcher<AxiomElement> {
             }
         }
 
-        String role = SOAPHeaderBlockHelper.getRole(header, soapHelper);
+        return matchesRole(SOAPHeaderBlockHelper.getRole(header, soapHelper));
+    }
+
+    /**
+     * Check if a header block with the given role is to be processed by the {@link RolePlayer}.
+     * This method doesn't check the namespace of the header block.
+     * 
+     * @param role
+     *            the role of the header block, or {@code null} if it doesn't specify a role
+     * @return {@code true} if the header block is targeted at the {@link RolePlayer}
+     */
+    public boolean matchesRole(String role) {
         SOAPVersion version = soapHelper.getVersion();
 
         // 1. If role is ultimatedest, go by what the rolePlayer says
@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.soap.impl.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.axiom.core.CoreChildNode;
+import org.apache.axiom.core.CoreModelException;
+import org.apache.axiom.om.impl.common.AxiomSemantics;
+import org.apache.axiom.om.impl.intf.AxiomElement;
+import org.apache.axiom.soap.RolePlayer;
+import org.apache.axiom.soap.SOAPHeaderBlock;
+import org.apache.axiom.soap.impl.intf.AxiomSOAPHeader;
+import org.apache.axiom.soap.impl.intf.SOAPHelper;
+
+/**
+ * Index of the header blocks of a {@link AxiomSOAPHeader}. The index is built by a single pass
+ * over the children of the header (which builds the header completely) and allows the lookup
+ * methods of {@link org.apache.axiom.soap.SOAPHeader} to avoid scanning all header blocks and
+ * reading their attributes again for every query. Roles and {@code mustUnderstand} values are
+ * determined lazily using {@link SOAPHeaderBlockHelper}, so that unexpanded
+ * {@link org.apache.axiom.om.OMSourcedElement} header blocks are not expanded if their data
+ * source provides the corresponding properties.
+ * <p>
+ * An index is only valid as long as the header is not modified. The owner is responsible for
+ * discarding it when that happens (see {@link org.apache.axiom.core.CoreParentNode#modified()}).
+ * The iterators returned by this class operate on a snapshot and are therefore not affected by
+ * changes to the header.
+ */
+public final class SOAPHeaderIndex {
+    private static final int[] EMPTY = new int[0];
+
+    private final SOAPHelper soapHelper;
+    private final AxiomElement[] blocks;
+    private final String[] namespaceURIs;
+    private String[] roles;
+    private Map<String,int[]> byNamespaceURI;
+    private Map<String,int[]> byRole;
+    private int[] mustUnderstand;
+    private int[] all;
+
+    public SOAPHeaderIndex(AxiomSOAPHeader header, SOAPHelper soapHelper) {
+        this.soapHelper = soapHelper;
+        List<AxiomElement> blocks = new ArrayList<AxiomElement>();
+        try {
+            CoreChildNode child = header.coreGetFirstChild();
+            while (child != null) {
+                if (child instanceof AxiomElement) {
+                    blocks.add((AxiomElement)child);
+                }
+                child = child.coreGetNextSibling();
+            }
+        } catch (CoreModelException ex) {
+            throw AxiomSemantics.INSTANCE.toUncheckedException(ex);
+        }
+        this.blocks = blocks.toArray(new AxiomElement[blocks.size()]);
+        namespaceURIs = new String[this.blocks.length];
+        for (int i=0; i<this.blocks.length; i++) {
+            namespaceURIs[i] = this.blocks[i].coreGetNamespaceURI();
+        }
+    }
+
+    private String[] roles() {
+        if (roles == null) {
+            String[] roles = new String[blocks.length];
+            for (int i=0; i<blocks.length; i++) {
+                roles[i] = SOAPHeaderBlockHelper.getRole(blocks[i], soapHelper);
+            }
+            this.roles = roles;
+        }
+        return roles;
+    }
+
+    private static Map<String,int[]> group(String[] keys) {
+        Map<String,List<Integer>> lists = new HashMap<String,List<Integer>>();
+        for (int i=0; i<keys.length; i++) {
+            List<Integer> list = lists.get(keys[i]);
+            if (list == null) {
+                list = new ArrayList<Integer>();
+                lists.put(keys[i], list);
+            }
+            list.add(i);
+        }
+        Map<String,int[]> result = new HashMap<String,int[]>();
+        for (Map.Entry<String,List<Integer>> entry : lists.entrySet()) {
+            List<Integer> list = entry.getValue();
+            int[] indexes = new int[list.size()];
+            for (int i=0; i<indexes.length; i++) {
+                indexes[i] = list.get(i);
+            }
+            result.put(entry.getKey(), indexes);
+        }
+        return result;
+    }
+
+    private static int[] lookup(Map<String,int[]> map, String key) {
+        int[] indexes = map.get(key);
+        return indexes == null ? EMPTY : indexes;
+    }
+
+    private int[] all() {
+        if (all == null) {
+            all = new int[blocks.length];
+            for (int i=0; i<blocks.length; i++) {
+                all[i] = i;
+            }
+        }
+        return all;
+    }
+
+    private int[] byRole(String role) {
+        if (role == null) {
+            return all();
+        }
+        if (byRole == null) {
+            byRole = group(roles());
+        }
+        return lookup(byRole, role);
+    }
+
+    private int[] mustUnderstand() {
+        if (mustUnderstand == null) {
+            // Note that getMustUnderstand throws an exception if the attribute value is invalid;
+            // in that case nothing is cached and the exception will be thrown again by the next
+            // query, exactly as if the header blocks were scanned sequentially.
+            int[] indexes = new int[blocks.length];
+            int count = 0;
+            for (int i=0; i<blocks.length; i++) {
+                if (SOAPHeaderBlockHelper.getMustUnderstand(blocks[i], soapHelper)) {
+                    indexes[count++] = i;
+                }
+            }
+            int[] result = new int[count];
+            System.arraycopy(indexes, 0, result, 0, count);
+            mustUnderstand = result;
+        }
+        return mustUnderstand;
+    }
+
+    public Iterator<SOAPHeaderBlock> getAllHeaderBlocks() {
+        return new HeaderBlockIterator(blocks, all());
+    }
+
+    /**
+     * Get the header blocks targeted at a given role.
+     * 
+     * @param role
+     *            the role, or {@code null} to return all header blocks
+     * @return an iterator over the matching header blocks, in document order
+     */
+    public Iterator<SOAPHeaderBlock> getHeaderBlocks(String role) {
+        return new HeaderBlockIterator(blocks, byRole(role));
+    }
+
+    public Iterator<SOAPHeaderBlock> getMustUnderstandHeaderBlocks(String role) {
+        int[] mu = mustUnderstand();
+        if (role == null) {
+            return new HeaderBlockIterator(blocks, mu);
+        }
+        String[] roles = roles();
+        int[] indexes = new int[mu.length];
+        int count = 0;
+        for (int i : mu) {
+            if (role.equals(roles[i])) {
+                indexes[count++] = i;
+            }
+        }
+        return new HeaderBlockIterator(blocks, indexes, count);
+    }
+
+    public Iterator<SOAPHeaderBlock> getHeaderBlocksWithNamespaceURI(String namespaceURI) {
+        if (byNamespaceURI == null) {
+            byNamespaceURI = group(namespaceURIs);
+        }
+        return new HeaderBlockIterator(blocks, lookup(byNamespaceURI, namespaceURI));
+    }
+
+    /**
+     * Get the header blocks to be processed by a given {@link RolePlayer}.
+     * 
+     * @param rolePlayer
+     *            see {@link RolePlayerChecker#RolePlayerChecker(SOAPHelper, RolePlayer, String)}
+     * @param namespace
+     *            the namespace URI to check for, or {@code null} to match any header block
+     * @return an iterator over the matching header blocks, in document order
+     */
+    public Iterator<SOAPHeaderBlock> getHeadersToProcess(RolePlayer rolePlayer, String namespace) {
+        RolePlayerChecker checker = new RolePlayerChecker(soapHelper, rolePlayer, null);
+        int[] candidates;
+        if (namespace == null) {
+            candidates = all();
+        } else if (namespace.length() == 0) {
+            // Header blocks must be namespace qualified; RolePlayerChecker never matches them
+            candidates = EMPTY;
+        } else {
+            if (byNamespaceURI == null) {
+                byNamespaceURI = group(namespaceURIs);
+            }
+            candidates = lookup(byNamespaceURI, namespace);
+        }
+        String[] roles = roles();
+        int[] indexes = new int[candidates.length];
+        int count = 0;
+        for (int i : candidates) {
+            if (checker.matchesRole(roles[i])) {
+                indexes[count++] = i;
+            }
+        }
+        return new HeaderBlockIterator(blocks, indexes, count);
+    }
+
+    private static final class HeaderBlockIterator implements Iterator<SOAPHeaderBlock> {
+        private final AxiomElement[] blocks;
+        private final int[] indexes;
+        private final int count;
+        private int position;
+        private AxiomElement current;
+
+        HeaderBlockIterator(AxiomElement[] blocks, int[] indexes, int count) {
+            this.blocks = blocks;
+            this.indexes = indexes;
+            this.count = count;
+        }
+
+        HeaderBlockIterator(AxiomElement[] blocks, int[] indexes) {
+            this(blocks, indexes, indexes.length);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < count;
+        }
+
+        @Override
+        public SOAPHeaderBlock next() {
+            if (position == count) {
+                throw new NoSuchElementException();
+            }
+            int index = indexes[position++];
+            SOAPHeaderBlock headerBlock = SOAPHeaderBlockMapper.INSTANCE.map(blocks[index]);
+            // The mapper may have promoted the element to a header block
+            current = blocks[index] = (AxiomElement)headerBlock;
+            return headerBlock;
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            current.coreDetach(AxiomSemantics.INSTANCE);
+            current = null;
+        }
+    }
+}
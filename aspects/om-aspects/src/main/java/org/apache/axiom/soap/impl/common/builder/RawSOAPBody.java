@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.soap.impl.common.builder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.blob.Blob;
+import org.apache.axiom.core.stream.XmlHandler;
+import org.apache.axiom.core.stream.XmlInput;
+import org.apache.axiom.core.stream.XmlReader;
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.impl.stream.stax.pull.StAXPullInput;
+import org.apache.axiom.om.util.StAXParserConfiguration;
+import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.soap.impl.intf.AxiomSOAPBody;
+
+/**
+ * The unparsed content of a SOAP body, as captured by {@link RawSOAPBodyInput}. The content is
+ * stored in the encoding of the original message, together with the start tags of the SOAP
+ * envelope and body, so that it can be parsed later in the right namespace context.
+ */
+public final class RawSOAPBody {
+    private final StAXParserConfiguration configuration;
+    private final byte[] startTags;
+    private final Blob content;
+    private final byte[] endTags;
+    private final String encoding;
+    private Map<String,String> namespaces;
+
+    RawSOAPBody(StAXParserConfiguration configuration, byte[] startTags, Blob content,
+            byte[] endTags, String encoding) {
+        this.configuration = configuration;
+        this.startTags = startTags;
+        this.content = content;
+        this.endTags = endTags;
+        this.encoding = encoding;
+    }
+
+    /**
+     * Get the raw content of the SOAP body, i.e. the bytes between the start and end tags of the
+     * body element, in the encoding returned by {@link #getEncoding()}.
+     * 
+     * @return the content
+     */
+    public Blob getContent() {
+        return content;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    private XMLStreamReader createParser(boolean includeContent) {
+        try {
+            InputStream in = new ByteArrayInputStream(startTags);
+            if (includeContent) {
+                in = new SequenceInputStream(in, content.getInputStream());
+            }
+            return StAXUtils.createXMLStreamReader(configuration,
+                    new SequenceInputStream(in, new ByteArrayInputStream(endTags)), encoding);
+        } catch (IOException ex) {
+            throw new OMException(ex);
+        } catch (XMLStreamException ex) {
+            throw new OMException(ex);
+        }
+    }
+
+    /**
+     * Get an {@link XmlInput} that parses the content of the SOAP body.
+     * 
+     * @param includeBody
+     *            {@code true} if the events for the body element itself should be included
+     *            (without attributes or namespace declarations), {@code false} if only the events
+     *            for the content of the body should be produced
+     * @return the input
+     */
+    public XmlInput getContentInput(final boolean includeBody) {
+        return new XmlInput() {
+            @Override
+            public XmlReader createReader(XmlHandler handler) {
+                return new StAXPullInput(createParser(true)).createReader(
+                        new SOAPBodyContentFilterHandler(handler, includeBody));
+            }
+        };
+    }
+
+    /**
+     * Get an {@link XmlInput} that serializes the given SOAP body using the raw content. This
+     * method checks that the raw content can be used in the namespace context of the body
+     * element (which may have been modified by the application). The namespace declarations from
+     * the original message that are not present on the body element are added to it.
+     * 
+     * @param body
+     *            the SOAP body element for which this object was created
+     * @return the input, or {@code null} if the raw content can't be used because the body element
+     *         binds a prefix used by the content to a different namespace
+     */
+    public XmlInput getSerializationInput(final AxiomSOAPBody body) {
+        Map<String,String> bindings = new HashMap<String,String>();
+        for (Iterator<OMNamespace> it = body.getAllDeclaredNamespaces(); it.hasNext(); ) {
+            OMNamespace ns = it.next();
+            bindings.put(ns.getPrefix(), ns.getNamespaceURI());
+        }
+        if (!addBinding(bindings, body.getNamespace())) {
+            return null;
+        }
+        for (Iterator<OMAttribute> it = body.getAllAttributes(); it.hasNext(); ) {
+            if (!addBinding(bindings, it.next().getNamespace())) {
+                return null;
+            }
+        }
+        Map<String,String> namespaces = getNamespaceContext();
+        final List<String> declarations = new ArrayList<String>();
+        for (Map.Entry<String,String> entry : namespaces.entrySet()) {
+            String prefix = entry.getKey();
+            String namespaceURI = entry.getValue();
+            String boundURI = bindings.get(prefix);
+            if (boundURI == null) {
+                declarations.add(prefix);
+                declarations.add(namespaceURI);
+            } else if (!boundURI.equals(namespaceURI)) {
+                return null;
+            }
+        }
+        if (!namespaces.containsKey("")) {
+            // Unprefixed elements in the content must remain in no namespace
+            String boundURI = bindings.get("");
+            if (boundURI != null) {
+                if (boundURI.length() != 0) {
+                    return null;
+                }
+            } else {
+                OMNamespace ns = body.findNamespaceURI("");
+                if (ns != null && ns.getNamespaceURI().length() != 0) {
+                    declarations.add("");
+                    declarations.add("");
+                }
+            }
+        }
+        return new XmlInput() {
+            @Override
+            public XmlReader createReader(XmlHandler handler) {
+                return new RawSOAPBodyReader(handler, body, RawSOAPBody.this, declarations);
+            }
+        };
+    }
+
+    private static boolean addBinding(Map<String,String> bindings, OMNamespace ns) {
+        if (ns == null) {
+            return true;
+        }
+        String boundURI = bindings.get(ns.getPrefix());
+        if (boundURI == null) {
+            bindings.put(ns.getPrefix(), ns.getNamespaceURI());
+            return true;
+        } else {
+            return boundURI.equals(ns.getNamespaceURI());
+        }
+    }
+
+    /**
+     * Get the namespace declarations that are in scope for the content of the SOAP body.
+     * 
+     * @return a map with the prefixes as keys and the namespace URIs as values
+     */
+    public Map<String,String> getNamespaceContext() {
+        if (namespaces == null) {
+            Map<String,String> namespaces = new LinkedHashMap<String,String>();
+            XMLStreamReader parser = createParser(false);
+            try {
+                while (parser.hasNext()) {
+                    if (parser.next() == XMLStreamReader.START_ELEMENT) {
+                        for (int i=0, count=parser.getNamespaceCount(); i<count; i++) {
+                            String prefix = parser.getNamespacePrefix(i);
+                            String namespaceURI = parser.getNamespaceURI(i);
+                            namespaces.put(prefix == null ? "" : prefix,
+                                    namespaceURI == null ? "" : namespaceURI);
+                        }
+                    }
+                }
+                parser.close();
+            } catch (XMLStreamException ex) {
+                throw new OMException(ex);
+            }
+            this.namespaces = Collections.unmodifiableMap(namespaces);
+        }
+        return namespaces;
+    }
+}
@@ -0,0 +1,419 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.soap.impl.common.builder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.blob.Blobs;
+import org.apache.axiom.blob.MemoryBlob;
+import org.apache.axiom.core.stream.StreamException;
+import org.apache.axiom.core.stream.XmlHandler;
+import org.apache.axiom.core.stream.XmlHandlerWrapper;
+import org.apache.axiom.core.stream.XmlInput;
+import org.apache.axiom.core.stream.XmlReader;
+import org.apache.axiom.om.impl.stream.stax.pull.StAXPullInput;
+import org.apache.axiom.om.util.StAXParserConfiguration;
+import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.soap.SOAPConstants;
+import org.apache.axiom.soap.SOAPProcessingException;
+
+/**
+ * {@link XmlInput} that parses a SOAP message up to the start of the SOAP body and then captures
+ * the body content as raw bytes instead of parsing it. The events produced by this input are the
+ * same as for a normal parser, except that the SOAP body appears empty; the content captured from
+ * the input stream is available through {@link #getRawBody()} once the end of the SOAP body has been
+ * reported.
+ * <p>
+ * The raw content can only be captured if the message uses an encoding compatible with ASCII and
+ * the body is not an empty element. If that is not the case, the input falls back to normal
+ * parsing and {@link #getRawBody()} returns {@code null}.
+ */
+public final class RawSOAPBodyInput implements XmlInput {
+    private final StAXParserConfiguration configuration;
+    private final RecordingInputStream in;
+    private final XMLStreamReader parser;
+    private final String encoding;
+    private RawSOAPBody rawBody;
+
+    public RawSOAPBodyInput(StAXParserConfiguration configuration, InputStream in,
+            String encoding) throws XMLStreamException {
+        this.configuration = configuration;
+        this.in = new RecordingInputStream(in);
+        parser = encoding == null
+                ? StAXUtils.createXMLStreamReader(configuration, this.in)
+                : StAXUtils.createXMLStreamReader(configuration, this.in, encoding);
+        // This information is only available while the parser is on the START_DOCUMENT event
+        if (encoding == null) {
+            encoding = parser.getEncoding();
+            if (encoding == null) {
+                encoding = parser.getCharacterEncodingScheme();
+            }
+        }
+        this.encoding = encoding;
+    }
+
+    /**
+     * Get the captured content of the SOAP body.
+     * 
+     * @return the raw body, or {@code null} if the end of the SOAP body has not been reached yet or
+     *         if the content couldn't be captured
+     */
+    public RawSOAPBody getRawBody() {
+        return rawBody;
+    }
+
+    @Override
+    public XmlReader createReader(XmlHandler handler) {
+        return new Reader(handler);
+    }
+
+    static boolean isASCIICompatible(String encoding) {
+        String name;
+        try {
+            name = Charset.forName(encoding).name();
+        } catch (IllegalCharsetNameException ex) {
+            return false;
+        } catch (UnsupportedCharsetException ex) {
+            return false;
+        }
+        return name.equals("UTF-8") || name.equals("US-ASCII") || name.startsWith("ISO-8859-")
+                || name.startsWith("windows-125");
+    }
+
+    private static byte[] concat(byte[] b1, int off1, int len1, byte[] b2, int off2, int len2) {
+        byte[] result = new byte[len1 + len2];
+        System.arraycopy(b1, off1, result, 0, len1);
+        System.arraycopy(b2, off2, result, len1, len2);
+        return result;
+    }
+
+    private static void writeEndTag(OutputStream out, byte[] name) throws IOException {
+        out.write('<');
+        out.write('/');
+        out.write(name);
+        out.write('>');
+    }
+
+    /**
+     * Handler that detects the end of the start tag of the SOAP body.
+     */
+    private static final class BodyStartDetector extends XmlHandlerWrapper {
+        private int depth;
+        private boolean inBodyStartTag;
+        boolean bodyStarted;
+
+        BodyStartDetector(XmlHandler parent) {
+            super(parent);
+        }
+
+        @Override
+        public void startElement(String namespaceURI, String localName, String prefix)
+                throws StreamException {
+            super.startElement(namespaceURI, localName, prefix);
+            if (++depth == 2 && localName.equals(SOAPConstants.BODY_LOCAL_NAME)) {
+                inBodyStartTag = true;
+            }
+        }
+
+        @Override
+        public void attributesCompleted() throws StreamException {
+            super.attributesCompleted();
+            if (inBodyStartTag) {
+                inBodyStartTag = false;
+                bodyStarted = true;
+            }
+        }
+
+        @Override
+        public void endElement() throws StreamException {
+            super.endElement();
+            depth--;
+        }
+    }
+
+    /**
+     * Handler that skips the events for the start tags of the SOAP envelope and body (which have
+     * already been reported by the first parser) when switching to the second parser.
+     */
+    private static final class ResumeHandler extends XmlHandlerWrapper {
+        private int skippedStartTags;
+
+        ResumeHandler(XmlHandler parent) {
+            super(parent);
+        }
+
+        boolean isResumed() {
+            return skippedStartTags == 2;
+        }
+
+        @Override
+        public void startDocument(String inputEncoding, String xmlVersion, String xmlEncoding,
+                Boolean standalone) throws StreamException {
+        }
+
+        @Override
+        public void startElement(String namespaceURI, String localName, String prefix)
+                throws StreamException {
+            if (isResumed()) {
+                super.startElement(namespaceURI, localName, prefix);
+            }
+        }
+
+        @Override
+        public void processNamespaceDeclaration(String prefix, String namespaceURI)
+                throws StreamException {
+            if (isResumed()) {
+                super.processNamespaceDeclaration(prefix, namespaceURI);
+            }
+        }
+
+        @Override
+        public void processAttribute(String namespaceURI, String localName, String prefix,
+                String value, String type, boolean specified) throws StreamException {
+            if (isResumed()) {
+                super.processAttribute(namespaceURI, localName, prefix, value, type, specified);
+            }
+        }
+
+        @Override
+        public void processAttribute(String name, String value, String type, boolean specified)
+                throws StreamException {
+            if (isResumed()) {
+                super.processAttribute(name, value, type, specified);
+            }
+        }
+
+        @Override
+        public void attributesCompleted() throws StreamException {
+            if (isResumed()) {
+                super.attributesCompleted();
+            } else {
+                skippedStartTags++;
+            }
+        }
+    }
+
+    private final class Reader implements XmlReader {
+        private final XmlHandler handler;
+        private final BodyStartDetector detector;
+        private XmlReader delegate;
+
+        Reader(XmlHandler handler) {
+            this.handler = handler;
+            detector = new BodyStartDetector(handler);
+            delegate = new StAXPullInput(parser, true, null).createReader(detector);
+        }
+
+        @Override
+        public boolean proceed() throws StreamException {
+            boolean result = delegate.proceed();
+            if (detector.bodyStarted) {
+                detector.bodyStarted = false;
+                try {
+                    switchToRawBody();
+                } catch (IOException ex) {
+                    throw new StreamException(ex);
+                } catch (XMLStreamException ex) {
+                    throw new StreamException(ex);
+                }
+            }
+            return result;
+        }
+
+        private void switchToRawBody() throws StreamException, IOException, XMLStreamException {
+            byte[] buffer = in.getBuffer();
+            int size = in.getSize();
+            in.stopRecording();
+            if (encoding == null || !isASCIICompatible(encoding)) {
+                return;
+            }
+            
+            // Locate the start tags of the SOAP envelope and body in the bytes consumed by the
+            // parser so far.
+            RawXmlScanner scanner = new RawXmlScanner();
+            int envelopeStart = -1;
+            int envelopeEnd = -1;
+            byte[] envelopeName = null;
+            int bodyStart = -1;
+            int bodyEnd = -1;
+            byte[] bodyName = null;
+            int depth = 0;
+            int pos = 0;
+            while (bodyEnd == -1 && (pos = scanner.next(buffer, pos, size, pos)) != -1) {
+                switch (scanner.getTagType()) {
+                    case RawXmlScanner.START_TAG:
+                        if (depth == 0) {
+                            envelopeStart = (int)scanner.getTagStart();
+                            envelopeEnd = pos;
+                            envelopeName = Arrays.copyOf(scanner.getName(), scanner.getNameLength());
+                        } else if (depth == 1 && scanner.isLocalName(SOAPConstants.BODY_LOCAL_NAME)) {
+                            bodyStart = (int)scanner.getTagStart();
+                            bodyEnd = pos;
+                            bodyName = Arrays.copyOf(scanner.getName(), scanner.getNameLength());
+                        }
+                        depth++;
+                        break;
+                    case RawXmlScanner.EMPTY_ELEMENT_TAG:
+                        if (depth == 1 && scanner.isLocalName(SOAPConstants.BODY_LOCAL_NAME)) {
+                            // Nothing to gain; continue with the original parser
+                            return;
+                        }
+                        break;
+                    case RawXmlScanner.END_TAG:
+                        depth--;
+                        break;
+                    default:
+                }
+            }
+            if (bodyEnd == -1) {
+                return;
+            }
+            
+            // Copy the body content to a blob and the remaining bytes to a buffer. The content
+            // ends at the first end tag that doesn't match a start tag in the content.
+            MemoryBlob content = Blobs.createMemoryBlob();
+            OutputStream out = content.getOutputStream();
+            ByteArrayOutputStream tail = new ByteArrayOutputStream();
+            writeEndTag(tail, bodyName);
+            byte[] b = buffer;
+            int off = bodyEnd;
+            int end = size;
+            long base = 0;
+            long written = bodyEnd;
+            byte[] chunk = null;
+            depth = 0;
+            scan: while (true) {
+                int p;
+                while ((p = scanner.next(b, off, end, base + off)) != -1) {
+                    switch (scanner.getTagType()) {
+                        case RawXmlScanner.START_TAG:
+                            depth++;
+                            break;
+                        case RawXmlScanner.END_TAG:
+                            if (depth == 0) {
+                                copy(out, b, base, written, scanner.getTagStart());
+                                tail.write(b, p, end-p);
+                                break scan;
+                            }
+                            depth--;
+                            break;
+                        case RawXmlScanner.PROCESSING_INSTRUCTION:
+                            throw new SOAPProcessingException("SOAP message MUST NOT contain Processing Instructions(PI)");
+                        case RawXmlScanner.DECLARATION:
+                            throw new SOAPProcessingException("SOAP message MUST NOT contain a Document Type Declaration(DTD)");
+                        default:
+                    }
+                    off = p;
+                }
+                // Don't copy anything that may be part of the end tag of the SOAP body
+                written = copy(out, b, base, written,
+                        depth == 0 && scanner.isInEndTag() ? scanner.getTagStart() : base + end);
+                if (chunk == null) {
+                    chunk = new byte[8192];
+                }
+                base += end;
+                b = chunk;
+                off = 0;
+                do {
+                    end = in.read(chunk);
+                } while (end == 0);
+                if (end == -1) {
+                    throw new StreamException("Unexpected end of stream in SOAP body");
+                }
+            }
+            out.close();
+            if (chunk == null) {
+                chunk = new byte[8192];
+            }
+            int c;
+            while ((c = in.read(chunk)) != -1) {
+                tail.write(chunk, 0, c);
+            }
+            
+            ByteArrayOutputStream endTags = new ByteArrayOutputStream();
+            writeEndTag(endTags, bodyName);
+            writeEndTag(endTags, envelopeName);
+            byte[] startTags = concat(buffer, envelopeStart, envelopeEnd-envelopeStart,
+                    buffer, bodyStart, bodyEnd-bodyStart);
+            rawBody = new RawSOAPBody(configuration, startTags, content, endTags.toByteArray(), encoding);
+            
+            // Continue with a parser that sees an empty body followed by the remaining part of
+            // the message.
+            delegate.dispose();
+            ResumeHandler resumeHandler = new ResumeHandler(handler);
+            delegate = new StAXPullInput(StAXUtils.createXMLStreamReader(configuration,
+                    new SequenceInputStream(new ByteArrayInputStream(startTags),
+                            new ByteArrayInputStream(tail.toByteArray())), encoding),
+                    true, null).createReader(resumeHandler);
+            while (!resumeHandler.isResumed()) {
+                delegate.proceed();
+            }
+            // This produces the end of the SOAP body
+            delegate.proceed();
+        }
+
+        /**
+         * Copy bytes to the blob.
+         * 
+         * @param out
+         *            the output stream of the blob
+         * @param b
+         *            the current buffer
+         * @param base
+         *            the position of {@code b[0]} in the message
+         * @param written
+         *            the position up to which bytes have already been copied
+         * @param target
+         *            the position up to which bytes should be copied
+         * @return the new value of {@code written}
+         * @throws IOException
+         */
+        private long copy(OutputStream out, byte[] b, long base, long written, long target)
+                throws IOException {
+            if (target <= written) {
+                return written;
+            }
+            if (written < base) {
+                // The last byte of the previous chunk was a '<' that turned out not to be the
+                // start of the end tag of the SOAP body.
+                out.write('<');
+                written++;
+            }
+            out.write(b, (int)(written-base), (int)(target-written));
+            return target;
+        }
+
+        @Override
+        public void dispose() {
+            delegate.dispose();
+        }
+    }
+}
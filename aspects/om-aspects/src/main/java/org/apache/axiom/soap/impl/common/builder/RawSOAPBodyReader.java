@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.soap.impl.common.builder;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.apache.axiom.core.CoreAttribute;
+import org.apache.axiom.core.CoreModelException;
+import org.apache.axiom.core.stream.DocumentElementExtractingFilterHandler;
+import org.apache.axiom.core.stream.NamespaceRepairingFilterHandler;
+import org.apache.axiom.core.stream.StreamException;
+import org.apache.axiom.core.stream.XmlHandler;
+import org.apache.axiom.core.stream.XmlHandlerWrapper;
+import org.apache.axiom.core.stream.XmlReader;
+import org.apache.axiom.core.stream.serializer.Serializer;
+import org.apache.axiom.om.impl.stream.XmlDeclarationRewriterHandler;
+import org.apache.axiom.om.impl.stream.XsiTypeFilterHandler;
+import org.apache.axiom.om.impl.stream.xop.XOPEncodingFilterHandler;
+import org.apache.axiom.soap.impl.intf.AxiomSOAPBody;
+
+/**
+ * Serializes a SOAP body that has not been expanded yet. The start and end events of the body
+ * element are produced from the tree, while the content is either copied verbatim to the
+ * underlying output stream (if the events are ultimately sent to a {@link Serializer} using the
+ * encoding of the original message) or produced by parsing the raw content.
+ */
+final class RawSOAPBodyReader implements XmlReader {
+    private static final int START = 0;
+    private static final int CONTENT = 1;
+    private static final int STREAMING = 2;
+    private static final int END = 3;
+    private static final int DONE = 4;
+
+    private final XmlHandler handler;
+    private final AxiomSOAPBody body;
+    private final RawSOAPBody rawBody;
+    private final List<String> namespaceDeclarations;
+    private int state = START;
+    private XmlReader contentReader;
+
+    RawSOAPBodyReader(XmlHandler handler, AxiomSOAPBody body, RawSOAPBody rawBody,
+            List<String> namespaceDeclarations) {
+        this.handler = handler;
+        this.body = body;
+        this.rawBody = rawBody;
+        this.namespaceDeclarations = namespaceDeclarations;
+    }
+
+    private Serializer getSerializer() {
+        XmlHandler handler = this.handler;
+        // Remove wrappers that don't need to see the events for the body content
+        while (handler instanceof DocumentElementExtractingFilterHandler
+                || handler instanceof NamespaceRepairingFilterHandler
+                || handler instanceof XsiTypeFilterHandler
+                || handler instanceof XmlDeclarationRewriterHandler
+                || handler instanceof XOPEncodingFilterHandler) {
+            handler = ((XmlHandlerWrapper)handler).getParent();
+        }
+        if (handler instanceof Serializer) {
+            Serializer serializer = (Serializer)handler;
+            String encoding = serializer.getEncoding();
+            try {
+                if (encoding != null
+                        && Charset.forName(encoding).equals(Charset.forName(rawBody.getEncoding()))) {
+                    return serializer;
+                }
+            } catch (IllegalArgumentException ex) {
+                // Unsupported or illegal charset name; fall through
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean proceed() throws StreamException {
+        try {
+            switch (state) {
+                case START:
+                    body.serializeStartEvent(handler);
+                    for (CoreAttribute attr = body.coreGetFirstAttribute(); attr != null;
+                            attr = attr.coreGetNextAttribute()) {
+                        attr.internalSerialize(handler, true);
+                    }
+                    for (int i=0; i<namespaceDeclarations.size(); i+=2) {
+                        handler.processNamespaceDeclaration(namespaceDeclarations.get(i),
+                                namespaceDeclarations.get(i+1));
+                    }
+                    handler.attributesCompleted();
+                    state = CONTENT;
+                    return false;
+                case CONTENT: {
+                    Serializer serializer = getSerializer();
+                    if (serializer != null) {
+                        rawBody.getContent().writeTo(serializer.getOutputStream());
+                        state = END;
+                    } else {
+                        contentReader = rawBody.getContentInput(false).createReader(handler);
+                        state = STREAMING;
+                    }
+                    return false;
+                }
+                case STREAMING:
+                    if (contentReader.proceed()) {
+                        contentReader = null;
+                        state = END;
+                    }
+                    return false;
+                case END:
+                    body.serializeEndEvent(handler);
+                    handler.completed();
+                    state = DONE;
+                    return true;
+                default:
+                    throw new IllegalStateException();
+            }
+        } catch (CoreModelException ex) {
+            throw new StreamException(ex);
+        } catch (IOException ex) {
+            throw new StreamException(ex);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (contentReader != null) {
+            contentReader.dispose();
+            contentReader = null;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.soap.impl.common.builder;
+
+import java.util.Arrays;
+
+/**
+ * Minimal tokenizer that locates tags in the raw bytes of an XML document. It only recognizes
+ * the markup delimiters and therefore only works with encodings that are compatible with ASCII.
+ * It doesn't check well-formedness; the document is expected to have been (or to be) checked by a
+ * real parser. The scanner is incremental: the input may be supplied in arbitrary chunks.
+ */
+final class RawXmlScanner {
+    static final int START_TAG = 1;
+    static final int EMPTY_ELEMENT_TAG = 2;
+    static final int END_TAG = 3;
+    static final int PROCESSING_INSTRUCTION = 4;
+    static final int DECLARATION = 5;
+
+    private static final int TEXT = 0;
+    private static final int LT = 1;
+    private static final int NAME = 2;
+    private static final int IN_START_TAG = 3;
+    private static final int SLASH = 4;
+    private static final int DOUBLE_QUOTED = 5;
+    private static final int SINGLE_QUOTED = 6;
+    private static final int IN_END_TAG = 7;
+    private static final int PI = 8;
+    private static final int PI_QUESTION_MARK = 9;
+    private static final int BANG = 10;
+    private static final int BANG_DASH = 11;
+    private static final int COMMENT = 12;
+    private static final int COMMENT_DASH = 13;
+    private static final int COMMENT_DASH_DASH = 14;
+    private static final int CDATA = 15;
+    private static final int CDATA_BRACKET = 16;
+    private static final int CDATA_BRACKET_BRACKET = 17;
+    private static final int IN_DECLARATION = 18;
+
+    private int state = TEXT;
+    private long tagStart;
+    private int tagType;
+    private byte[] name = new byte[32];
+    private int nameLength;
+
+    /**
+     * Scan the given bytes until the end of the next tag, processing instruction or declaration.
+     * Comments and CDATA sections are skipped.
+     * 
+     * @param b
+     *            the buffer containing the input
+     * @param off
+     *            the offset of the first byte to scan
+     * @param end
+     *            the offset after the last byte to scan
+     * @param position
+     *            the position of {@code b[off]} in the document
+     * @return the offset following the last byte of the tag, or -1 if the bytes don't contain the
+     *         end of a tag
+     */
+    int next(byte[] b, int off, int end, long position) {
+        int state = this.state;
+        for (int i=off; i<end; i++) {
+            byte c = b[i];
+            switch (state) {
+                case TEXT:
+                    if (c == '<') {
+                        tagStart = position + i - off;
+                        state = LT;
+                    }
+                    break;
+                case LT:
+                    if (c == '/') {
+                        state = IN_END_TAG;
+                    } else if (c == '?') {
+                        state = PI;
+                    } else if (c == '!') {
+                        state = BANG;
+                    } else {
+                        nameLength = 0;
+                        appendName(c);
+                        state = NAME;
+                    }
+                    break;
+                case NAME:
+                    if (c == '>') {
+                        return complete(START_TAG, i);
+                    } else if (c == '/') {
+                        state = SLASH;
+                    } else if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                        state = IN_START_TAG;
+                    } else {
+                        appendName(c);
+                    }
+                    break;
+                case IN_START_TAG:
+                    if (c == '>') {
+                        return complete(START_TAG, i);
+                    } else if (c == '/') {
+                        state = SLASH;
+                    } else if (c == '"') {
+                        state = DOUBLE_QUOTED;
+                    } else if (c == '\'') {
+                        state = SINGLE_QUOTED;
+                    }
+                    break;
+                case SLASH:
+                    if (c == '>') {
+                        return complete(EMPTY_ELEMENT_TAG, i);
+                    } else {
+                        state = IN_START_TAG;
+                    }
+                    break;
+                case DOUBLE_QUOTED:
+                    if (c == '"') {
+                        state = IN_START_TAG;
+                    }
+                    break;
+                case SINGLE_QUOTED:
+                    if (c == '\'') {
+                        state = IN_START_TAG;
+                    }
+                    break;
+                case IN_END_TAG:
+                    if (c == '>') {
+                        return complete(END_TAG, i);
+                    }
+                    break;
+                case PI:
+                    if (c == '?') {
+                        state = PI_QUESTION_MARK;
+                    }
+                    break;
+                case PI_QUESTION_MARK:
+                    if (c == '>') {
+                        return complete(PROCESSING_INSTRUCTION, i);
+                    } else if (c != '?') {
+                        state = PI;
+                    }
+                    break;
+                case BANG:
+                    if (c == '-') {
+                        state = BANG_DASH;
+                    } else if (c == '[') {
+                        // "CDATA[" doesn't contain "]]>", so we can directly look for the end
+                        state = CDATA;
+                    } else {
+                        state = IN_DECLARATION;
+                    }
+                    break;
+                case BANG_DASH:
+                    state = c == '-' ? COMMENT : IN_DECLARATION;
+                    break;
+                case COMMENT:
+                    if (c == '-') {
+                        state = COMMENT_DASH;
+                    }
+                    break;
+                case COMMENT_DASH:
+                    state = c == '-' ? COMMENT_DASH_DASH : COMMENT;
+                    break;
+                case COMMENT_DASH_DASH:
+                    if (c == '>') {
+                        state = TEXT;
+                    } else if (c != '-') {
+                        state = COMMENT;
+                    }
+                    break;
+                case CDATA:
+                    if (c == ']') {
+                        state = CDATA_BRACKET;
+                    }
+                    break;
+                case CDATA_BRACKET:
+                    state = c == ']' ? CDATA_BRACKET_BRACKET : CDATA;
+                    break;
+                case CDATA_BRACKET_BRACKET:
+                    if (c == '>') {
+                        state = TEXT;
+                    } else if (c != ']') {
+                        state = CDATA;
+                    }
+                    break;
+                case IN_DECLARATION:
+                    if (c == '>') {
+                        return complete(DECLARATION, i);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+        this.state = state;
+        return -1;
+    }
+
+    private int complete(int type, int i) {
+        tagType = type;
+        state = TEXT;
+        return i+1;
+    }
+
+    private void appendName(byte c) {
+        if (nameLength == name.length) {
+            name = Arrays.copyOf(name, nameLength*2);
+        }
+        name[nameLength++] = c;
+    }
+
+    /**
+     * Get the type of the tag found by the last call to {@link #next(byte[], int, int, long)}.
+     * 
+     * @return the tag type
+     */
+    int getTagType() {
+        return tagType;
+    }
+
+    /**
+     * Get the position of the {@code <} character that starts the last tag found or the markup
+     * currently being scanned.
+     * 
+     * @return the position in the document
+     */
+    long getTagStart() {
+        return tagStart;
+    }
+
+    /**
+     * Determine if the scanner is in the middle of an end tag or has just seen a {@code <}
+     * character that may start an end tag.
+     * 
+     * @return {@code true} if the scanner may be in the middle of an end tag
+     */
+    boolean isInEndTag() {
+        return state == LT || state == IN_END_TAG;
+    }
+
+    /**
+     * Get the qualified name of the last start tag or empty element tag.
+     * 
+     * @return the raw bytes of the name; only the first {@link #getNameLength()} bytes are
+     *         meaningful
+     */
+    byte[] getName() {
+        return name;
+    }
+
+    int getNameLength() {
+        return nameLength;
+    }
+
+    /**
+     * Check the local part of the name of the last start tag or empty element tag.
+     * 
+     * @param localName
+     *            the expected local name; must only contain ASCII characters
+     * @return {@code true} if the local name matches
+     */
+    boolean isLocalName(String localName) {
+        int start = 0;
+        for (int i=0; i<nameLength; i++) {
+            if (name[i] == ':') {
+                start = i+1;
+            }
+        }
+        if (nameLength - start != localName.length()) {
+            return false;
+        }
+        for (int i=0; i<localName.length(); i++) {
+            if (name[start+i] != localName.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.soap.impl.common.builder;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Input stream that keeps a copy of the bytes read from the underlying stream until
+ * {@link #stopRecording()} is called.
+ */
+final class RecordingInputStream extends FilterInputStream {
+    private byte[] buffer = new byte[4096];
+    private int size;
+    private boolean recording = true;
+
+    RecordingInputStream(InputStream in) {
+        super(in);
+    }
+
+    private void record(byte[] b, int off, int len) {
+        if (size + len > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length*2, size + len));
+        }
+        System.arraycopy(b, off, buffer, size, len);
+        size += len;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (recording && b != -1) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length*2);
+            }
+            buffer[size++] = (byte)b;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int c = in.read(b, off, len);
+        if (recording && c > 0) {
+            record(b, off, c);
+        }
+        return c;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (!recording) {
+            return in.skip(n);
+        }
+        byte[] b = new byte[(int)Math.min(n, 4096)];
+        int c = read(b, 0, b.length);
+        return c == -1 ? 0 : c;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Get the buffer containing the recorded bytes. Only the first {@link #getSize()} bytes are
+     * meaningful.
+     * 
+     * @return the buffer
+     */
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Stop recording and release the buffer. Subsequent reads are passed through to the
+     * underlying stream.
+     */
+    void stopRecording() {
+        recording = false;
+        buffer = null;
+        size = 0;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.soap.impl.common.builder;
+
+import org.apache.axiom.core.stream.StreamException;
+import org.apache.axiom.core.stream.XmlHandler;
+import org.apache.axiom.core.stream.XmlHandlerWrapper;
+
+/**
+ * Filter that extracts the content of the SOAP body from the events produced for a
+ * {@link RawSOAPBody}. The events for the SOAP envelope are always removed. The events for the SOAP
+ * body element itself (but not its attributes and namespace declarations, which are already
+ * present in the tree) are either kept (so that they can be consumed by a builder that unwraps the
+ * body element) or removed (so that only the body content remains).
+ */
+final class SOAPBodyContentFilterHandler extends XmlHandlerWrapper {
+    private final boolean includeBody;
+    private int depth;
+
+    SOAPBodyContentFilterHandler(XmlHandler parent, boolean includeBody) {
+        super(parent);
+        this.includeBody = includeBody;
+    }
+
+    private boolean isContent() {
+        return depth > 2 || depth == 2 && includeBody;
+    }
+
+    @Override
+    public void startDocument(String inputEncoding, String xmlVersion, String xmlEncoding,
+            Boolean standalone) throws StreamException {
+        if (includeBody) {
+            super.startDocument(inputEncoding, xmlVersion, xmlEncoding, standalone);
+        }
+    }
+
+    @Override
+    public void startFragment() throws StreamException {
+        if (includeBody) {
+            super.startFragment();
+        }
+    }
+
+    @Override
+    public void startElement(String namespaceURI, String localName, String prefix)
+            throws StreamException {
+        depth++;
+        if (isContent()) {
+            super.startElement(namespaceURI, localName, prefix);
+        }
+    }
+
+    @Override
+    public void endElement() throws StreamException {
+        if (isContent()) {
+            super.endElement();
+        }
+        depth--;
+    }
+
+    @Override
+    public void processAttribute(String namespaceURI, String localName, String prefix,
+            String value, String type, boolean specified) throws StreamException {
+        if (depth > 2) {
+            super.processAttribute(namespaceURI, localName, prefix, value, type, specified);
+        }
+    }
+
+    @Override
+    public void processAttribute(String name, String value, String type, boolean specified)
+            throws StreamException {
+        if (depth > 2) {
+            super.processAttribute(name, value, type, specified);
+        }
+    }
+
+    @Override
+    public void processNamespaceDeclaration(String prefix, String namespaceURI)
+            throws StreamException {
+        if (depth > 2) {
+            super.processNamespaceDeclaration(prefix, namespaceURI);
+        }
+    }
+
+    @Override
+    public void attributesCompleted() throws StreamException {
+        if (isContent()) {
+            super.attributesCompleted();
+        }
+    }
+
+    @Override
+    public void processCharacterData(Object data, boolean ignorable) throws StreamException {
+        if (depth >= 2) {
+            super.processCharacterData(data, ignorable);
+        }
+    }
+
+    @Override
+    public void startProcessingInstruction(String target) throws StreamException {
+        if (depth >= 2) {
+            super.startProcessingInstruction(target);
+        }
+    }
+
+    @Override
+    public void endProcessingInstruction() throws StreamException {
+        if (depth >= 2) {
+            super.endProcessingInstruction();
+        }
+    }
+
+    @Override
+    public void startComment() throws StreamException {
+        if (depth >= 2) {
+            super.startComment();
+        }
+    }
+
+    @Override
+    public void endComment() throws StreamException {
+        if (depth >= 2) {
+            super.endComment();
+        }
+    }
+
+    @Override
+    public void startCDATASection() throws StreamException {
+        if (depth >= 2) {
+            super.startCDATASection();
+        }
+    }
+
+    @Override
+    public void endCDATASection() throws StreamException {
+        if (depth >= 2) {
+            super.endCDATASection();
+        }
+    }
+
+    @Override
+    public void completed() throws StreamException {
+        if (includeBody) {
+            super.completed();
+        }
+    }
+}
@@ -50,6 +50,34 @@ public final class SOAPModel implements Model {
 
     private SOAPBuilderHelper builderHelper;
 
+    /**
+     * The difference between the level of an element in the SOAP message and the level reported
+     * by the builder. This is non zero if the builder doesn't start at the SOAP envelope.
+     */
+    private final int levelOffset;
+
+    public SOAPModel() {
+        levelOffset = 0;
+    }
+
+    private SOAPModel(SOAPHelper soapHelper, int levelOffset) {
+        this.soapHelper = soapHelper;
+        this.levelOffset = levelOffset;
+        headerPresent = true;
+        bodyPresent = true;
+    }
+
+    /**
+     * Create a model for a builder that unwraps the SOAP body element, i.e. that builds the
+     * content of an existing SOAP body. This must only be called after the SOAP envelope has been
+     * processed.
+     * 
+     * @return the model
+     */
+    public SOAPModel createBodyContentModel() {
+        return new SOAPModel(soapHelper, 1);
+    }
+
     @Override
     public Class<? extends CoreDocument> getDocumentType() {
         return AxiomSOAPMessage.class;
@@ -59,6 +87,7 @@ public final class SOAPModel implements Model {
     public Class<? extends CoreNSAwareElement> determineElementType(CoreParentNode parent,
             int elementLevel, String namespaceURI, String localName) {
         Class<? extends AxiomElement> elementType;
+        elementLevel += levelOffset;
         if (elementLevel == 1) {
 
             // Now I've found a SOAP Envelope, now create SOAPEnvelope here.
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.impl.common.builder.OMNamespaceCache;
+import org.apache.axiom.om.impl.common.factory.OMFactoryImpl;
+
+/**
+ * Tests {@link OMNamespaceInterner} with the table enabled. This test is executed in a separate
+ * surefire execution that sets the {@link OMNamespaceInterner#ENABLED_PROPERTY} and
+ * {@link OMNamespaceInterner#STATISTICS_PROPERTY} system properties.
+ */
+public class OMNamespaceInternerEnabledTest extends TestCase {
+    public void testEnabled() {
+        assertTrue(OMNamespaceInterner.isEnabled());
+        assertTrue(OMNamespaceInterner.isStatisticsEnabled());
+        OMNamespace ns = OMNamespaceInterner.getOMNamespace("urn:enabled", "p");
+        OMNamespaceInterner.resetStats();
+        assertSame(ns, OMNamespaceInterner.getOMNamespace(new String("urn:enabled"), "p"));
+        assertEquals(1, OMNamespaceInterner.getStats().getHits());
+        assertEquals(0, OMNamespaceInterner.getStats().getMisses());
+    }
+
+    public void testNullPrefix() {
+        OMNamespace ns = OMNamespaceInterner.getOMNamespace("urn:enabled", null);
+        assertNull(ns.getPrefix());
+        assertNotSame(ns, OMNamespaceInterner.getOMNamespace("urn:enabled", null));
+    }
+
+    public void testNamespaceCache() {
+        OMNamespaceCache cache1 = new OMNamespaceCache();
+        OMNamespaceCache cache2 = new OMNamespaceCache();
+        OMNamespace ns = cache1.getOMNamespace("urn:cache", "p");
+        assertSame(ns, cache2.getOMNamespace(new String("urn:cache"), "p"));
+        assertSame(ns, OMNamespaceInterner.getOMNamespace("urn:cache", "p"));
+    }
+
+    public void testCreateOMNamespace() {
+        OMFactory factory = new OMFactoryImpl(null, null);
+        OMNamespace ns = factory.createOMNamespace("urn:factory", "p");
+        assertSame(ns, factory.createOMNamespace(new String("urn:factory"), "p"));
+        assertSame(ns, OMNamespaceInterner.getOMNamespace("urn:factory", "p"));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl.common;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.util.xml.InterningStats;
+
+public class OMNamespaceInternerTest extends TestCase {
+    public void testDisabledByDefault() {
+        assertFalse(OMNamespaceInterner.isEnabled());
+        assertFalse(OMNamespaceInterner.isStatisticsEnabled());
+        OMNamespace ns1 = OMNamespaceInterner.getOMNamespace("urn:test", "p");
+        OMNamespace ns2 = OMNamespaceInterner.getOMNamespace("urn:test", "p");
+        assertEquals(ns1, ns2);
+        assertNotSame(ns1, ns2);
+        assertEquals(0, OMNamespaceInterner.getStats().getHits());
+    }
+
+    public void testSharedInstances() {
+        OMNamespaceInterner.Table table = new OMNamespaceInterner.Table(512, false);
+        OMNamespace ns = table.get("urn:test", "p");
+        assertSame(ns, table.get("urn:test", "p"));
+        assertSame(ns, table.get(new String("urn:test"), new String("p")));
+        assertNotSame(ns, table.get("urn:test", "q"));
+        assertNotSame(ns, table.get("urn:other", "p"));
+        assertFalse(table.isStatisticsEnabled());
+        assertEquals(0, table.getStats().getHits());
+    }
+
+    public void testCanonicalNamespaceURI() {
+        OMNamespaceInterner.Table table = new OMNamespaceInterner.Table(512, false);
+        String uri = new String("urn:canonical");
+        OMNamespace ns = table.get(uri, "p");
+        assertEquals(uri, ns.getNamespaceURI());
+        assertSame(uri.intern(), ns.getNamespaceURI());
+    }
+
+    public void testEviction() {
+        // A table of size 4 has a single set
+        OMNamespaceInterner.Table table = new OMNamespaceInterner.Table(4, true);
+        OMNamespace[] ns = new OMNamespace[5];
+        for (int i=0; i<ns.length; i++) {
+            ns[i] = table.get("urn:test" + i, "p");
+        }
+        for (int i=1; i<ns.length; i++) {
+            assertSame(ns[i], table.get("urn:test" + i, "p"));
+        }
+        InterningStats stats = table.getStats();
+        assertEquals(4, stats.getHits());
+        assertEquals(5, stats.getMisses());
+        assertEquals(1, stats.getEvictions());
+        OMNamespace ns0 = table.get("urn:test0", "p");
+        assertNotSame(ns[0], ns0);
+        assertEquals(ns[0], ns0);
+        stats = table.getStats();
+        assertEquals(6, stats.getMisses());
+        assertEquals(2, stats.getEvictions());
+    }
+
+    public void testStats() {
+        OMNamespaceInterner.Table table = new OMNamespaceInterner.Table(512, true);
+        assertTrue(table.isStatisticsEnabled());
+        table.get("urn:test", "p");
+        table.get("urn:test", "p");
+        table.get("urn:test", "p");
+        InterningStats stats = table.getStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0, stats.getEvictions());
+        table.resetStats();
+        stats = table.getStats();
+        assertEquals(0, stats.getHits());
+        assertEquals(0, stats.getMisses());
+    }
+
+    public void testNullPrefix() {
+        OMNamespace ns = OMNamespaceInterner.getOMNamespace("urn:test", null);
+        assertEquals("urn:test", ns.getNamespaceURI());
+        assertNull(ns.getPrefix());
+    }
+}
@@ -19,17 +19,20 @@
 
 package org.apache.axiom.attachments;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import java.io.File;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 
+import org.apache.axiom.blob.ManagedTempFile;
+import org.apache.axiom.blob.TempFileManager;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -41,7 +44,10 @@ import org.apache.commons.logging.LogFactory;
  * The access method is invoked whenever the attachment file is accessed.
  * The checkForAgedFiles method is invoked whenever the monitor should look for 
  * files to cleanup (delete).
- * 
+ * <p>
+ * Registering and accessing files doesn't require a lock, and at most one thread checks for aged
+ * files at any given time; other threads skip the check instead of waiting for it. Files managed by
+ * the {@link TempFileManager} are deleted by its background thread.
  */
 public final class AttachmentCacheMonitor {
 
@@ -51,17 +57,19 @@ public final class AttachmentCacheMonitor {
     // Setting this property puts a limit on the lifetime of a cache file
     // The default is "0", which is interpreted as forever
     // The suggested value is 300 seconds
-    private int attachmentTimeoutSeconds = 0;  // Default is 0 (forever)
-    private int refreshSeconds = 0;
+    private volatile int attachmentTimeoutSeconds = 0;  // Default is 0 (forever)
+    private volatile int refreshSeconds = 0;
     public static final String ATTACHMENT_TIMEOUT_PROPERTY = "org.apache.axiom.attachments.tempfile.expiration";
 
-    // HashMap
     // Key String = Absolute file name
     // Value Long = Last Access Time
-    private Map<String,Long> files = new HashMap<String,Long>();
+    private final Map<String,Long> files = new ConcurrentHashMap<String,Long>();
 
     // Delete detection is batched
-    private Long priorDeleteMillis = getTime();
+    private volatile long priorDeleteMillis = getTime();
+
+    // Set while a thread is checking for aged files
+    private final AtomicBoolean checking = new AtomicBoolean();
 
     private Timer timer = null;
 
@@ -187,7 +195,7 @@ public final class AttachmentCacheMonitor {
         }
     }
 
-    private synchronized void _register(String fileName) {
+    private void _register(String fileName) {
         Long currentTime = getTime();
         if (log.isDebugEnabled()) {
             log.debug("Register file " + fileName);
@@ -196,11 +204,10 @@ public final class AttachmentCacheMonitor {
         files.put(fileName, currentTime);
     }
 
-    private synchronized void _access(String fileName) {
+    private void _access(String fileName) {
         Long currentTime = getTime();
         Long priorTime = files.get(fileName);
-        if (priorTime != null) {
-            files.put(fileName, currentTime);
+        if (priorTime != null && files.replace(fileName, currentTime) != null) {
             if (log.isDebugEnabled()) {
                 log.debug("Access file " + fileName);
                 log.debug("Old Time = " + priorTime); 
@@ -216,19 +223,27 @@ public final class AttachmentCacheMonitor {
         }
     }
 
-    private synchronized void _checkForAgedFiles() {
-        Long currentTime = getTime();
+    private void _checkForAgedFiles() {
+        long currentTime = getTime();
         // Don't keep checking the map, only trigger
         // the checking if it is plausible that 
         // files will need to be deleted.
         // I chose a value of ATTACHMENTT_TIMEOUT_SECONDS/4
-        if (isExpired(priorDeleteMillis,
-                      currentTime,
-                      refreshSeconds)) {
-            Iterator<String> it = files.keySet().iterator();
+        if (!isExpired(priorDeleteMillis,
+                       currentTime,
+                       refreshSeconds)) {
+            return;
+        }
+        // If another thread is already checking, there is no need to wait for it
+        if (!checking.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Iterator<Map.Entry<String,Long>> it = files.entrySet().iterator();
             while (it.hasNext()) {
-                String fileName = it.next();
-                Long lastAccess = files.get(fileName);
+                Map.Entry<String,Long> entry = it.next();
+                String fileName = entry.getKey();
+                Long lastAccess = entry.getValue();
                 if (isExpired(lastAccess,
                               currentTime,
                               attachmentTimeoutSeconds)) {
@@ -238,19 +253,20 @@ public final class AttachmentCacheMonitor {
                         log.debug("Old Time = " + lastAccess); 
                         log.debug("New Time = " + currentTime); 
                         log.debug("Elapsed Time (ms) = " + 
-                                  (currentTime.longValue() - lastAccess.longValue())); 
+                                  (currentTime - lastAccess.longValue())); 
                     }
 
-                    deleteFile(fileName);
-                    // Use the iterator to remove this
-                    // file from the map (this avoids
-                    // the dreaded ConcurrentModificationException
-                    it.remove(); 
+                    // Remove the entry unless the file has been accessed concurrently
+                    if (files.remove(fileName, lastAccess)) {
+                        deleteFile(fileName);
+                    }
                 }     
             }
                
             // Reset the prior delete time
             priorDeleteMillis = currentTime;
+        } finally {
+            checking.set(false);
         }
     }
 
@@ -266,7 +282,15 @@ public final class AttachmentCacheMonitor {
     private boolean _deleteFile(String fileName) {
         boolean ret = false;
         File file = new File(fileName);
-        if (file.exists()) {
+        ManagedTempFile managedFile = TempFileManager.getInstance().get(file);
+        if (managedFile != null) {
+            // Let the TempFileManager delete the file in the background
+            managedFile.deleteLater();
+            ret = true;
+            if (log.isDebugEnabled()) {
+                log.debug("Scheduled deletion of managed file " + fileName);
+            }
+        } else if (file.exists()) {
             ret = file.delete();
             if (log.isDebugEnabled()) {
                 log.debug("Deletion Successful ? " + ret);
@@ -280,15 +304,14 @@ public final class AttachmentCacheMonitor {
     }
 
 
-    private Long getTime() {
-        return new Long(System.currentTimeMillis());
+    private long getTime() {
+        return System.currentTimeMillis();
     }
 
-    private boolean isExpired (Long oldTimeMillis, 
-                                      Long newTimeMillis, 
+    private boolean isExpired (long oldTimeMillis, 
+                                      long newTimeMillis, 
                                       int thresholdSecs) {
-        long elapse = newTimeMillis.longValue() -
-            oldTimeMillis.longValue();
+        long elapse = newTimeMillis - oldTimeMillis;
         return (elapse > (thresholdSecs*1000));
     }
 
@@ -42,6 +42,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public class Attachments implements OMAttachmentAccessor {
     private final AttachmentsDelegate delegate;
@@ -95,6 +96,31 @@ public class Attachments implements OMAttachmentAccessor {
      */
     public Attachments(LifecycleManager manager, InputStream inStream, String contentTypeString, boolean fileCacheEnable,
             String attachmentRepoDir, String fileThreshold, int contentLength) throws OMException {
+        this(manager, inStream, contentTypeString, fileCacheEnable, attachmentRepoDir, fileThreshold,
+                contentLength, null);
+    }
+
+    /**
+     * Moves the pointer to the beginning of the first MIME part and optionally enables read-ahead.
+     * If an executor is specified, the attachments following the root part are read into memory
+     * or temporary files by tasks submitted to that executor once the root part has been consumed,
+     * so that network and disk I/O overlap with the processing of the SOAP envelope. See
+     * {@link MultipartBody.Builder#setReadAheadExecutor(Executor)} for more information.
+     *
+     * @param inStream
+     * @param contentTypeString
+     * @param fileCacheEnable
+     * @param attachmentRepoDir
+     * @param fileThreshold
+     * @param contentLength
+     * @param readAheadExecutor
+     *            the executor used to read attachments in the background, or {@code null} to
+     *            disable read-ahead
+     * @throws OMException
+     */
+    public Attachments(LifecycleManager manager, InputStream inStream, String contentTypeString, boolean fileCacheEnable,
+            String attachmentRepoDir, String fileThreshold, int contentLength,
+            Executor readAheadExecutor) throws OMException {
         this.manager = manager;
         final int fileStorageThreshold;
         if (fileThreshold != null && (!"".equals(fileThreshold))) {
@@ -120,7 +146,7 @@ public class Attachments implements OMAttachmentAccessor {
         }
         
         delegate = new MultipartBodyAdapter(inStream, contentTypeString, attachmentBlobFactory,
-                contentLength);
+                contentLength, readAheadExecutor);
     }
 
     /**
@@ -22,6 +22,8 @@ package org.apache.axiom.attachments;
 import javax.activation.FileDataSource;
 import java.io.File;
 
+import org.apache.axiom.blob.ManagedTempFile;
+import org.apache.axiom.blob.TempFileManager;
 import org.apache.axiom.ext.activation.SizeAwareDataSource;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -45,6 +47,12 @@ public class CachedFileDataSource extends FileDataSource implements SizeAwareDat
         	log.debug("Enter CachedFileDataSource ctor");
         }
         if (file != null) {
+            // If the file is managed by the TempFileManager, make sure that it is not reclaimed
+            // as long as this data source is reachable
+            ManagedTempFile managedFile = TempFileManager.getInstance().get(file);
+            if (managedFile != null) {
+                managedFile.addOwner(this);
+            }
         	try {
         		cachedFileName = file.getCanonicalPath();
         	} catch (java.io.IOException e) {
@@ -18,20 +18,29 @@
  */
 package org.apache.axiom.attachments;
 
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 
 import javax.activation.DataSource;
 
 import org.apache.axiom.attachments.lifecycle.LifecycleManager;
 import org.apache.axiom.attachments.lifecycle.impl.FileAccessor;
 import org.apache.axiom.blob.AbstractWritableBlob;
+import org.apache.axiom.blob.FileChannelSupport;
+import org.apache.axiom.blob.ManagedTempFile;
 
-final class LegacyTempFileBlob extends AbstractWritableBlob {
+final class LegacyTempFileBlob extends AbstractWritableBlob implements FileChannelSupport {
     private final LifecycleManager lifecycleManager;
     private final String attachmentDir;
     private FileAccessor fileAccessor;
+    private boolean committed;
+    private boolean released;
 
     LegacyTempFileBlob(LifecycleManager lifecycleManager, String attachmentDir) {
         this.lifecycleManager = lifecycleManager;
@@ -41,7 +50,23 @@ final class LegacyTempFileBlob extends AbstractWritableBlob {
     @Override
     public OutputStream getOutputStream() throws IOException {
         fileAccessor = lifecycleManager.create(attachmentDir);
-        return fileAccessor.getOutputStream();
+        ManagedTempFile managedFile = fileAccessor.getManagedFile();
+        if (managedFile != null) {
+            // Allow the file to be reclaimed if the blob is garbage collected
+            managedFile.addOwner(this);
+        }
+        return new FilterOutputStream(fileAccessor.getOutputStream()) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                committed = true;
+            }
+        };
     }
 
     @Override
@@ -49,6 +74,27 @@ final class LegacyTempFileBlob extends AbstractWritableBlob {
         return fileAccessor.getInputStream();
     }
 
+    @Override
+    public FileChannel openChannel() throws IOException {
+        if (!committed || released) {
+            throw new IllegalStateException();
+        }
+        return new FileInputStream(fileAccessor.getFile()).getChannel();
+    }
+
+    @Override
+    public MappedByteBuffer map() throws IOException {
+        if (!committed || released) {
+            throw new IllegalStateException();
+        }
+        FileChannel channel = openChannel();
+        try {
+            return channel.map(MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+    }
+
     DataSource getDataSource(String contentType) {
         CachedFileDataSource ds = new CachedFileDataSource(fileAccessor.getFile());
         ds.setContentType(contentType);
@@ -63,5 +109,6 @@ final class LegacyTempFileBlob extends AbstractWritableBlob {
     @Override
     public void release() throws IOException {
         lifecycleManager.delete(fileAccessor.getFile());
+        released = true;
     }
 }
@@ -23,8 +23,10 @@ import java.io.InputStream;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import javax.activation.DataHandler;
 
@@ -44,6 +46,12 @@ final class MultipartBodyAdapter extends AttachmentsDelegate implements PartCrea
     private static final Log log = LogFactory.getLog(MultipartBodyAdapter.class);
 
     private final MultipartBody message;
+    
+    /**
+     * Maps content IDs to data handlers. This map is updated by {@link #partCreated(Part)}, which
+     * may be invoked by the read-ahead task. All accesses are therefore synchronized on
+     * {@link #message}.
+     */
     private final Map<String,DataHandler> map = new LinkedHashMap<String,DataHandler>();
     private final int contentLength;
     private final CountingInputStream filterIS;
@@ -56,7 +64,8 @@ final class MultipartBodyAdapter extends AttachmentsDelegate implements PartCrea
     private IncomingAttachmentStreams streams;
 
     MultipartBodyAdapter(InputStream inStream, String contentTypeString,
-            WritableBlobFactory<?> attachmentBlobFactory, int contentLength) {
+            WritableBlobFactory<?> attachmentBlobFactory, int contentLength,
+            Executor readAheadExecutor) {
         this.contentLength = contentLength;
         if (log.isDebugEnabled()) {
             log.debug("Attachments contentLength=" + contentLength + ", contentTypeString=" + contentTypeString);
@@ -81,13 +90,16 @@ final class MultipartBodyAdapter extends AttachmentsDelegate implements PartCrea
                         }
                     })
                 .setPartCreationListener(this)
+                .setReadAheadExecutor(readAheadExecutor)
                 .build();
 
         rootPart = message.getRootPart();
         String rootPartContentID = rootPart.getContentID();
         if (rootPartContentID == null) {
             rootPartContentID = "firstPart_" + UIDGenerator.generateContentId();
-            map.put(rootPartContentID, rootPart.getDataHandler());
+            synchronized (message) {
+                map.put(rootPartContentID, rootPart.getDataHandler());
+            }
         }
         this.rootPartContentID = rootPartContentID;
     }
@@ -137,7 +149,10 @@ final class MultipartBodyAdapter extends AttachmentsDelegate implements PartCrea
     @Override
     DataHandler getDataHandler(String contentID) {
         do {
-            DataHandler dataHandler = map.get(contentID);
+            DataHandler dataHandler;
+            synchronized (message) {
+                dataHandler = map.get(contentID);
+            }
             if (dataHandler != null) {
                 return dataHandler;
             }
@@ -148,14 +163,18 @@ final class MultipartBodyAdapter extends AttachmentsDelegate implements PartCrea
     @Override
     void addDataHandler(String contentID, DataHandler dataHandler) {
         fetchAll();
-        map.put(contentID, dataHandler);
+        synchronized (message) {
+            map.put(contentID, dataHandler);
+        }
     }
 
     @Override
     void removeDataHandler(String contentID) {
         do {
-            if (map.remove(contentID) != null) {
-                return;
+            synchronized (message) {
+                if (map.remove(contentID) != null) {
+                    return;
+                }
             }
         } while (fetchNext());
     }
@@ -195,8 +214,13 @@ final class MultipartBodyAdapter extends AttachmentsDelegate implements PartCrea
     Set<String> getContentIDs(boolean fetchAll) {
         if (fetchAll) {
             fetchAll();
+            return map.keySet();
+        } else {
+            // Parts may still be added by the read-ahead task; return a snapshot
+            synchronized (message) {
+                return new LinkedHashSet<String>(map.keySet());
+            }
         }
-        return map.keySet();
     }
 
     @Override
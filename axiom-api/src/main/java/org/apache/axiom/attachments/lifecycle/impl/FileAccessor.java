@@ -29,6 +29,7 @@ import java.io.OutputStream;
 import java.util.Observable;
 
 import org.apache.axiom.attachments.lifecycle.LifecycleManager;
+import org.apache.axiom.blob.ManagedTempFile;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -44,10 +45,16 @@ public class FileAccessor extends Observable{
     File file = null;
     LifecycleManager manager;
     private int accessCount = 0;
+    private final ManagedTempFile managedFile;
     public FileAccessor(LifecycleManager manager, File file) {
+        this(manager, file, null);
+    }
+
+    FileAccessor(LifecycleManager manager, File file, ManagedTempFile managedFile) {
         super();
         this.manager = manager;
         this.file = file;   
+        this.managedFile = managedFile;
     }
 
     public String getFileName() {
@@ -68,7 +75,22 @@ public class FileAccessor extends Observable{
         if(log.isDebugEnabled()){
             log.debug("getOutputStream()");
         }
-        return new FileOutputStream(file);
+        if (managedFile != null) {
+            // Account the bytes written against the quota of the TempFileManager
+            return managedFile.openOutputStream();
+        } else {
+            return new FileOutputStream(file);
+        }
+    }
+
+    /**
+     * Get the {@link ManagedTempFile} for the file, if the file has been created by
+     * {@link LifecycleManagerImpl}.
+     * 
+     * @return the {@link ManagedTempFile}, or <code>null</code>
+     */
+    public ManagedTempFile getManagedFile() {
+        return managedFile;
     }
 
     public long getSize() {
@@ -21,26 +21,40 @@ package org.apache.axiom.attachments.lifecycle.impl;
 
 import java.io.File;
 import java.io.IOException;
-import java.security.AccessController;
-import java.security.PrivilegedActionException;
-import java.security.PrivilegedExceptionAction;
-import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.axiom.attachments.lifecycle.LifecycleManager;
+import org.apache.axiom.blob.ManagedTempFile;
+import org.apache.axiom.blob.TempFileManager;
 import org.apache.axiom.util.UIDGenerator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+/**
+ * Default {@link LifecycleManager} implementation. Attachment files are registered with the
+ * {@link TempFileManager}, which deletes them when the JVM exits (unless they have been deleted
+ * before) and takes care of delayed and retried deletions in the background.
+ */
 public class LifecycleManagerImpl implements LifecycleManager {
     private static final Log log = LogFactory.getLog(LifecycleManagerImpl.class);
 
-    //Hashtable to store file accessors.
-    private static Hashtable<String,FileAccessor> table = new Hashtable<String,FileAccessor>();
-    private VMShutdownHook hook = null;
+    //Map to store file accessors, keyed by file name.
+    private static final ConcurrentHashMap<String,FileAccessor> table = new ConcurrentHashMap<String,FileAccessor>();
+
     public LifecycleManagerImpl() {
         super(); 
     }
 
+    /**
+     * Get the {@link TempFileManager} used by this instance.
+     * 
+     * @return the {@link TempFileManager}
+     */
+    protected TempFileManager getTempFileManager() {
+        return TempFileManager.getInstance();
+    }
+
     /* (non-Javadoc)
      * @see org.apache.axiom.lifecycle.LifecycleManager#create(java.lang.String)
      */
@@ -65,13 +79,19 @@ public class LifecycleManagerImpl implements LifecycleManager {
         // synchronization with the java random number generator.
         String id = UIDGenerator.generateUID();
 
-        String fileString = "axiom" + id + ".att";
+        final String fileString = "axiom" + id + ".att";
         file = new File(dir, fileString);
-        FileAccessor fa = new FileAccessor(this, file);
-        //add the fileAccesor to table
+        //Default behaviour: the file is deleted on exit
+        ManagedTempFile managedFile = getTempFileManager().register(file);
+        FileAccessor fa = new FileAccessor(this, file, managedFile);
+        //add the fileAccesor to table and remove it once the file has been deleted
         table.put(fileString, fa);
-        //Default behaviour
-        deleteOnExit(file);
+        managedFile.setDeletionListener(new Runnable() {
+            @Override
+            public void run() {
+                table.remove(fileString);
+            }
+        });
         if(log.isDebugEnabled()){
             log.debug("End Create()");
         }
@@ -88,29 +108,23 @@ public class LifecycleManagerImpl implements LifecycleManager {
         }
 
         if(file!=null && file.exists()){
-            table.remove(file);
+            table.remove(file.getName());
             if(log.isDebugEnabled()){
                 log.debug("invoking file.delete()");
             }
 
-            if(file.delete()){
+            ManagedTempFile managedFile = getTempFileManager().get(file);
+            if (managedFile == null) {
+                managedFile = getTempFileManager().register(file);
+            }
+            if(managedFile.delete()){
                 if(log.isDebugEnabled()){
                     log.debug("delete() successful");
                 }
-                //If file was registered with VMShutdown hook
-                //lets remove it from the list to be deleted on VMExit.
-                VMShutdownHook hook =VMShutdownHook.hook();
-                if(hook.isRegistered()){
-                    hook.remove(file);
-                }
-                if(log.isDebugEnabled()){
-                    log.debug("File Purged and removed from Shutdown Hook Collection");
-                }
             }else{
                 if(log.isDebugEnabled()){
-                    log.debug("Cannot delete file, set to delete on VM shutdown");
+                    log.debug("Cannot delete file, deletion will be retried in the background");
                 }
-                deleteOnExit(file);
             }
         }
         if(log.isDebugEnabled()){
@@ -126,16 +140,12 @@ public class LifecycleManagerImpl implements LifecycleManager {
         if(log.isDebugEnabled()){
             log.debug("Start deleteOnExit()");
         }
-        if(hook == null){
-            hook = RegisterVMShutdownHook();
-        }
-
         if(file!=null){
             if(log.isDebugEnabled()){
                 log.debug("Invoking deleteOnExit() for file = "+file.getAbsolutePath());
             }
-            hook.add(file);
-            table.remove(file);
+            // Files registered with the TempFileManager are deleted on exit
+            getTempFileManager().register(file);
         }
         if(log.isDebugEnabled()){
             log.debug("End deleteOnExit()");
@@ -150,44 +160,19 @@ public class LifecycleManagerImpl implements LifecycleManager {
         if(log.isDebugEnabled()){
             log.debug("Start deleteOnTimeInterval()");
         }
-
-        Thread t = new Thread(new LifecycleManagerImpl.FileDeletor(interval, file));
-        t.setDaemon(true);
-        t.start();
-        if(log.isDebugEnabled()){
-            log.debug("End deleteOnTimeInterval()");
-        }
-    }
-
-    private VMShutdownHook RegisterVMShutdownHook() throws RuntimeException{
-        if(log.isDebugEnabled()){
-            log.debug("Start RegisterVMShutdownHook()");
-        }
-        try{
-            hook = AccessController.doPrivileged(new PrivilegedExceptionAction<VMShutdownHook>() {
-                @Override
-                public VMShutdownHook run() throws SecurityException, IllegalStateException, IllegalArgumentException {
-                    VMShutdownHook hook = VMShutdownHook.hook();
-                    if(!hook.isRegistered()){
-                        Runtime.getRuntime().addShutdownHook(hook);
-                        hook.setRegistered(true);
-                    }
-                    return hook;
-                }
-            });
-        }catch (PrivilegedActionException e) {
-            if (log.isDebugEnabled()) {
-                log.debug("Exception thrown from AccessController: " + e);
-                log.debug("VM Shutdown Hook not registered.");
-            }
-            throw new RuntimeException(e);
+        if(file!=null){
+            getTempFileManager().register(file).deleteAfter(interval, TimeUnit.SECONDS);
         }
         if(log.isDebugEnabled()){
-            log.debug("Exit RegisterVMShutdownHook()");
+            log.debug("End deleteOnTimeInterval()");
         }
-        return hook;
     }
 
+    /**
+     * @deprecated No longer used; {@link #deleteOnTimeInterval(int, File)} delegates to the
+     *             background thread of the {@link TempFileManager} instead of starting a new thread
+     *             for each file.
+     */
     public class FileDeletor implements Runnable{
         int interval;
         File _file;
@@ -203,7 +188,7 @@ public class LifecycleManagerImpl implements LifecycleManager {
             try{
                 Thread.sleep(interval*1000);
                 if(_file.exists()){
-                    table.remove(_file);
+                    table.remove(_file.getName());
                     _file.delete();
                 }
             }catch(InterruptedException e){
@@ -221,5 +206,3 @@ public class LifecycleManagerImpl implements LifecycleManager {
 	}
 
 }
-
-
@@ -31,6 +31,10 @@ import org.apache.commons.logging.LogFactory;
  * This class will be used to delete any cached attachments file that where
  * added by runtime to be deleted on VM shutdown.
  */
+/**
+ * @deprecated No longer used. {@link LifecycleManagerImpl} registers files with the
+ *             {@link org.apache.axiom.blob.TempFileManager}, which deletes them on shutdown.
+ */
 public class VMShutdownHook extends Thread {
     private static final Log log = LogFactory.getLog(VMShutdownHook.class);
     private static VMShutdownHook instance = null;
@@ -45,6 +45,18 @@ public final class Blobs {
         return new MemoryBlobImpl();
     }
     
+    /**
+     * Create a {@link MemoryBlob} instance that allocates its chunks from the given pool. The
+     * chunks are returned to the pool when the blob is released.
+     * 
+     * @param pool
+     *            the chunk pool
+     * @return the blob
+     */
+    public static MemoryBlob createMemoryBlob(ChunkPool pool) {
+        return new MemoryBlobImpl(pool);
+    }
+    
     /**
      * Create an {@link OverflowableBlob}.
      * 
@@ -60,6 +72,26 @@ public final class Blobs {
         return new OverflowableBlobImpl(numberOfChunks, chunkSize, overflowBlobFactory);
     }
     
+    /**
+     * Create an {@link OverflowableBlob} that allocates its memory buffer from the given pool. The
+     * chunks are returned to the pool when the blob is released or when its content is transferred
+     * to the overflow blob. Since the chunk size is constrained by the pool, the effective threshold
+     * may be slightly larger than the requested one.
+     * 
+     * @param threshold
+     *            the threshold above which data is transferred to the overflow blob
+     * @param overflowBlobFactory
+     *            the factory that will be used to create the overflow blob
+     * @param pool
+     *            the chunk pool
+     * @return the blob
+     */
+    public static OverflowableBlob createOverflowableBlob(int threshold, WritableBlobFactory<?> overflowBlobFactory, ChunkPool pool) {
+        int chunkSize = ChunkPool.getChunkSize(threshold/16);
+        int numberOfChunks = Math.max(1, (threshold + chunkSize - 1)/chunkSize);
+        return new OverflowableBlobImpl(numberOfChunks, chunkSize, overflowBlobFactory, pool);
+    }
+    
     /**
      * Create an {@link OverflowableBlob} that overflows to a temporary file. Temporary files are
      * created using {@link File#createTempFile(String, String, File)}.
@@ -80,4 +112,73 @@ public final class Blobs {
         return createOverflowableBlob(threshold,
                 new TempFileBlobFactory(tempPrefix, tempSuffix, tempDirectory));
     }
+    
+    /**
+     * Create an {@link OverflowableBlob} that overflows to a temporary file and that allocates its
+     * memory buffer from the given pool. See
+     * {@link #createOverflowableBlob(int, WritableBlobFactory, ChunkPool)} for more information.
+     * 
+     * @param threshold
+     *            the overflow threshold
+     * @param tempPrefix
+     *            the prefix to be used in generating the name of the temporary file
+     * @param tempSuffix
+     *            the suffix to be used in generating the name of the temporary file
+     * @param tempDirectory
+     *            the directory in which the temporary file is to be created, or <code>null</code>
+     *            if the default temporary directory is to be used
+     * @param pool
+     *            the chunk pool
+     * @return the blob
+     */
+    public static OverflowableBlob createOverflowableBlob(int threshold, String tempPrefix,
+            String tempSuffix, File tempDirectory, ChunkPool pool) {
+        return createOverflowableBlob(threshold,
+                new TempFileBlobFactory(tempPrefix, tempSuffix, tempDirectory), pool);
+    }
+    
+    /**
+     * Create a factory for blobs that store their content in direct buffers allocated from the
+     * given arena. If the arena is exhausted, the content of the blob is transferred to an overflow
+     * blob. The blobs created by the factory must be released explicitly so that their buffers are
+     * returned to the arena.
+     * <p>
+     * The factory can be used as the overflow blob factory of a heap based {@link OverflowableBlob}
+     * (see {@link #createOverflowableBlob(int, WritableBlobFactory)}), so that small content is
+     * kept on the heap, larger content is stored off-heap as long as the arena has capacity, and
+     * content is only written to disk once the arena is exhausted.
+     * 
+     * @param arena
+     *            the arena to allocate buffers from
+     * @param overflowBlobFactory
+     *            the factory that will be used to create the overflow blob
+     * @return the blob factory
+     */
+    public static WritableBlobFactory<OverflowableBlob> createDirectBufferBlobFactory(
+            DirectBufferArena arena, WritableBlobFactory<?> overflowBlobFactory) {
+        return new DirectBufferBlobFactory(arena, overflowBlobFactory);
+    }
+    
+    /**
+     * Create a factory for blobs that store their content in direct buffers allocated from the
+     * given arena and that overflow to a temporary file. See
+     * {@link #createDirectBufferBlobFactory(DirectBufferArena, WritableBlobFactory)} for more
+     * information.
+     * 
+     * @param arena
+     *            the arena to allocate buffers from
+     * @param tempPrefix
+     *            the prefix to be used in generating the name of the temporary file
+     * @param tempSuffix
+     *            the suffix to be used in generating the name of the temporary file
+     * @param tempDirectory
+     *            the directory in which the temporary file is to be created, or <code>null</code>
+     *            if the default temporary directory is to be used
+     * @return the blob factory
+     */
+    public static WritableBlobFactory<OverflowableBlob> createDirectBufferBlobFactory(
+            DirectBufferArena arena, String tempPrefix, String tempSuffix, File tempDirectory) {
+        return createDirectBufferBlobFactory(arena,
+                new TempFileBlobFactory(tempPrefix, tempSuffix, tempDirectory));
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+final class ChannelUtil {
+    private ChannelUtil() {}
+    
+    /**
+     * Get the channel backing the given output stream.
+     * 
+     * @param out
+     *            the output stream
+     * @return the channel, or <code>null</code> if the output stream is not backed by a channel
+     */
+    static WritableByteChannel getChannel(OutputStream out) {
+        if (out instanceof FileOutputStream) {
+            return ((FileOutputStream)out).getChannel();
+        } else if (out instanceof WritableByteChannel) {
+            return (WritableByteChannel)out;
+        } else {
+            return null;
+        }
+    }
+    
+    /**
+     * Transfer the content of a file channel to a writable channel.
+     * 
+     * @param in
+     *            the channel to read from
+     * @param out
+     *            the channel to write to
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    static void transfer(FileChannel in, WritableByteChannel out) throws IOException {
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+            position += in.transferTo(position, size-position, out);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of memory chunks that can be shared by {@link MemoryBlob} and
+ * {@link OverflowableBlob} instances. Blobs created with a chunk pool (see
+ * {@link Blobs#createMemoryBlob(ChunkPool)} and
+ * {@link Blobs#createOverflowableBlob(int, WritableBlobFactory, ChunkPool)}) take their chunks from
+ * the pool and return them when {@link WritableBlob#release()} is called. This reduces the
+ * allocation rate in applications that buffer large numbers of blobs.
+ * <p>
+ * Chunks are organized in size classes. The size of a chunk is always a power of two between
+ * 4096 bytes and 1 MB. The pool is bounded by the total number of bytes it retains; chunks that
+ * are returned to a full pool are left to the garbage collector.
+ * <p>
+ * Note that when a blob uses a chunk pool, calling {@link WritableBlob#release()} is required for
+ * the chunks to be recycled. On the other hand, input streams obtained from the blob must no
+ * longer be used after the blob has been released.
+ * <p>
+ * Instances of this class are thread safe.
+ */
+public final class ChunkPool {
+    private static final int MIN_CHUNK_SHIFT = 12;
+    private static final int MAX_CHUNK_SHIFT = 20;
+    
+    static final int MIN_CHUNK_SIZE = 1 << MIN_CHUNK_SHIFT;
+    static final int MAX_CHUNK_SIZE = 1 << MAX_CHUNK_SHIFT;
+    
+    private final long maxPooledBytes;
+    private final Queue<byte[]>[] chunks;
+    private final AtomicLong pooledBytes = new AtomicLong();
+    
+    /**
+     * Constructor.
+     * 
+     * @param maxPooledBytes
+     *            the maximum number of bytes that the pool retains
+     */
+    @SuppressWarnings("unchecked")
+    public ChunkPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        chunks = new Queue[MAX_CHUNK_SHIFT-MIN_CHUNK_SHIFT+1];
+        for (int i=0; i<chunks.length; i++) {
+            chunks[i] = new ConcurrentLinkedQueue<byte[]>();
+        }
+    }
+    
+    /**
+     * Determine the chunk size to use for a given requested size, i.e. the smallest size class
+     * that is large enough, or the largest size class if the requested size exceeds the largest
+     * size class.
+     * 
+     * @param size
+     *            the requested size
+     * @return the chunk size
+     */
+    static int getChunkSize(int size) {
+        if (size <= MIN_CHUNK_SIZE) {
+            return MIN_CHUNK_SIZE;
+        } else if (size >= MAX_CHUNK_SIZE) {
+            return MAX_CHUNK_SIZE;
+        } else {
+            return Integer.highestOneBit(size-1) << 1;
+        }
+    }
+    
+    private static int getSizeClass(int chunkSize) {
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE || Integer.bitCount(chunkSize) != 1) {
+            return -1;
+        } else {
+            return Integer.numberOfTrailingZeros(chunkSize) - MIN_CHUNK_SHIFT;
+        }
+    }
+    
+    /**
+     * Get a chunk from the pool or allocate a new one if the pool has no chunk of the requested
+     * size.
+     * 
+     * @param chunkSize
+     *            the chunk size; must be a value returned by {@link #getChunkSize(int)}
+     * @return the chunk
+     */
+    byte[] allocate(int chunkSize) {
+        int sizeClass = getSizeClass(chunkSize);
+        if (sizeClass == -1) {
+            throw new IllegalArgumentException();
+        }
+        byte[] chunk = chunks[sizeClass].poll();
+        if (chunk == null) {
+            return new byte[chunkSize];
+        } else {
+            pooledBytes.addAndGet(-chunkSize);
+            return chunk;
+        }
+    }
+    
+    /**
+     * Return a chunk to the pool. If the pool is full, the chunk is discarded.
+     * 
+     * @param chunk
+     *            the chunk
+     */
+    void recycle(byte[] chunk) {
+        int sizeClass = getSizeClass(chunk.length);
+        if (sizeClass == -1) {
+            return;
+        }
+        long current;
+        do {
+            current = pooledBytes.get();
+            if (current + chunk.length > maxPooledBytes) {
+                return;
+            }
+        } while (!pooledBytes.compareAndSet(current, current + chunk.length));
+        chunks[sizeClass].offer(chunk);
+    }
+    
+    /**
+     * Get the number of bytes currently retained by the pool.
+     * 
+     * @return the number of bytes in the pool
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded arena of direct {@link ByteBuffer}s used by blobs created with
+ * {@link Blobs#createDirectBufferBlobFactory(DirectBufferArena, WritableBlobFactory)}. Storing
+ * data in direct buffers keeps it outside of the Java heap, so that large binary content that is
+ * only passed through doesn't contribute to GC pressure.
+ * <p>
+ * The arena allocates buffers of a fixed size and limits the total amount of memory handed out
+ * to blobs. Buffers are returned to the arena when the blob is released and are then reused by
+ * other blobs. A blob that can't get a buffer from the arena transfers its content to an overflow
+ * blob (typically a temporary file). An arena is therefore a way to set a per-process off-heap
+ * memory budget for buffered content.
+ * <p>
+ * Note that a blob using an arena must be released explicitly using
+ * {@link WritableBlob#release()}. Otherwise its buffers will only be returned to the arena when
+ * the blob is garbage collected.
+ * <p>
+ * Instances of this class are thread safe.
+ */
+public final class DirectBufferArena {
+    private final long capacity;
+    private final int bufferSize;
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            the maximum number of bytes that can be allocated from the arena
+     * @param bufferSize
+     *            the size of the individual buffers
+     */
+    public DirectBufferArena(long capacity, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.capacity = capacity;
+        this.bufferSize = bufferSize;
+    }
+    
+    /**
+     * Constructor that uses a default buffer size of 64 KB.
+     * 
+     * @param capacity
+     *            the maximum number of bytes that can be allocated from the arena
+     */
+    public DirectBufferArena(long capacity) {
+        this(capacity, 65536);
+    }
+
+    /**
+     * Get the maximum number of bytes that can be allocated from this arena.
+     * 
+     * @return the capacity in bytes
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the size of the buffers allocated by this arena.
+     * 
+     * @return the buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Get the number of bytes currently allocated to blobs.
+     * 
+     * @return the number of bytes in use
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+    
+    /**
+     * Allocate a buffer.
+     * 
+     * @return the buffer (cleared and ready for writing), or <code>null</code> if the capacity of
+     *         the arena has been exhausted
+     */
+    ByteBuffer allocate() {
+        long current;
+        do {
+            current = allocatedBytes.get();
+            if (current + bufferSize > capacity) {
+                return null;
+            }
+        } while (!allocatedBytes.compareAndSet(current, current + bufferSize));
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        } else {
+            buffer.clear();
+        }
+        return buffer;
+    }
+    
+    /**
+     * Return a buffer to the arena.
+     * 
+     * @param buffer
+     *            a buffer previously returned by {@link #allocate()}
+     */
+    void release(ByteBuffer buffer) {
+        // Add the buffer to the free list before updating the counter, so that a thread that
+        // successfully reserves the capacity is able to reuse the buffer.
+        freeBuffers.offer(buffer);
+        allocatedBytes.addAndGet(-bufferSize);
+    }
+}
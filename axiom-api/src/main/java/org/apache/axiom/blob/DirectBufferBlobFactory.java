@@ -16,25 +16,19 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-package org.apache.axiom.soap.impl.common;
+package org.apache.axiom.blob;
 
-import org.apache.axiom.core.ElementMatcher;
-import org.apache.axiom.om.impl.intf.AxiomElement;
-import org.apache.axiom.soap.impl.intf.SOAPHelper;
+final class DirectBufferBlobFactory implements WritableBlobFactory<OverflowableBlob> {
+    private final DirectBufferArena arena;
+    private final WritableBlobFactory<?> overflowBlobFactory;
 
-/** A Checker to see that we both match a given role AND are mustUnderstand=true */
-public class MURoleChecker implements ElementMatcher<AxiomElement> {
-    private final SOAPHelper soapHelper;
-    private final String role;
-
-    public MURoleChecker(SOAPHelper soapHelper, String role) {
-        this.soapHelper = soapHelper;
-        this.role = role;
+    DirectBufferBlobFactory(DirectBufferArena arena, WritableBlobFactory<?> overflowBlobFactory) {
+        this.arena = arena;
+        this.overflowBlobFactory = overflowBlobFactory;
     }
 
     @Override
-    public boolean matches(AxiomElement element, String namespaceURI, String name) {
-        return SOAPHeaderBlockHelper.getMustUnderstand(element, soapHelper)
-                && (role == null || role.equals(SOAPHeaderBlockHelper.getRole(element, soapHelper)));
+    public OverflowableBlob createBlob() {
+        return new DirectBufferBlobImpl(arena, overflowBlobFactory);
     }
 }
@@ -0,0 +1,455 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.axiom.ext.io.ReadFromSupport;
+import org.apache.axiom.ext.io.StreamCopyException;
+import org.apache.axiom.util.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link OverflowableBlob} implementation that stores data in direct buffers allocated from a
+ * {@link DirectBufferArena}. If the arena is exhausted, the content is transferred to an overflow
+ * blob.
+ */
+final class DirectBufferBlobImpl implements OverflowableBlob {
+    private static final Log log = LogFactory.getLog(DirectBufferBlobImpl.class);
+    
+    class OutputStreamImpl extends OutputStream implements ReadFromSupport {
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (state != State.UNCOMMITTED) {
+                throw new IllegalStateException();
+            }
+            while (len > 0) {
+                if (overflowOutputStream != null) {
+                    overflowOutputStream.write(b, off, len);
+                    break;
+                }
+                ByteBuffer buffer = getCurrentBuffer();
+                if (buffer != null) {
+                    int c = Math.min(len, buffer.remaining());
+                    buffer.put(b, off, c);
+                    size += c;
+                    off += c;
+                    len -= c;
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            write(b, 0, b.length);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte)b }, 0, 1);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (overflowOutputStream != null) {
+                overflowOutputStream.close();
+            }
+            state = State.COMMITTED;
+        }
+
+        @Override
+        public long readFrom(InputStream in, long length) throws StreamCopyException {
+            return DirectBufferBlobImpl.this.readFrom(in, length, false);
+        }
+    }
+    
+    class InputStreamImpl extends InputStream {
+        private final ByteBuffer[] buffers;
+        private int bufferIndex;
+        private int markBufferIndex;
+        private int[] markPositions;
+        
+        InputStreamImpl() {
+            buffers = getReadOnlyBuffers();
+        }
+        
+        private ByteBuffer getCurrentBuffer() {
+            while (bufferIndex < buffers.length) {
+                ByteBuffer buffer = buffers[bufferIndex];
+                if (buffer.hasRemaining()) {
+                    return buffer;
+                }
+                bufferIndex++;
+            }
+            return null;
+        }
+
+        @Override
+        public int available() throws IOException {
+            long available = 0;
+            for (int i=bufferIndex; i<buffers.length; i++) {
+                available += buffers[i].remaining();
+            }
+            return (int)Math.min(available, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int read = 0;
+            while (len > 0) {
+                ByteBuffer buffer = getCurrentBuffer();
+                if (buffer == null) {
+                    break;
+                }
+                int c = Math.min(len, buffer.remaining());
+                buffer.get(b, off, c);
+                off += c;
+                len -= c;
+                read += c;
+            }
+            return read == 0 ? -1 : read;
+        }
+
+        @Override
+        public int read() throws IOException {
+            ByteBuffer buffer = getCurrentBuffer();
+            return buffer == null ? -1 : buffer.get() & 0xFF;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (n > 0) {
+                ByteBuffer buffer = getCurrentBuffer();
+                if (buffer == null) {
+                    break;
+                }
+                int c = (int)Math.min(n, buffer.remaining());
+                buffer.position(buffer.position() + c);
+                n -= c;
+                skipped += c;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void mark(int readlimit) {
+            markBufferIndex = bufferIndex;
+            if (markPositions == null) {
+                markPositions = new int[buffers.length];
+            }
+            for (int i=bufferIndex; i<buffers.length; i++) {
+                markPositions[i] = buffers[i].position();
+            }
+        }
+
+        @Override
+        public void reset() throws IOException {
+            if (markPositions == null) {
+                for (ByteBuffer buffer : buffers) {
+                    buffer.rewind();
+                }
+                bufferIndex = 0;
+            } else {
+                for (int i=markBufferIndex; i<buffers.length; i++) {
+                    buffers[i].position(markPositions[i]);
+                }
+                bufferIndex = markBufferIndex;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+    
+    private final DirectBufferArena arena;
+    private final WritableBlobFactory<?> overflowBlobFactory;
+    private final Throwable trace;
+    
+    /**
+     * The buffers containing the data. All buffers except the last one are full. This is set to
+     * <code>null</code> when the content is transferred to the overflow blob or when the blob is
+     * released.
+     */
+    List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+    
+    /**
+     * The buffer the next byte will be written to, or <code>null</code> if no buffer has been
+     * allocated yet.
+     */
+    ByteBuffer currentBuffer;
+    
+    long size;
+    WritableBlob overflowBlob;
+    OutputStream overflowOutputStream;
+    State state = State.NEW;
+
+    DirectBufferBlobImpl(DirectBufferArena arena, WritableBlobFactory<?> overflowBlobFactory) {
+        this.arena = arena;
+        this.overflowBlobFactory = overflowBlobFactory;
+        trace = log.isDebugEnabled() ? new Throwable() : null;
+    }
+    
+    /**
+     * Get the buffer to write to, allocating a new one if necessary. If no buffer can be allocated,
+     * then the content is transferred to the overflow blob.
+     * 
+     * @return the buffer to write to, or <code>null</code> if the blob has switched to the overflow
+     *         blob
+     * @throws IOException
+     *             if an error occurred while writing to the overflow blob
+     */
+    ByteBuffer getCurrentBuffer() throws IOException {
+        if (currentBuffer == null || !currentBuffer.hasRemaining()) {
+            currentBuffer = arena.allocate();
+            if (currentBuffer == null) {
+                switchToOverflowBlob();
+                return null;
+            }
+            buffers.add(currentBuffer);
+        }
+        return currentBuffer;
+    }
+    
+    /**
+     * Create read-only views of the buffers, positioned at the start of the data.
+     * 
+     * @return the buffers
+     */
+    ByteBuffer[] getReadOnlyBuffers() {
+        ByteBuffer[] result = new ByteBuffer[buffers.size()];
+        for (int i=0; i<result.length; i++) {
+            ByteBuffer buffer = buffers.get(i).asReadOnlyBuffer();
+            buffer.flip();
+            result[i] = buffer;
+        }
+        return result;
+    }
+    
+    void switchToOverflowBlob() throws IOException {
+        overflowBlob = overflowBlobFactory.createBlob();
+        overflowOutputStream = overflowBlob.getOutputStream();
+        write(overflowOutputStream);
+        releaseBuffers();
+    }
+    
+    private void releaseBuffers() {
+        if (buffers != null) {
+            for (ByteBuffer buffer : buffers) {
+                arena.release(buffer);
+            }
+            buffers = null;
+            currentBuffer = null;
+        }
+    }
+    
+    /**
+     * Write the content of the buffers to the given output stream. If the output stream is backed
+     * by a channel, the buffers are written directly to that channel, i.e. without copying the data
+     * to the Java heap.
+     * 
+     * @param out
+     *            the output stream
+     * @throws IOException
+     *             if an error occurs while writing to the stream
+     */
+    private void write(OutputStream out) throws IOException {
+        WritableByteChannel channel = ChannelUtil.getChannel(out);
+        ByteBuffer[] buffers = getReadOnlyBuffers();
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gatheringChannel = (GatheringByteChannel)channel;
+            long remaining = size;
+            while (remaining > 0) {
+                remaining -= gatheringChannel.write(buffers);
+            }
+        } else if (channel != null) {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        } else {
+            byte[] b = new byte[(int)Math.min(size, 4096)];
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    int c = Math.min(b.length, buffer.remaining());
+                    buffer.get(b, 0, c);
+                    out.write(b, 0, c);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public OutputStream getOutputStream() {
+        if (state != State.NEW) {
+            throw new IllegalStateException();
+        } else {
+            state = State.UNCOMMITTED;
+            return new OutputStreamImpl();
+        }
+    }
+    
+    long readFrom(InputStream in, long length, boolean commit) throws StreamCopyException {
+        if (state == State.COMMITTED || state == State.RELEASED) {
+            throw new IllegalStateException();
+        }
+        long read = 0;
+        long toRead = length == -1 ? Long.MAX_VALUE : length;
+        byte[] b = null;
+        while (toRead > 0) {
+            if (overflowOutputStream != null) {
+                read += IOUtils.copy(in, overflowOutputStream, toRead);
+                break;
+            }
+            ByteBuffer buffer;
+            try {
+                buffer = getCurrentBuffer();
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.WRITE, ex);
+            }
+            if (buffer == null) {
+                continue;
+            }
+            if (b == null) {
+                b = new byte[4096];
+            }
+            int c;
+            try {
+                c = in.read(b, 0, (int)Math.min(toRead, Math.min(b.length, buffer.remaining())));
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.READ, ex);
+            }
+            if (c == -1) {
+                break;
+            }
+            buffer.put(b, 0, c);
+            read += c;
+            toRead -= c;
+            size += c;
+        }
+        if (commit && overflowOutputStream != null) {
+            try {
+                overflowOutputStream.close();
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.WRITE, ex);
+            }
+        }
+        state = commit ? State.COMMITTED : State.UNCOMMITTED;
+        return read;
+    }
+
+    @Override
+    public long readFrom(InputStream in) throws StreamCopyException {
+        if (state != State.NEW) {
+            throw new IllegalStateException();
+        }
+        return readFrom(in, -1, true);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        } else if (overflowBlob != null) {
+            return overflowBlob.getInputStream();
+        } else {
+            return new InputStreamImpl();
+        }
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws StreamCopyException {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        if (overflowBlob != null) {
+            overflowBlob.writeTo(out);
+        } else if (out instanceof ReadFromSupport && ChannelUtil.getChannel(out) == null) {
+            ((ReadFromSupport)out).readFrom(new InputStreamImpl(), -1);
+        } else {
+            try {
+                write(out);
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.WRITE, ex);
+            }
+        }
+    }
+
+    @Override
+    public long getSize() {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        if (overflowBlob != null) {
+            return overflowBlob.getSize();
+        } else {
+            return size;
+        }
+    }
+
+    @Override
+    public void release() throws IOException {
+        if (overflowOutputStream != null) {
+            if (state == State.UNCOMMITTED) {
+                overflowOutputStream.close();
+            }
+            overflowOutputStream = null;
+        }
+        if (overflowBlob != null) {
+            overflowBlob.release();
+            overflowBlob = null;
+        }
+        releaseBuffers();
+        state = State.RELEASED;
+    }
+
+    @Override
+    public WritableBlob getOverflowBlob() {
+        return overflowBlob;
+    }
+
+    @Override
+    protected void finalize() throws Throwable {
+        if (buffers != null && !buffers.isEmpty()) {
+            log.warn("Returning buffers of unreleased blob to the arena");
+            if (log.isDebugEnabled()) {
+                log.debug("Blob was created here", trace);
+            }
+            releaseBuffers();
+        }
+    }
+}
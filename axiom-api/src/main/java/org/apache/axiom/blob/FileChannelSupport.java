@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Optional interface implemented by {@link Blob} implementations that store their content in a
+ * file. It gives access to the content through a {@link FileChannel} or a {@link MappedByteBuffer},
+ * so that the content can be transferred to another channel (e.g. a socket) without copying it
+ * through the Java heap.
+ * <p>
+ * Note that {@link Blob#writeTo(java.io.OutputStream)} already uses
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} if the
+ * implementation supports this interface and the output stream is backed by a channel. This
+ * interface is only needed by code that needs direct access to the channel.
+ */
+public interface FileChannelSupport {
+    /**
+     * Open a read-only channel to the content of the blob. The caller is responsible for closing
+     * the channel. The channel must not be used after the blob has been released.
+     * 
+     * @return the channel, positioned at the start of the content
+     * @throws IOException
+     *             if the channel couldn't be opened
+     * @throws IllegalStateException
+     *             if the content of the blob is not available
+     */
+    FileChannel openChannel() throws IOException;
+
+    /**
+     * Map the content of the blob into memory. The returned buffer is read-only. Note that on some
+     * platforms a file can't be deleted while it is mapped; releasing the blob may therefore fail
+     * as long as the buffer has not been garbage collected.
+     * 
+     * @return the mapped buffer
+     * @throws IOException
+     *             if the content couldn't be mapped
+     * @throws IllegalStateException
+     *             if the content of the blob is not available
+     */
+    MappedByteBuffer map() throws IOException;
+}
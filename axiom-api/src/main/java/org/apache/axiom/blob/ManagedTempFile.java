@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A temporary file registered with a {@link TempFileManager}.
+ */
+public final class ManagedTempFile {
+    private static final Log log = LogFactory.getLog(ManagedTempFile.class);
+    
+    private final TempFileManager manager;
+    private final File file;
+    private final Throwable trace;
+    /**
+     * The phantom references to the owners. They must be kept reachable until they are enqueued.
+     */
+    private final Queue<TempFileManager.OwnerReference> owners = new ConcurrentLinkedQueue<TempFileManager.OwnerReference>();
+    private final AtomicInteger liveOwners = new AtomicInteger();
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicBoolean deleted = new AtomicBoolean();
+    private volatile Runnable deletionListener;
+    
+    /**
+     * The number of failed deletion attempts by the background thread. Only accessed by that
+     * thread.
+     */
+    int attempts;
+
+    ManagedTempFile(TempFileManager manager, File file) {
+        this.manager = manager;
+        this.file = file;
+        trace = log.isDebugEnabled() ? new Throwable() : null;
+    }
+
+    public File getFile() {
+        return file;
+    }
+    
+    Throwable getTrace() {
+        return trace;
+    }
+
+    /**
+     * Add an owner. Once all owners have become unreachable, the file is deleted automatically.
+     * Files that never had an owner are only deleted explicitly or when the JVM exits.
+     * 
+     * @param owner
+     *            the owner
+     */
+    public void addOwner(Object owner) {
+        if (!deleted.get()) {
+            liveOwners.incrementAndGet();
+            owners.add(manager.new OwnerReference(owner, this));
+        }
+    }
+    
+    boolean ownerCollected(TempFileManager.OwnerReference ref) {
+        owners.remove(ref);
+        return liveOwners.decrementAndGet() == 0 && !deleted.get();
+    }
+    
+    /**
+     * Set a listener that is invoked once the file has been deleted.
+     * 
+     * @param deletionListener
+     *            the listener
+     */
+    public void setDeletionListener(Runnable deletionListener) {
+        this.deletionListener = deletionListener;
+    }
+
+    /**
+     * Open an output stream to write to the file. The bytes written are accounted against the
+     * quota of the {@link TempFileManager}.
+     * 
+     * @return the output stream
+     * @throws FileNotFoundException
+     *             if the file can't be opened
+     */
+    public OutputStream openOutputStream() throws FileNotFoundException {
+        return new FilterOutputStream(new FileOutputStream(file)) {
+            @Override
+            public void write(int b) throws IOException {
+                allocate(1);
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                allocate(len);
+                out.write(b, off, len);
+            }
+        };
+    }
+    
+    /**
+     * Account for data written to the file by other means than {@link #openOutputStream()}.
+     * 
+     * @param bytes
+     *            the number of bytes written
+     * @throws IOException
+     *             if the quota of the {@link TempFileManager} would be exceeded
+     */
+    public void allocate(long bytes) throws IOException {
+        manager.allocate(bytes);
+        size.addAndGet(bytes);
+    }
+    
+    /**
+     * Get the number of bytes accounted for this file.
+     * 
+     * @return the number of bytes
+     */
+    public long getSize() {
+        return size.get();
+    }
+    
+    public boolean isDeleted() {
+        return deleted.get();
+    }
+    
+    boolean tryDelete() {
+        if (deleted.get()) {
+            return true;
+        }
+        if (file.delete() || !file.exists()) {
+            if (deleted.compareAndSet(false, true)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Deleted temporary file " + file);
+                }
+                manager.deleted(this, size.get());
+                owners.clear();
+                Runnable deletionListener = this.deletionListener;
+                if (deletionListener != null) {
+                    deletionListener.run();
+                }
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Delete the file. If the file can't be deleted immediately, the deletion will be retried by
+     * the background thread of the {@link TempFileManager}.
+     * 
+     * @return <code>true</code> if the file has been deleted, <code>false</code> if the deletion
+     *         has been deferred
+     */
+    public boolean delete() {
+        if (tryDelete()) {
+            return true;
+        } else {
+            manager.deleteLater(this);
+            return false;
+        }
+    }
+    
+    /**
+     * Schedule the deletion of the file by the background thread of the {@link TempFileManager}.
+     */
+    public void deleteLater() {
+        manager.deleteLater(this);
+    }
+    
+    /**
+     * Schedule the deletion of the file after a given delay.
+     * 
+     * @param delay
+     *            the delay
+     * @param unit
+     *            the unit of the delay
+     */
+    public void deleteAfter(long delay, TimeUnit unit) {
+        manager.deleteAfter(this, delay, unit);
+    }
+}
@@ -25,9 +25,11 @@ import java.io.IOException;
  * <p>
  * This interface redefines several methods from {@link Blob} and {@link WritableBlob} to not throw
  * {@link IOException}. Also note that since data is stored in memory, calling
- * {@link WritableBlob#release()} is not required.
+ * {@link WritableBlob#release()} is not required, unless the blob has been created with a
+ * {@link ChunkPool}.
  * <p>
- * Instances are created with {@link Blobs#createMemoryBlob()} or using {@link #FACTORY}.
+ * Instances are created with {@link Blobs#createMemoryBlob()},
+ * {@link Blobs#createMemoryBlob(ChunkPool)} or using {@link #FACTORY}.
  */
 public interface MemoryBlob extends WritableBlob {
     WritableBlobFactory<MemoryBlob> FACTORY = new WritableBlobFactory<MemoryBlob>() {
@@ -23,11 +23,20 @@ final class MemoryBlobChunk {
     int size;
     MemoryBlobChunk nextChunk;
     
+    MemoryBlobChunk(byte[] buffer) {
+        this.buffer = buffer;
+    }
+    
     MemoryBlobChunk(int capacity) {
-        buffer = new byte[capacity];
+        this(new byte[capacity]);
     }
     
-    MemoryBlobChunk allocateNextChunk() {
-        return nextChunk = new MemoryBlobChunk(buffer.length * 2);
+    MemoryBlobChunk allocateNextChunk(ChunkPool pool) {
+        if (pool == null) {
+            nextChunk = new MemoryBlobChunk(buffer.length * 2);
+        } else {
+            nextChunk = new MemoryBlobChunk(pool.allocate(ChunkPool.getChunkSize(buffer.length * 2)));
+        }
+        return nextChunk;
     }
 }
@@ -25,20 +25,31 @@ import java.io.OutputStream;
 import org.apache.axiom.ext.io.StreamCopyException;
 
 final class MemoryBlobImpl implements MemoryBlob {
+    /**
+     * The pool from which chunks are allocated, or <code>null</code> if chunks are not pooled.
+     */
+    final ChunkPool pool;
     private MemoryBlobChunk firstChunk;
     private boolean committed;
     
+    /**
+     * The number of bytes in the blob. This is updated by {@link MemoryBlobOutputStreamImpl}.
+     */
+    long size;
+    
+    MemoryBlobImpl(ChunkPool pool) {
+        this.pool = pool;
+    }
+    
+    MemoryBlobImpl() {
+        this(null);
+    }
+    
     @Override
     public long getSize() {
         if (firstChunk == null || !committed) {
             throw new IllegalStateException();
         } else {
-            long size = 0;
-            MemoryBlobChunk chunk = firstChunk;
-            while (chunk != null) {
-                size += chunk.size;
-                chunk = chunk.nextChunk;
-            }
             return size;
         }
     }
@@ -52,7 +63,8 @@ final class MemoryBlobImpl implements MemoryBlob {
         if (firstChunk != null || committed) {
             throw new IllegalStateException();
         } else {
-            return new MemoryBlobOutputStreamImpl(this, firstChunk = new MemoryBlobChunk(4096));
+            firstChunk = pool == null ? new MemoryBlobChunk(4096) : new MemoryBlobChunk(pool.allocate(ChunkPool.MIN_CHUNK_SIZE));
+            return new MemoryBlobOutputStreamImpl(this, firstChunk);
         }
     }
 
@@ -111,6 +123,13 @@ final class MemoryBlobImpl implements MemoryBlob {
 
     @Override
     public void release() {
+        if (pool != null) {
+            MemoryBlobChunk chunk = firstChunk;
+            while (chunk != null) {
+                pool.recycle(chunk.buffer);
+                chunk = chunk.nextChunk;
+            }
+        }
         firstChunk = null;
     }
 }
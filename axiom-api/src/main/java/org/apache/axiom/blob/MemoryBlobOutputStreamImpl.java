@@ -34,7 +34,7 @@ final class MemoryBlobOutputStreamImpl extends MemoryBlobOutputStream {
     
     private void updateChunk() {
         if (chunk.size == chunk.buffer.length) {
-            chunk = chunk.allocateNextChunk();
+            chunk = chunk.allocateNextChunk(blob.pool);
         }
     }
     
@@ -49,6 +49,7 @@ final class MemoryBlobOutputStreamImpl extends MemoryBlobOutputStream {
             int c = Math.min(len-total, chunk.buffer.length-chunk.size);
             System.arraycopy(b, off, chunk.buffer, chunk.size, c);
             chunk.size += c;
+            blob.size += c;
             total += c;
             off += c;
         }
@@ -66,6 +67,7 @@ final class MemoryBlobOutputStreamImpl extends MemoryBlobOutputStream {
         }
         updateChunk();
         chunk.buffer[chunk.size++] = (byte)b;
+        blob.size++;
     }
 
     @Override
@@ -88,6 +90,7 @@ final class MemoryBlobOutputStreamImpl extends MemoryBlobOutputStream {
                 break;
             }
             chunk.size += c;
+            blob.size += c;
             read += c;
             toRead -= c;
         }
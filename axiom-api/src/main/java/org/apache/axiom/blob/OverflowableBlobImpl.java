@@ -197,6 +197,12 @@ final class OverflowableBlobImpl implements OverflowableBlob {
     
     final WritableBlobFactory<?> overflowBlobFactory;
     
+    /**
+     * The pool from which chunks are allocated, or <code>null</code> if chunks are not pooled.
+     * If this is set, {@link #chunkSize} is one of the chunk sizes supported by the pool.
+     */
+    final ChunkPool pool;
+    
     /**
      * Array of <code>byte[]</code> representing the chunks of the buffer.
      * A chunk is only allocated when the first byte is written to it.
@@ -228,12 +234,17 @@ final class OverflowableBlobImpl implements OverflowableBlob {
     
     OutputStream overflowOutputStream;
     
-    OverflowableBlobImpl(int numberOfChunks, int chunkSize, WritableBlobFactory<?> overflowBlobFactory) {
+    OverflowableBlobImpl(int numberOfChunks, int chunkSize, WritableBlobFactory<?> overflowBlobFactory, ChunkPool pool) {
         this.chunkSize = chunkSize;
         this.overflowBlobFactory = overflowBlobFactory;
+        this.pool = pool;
         chunks = new byte[numberOfChunks][];
     }
     
+    OverflowableBlobImpl(int numberOfChunks, int chunkSize, WritableBlobFactory<?> overflowBlobFactory) {
+        this(numberOfChunks, chunkSize, overflowBlobFactory, null);
+    }
+    
     /**
      * Get the current chunk to write to, allocating it if necessary.
      * 
@@ -241,9 +252,13 @@ final class OverflowableBlobImpl implements OverflowableBlob {
      */
     byte[] getCurrentChunk() {
         if (chunkOffset == 0) {
-            // We will write the first byte to the current chunk. Allocate it.
-            byte[] chunk = new byte[chunkSize];
-            chunks[chunkIndex] = chunk;
+            // We will write the first byte to the current chunk. Allocate it (unless this has
+            // already been done by a previous call that didn't write any data).
+            byte[] chunk = chunks[chunkIndex];
+            if (chunk == null) {
+                chunk = pool == null ? new byte[chunkSize] : pool.allocate(chunkSize);
+                chunks[chunkIndex] = chunk;
+            }
             return chunk;
         } else {
             // The chunk has already been allocated.
@@ -270,10 +285,26 @@ final class OverflowableBlobImpl implements OverflowableBlob {
             overflowOutputStream.write(chunks[chunkIndex], 0, chunkOffset);
         }
 
-        // Release references to the buffer so that it can be garbage collected.
+        // Release references to the buffer so that it can be garbage collected (or recycled).
+        recycleChunks();
         chunks = null;
     }
     
+    /**
+     * Return the chunks to the pool (if one has been configured).
+     */
+    private void recycleChunks() {
+        if (pool != null && chunks != null) {
+            for (int i=0; i<chunks.length; i++) {
+                byte[] chunk = chunks[i];
+                if (chunk != null) {
+                    pool.recycle(chunk);
+                    chunks[i] = null;
+                }
+            }
+        }
+    }
+    
     @Override
     public OutputStream getOutputStream() {
         if (state != State.NEW) {
@@ -392,6 +423,10 @@ final class OverflowableBlobImpl implements OverflowableBlob {
             overflowBlob.release();
             overflowBlob = null;
         }
+        if (pool != null && chunks != null) {
+            recycleChunks();
+            chunks = null;
+        }
         state = State.RELEASED;
     }
 
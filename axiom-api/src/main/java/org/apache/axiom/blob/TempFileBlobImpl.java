@@ -19,25 +19,31 @@
 package org.apache.axiom.blob;
 
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.axiom.ext.io.StreamCopyException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-final class TempFileBlobImpl extends AbstractWritableBlob {
+final class TempFileBlobImpl extends AbstractWritableBlob implements FileChannelSupport {
     private static final Log log = LogFactory.getLog(TempFileBlobImpl.class);
     
     private final TempFileBlobFactory factory;
-    private final Throwable trace;
     private File file;
+    private ManagedTempFile managedFile;
     private State state = State.NEW;
 
     TempFileBlobImpl(TempFileBlobFactory factory) {
         this.factory = factory;
-        trace = log.isDebugEnabled() ? new Throwable() : null;
     }
 
     @Override
@@ -49,8 +55,15 @@ final class TempFileBlobImpl extends AbstractWritableBlob {
         if (log.isDebugEnabled()) {
             log.debug("Using temporary file " + file);
         }
-        file.deleteOnExit();
-        OutputStream out = new FileOutputStream(file) {
+        // The file is deleted automatically if the blob is garbage collected without having been
+        // released, or when the JVM exits
+        managedFile = TempFileManager.getInstance().register(file, this);
+        OutputStream out = new FilterOutputStream(managedFile.openOutputStream()) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
             @Override
             public void close() throws IOException {
                 super.close();
@@ -72,6 +85,51 @@ final class TempFileBlobImpl extends AbstractWritableBlob {
         return new TempFileInputStream(file);
     }
 
+    @Override
+    public FileChannel openChannel() throws IOException {
+        if (state != State.COMMITTED) {
+            throw new IllegalStateException();
+        }
+        return new FileInputStream(file).getChannel();
+    }
+
+    @Override
+    public MappedByteBuffer map() throws IOException {
+        FileChannel channel = openChannel();
+        try {
+            return channel.map(MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws StreamCopyException {
+        WritableByteChannel outChannel = ChannelUtil.getChannel(out);
+        if (outChannel == null) {
+            super.writeTo(out);
+        } else {
+            FileChannel inChannel;
+            try {
+                inChannel = openChannel();
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.READ, ex);
+            }
+            try {
+                // transferTo doesn't allow us to distinguish between read and write errors
+                ChannelUtil.transfer(inChannel, outChannel);
+            } catch (IOException ex) {
+                throw new StreamCopyException(StreamCopyException.WRITE, ex);
+            } finally {
+                try {
+                    inChannel.close();
+                } catch (IOException ex) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
     @Override
     public long getSize() {
         if (state != State.COMMITTED) {
@@ -86,22 +144,12 @@ final class TempFileBlobImpl extends AbstractWritableBlob {
             if (log.isDebugEnabled()) {
                 log.debug("Deleting temporary file " + file);
             }
-            if (!file.delete()) {
-                throw new IOException("Failed to delete " + file);
+            if (!managedFile.delete()) {
+                throw new IOException("Failed to delete " + file + "; the deletion will be retried in the background");
             }
             file = null;
+            managedFile = null;
             state = State.RELEASED;
         }
     }
-
-    @Override
-    protected void finalize() throws Throwable {
-        if (file != null) {
-            log.warn("Cleaning up unreleased temporary file " + file);
-            if (log.isDebugEnabled()) {
-                log.debug("Blob was created here", trace);
-            }
-            file.delete();
-        }
-    }
 }
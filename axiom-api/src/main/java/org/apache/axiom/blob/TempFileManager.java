@@ -0,0 +1,393 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Manages the lifecycle of temporary files used to buffer blobs and attachments. The manager
+ * replaces {@link File#deleteOnExit()} (which keeps a reference to every file ever registered
+ * until the JVM exits) and finalizers with the following mechanisms:
+ * <ul>
+ * <li>Files are tracked in a concurrent registry and removed from it when they are deleted. Files
+ * still registered when the JVM exits are deleted by a shutdown hook.
+ * <li>A file can be associated with one or more owners (such as the blob that wraps the file and
+ * the data sources that give access to it). If all owners become unreachable without the file
+ * having been deleted, the file is reclaimed automatically. This relies on phantom references
+ * instead of finalization.
+ * <li>Reclaimed files, files scheduled for deletion after a delay and files that couldn't be
+ * deleted immediately (e.g. because they are still open on Windows) are deleted in batches by a
+ * single background thread.
+ * <li>The total size of the files written through {@link ManagedTempFile#openOutputStream()} can
+ * be limited by a quota. Writes that would exceed the quota fail with an {@link IOException}.
+ * </ul>
+ * <p>
+ * The quota of the instance returned by {@link #getInstance()} can be set using the
+ * {@value #QUOTA_PROPERTY} system property (in bytes). By default there is no quota.
+ * <p>
+ * The background thread and the shutdown hook are created when the first file is registered.
+ * Instances created using the constructor should be shut down using {@link #shutdown()} when they
+ * are no longer needed.
+ * <p>
+ * Instances of this class are thread safe.
+ */
+public final class TempFileManager {
+    /**
+     * System property that specifies the quota (in bytes) of the default instance.
+     */
+    public static final String QUOTA_PROPERTY = "org.apache.axiom.blob.TempFileManager.quota";
+    
+    private static final Log log = LogFactory.getLog(TempFileManager.class);
+    
+    /**
+     * The maximum number of times the background thread attempts to delete a file before leaving
+     * it to the shutdown hook.
+     */
+    private static final int MAX_ATTEMPTS = 10;
+    
+    private static TempFileManager instance;
+    
+    final class OwnerReference extends PhantomReference<Object> {
+        final ManagedTempFile file;
+        
+        OwnerReference(Object owner, ManagedTempFile file) {
+            super(owner, referenceQueue);
+            this.file = file;
+        }
+    }
+    
+    private static final class ScheduledDeletion implements Delayed {
+        final ManagedTempFile file;
+        private final long time;
+        
+        ScheduledDeletion(ManagedTempFile file, long time) {
+            this.file = file;
+            this.time = time;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            long other = ((ScheduledDeletion)o).time;
+            return time < other ? -1 : (time == other ? 0 : 1);
+        }
+    }
+    
+    private final long quota;
+    private final ConcurrentHashMap<File,ManagedTempFile> files = new ConcurrentHashMap<File,ManagedTempFile>();
+    final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<Object>();
+    private final Queue<ManagedTempFile> pendingDeletions = new ConcurrentLinkedQueue<ManagedTempFile>();
+    private final DelayQueue<ScheduledDeletion> scheduledDeletions = new DelayQueue<ScheduledDeletion>();
+    private final AtomicLong bytesOnDisk = new AtomicLong();
+    private final AtomicLong deletions = new AtomicLong();
+    private final AtomicLong reclaimed = new AtomicLong();
+    private final AtomicLong failedDeletions = new AtomicLong();
+    private volatile boolean started;
+    private boolean shutdown;
+    private Thread thread;
+    private Thread shutdownHook;
+
+    /**
+     * Constructor.
+     * 
+     * @param quota
+     *            the maximum number of bytes that can be written to files managed by this instance,
+     *            or a value less than or equal to zero for no quota
+     */
+    public TempFileManager(long quota) {
+        this.quota = quota;
+    }
+    
+    /**
+     * Get the default instance.
+     * 
+     * @return the default instance
+     */
+    public static synchronized TempFileManager getInstance() {
+        if (instance == null) {
+            long quota = 0;
+            String value = AccessController.doPrivileged(new PrivilegedAction<String>() {
+                @Override
+                public String run() {
+                    return System.getProperty(QUOTA_PROPERTY);
+                }
+            });
+            if (value != null) {
+                try {
+                    quota = Long.parseLong(value.trim());
+                } catch (NumberFormatException ex) {
+                    log.warn("Invalid value for " + QUOTA_PROPERTY + ": " + value);
+                }
+            }
+            instance = new TempFileManager(quota);
+        }
+        return instance;
+    }
+
+    /**
+     * Get the quota of this instance.
+     * 
+     * @return the quota in bytes, or a value less than or equal to zero if there is no quota
+     */
+    public long getQuota() {
+        return quota;
+    }
+
+    /**
+     * Register a file. If the file is already registered, the existing {@link ManagedTempFile}
+     * instance is returned.
+     * 
+     * @param file
+     *            the file
+     * @return the {@link ManagedTempFile} for the file
+     */
+    public ManagedTempFile register(File file) {
+        file = file.getAbsoluteFile();
+        ManagedTempFile managedFile = files.get(file);
+        if (managedFile == null) {
+            start();
+            managedFile = new ManagedTempFile(this, file);
+            ManagedTempFile existing = files.putIfAbsent(file, managedFile);
+            if (existing != null) {
+                managedFile = existing;
+            } else if (log.isDebugEnabled()) {
+                log.debug("Registered temporary file " + file);
+            }
+        }
+        return managedFile;
+    }
+
+    /**
+     * Register a file with a given owner. This is equivalent to calling
+     * {@link ManagedTempFile#addOwner(Object)} on the result of {@link #register(File)}.
+     * 
+     * @param file
+     *            the file
+     * @param owner
+     *            the owner of the file
+     * @return the {@link ManagedTempFile} for the file
+     */
+    public ManagedTempFile register(File file, Object owner) {
+        ManagedTempFile managedFile = register(file);
+        managedFile.addOwner(owner);
+        return managedFile;
+    }
+    
+    /**
+     * Get the {@link ManagedTempFile} for a given file.
+     * 
+     * @param file
+     *            the file
+     * @return the {@link ManagedTempFile}, or <code>null</code> if the file is not registered
+     *         (or has already been deleted)
+     */
+    public ManagedTempFile get(File file) {
+        return files.get(file.getAbsoluteFile());
+    }
+    
+    /**
+     * Get a snapshot of the statistics of this instance.
+     * 
+     * @return the statistics
+     */
+    public TempFileStats getStats() {
+        return new TempFileStats(System.nanoTime(), files.size(), bytesOnDisk.get(), deletions.get(),
+                reclaimed.get(), failedDeletions.get());
+    }
+    
+    void allocate(long bytes) throws IOException {
+        long current;
+        do {
+            current = bytesOnDisk.get();
+            if (quota > 0 && current + bytes > quota) {
+                throw new IOException("Temporary file quota of " + quota + " bytes exceeded");
+            }
+        } while (!bytesOnDisk.compareAndSet(current, current + bytes));
+    }
+    
+    void deleted(ManagedTempFile file, long size) {
+        files.remove(file.getFile(), file);
+        bytesOnDisk.addAndGet(-size);
+        deletions.incrementAndGet();
+    }
+    
+    void deleteLater(ManagedTempFile file) {
+        pendingDeletions.add(file);
+    }
+    
+    void deleteAfter(ManagedTempFile file, long delay, TimeUnit unit) {
+        scheduledDeletions.add(new ScheduledDeletion(file, System.nanoTime() + unit.toNanos(delay)));
+    }
+    
+    private void start() {
+        if (!started) {
+            synchronized (this) {
+                if (shutdown) {
+                    throw new IllegalStateException("The temporary file manager has been shut down");
+                }
+                if (!started) {
+                    thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            processDeletions();
+                        }
+                    }, "Axiom temporary file manager");
+                    thread.setDaemon(true);
+                    shutdownHook = new Thread() {
+                        @Override
+                        public void run() {
+                            for (ManagedTempFile file : files.values()) {
+                                file.getFile().delete();
+                            }
+                        }
+                    };
+                    AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                        @Override
+                        public Void run() {
+                            thread.start();
+                            Runtime.getRuntime().addShutdownHook(shutdownHook);
+                            return null;
+                        }
+                    });
+                    started = true;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Shut down this instance. This stops the background thread, removes the shutdown hook and
+     * deletes the files that are still registered. No new files can be registered after this
+     * method has been called. Calling this method on an instance that has already been shut down
+     * has no effect.
+     * <p>
+     * This method is intended for instances created using the constructor. It should not be called
+     * on the instance returned by {@link #getInstance()}.
+     */
+    public void shutdown() {
+        final Thread thread;
+        final Thread shutdownHook;
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            started = false;
+            thread = this.thread;
+            shutdownHook = this.shutdownHook;
+            this.thread = null;
+            this.shutdownHook = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                @Override
+                public Void run() {
+                    try {
+                        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                    } catch (IllegalStateException ex) {
+                        // The JVM is already shutting down and the hook will delete the files
+                    }
+                    return null;
+                }
+            });
+        }
+        for (ManagedTempFile file : files.values()) {
+            if (!file.tryDelete()) {
+                log.warn("Failed to delete " + file.getFile());
+            }
+        }
+    }
+    
+    void processDeletions() {
+        List<ManagedTempFile> batch = new ArrayList<ManagedTempFile>();
+        while (true) {
+            long timeout = 1000;
+            ScheduledDeletion next = scheduledDeletions.peek();
+            if (next != null) {
+                timeout = Math.max(1, Math.min(timeout, next.getDelay(TimeUnit.MILLISECONDS)));
+            }
+            Reference<?> ref;
+            try {
+                ref = referenceQueue.remove(timeout);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            while (ref != null) {
+                ManagedTempFile file = ((OwnerReference)ref).file;
+                if (file.ownerCollected((OwnerReference)ref)) {
+                    log.warn("Cleaning up unreleased temporary file " + file.getFile());
+                    if (log.isDebugEnabled() && file.getTrace() != null) {
+                        log.debug("File was created here", file.getTrace());
+                    }
+                    reclaimed.incrementAndGet();
+                    batch.add(file);
+                }
+                ref = referenceQueue.poll();
+            }
+            ScheduledDeletion scheduledDeletion;
+            while ((scheduledDeletion = scheduledDeletions.poll()) != null) {
+                batch.add(scheduledDeletion.file);
+            }
+            ManagedTempFile file;
+            while ((file = pendingDeletions.poll()) != null) {
+                batch.add(file);
+            }
+            for (int i=0; i<batch.size(); i++) {
+                file = batch.get(i);
+                if (!file.tryDelete()) {
+                    failedDeletions.incrementAndGet();
+                    if (++file.attempts < MAX_ATTEMPTS) {
+                        pendingDeletions.add(file);
+                    } else {
+                        log.warn("Giving up deleting " + file.getFile() + "; it will be deleted on exit");
+                    }
+                }
+            }
+            batch.clear();
+        }
+    }
+}
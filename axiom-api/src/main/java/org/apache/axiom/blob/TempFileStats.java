@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the statistics of a {@link TempFileManager}.
+ * 
+ * @see TempFileManager#getStats()
+ */
+public final class TempFileStats {
+    private final long timestamp;
+    private final int liveFiles;
+    private final long bytesOnDisk;
+    private final long deletions;
+    private final long reclaimed;
+    private final long failedDeletions;
+
+    TempFileStats(long timestamp, int liveFiles, long bytesOnDisk, long deletions, long reclaimed,
+            long failedDeletions) {
+        this.timestamp = timestamp;
+        this.liveFiles = liveFiles;
+        this.bytesOnDisk = bytesOnDisk;
+        this.deletions = deletions;
+        this.reclaimed = reclaimed;
+        this.failedDeletions = failedDeletions;
+    }
+
+    /**
+     * Get the number of files currently registered.
+     * 
+     * @return the number of live files
+     */
+    public int getLiveFiles() {
+        return liveFiles;
+    }
+
+    /**
+     * Get the number of bytes written to the files currently registered.
+     * 
+     * @return the number of bytes on disk
+     */
+    public long getBytesOnDisk() {
+        return bytesOnDisk;
+    }
+
+    /**
+     * Get the total number of files deleted.
+     * 
+     * @return the number of deletions
+     */
+    public long getDeletions() {
+        return deletions;
+    }
+
+    /**
+     * Get the number of files that were deleted because all their owners became unreachable. A
+     * non zero value usually indicates that blobs or attachments are not released properly.
+     * 
+     * @return the number of reclaimed files
+     */
+    public long getReclaimed() {
+        return reclaimed;
+    }
+
+    /**
+     * Get the number of failed attempts to delete a file in the background.
+     * 
+     * @return the number of failed deletions
+     */
+    public long getFailedDeletions() {
+        return failedDeletions;
+    }
+
+    /**
+     * Calculate the deletion rate between a previous snapshot and this one.
+     * 
+     * @param previous
+     *            the previous snapshot
+     * @return the number of deletions per second
+     */
+    public double getDeletionsPerSecond(TempFileStats previous) {
+        long elapsed = timestamp - previous.timestamp;
+        return elapsed <= 0 ? 0 : (double)(deletions - previous.deletions) * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return "liveFiles=" + liveFiles + ", bytesOnDisk=" + bytesOnDisk + ", deletions=" + deletions
+                + ", reclaimed=" + reclaimed + ", failedDeletions=" + failedDeletions;
+    }
+}
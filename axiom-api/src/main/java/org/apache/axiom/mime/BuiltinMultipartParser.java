@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * {@link MultipartParser} implementation that reads the message from a stream into a large buffer
+ * and uses {@link MultipartScanner} to locate the boundary delimiters in that buffer. Content is
+ * copied in bulk from the read buffer to the caller.
+ */
+final class BuiltinMultipartParser extends MultipartScanner implements MultipartParser {
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    private static final int MAX_BUFFER_SIZE = 65536;
+    
+    private final InputStream in;
+    private boolean finished;
+    
+    /**
+     * The stream returned to read the content of the current part, or {@code null} if the parser
+     * is not positioned on the content of a part.
+     */
+    private ContentInputStream currentContent;
+    
+    BuiltinMultipartParser(InputStream in, ContentType contentType) {
+        super(contentType, INITIAL_BUFFER_SIZE);
+        this.in = in;
+        // Skip the preamble
+        try {
+            skipContent();
+        } catch (IOException ex) {
+            throw new MIMEException(ex);
+        }
+    }
+    
+    /**
+     * Read more data into the buffer, discarding data before the current position.
+     * 
+     * @throws IOException
+     */
+    private void fill() throws IOException {
+        compact();
+        if (limit == buffer.length) {
+            // This can't happen because of the maximum line length
+            throw new IllegalStateException();
+        }
+        int requested = buffer.length-limit;
+        int c = in.read(buffer, limit, requested);
+        if (c == -1) {
+            eof = true;
+        } else {
+            limit += c;
+            // Start with a small buffer so that small messages are cheap to parse, but switch to a
+            // larger buffer if the stream is able to fill it
+            if (c == requested && buffer.length < MAX_BUFFER_SIZE) {
+                byte[] newBuffer = new byte[buffer.length*2];
+                System.arraycopy(buffer, 0, newBuffer, 0, limit);
+                buffer = newBuffer;
+            }
+        }
+    }
+    
+    /**
+     * Get the number of bytes of the current content section that can be consumed without
+     * blocking, reading more data if necessary.
+     * 
+     * @return the number of bytes available, or -1 if the end of the content section has been
+     *         reached
+     * @throws IOException
+     */
+    private int ensureContent() throws IOException {
+        while (true) {
+            int safeEnd = scan();
+            if (safeEnd > pos) {
+                return safeEnd-pos;
+            } else if (isContentEnd()) {
+                return -1;
+            } else if (eof) {
+                throw new IOException("Unexpected end of stream");
+            } else {
+                fill();
+            }
+        }
+    }
+    
+    private void skipContent() throws IOException {
+        int c;
+        while ((c = ensureContent()) != -1) {
+            pos += c;
+        }
+    }
+    
+    int readContent(ContentInputStream stream, byte[] b, int off, int len) throws IOException {
+        if (stream != currentContent) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        int c = ensureContent();
+        if (c == -1) {
+            return -1;
+        }
+        if (c > len) {
+            c = len;
+        }
+        System.arraycopy(buffer, pos, b, off, c);
+        pos += c;
+        return c;
+    }
+    
+    int availableContent(ContentInputStream stream) {
+        return stream == currentContent ? Math.max(0, scan()-pos) : 0;
+    }
+    
+    @Override
+    public List<Header> nextPart() {
+        if (finished) {
+            return null;
+        }
+        try {
+            currentContent = null;
+            skipContent();
+            int result;
+            while ((result = processDelimiterLine()) == NEED_MORE_DATA) {
+                fill();
+            }
+            if (result == CLOSE_DELIMITER) {
+                // Consume the epilogue
+                finished = true;
+                pos = limit;
+                while (!eof) {
+                    fill();
+                    pos = limit;
+                }
+                return null;
+            }
+            while ((result = processHeaderLine()) != END_OF_HEADERS) {
+                if (result == NEED_MORE_DATA) {
+                    fill();
+                }
+            }
+            currentContent = new ContentInputStream(this);
+            return getHeaders();
+        } catch (IOException ex) {
+            throw new MIMEException(ex);
+        }
+    }
+    
+    @Override
+    public InputStream getDecodedInputStream() {
+        if (currentContent == null) {
+            throw new IllegalStateException("Parser is not positioned on the content of a part");
+        }
+        return decode(currentContent);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream returned by {@link BuiltinMultipartParser} to read the raw content of a part. The stream
+ * reports end of stream once the parser has moved to the next part.
+ */
+final class ContentInputStream extends InputStream {
+    private final BuiltinMultipartParser parser;
+    private byte[] singleByteBuffer;
+    
+    ContentInputStream(BuiltinMultipartParser parser) {
+        this.parser = parser;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (singleByteBuffer == null) {
+            singleByteBuffer = new byte[1];
+        }
+        return read(singleByteBuffer, 0, 1) == -1 ? -1 : singleByteBuffer[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return parser.readContent(this, b, off, len);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return parser.availableContent(this);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Any remaining content is skipped when the parser moves to the next part
+    }
+}
@@ -18,25 +18,20 @@
  */
 package org.apache.axiom.mime;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.axiom.blob.MemoryBlob;
 import org.apache.axiom.blob.WritableBlobFactory;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.james.mime4j.MimeException;
-import org.apache.james.mime4j.stream.EntityState;
-import org.apache.james.mime4j.stream.Field;
-import org.apache.james.mime4j.stream.MimeConfig;
-import org.apache.james.mime4j.stream.MimeTokenStream;
-import org.apache.james.mime4j.stream.RecursionMode;
 
 /**
  * A MIME multipart message read from a stream. This class exposes an API that represents the
@@ -47,6 +42,17 @@ import org.apache.james.mime4j.stream.RecursionMode;
  * an instance of this class or an individual {@link Part} instance may trigger a
  * {@link MIMEException} if there is an I/O error on the stream or a MIME parsing error.
  * <p>
+ * Alternatively, the message can be parsed in push mode (see {@link Builder#buildAsync()}). In
+ * that case, parts are added as data is pushed to the {@link MultipartBodyFeeder}, and methods
+ * that would need to wait for more data throw an {@link IllegalStateException} instead.
+ * <p>
+ * If a read-ahead executor is configured (see {@link Builder#setReadAheadExecutor(Executor)}),
+ * parts following the ones requested by the application are buffered in the background, so that
+ * reading them from the stream (and writing them to temporary storage) overlaps with the
+ * processing of the root part. Instances of this class can then be accessed concurrently by the
+ * application thread and the read-ahead task; the {@link PartCreationListener} may be invoked by
+ * the executor.
+ * <p>
  * Instances of this class are created using a fluent builder; see {@link #builder()}.
  */
 public final class MultipartBody implements Iterable<Part> {
@@ -54,12 +60,53 @@ public final class MultipartBody implements Iterable<Part> {
         void partCreated(Part part);
     }
 
+    /**
+     * Receives notifications about parts whose content has been received completely. This is only
+     * supported for messages parsed in push mode; see {@link Builder#buildAsync()}.
+     */
+    public interface PartCompletionListener {
+        void partCompleted(Part part);
+    }
+
+    /**
+     * Selects the parser used to split the message into parts.
+     */
+    public enum Engine {
+        /**
+         * Use Apache James mime4j.
+         */
+        MIME4J,
+        
+        /**
+         * Use Axiom's built-in parser. It locates boundary delimiters using a fast string search
+         * algorithm over a large read buffer instead of processing the message line by line and
+         * is therefore significantly faster for messages with large parts.
+         */
+        BUILTIN
+    }
+
+    /**
+     * Name of the system property that specifies the default {@link Engine}. If the property is
+     * not set, {@link Engine#MIME4J} is used.
+     */
+    public static final String ENGINE_PROPERTY = "org.apache.axiom.mime.MultipartBody.engine";
+
+    /**
+     * The default maximum number of parts buffered by the read-ahead task beyond the last part
+     * requested by the application.
+     */
+    public static final int DEFAULT_READ_AHEAD_LIMIT = 4;
+
     public final static class Builder {
         private InputStream inputStream;
         private ContentType contentType;
         private WritableBlobFactory<?> attachmentBlobFactory;
         private DataHandlerFactory dataHandlerFactory;
         private PartCreationListener partCreationListener;
+        private PartCompletionListener partCompletionListener;
+        private Engine engine;
+        private Executor readAheadExecutor;
+        private int readAheadLimit = DEFAULT_READ_AHEAD_LIMIT;
         
         Builder() {}
 
@@ -97,6 +144,67 @@ public final class MultipartBody implements Iterable<Part> {
             return this;
         }
 
+        /**
+         * Set the listener notified when the content of a part has been received completely. The
+         * listener is invoked by {@link MultipartBodyFeeder#feed(java.nio.ByteBuffer)} and
+         * {@link MultipartBodyFeeder#complete()} and is only used if the message is parsed in push
+         * mode.
+         * 
+         * @param partCompletionListener
+         *            the listener
+         * @return this builder
+         */
+        public Builder setPartCompletionListener(PartCompletionListener partCompletionListener) {
+            this.partCompletionListener = partCompletionListener;
+            return this;
+        }
+
+        /**
+         * Set the parser used to split the message into parts. If no engine is specified, the
+         * value of the {@link MultipartBody#ENGINE_PROPERTY} system property is used.
+         * 
+         * @param engine
+         *            the engine to use
+         * @return this builder
+         */
+        public Builder setEngine(Engine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * Enable read-ahead. Once the application has consumed the content of the part it is
+         * currently processing (typically the root part), a task submitted to the given executor
+         * reads the subsequent parts into their blobs (created by the attachment blob factory).
+         * Tasks rejected by the executor are silently ignored; the parts are then read on demand
+         * as usual. Read-ahead is stopped when {@link MultipartBody#detach()} is called. This
+         * option is ignored in push mode.
+         * 
+         * @param readAheadExecutor
+         *            the executor to use, or {@code null} to disable read-ahead
+         * @return this builder
+         */
+        public Builder setReadAheadExecutor(Executor readAheadExecutor) {
+            this.readAheadExecutor = readAheadExecutor;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of parts the read-ahead task buffers beyond the last part
+         * requested by the application. The default is {@link MultipartBody#DEFAULT_READ_AHEAD_LIMIT}.
+         * 
+         * @param readAheadLimit
+         *            the maximum number of parts to read ahead
+         * @return this builder
+         */
+        public Builder setReadAheadLimit(int readAheadLimit) {
+            if (readAheadLimit <= 0) {
+                throw new IllegalArgumentException("readAheadLimit must be positive");
+            }
+            this.readAheadLimit = readAheadLimit;
+            return this;
+        }
+
         public MultipartBody build() {
             if (inputStream == null) {
                 throw new IllegalArgumentException("inputStream is mandatory");
@@ -104,23 +212,87 @@ public final class MultipartBody implements Iterable<Part> {
             if (contentType == null) {
                 throw new IllegalArgumentException("contentType is mandatory");
             }
+            MultipartParser parser;
+            if ((engine == null ? defaultEngine : engine) == Engine.BUILTIN) {
+                parser = new BuiltinMultipartParser(inputStream, contentType);
+            } else {
+                parser = new Mime4jMultipartParser(inputStream, contentType);
+            }
             return new MultipartBody(
-                    inputStream,
+                    parser,
                     contentType,
                     attachmentBlobFactory == null ? MemoryBlob.FACTORY : attachmentBlobFactory,
                     dataHandlerFactory == null ? DataHandlerFactory.DEFAULT : dataHandlerFactory,
-                    partCreationListener);
+                    partCreationListener,
+                    readAheadExecutor,
+                    readAheadLimit);
+        }
+
+        /**
+         * Create a parser that operates in push mode. Instead of reading the message from an
+         * {@link InputStream}, the returned object accepts data as it arrives from a non-blocking
+         * transport. The content of each part is written to a blob created by the attachment blob
+         * factory, so that no thread is blocked while waiting for data. No input stream must be
+         * specified on this builder.
+         * 
+         * @return the object to which message data is to be pushed
+         */
+        public MultipartBodyFeeder buildAsync() {
+            if (inputStream != null) {
+                throw new IllegalArgumentException("inputStream must not be set in push mode");
+            }
+            if (contentType == null) {
+                throw new IllegalArgumentException("contentType is mandatory");
+            }
+            return new MultipartBodyFeeder(
+                    new MultipartBody(
+                            null,
+                            contentType,
+                            attachmentBlobFactory == null ? MemoryBlob.FACTORY : attachmentBlobFactory,
+                            dataHandlerFactory == null ? DataHandlerFactory.DEFAULT : dataHandlerFactory,
+                            partCreationListener,
+                            null,
+                            0),
+                    partCompletionListener);
         }
     }
 
     private static final Log log = LogFactory.getLog(MultipartBody.class);
     
-    private static final MimeConfig config = MimeConfig.custom().setStrictParsing(true).build();
+    private static final Engine defaultEngine;
+    
+    static {
+        String value;
+        try {
+            value = System.getProperty(ENGINE_PROPERTY);
+        } catch (SecurityException ex) {
+            value = null;
+        }
+        Engine engine = Engine.MIME4J;
+        if (value != null) {
+            try {
+                engine = Engine.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException ex) {
+                log.warn("Invalid value for " + ENGINE_PROPERTY + ": " + value);
+            }
+        }
+        defaultEngine = engine;
+    }
     
     /** <code>ContentType</code> of the MIME message */
     private final ContentType contentType;
     private final String rootPartContentID;
-    private final MimeTokenStream parser;
+    
+    /**
+     * The parser, or {@code null} if the message is parsed in push mode. In that case parts are
+     * added by a {@link MultipartBodyFeeder}.
+     */
+    private final MultipartParser parser;
+    
+    /**
+     * Indicates that all parts have been added. Only used in push mode.
+     */
+    private boolean complete;
     
     /**
      * Stores the already parsed MIME parts by Content IDs.
@@ -141,10 +313,51 @@ public final class MultipartBody implements Iterable<Part> {
     private final DataHandlerFactory dataHandlerFactory;
     private final PartCreationListener partCreationListener;
     
-    MultipartBody(InputStream inStream, ContentType contentType,
+    /**
+     * The executor for the read-ahead task, or {@code null} if read-ahead is disabled.
+     */
+    private final Executor readAheadExecutor;
+    private final int readAheadLimit;
+    
+    /**
+     * The highest index (see {@link PartImpl#getIndex()}) of the parts returned to the
+     * application.
+     */
+    private int requestedIndex;
+    
+    private boolean readAheadScheduled;
+    private boolean readAheadCancelled;
+    
+    /**
+     * The number of {@link #getNextPart()} invocations in progress. This may be more than one
+     * because {@link PartImpl#fetch()} releases the monitor while waiting for the read-ahead task.
+     * As long as this is non zero, the read-ahead task must neither be scheduled (it may be
+     * executed synchronously, depending on the executor) nor claim a new part, because it would
+     * otherwise use the parser concurrently with {@link #getNextPart()}.
+     */
+    private int parsing;
+    
+    /**
+     * The error encountered by the read-ahead task, if any. The parser can no longer be used in
+     * that case.
+     */
+    private RuntimeException readAheadFailure;
+    
+    private final Runnable readAheadTask = new Runnable() {
+        @Override
+        public void run() {
+            readAhead();
+        }
+    };
+    
+    MultipartBody(MultipartParser parser, ContentType contentType,
             WritableBlobFactory<?> attachmentBlobFactory,
             DataHandlerFactory dataHandlerFactory,
-            PartCreationListener partCreationListener) {
+            PartCreationListener partCreationListener,
+            Executor readAheadExecutor, int readAheadLimit) {
+        this.parser = parser;
+        this.readAheadExecutor = parser == null ? null : readAheadExecutor;
+        this.readAheadLimit = readAheadLimit;
         this.attachmentBlobFactory = attachmentBlobFactory;
         this.dataHandlerFactory = dataHandlerFactory;
         this.partCreationListener = partCreationListener;
@@ -152,21 +365,6 @@ public final class MultipartBody implements Iterable<Part> {
 
         String start = contentType.getParameter("start");
         rootPartContentID = start == null ? null : normalizeContentID(start);
-
-        parser = new MimeTokenStream(config);
-        parser.setRecursionMode(RecursionMode.M_NO_RECURSE);
-        parser.parseHeadless(inStream, contentType.toString());
-        
-        // Move the parser to the beginning of the first part
-        while (parser.getState() != EntityState.T_START_BODYPART) {
-            try {
-                parser.next();
-            } catch (IOException ex) {
-                throw new MIMEException(ex);
-            } catch (MimeException ex) {
-                throw new MIMEException(ex);
-            }
-        }
     }
 
     public static Builder builder() {
@@ -203,10 +401,11 @@ public final class MultipartBody implements Iterable<Part> {
      * @return the MIME part, or {@code null} if the message doesn't have a part with the given
      *         content ID
      */
-    public Part getPart(String contentID) {
+    public synchronized Part getPart(String contentID) {
         do {
             PartImpl part = partMap.get(contentID);
             if (part != null) {
+                partRequested(part);
                 return part;
             }
         } while (getNextPart() != null);
@@ -218,21 +417,22 @@ public final class MultipartBody implements Iterable<Part> {
      * 
      * @return the number of parts
      */
-    public int getPartCount() {
+    public synchronized int getPartCount() {
         detach();
         return partCount;
     }
 
-    PartImpl getFirstPart() {
+    synchronized PartImpl getFirstPart() {
         if (firstPart == null) {
             getNextPart();
         }
         return firstPart;
     }
 
-    public Part getRootPart() {
+    public synchronized Part getRootPart() {
         do {
             if (rootPart != null) {
+                partRequested(rootPart);
                 return rootPart;
             }
         } while (getNextPart() != null);
@@ -240,78 +440,97 @@ public final class MultipartBody implements Iterable<Part> {
                 "Mandatory root MIME part is missing");
     }
 
-    PartImpl getNextPart() {
-        if (currentPart != null) {
-            currentPart.fetch();
+    synchronized PartImpl getNextPart() {
+        if (parser == null) {
+            // In push mode, parts are added by MultipartBodyFeeder as data arrives
+            if (!complete) {
+                throw new IllegalStateException("The message has not been received completely");
+            }
+            return null;
         }
-        if (parser.getState() == EntityState.T_END_MULTIPART) {
-            currentPart = null;
-        } else {
-            String partContentID = null;
-            boolean isRootPart;
-
-            try {
-                checkParserState(parser.next(), EntityState.T_START_HEADER);
-                
-                List<Header> headers = new ArrayList<Header>();
-                while (parser.next() == EntityState.T_FIELD) {
-                    Field field = parser.getField();
-                    String name = field.getName();
-                    String value = field.getBody();
-                    
-                    if (log.isDebugEnabled()){
-                        log.debug("addHeader: (" + name + ") value=(" + value +")");
-                    }
-                    headers.add(new Header(name, value));
-                    if (partContentID == null && name.equalsIgnoreCase("Content-ID")) {
-                        partContentID = normalizeContentID(value);
-                    }
-                }
-                
-                checkParserState(parser.next(), EntityState.T_BODY);
-                
-                if (rootPartContentID == null) {
-                    isRootPart = firstPart == null;
-                } else {
-                    isRootPart = rootPartContentID.equals(partContentID);
-                }
-                
-                PartImpl part = new PartImpl(this, isRootPart ? MemoryBlob.FACTORY : attachmentBlobFactory, partContentID, headers, parser);
-                if (currentPart == null) {
-                    firstPart = part;
-                } else {
-                    currentPart.setNextPart(part);
+        if (readAheadFailure != null) {
+            throw new MIMEException("Read-ahead failed", readAheadFailure);
+        }
+        PartImpl result;
+        parsing++;
+        try {
+            // PartImpl#fetch() may wait for the read-ahead task and release the monitor in the
+            // meantime. Another thread may then have moved to the next part; in that case that
+            // part needs to be fetched as well before the parser can be used.
+            PartImpl part;
+            do {
+                part = currentPart;
+                if (part != null) {
+                    part.fetch();
                 }
-                currentPart = part;
-            } catch (IOException ex) {
-                throw new MIMEException(ex);
-            } catch (MimeException ex) {
-                throw new MIMEException(ex);
+            } while (part != currentPart);
+            List<Header> headers = parser.nextPart();
+            if (headers == null) {
+                currentPart = null;
+            } else {
+                createPart(headers);
             }
+            result = currentPart;
+        } finally {
+            parsing--;
+        }
+        scheduleReadAhead();
+        return result;
+    }
 
-            partCount++;
-            if (partContentID != null) {
-                if (partMap.containsKey(partContentID)) {
-                    throw new MIMEException(
-                            "Two MIME parts with the same Content-ID not allowed.");
-                }
-                partMap.put(partContentID, currentPart);
+    synchronized PartImpl createPart(List<Header> headers) {
+        String partContentID = null;
+        boolean isRootPart;
+
+        for (int i=0, l=headers.size(); i<l; i++) {
+            Header header = headers.get(i);
+            String name = header.getName();
+            String value = header.getValue();
+            
+            if (log.isDebugEnabled()){
+                log.debug("addHeader: (" + name + ") value=(" + value +")");
             }
-            if (isRootPart) {
-                rootPart = currentPart;
+            if (partContentID == null && name.equalsIgnoreCase("Content-ID")) {
+                partContentID = normalizeContentID(value);
             }
-            if (partCreationListener != null) {
-                partCreationListener.partCreated(currentPart);
+        }
+        
+        if (rootPartContentID == null) {
+            isRootPart = firstPart == null;
+        } else {
+            isRootPart = rootPartContentID.equals(partContentID);
+        }
+        
+        PartImpl part = new PartImpl(this, partCount+1, isRootPart ? MemoryBlob.FACTORY : attachmentBlobFactory, partContentID, headers, parser);
+        if (currentPart == null) {
+            firstPart = part;
+        } else {
+            currentPart.setNextPart(part);
+        }
+        currentPart = part;
+        if (parser == null) {
+            part.startReceiving();
+        }
+
+        partCount++;
+        if (partContentID != null) {
+            if (partMap.containsKey(partContentID)) {
+                throw new MIMEException(
+                        "Two MIME parts with the same Content-ID not allowed.");
             }
+            partMap.put(partContentID, currentPart);
+        }
+        if (isRootPart) {
+            rootPart = currentPart;
+        }
+        if (partCreationListener != null) {
+            partCreationListener.partCreated(currentPart);
         }
         return currentPart;
     }
 
-    private static void checkParserState(EntityState state, EntityState expected) throws IllegalStateException {
-        if (expected != state) {
-            throw new IllegalStateException("Internal error: expected parser to be in state "
-                    + expected + ", but got " + state);
-        }
+    synchronized void setComplete() {
+        complete = true;
     }
 
     @Override
@@ -319,9 +538,91 @@ public final class MultipartBody implements Iterable<Part> {
         return new PartIterator(this);
     }
 
-    public void detach() {
+    public synchronized void detach() {
+        readAheadCancelled = true;
         while (getNextPart() != null) {
             // Just loop
         }
     }
+
+    /**
+     * Record that a part has been returned to the application. This moves the read-ahead window.
+     * 
+     * @param part
+     *            the part
+     */
+    synchronized void partRequested(PartImpl part) {
+        if (part.getIndex() > requestedIndex) {
+            requestedIndex = part.getIndex();
+            scheduleReadAhead();
+        }
+    }
+
+    /**
+     * Submit the read-ahead task if it is not running and there is something it can do. This
+     * method is called whenever the state of the current part or the read-ahead window changes.
+     */
+    synchronized void scheduleReadAhead() {
+        if (readAheadExecutor == null || readAheadScheduled || parsing > 0 || !canReadAhead()) {
+            return;
+        }
+        readAheadScheduled = true;
+        try {
+            readAheadExecutor.execute(readAheadTask);
+        } catch (RejectedExecutionException ex) {
+            readAheadScheduled = false;
+            if (log.isDebugEnabled()) {
+                log.debug("Read-ahead task rejected by executor", ex);
+            }
+        }
+    }
+
+    private boolean canReadAhead() {
+        if (readAheadCancelled || readAheadFailure != null || currentPart == null) {
+            return false;
+        }
+        if (currentPart.isUnread()) {
+            // We may only buffer the part if the application has not requested it yet; otherwise
+            // it may want to stream the content
+            return currentPart.getIndex() > requestedIndex;
+        } else {
+            // The content of the current part has been consumed; we may move on to the next part
+            // unless the read-ahead window is full
+            return currentPart.isContentConsumed() && currentPart.getIndex()-requestedIndex < readAheadLimit;
+        }
+    }
+
+    /**
+     * Select the part the read-ahead task should buffer next.
+     * 
+     * @return the part, which is in fetching state, or {@code null} if the task should stop
+     */
+    private synchronized PartImpl claimReadAheadPart() {
+        if (parsing > 0 || !canReadAhead()) {
+            // If getNextPart is in progress, it will schedule the task again when it completes
+            readAheadScheduled = false;
+            return null;
+        }
+        if (!currentPart.isUnread() && getNextPart() == null) {
+            readAheadScheduled = false;
+            return null;
+        }
+        currentPart.startFetching();
+        return currentPart;
+    }
+
+    void readAhead() {
+        try {
+            PartImpl part;
+            while ((part = claimReadAheadPart()) != null) {
+                part.fetchContent();
+            }
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                readAheadFailure = ex;
+                readAheadScheduled = false;
+            }
+            log.debug("Read-ahead failed", ex);
+        }
+    }
 }
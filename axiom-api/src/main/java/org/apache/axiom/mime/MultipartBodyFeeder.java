@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.axiom.blob.WritableBlob;
+import org.apache.axiom.mime.MultipartBody.PartCompletionListener;
+
+/**
+ * Parses a MIME multipart message in push mode. Instances are created using
+ * {@link MultipartBody.Builder#buildAsync()}. The application passes the message data to
+ * {@link #feed(ByteBuffer)} as it arrives from the transport and calls {@link #complete()} at the
+ * end of the stream. Parts are added to the {@link MultipartBody} returned by
+ * {@link #getMultipartBody()} as soon as their headers have been received, at which point the
+ * {@link MultipartBody.PartCreationListener} (if any) is notified. The content of each part is
+ * written to a blob created by the attachment blob factory (or to a memory blob for the root part)
+ * and the {@link PartCompletionListener} (if any) is notified when the content is complete. The
+ * root part can therefore be processed (e.g. by an object model builder) before the attachments
+ * have been received.
+ * <p>
+ * Methods of the {@link MultipartBody} and its parts that would need to wait for data that has not
+ * been received yet throw an {@link IllegalStateException}. This class is not thread safe: if the
+ * {@link MultipartBody} is accessed by a thread other than the one that pushes the data, the
+ * application is responsible for the necessary synchronization.
+ */
+public final class MultipartBodyFeeder {
+    private static final int BUFFER_SIZE = 8192;
+    
+    /**
+     * Processing the preamble or the content of a part.
+     */
+    private static final int STATE_CONTENT = 0;
+    
+    /**
+     * Processing the line containing a delimiter.
+     */
+    private static final int STATE_DELIMITER = 1;
+    
+    /**
+     * Processing the headers of a part.
+     */
+    private static final int STATE_HEADERS = 2;
+    
+    /**
+     * The close delimiter has been found; remaining data is ignored.
+     */
+    private static final int STATE_EPILOGUE = 3;
+    
+    /**
+     * An error occurred.
+     */
+    private static final int STATE_FAILED = 4;
+    
+    private static final class Scanner extends MultipartScanner {
+        Scanner(ContentType contentType) {
+            super(contentType, BUFFER_SIZE);
+        }
+    }
+    
+    private final MultipartBody message;
+    private final PartCompletionListener partCompletionListener;
+    private final Scanner scanner;
+    private int state = STATE_CONTENT;
+    
+    /**
+     * The part whose content is being received, or {@code null} if the preamble is being
+     * processed.
+     */
+    private PartImpl currentPart;
+    
+    /**
+     * Buffer for the raw content of the current part if it has a content transfer encoding that
+     * needs to be removed. It is created by the same blob factory as the part content (so that
+     * large attachments may overflow to disk) and decoded when it has been received completely.
+     */
+    private WritableBlob encodedContent;
+    private OutputStream encodedContentOutputStream;
+    
+    MultipartBodyFeeder(MultipartBody message, PartCompletionListener partCompletionListener) {
+        this.message = message;
+        this.partCompletionListener = partCompletionListener;
+        scanner = new Scanner(message.getContentType());
+    }
+    
+    /**
+     * Get the multipart message populated by this object.
+     * 
+     * @return the message
+     */
+    public MultipartBody getMultipartBody() {
+        return message;
+    }
+    
+    /**
+     * Determine whether all parts have been received. This is the case as soon as the close
+     * delimiter has been processed, even if {@link #complete()} has not been called yet.
+     * 
+     * @return {@code true} if the close delimiter has been received
+     */
+    public boolean isComplete() {
+        return state == STATE_EPILOGUE;
+    }
+    
+    /**
+     * Process data received from the transport. All remaining bytes of the buffer are consumed.
+     * 
+     * @param data
+     *            the data to process
+     * @throws MIMEException
+     *             if the message is malformed or the part content can't be written to the blob
+     */
+    public void feed(ByteBuffer data) {
+        checkState();
+        try {
+            while (data.hasRemaining()) {
+                scanner.compact();
+                byte[] buffer = scanner.buffer;
+                if (scanner.limit == buffer.length) {
+                    // This can't happen because of the maximum line length
+                    throw new IllegalStateException();
+                }
+                int c = Math.min(data.remaining(), buffer.length-scanner.limit);
+                data.get(buffer, scanner.limit, c);
+                scanner.limit += c;
+                process();
+            }
+        } catch (RuntimeException ex) {
+            fail();
+            throw ex;
+        }
+    }
+    
+    /**
+     * Signal the end of the message data.
+     * 
+     * @throws MIMEException
+     *             if the message is incomplete
+     */
+    public void complete() {
+        checkState();
+        scanner.eof = true;
+        try {
+            process();
+        } catch (RuntimeException ex) {
+            fail();
+            throw ex;
+        }
+    }
+    
+    private void checkState() {
+        if (state == STATE_FAILED) {
+            throw new IllegalStateException("A previous error occurred");
+        }
+        if (scanner.eof) {
+            throw new IllegalStateException("complete() has already been called");
+        }
+    }
+    
+    private void fail() {
+        state = STATE_FAILED;
+        if (currentPart != null) {
+            currentPart.discard();
+            currentPart = null;
+        }
+        if (encodedContent != null) {
+            releaseEncodedContent();
+        }
+    }
+    
+    private void releaseEncodedContent() {
+        WritableBlob blob = encodedContent;
+        OutputStream out = encodedContentOutputStream;
+        encodedContent = null;
+        encodedContentOutputStream = null;
+        try {
+            if (out != null) {
+                out.close();
+            }
+        } catch (IOException ex) {
+            // Ignore; we are going to release the blob anyway
+        }
+        try {
+            blob.release();
+        } catch (IOException ex) {
+            // Ignore
+        }
+    }
+    
+    private void process() {
+        while (true) {
+            int result;
+            switch (state) {
+                case STATE_CONTENT:
+                    int safeEnd = scanner.scan();
+                    if (safeEnd > scanner.pos) {
+                        if (currentPart != null) {
+                            receive(scanner.buffer, scanner.pos, safeEnd-scanner.pos);
+                        }
+                        scanner.pos = safeEnd;
+                    }
+                    if (!scanner.isContentEnd()) {
+                        if (scanner.eof) {
+                            throw new MIMEException("Unexpected end of stream");
+                        }
+                        return;
+                    }
+                    if (currentPart != null) {
+                        completePart();
+                    }
+                    state = STATE_DELIMITER;
+                    break;
+                case STATE_DELIMITER:
+                    result = scanner.processDelimiterLine();
+                    if (result == MultipartScanner.NEED_MORE_DATA) {
+                        return;
+                    } else if (result == MultipartScanner.CLOSE_DELIMITER) {
+                        state = STATE_EPILOGUE;
+                        message.setComplete();
+                    } else {
+                        state = STATE_HEADERS;
+                    }
+                    break;
+                case STATE_HEADERS:
+                    result = scanner.processHeaderLine();
+                    if (result == MultipartScanner.NEED_MORE_DATA) {
+                        return;
+                    } else if (result == MultipartScanner.END_OF_HEADERS) {
+                        currentPart = message.createPart(scanner.getHeaders());
+                        if (scanner.isEncoded()) {
+                            encodedContent = currentPart.createBlob();
+                            try {
+                                encodedContentOutputStream = encodedContent.getOutputStream();
+                            } catch (IOException ex) {
+                                throw new MIMEException("Failed to write the MIME part content to temporary storage", ex);
+                            }
+                        }
+                        state = STATE_CONTENT;
+                    }
+                    break;
+                case STATE_EPILOGUE:
+                    scanner.pos = scanner.limit;
+                    return;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+    }
+    
+    private void receive(byte[] b, int off, int len) {
+        if (encodedContentOutputStream != null) {
+            try {
+                encodedContentOutputStream.write(b, off, len);
+            } catch (IOException ex) {
+                throw new MIMEException("Failed to write the MIME part content to temporary storage", ex);
+            }
+        } else {
+            currentPart.receive(b, off, len);
+        }
+    }
+    
+    private void completePart() {
+        PartImpl part = currentPart;
+        currentPart = null;
+        if (encodedContent != null) {
+            try {
+                encodedContentOutputStream.close();
+                encodedContentOutputStream = null;
+                InputStream in = encodedContent.getInputStream();
+                try {
+                    part.receive(scanner.decode(in));
+                } finally {
+                    in.close();
+                }
+            } catch (IOException ex) {
+                throw new MIMEException("Failed to read the MIME part content from temporary storage", ex);
+            } finally {
+                releaseEncodedContent();
+            }
+        }
+        if (part.endReceiving() && partCompletionListener != null) {
+            partCompletionListener.partCompleted(part);
+        }
+    }
+}
@@ -18,8 +18,12 @@
  */
 package org.apache.axiom.mime;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 
 import javax.activation.DataHandler;
@@ -48,6 +52,13 @@ import org.apache.axiom.util.base64.Base64EncodingOutputStream;
  * <li>The content ID passed as argument is always the raw ID (without the angle brackets). The
  * implementation translates this into a properly formatted {@code Content-ID} header.</li>
  * </ul>
+ * <p>
+ * If the underlying output stream is backed by a channel (i.e. if it is a {@link FileOutputStream}
+ * or implements {@link WritableByteChannel}) and no content transfer encoding needs to be applied,
+ * then the output stream returned by {@link #writePart(String, String, String, List)} implements
+ * {@link GatheringByteChannel} as well. This allows file based content (see
+ * {@link org.apache.axiom.blob.FileChannelSupport}) to be transferred to the underlying channel
+ * without copying it through the Java heap.
  */
 public final class MultipartBodyWriter {
     class PartOutputStream extends OutputStream {
@@ -81,7 +92,45 @@ public final class MultipartBodyWriter {
         }
     }
     
+    class ChannelPartOutputStream extends PartOutputStream implements GatheringByteChannel {
+        public ChannelPartOutputStream() {
+            super(out);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return channel.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) throws IOException {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            if (channel instanceof GatheringByteChannel) {
+                return ((GatheringByteChannel)channel).write(srcs, offset, length);
+            } else {
+                long count = 0;
+                for (int i=offset; i<offset+length; i++) {
+                    count += channel.write(srcs[i]);
+                    if (srcs[i].hasRemaining()) {
+                        break;
+                    }
+                }
+                return count;
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+    }
+    
     private final OutputStream out;
+    private final WritableByteChannel channel;
     private final String boundary;
     private final byte[] buffer = new byte[256];
 
@@ -97,6 +146,13 @@ public final class MultipartBodyWriter {
      */
     public MultipartBodyWriter(OutputStream out, String boundary) {
         this.out = out;
+        if (out instanceof FileOutputStream) {
+            channel = ((FileOutputStream)out).getChannel();
+        } else if (out instanceof WritableByteChannel) {
+            channel = (WritableByteChannel)out;
+        } else {
+            channel = null;
+        }
         this.boundary = boundary;
     }
 
@@ -171,7 +227,11 @@ public final class MultipartBodyWriter {
             }
         }
         writeAscii("\r\n\r\n");
-        return new PartOutputStream(transferEncoder);
+        if (transferEncoder == out && channel != null) {
+            return new ChannelPartOutputStream();
+        } else {
+            return new PartOutputStream(transferEncoder);
+        }
     }
     
     /**
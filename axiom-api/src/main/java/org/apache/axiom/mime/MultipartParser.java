@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Low level parser used by {@link MultipartBody} to split a multipart message into parts.
+ * Implementations are not required to support more than one open part at a time: when
+ * {@link #nextPart()} is called, any unread content of the current part is skipped.
+ */
+interface MultipartParser {
+    /**
+     * Move to the next part and parse its headers. Any remaining content of the current part is
+     * skipped.
+     * 
+     * @return the headers of the next part, or {@code null} if the end of the multipart has been
+     *         reached
+     * @throws MIMEException
+     *             if an I/O error occurs or the message is malformed
+     */
+    List<Header> nextPart();
+
+    /**
+     * Get the content of the current part, with any content transfer encoding removed. The
+     * returned stream becomes invalid as soon as {@link #nextPart()} is called.
+     * 
+     * @return the content of the current part
+     */
+    InputStream getDecodedInputStream();
+}
@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.james.mime4j.codec.Base64InputStream;
+import org.apache.james.mime4j.codec.DecodeMonitor;
+import org.apache.james.mime4j.codec.QuotedPrintableInputStream;
+
+/**
+ * Scans a buffer containing (part of) a multipart message for boundary delimiters and parses part
+ * headers. This class doesn't read any data itself; subclasses are responsible for filling the
+ * buffer, either by reading from a stream ({@link BuiltinMultipartParser}) or with data pushed by
+ * the application (see {@link MultipartBodyFeeder}). All methods indicate when they need
+ * more data and can be invoked again after data has been added.
+ * <p>
+ * Delimiters are located using the Boyer-Moore-Horspool algorithm, so that most bytes of the part
+ * content are never examined individually. The scanner enforces the same limits as mime4j in
+ * strict mode (line length, number of headers and header length), but it is more lenient with
+ * respect to empty parts: a part without headers or a part whose content is immediately followed
+ * by the delimiter are accepted, as allowed by RFC 2046.
+ */
+abstract class MultipartScanner {
+    static final int NEED_MORE_DATA = -1;
+    
+    /**
+     * Return value of {@link #processDelimiterLine()} for a delimiter that starts a new part.
+     */
+    static final int DELIMITER = 0;
+    
+    /**
+     * Return value of {@link #processDelimiterLine()} for the close delimiter.
+     */
+    static final int CLOSE_DELIMITER = 1;
+    
+    /**
+     * Return value of {@link #processHeaderLine()} if a header line has been processed.
+     */
+    static final int HEADER = 0;
+    
+    /**
+     * Return value of {@link #processHeaderLine()} if the end of the headers has been reached.
+     */
+    static final int END_OF_HEADERS = 1;
+    
+    private static final int MAX_LINE_LENGTH = 1000;
+    private static final int MAX_HEADER_COUNT = 1000;
+    private static final int MAX_HEADER_LENGTH = 10000;
+    
+    /**
+     * The delimiter, i.e. a line feed followed by two hyphens and the boundary. A preceding
+     * carriage return (if present) is also part of the delimiter, but it is handled separately.
+     */
+    private final byte[] delimiter;
+    
+    /**
+     * The Boyer-Moore-Horspool bad character shift table for {@link #delimiter}.
+     */
+    private final int[] shift = new int[256];
+    
+    byte[] buffer;
+    
+    /**
+     * The current position in {@link #buffer}.
+     */
+    int pos;
+    
+    /**
+     * The number of valid bytes in {@link #buffer}.
+     */
+    int limit;
+    
+    /**
+     * Indicates that no more data will be added to the buffer.
+     */
+    boolean eof;
+    
+    /**
+     * The position from which the search for the next delimiter is to be resumed.
+     */
+    private int scanPos;
+    
+    /**
+     * Indicates that the content section starts at {@link #pos}, so that a delimiter without
+     * leading line feed needs to be recognized there. This is the case for the preamble and for
+     * parts that have empty content.
+     */
+    private boolean atContentStart = true;
+    
+    /**
+     * The end of the current content section, or -1 if the delimiter hasn't been found yet.
+     */
+    private int contentEnd = -1;
+    
+    /**
+     * The position after the boundary that terminates the current content section. Only
+     * meaningful if {@link #contentEnd} is set.
+     */
+    private int delimiterEnd;
+    
+    private List<Header> headers;
+    private String headerName;
+    private final StringBuilder headerValue = new StringBuilder();
+    private int headerLength;
+    private String contentTransferEncoding;
+    
+    MultipartScanner(ContentType contentType, int bufferSize) {
+        String boundary = contentType.getParameter("boundary");
+        if (boundary == null) {
+            throw new MIMEException("Content type has no boundary parameter");
+        }
+        int length = boundary.length();
+        delimiter = new byte[length+3];
+        delimiter[0] = '\n';
+        delimiter[1] = '-';
+        delimiter[2] = '-';
+        for (int i=0; i<length; i++) {
+            char c = boundary.charAt(i);
+            if (c > 0x7F) {
+                throw new MIMEException("Invalid boundary");
+            }
+            delimiter[i+3] = (byte)c;
+        }
+        int last = delimiter.length-1;
+        for (int i=0; i<256; i++) {
+            shift[i] = delimiter.length;
+        }
+        for (int i=0; i<last; i++) {
+            shift[delimiter[i] & 0xFF] = last-i;
+        }
+        buffer = new byte[Math.max(bufferSize, 4*delimiter.length)];
+    }
+    
+    /**
+     * Discard the data before the current position by moving the remaining data to the beginning
+     * of the buffer.
+     */
+    final void compact() {
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit-pos);
+            limit -= pos;
+            scanPos -= pos;
+            if (contentEnd != -1) {
+                contentEnd -= pos;
+                delimiterEnd -= pos;
+            }
+            pos = 0;
+        }
+    }
+    
+    /**
+     * Check if there is a delimiter at the given position.
+     * 
+     * @param p
+     *            the position in the buffer
+     * @param offset
+     *            the offset in {@link #delimiter} corresponding to {@code p}; this is 1 if the
+     *            delimiter is to be matched without leading line feed
+     * @return 1 if there is a delimiter, 0 if there is none and -1 if more data is required to
+     *         decide
+     */
+    private int checkDelimiter(int p, int offset) {
+        int end = p+delimiter.length-offset;
+        for (int i=offset; i<delimiter.length && p+i-offset<limit; i++) {
+            if (buffer[p+i-offset] != delimiter[i]) {
+                return 0;
+            }
+        }
+        if (end >= limit) {
+            // If the stream ends here, the delimiter is incomplete; this is reported later
+            return eof ? (end == limit ? 1 : 0) : -1;
+        }
+        switch (buffer[end]) {
+            case '-':
+            case ' ':
+            case '\t':
+            case '\r':
+            case '\n':
+                return 1;
+            default:
+                // The boundary is only a prefix of the text in the line
+                return 0;
+        }
+    }
+    
+    /**
+     * Search the buffer for the delimiter that terminates the current content section.
+     * 
+     * @return the position up to which content can be safely consumed; if the delimiter has been
+     *         found, this is the end of the content section
+     */
+    final int scan() {
+        if (contentEnd != -1) {
+            return contentEnd;
+        }
+        if (atContentStart) {
+            int result = checkDelimiter(pos, 1);
+            if (result == -1) {
+                return pos;
+            }
+            atContentStart = false;
+            if (result == 1) {
+                contentEnd = pos;
+                delimiterEnd = pos+delimiter.length-1;
+                return pos;
+            }
+            scanPos = pos;
+        }
+        byte[] buffer = this.buffer;
+        byte[] delimiter = this.delimiter;
+        int last = delimiter.length-1;
+        byte lastByte = delimiter[last];
+        int j = scanPos;
+        while (j+last < limit) {
+            byte b = buffer[j+last];
+            if (b == lastByte) {
+                int i = last-1;
+                while (i >= 0 && buffer[j+i] == delimiter[i]) {
+                    i--;
+                }
+                if (i < 0) {
+                    int result = checkDelimiter(j, 0);
+                    if (result == 1) {
+                        // The CR before the LF (if any) is part of the delimiter
+                        contentEnd = j > pos && buffer[j-1] == '\r' ? j-1 : j;
+                        delimiterEnd = j+delimiter.length;
+                        scanPos = j;
+                        return contentEnd;
+                    } else if (result == -1) {
+                        scanPos = j;
+                        return Math.max(pos, j-1);
+                    }
+                }
+            }
+            j += shift[b & 0xFF];
+        }
+        scanPos = j;
+        if (eof) {
+            return limit;
+        } else {
+            // Don't return a CR that may be followed by a delimiter
+            return Math.max(pos, j-1);
+        }
+    }
+    
+    /**
+     * Determine if the end of the current content section has been reached. If this method returns
+     * {@code true}, then {@link #processDelimiterLine()} needs to be called next.
+     * 
+     * @return {@code true} if the delimiter terminating the content section has been found and all
+     *         content has been consumed
+     */
+    final boolean isContentEnd() {
+        return contentEnd != -1 && pos == contentEnd;
+    }
+    
+    /**
+     * Process the remainder of the line containing the delimiter. This method must only be called
+     * if {@link #isContentEnd()} returns {@code true}.
+     * 
+     * @return {@link #DELIMITER}, {@link #CLOSE_DELIMITER} or {@link #NEED_MORE_DATA}
+     */
+    final int processDelimiterLine() {
+        int p = delimiterEnd;
+        if (p == limit) {
+            return needMoreData("Body part ended prematurely");
+        }
+        int result;
+        if (buffer[p] == '-') {
+            if (p+1 == limit) {
+                return needMoreData("Invalid boundary delimiter");
+            }
+            if (buffer[p+1] != '-') {
+                throw new MIMEException("Invalid boundary delimiter");
+            }
+            p += 2;
+            result = CLOSE_DELIMITER;
+        } else {
+            // Skip transport padding and the line break
+            while (p < limit && (buffer[p] == ' ' || buffer[p] == '\t')) {
+                p++;
+            }
+            if (p-delimiterEnd > MAX_LINE_LENGTH) {
+                throw new MIMEException("Maximum line length limit (" + MAX_LINE_LENGTH + ") exceeded");
+            }
+            if (p < limit && buffer[p] == '\r') {
+                p++;
+            }
+            if (p == limit) {
+                return needMoreData("Body part ended prematurely");
+            }
+            if (buffer[p++] != '\n') {
+                throw new MIMEException("Invalid boundary delimiter");
+            }
+            result = DELIMITER;
+            headers = new ArrayList<Header>();
+            headerName = null;
+            contentTransferEncoding = null;
+        }
+        pos = p;
+        contentEnd = -1;
+        return result;
+    }
+    
+    private int needMoreData(String message) {
+        if (eof) {
+            throw new MIMEException(message);
+        }
+        return NEED_MORE_DATA;
+    }
+    
+    private static void appendLatin1(StringBuilder sb, byte[] b, int start, int end) {
+        for (int i=start; i<end; i++) {
+            sb.append((char)(b[i] & 0xFF));
+        }
+    }
+    
+    /**
+     * Process a header line. This method is called repeatedly after {@link #processDelimiterLine()}
+     * has returned {@link #DELIMITER}, until it returns {@link #END_OF_HEADERS}. At that point the
+     * headers are available through {@link #getHeaders()} and the scanner is positioned at the
+     * beginning of the content section.
+     * 
+     * @return {@link #HEADER}, {@link #END_OF_HEADERS} or {@link #NEED_MORE_DATA}
+     */
+    final int processHeaderLine() {
+        int lineEnd = pos;
+        while (lineEnd < limit && buffer[lineEnd] != '\n') {
+            lineEnd++;
+        }
+        if (lineEnd-pos > MAX_LINE_LENGTH) {
+            throw new MIMEException("Maximum line length limit (" + MAX_LINE_LENGTH + ") exceeded");
+        }
+        if (lineEnd == limit) {
+            return needMoreData("Unexpected end of stream");
+        }
+        int end = lineEnd > pos && buffer[lineEnd-1] == '\r' ? lineEnd-1 : lineEnd;
+        if (end == pos) {
+            if (headerName != null) {
+                addHeader();
+            }
+            pos = lineEnd+1;
+            atContentStart = true;
+            scanPos = pos;
+            return END_OF_HEADERS;
+        }
+        byte first = buffer[pos];
+        if (first == ' ' || first == '\t') {
+            if (headerName == null) {
+                throw new MIMEException("Invalid header encountered");
+            }
+            // Unfold the header by removing the line break
+            appendLatin1(headerValue, buffer, pos, end);
+            headerLength += end-pos;
+        } else {
+            if (headerName != null) {
+                addHeader();
+            }
+            int colon = pos;
+            while (colon < end && buffer[colon] != ':') {
+                byte b = buffer[colon];
+                if (b < 33 || b > 126) {
+                    throw new MIMEException("Invalid header encountered");
+                }
+                colon++;
+            }
+            if (colon == pos || colon == end) {
+                throw new MIMEException("Invalid header encountered");
+            }
+            StringBuilder sb = new StringBuilder(colon-pos);
+            appendLatin1(sb, buffer, pos, colon);
+            headerName = sb.toString();
+            headerValue.setLength(0);
+            appendLatin1(headerValue, buffer, colon+1, end);
+            headerLength = end-pos;
+        }
+        if (headerLength > MAX_HEADER_LENGTH) {
+            throw new MIMEException("Maximum header length limit (" + MAX_HEADER_LENGTH + ") exceeded");
+        }
+        pos = lineEnd+1;
+        return HEADER;
+    }
+    
+    private void addHeader() {
+        if (headers.size() == MAX_HEADER_COUNT) {
+            throw new MIMEException("Maximum header limit (" + MAX_HEADER_COUNT + ") exceeded");
+        }
+        int start = 0;
+        while (start < headerValue.length()
+                && (headerValue.charAt(start) == ' ' || headerValue.charAt(start) == '\t')) {
+            start++;
+        }
+        String value = headerValue.substring(start);
+        headers.add(new Header(headerName, value));
+        if (contentTransferEncoding == null && headerName.equalsIgnoreCase(Header.CONTENT_TRANSFER_ENCODING)) {
+            contentTransferEncoding = value.trim();
+        }
+        headerName = null;
+    }
+    
+    final List<Header> getHeaders() {
+        return headers;
+    }
+    
+    /**
+     * Wrap the given stream to remove the content transfer encoding of the current part.
+     * 
+     * @param in
+     *            the raw content of the current part
+     * @return the decoded content
+     */
+    final InputStream decode(InputStream in) {
+        if (contentTransferEncoding == null) {
+            return in;
+        } else if (contentTransferEncoding.equalsIgnoreCase("base64")) {
+            return new Base64InputStream(in, DecodeMonitor.STRICT);
+        } else if (contentTransferEncoding.equalsIgnoreCase("quoted-printable")) {
+            return new QuotedPrintableInputStream(in, DecodeMonitor.STRICT);
+        } else {
+            return in;
+        }
+    }
+    
+    /**
+     * Determine if the content of the current part needs to be decoded.
+     * 
+     * @return {@code true} if {@link #decode(InputStream)} doesn't return the stream unchanged
+     */
+    final boolean isEncoded() {
+        return contentTransferEncoding != null
+                && (contentTransferEncoding.equalsIgnoreCase("base64")
+                        || contentTransferEncoding.equalsIgnoreCase("quoted-printable"));
+    }
+}
@@ -20,10 +20,14 @@ package org.apache.axiom.mime;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 
 import javax.activation.DataHandler;
 import javax.activation.DataSource;
 
+import org.apache.axiom.blob.Blob;
+import org.apache.axiom.blob.FileChannelSupport;
+
 /**
  * {@link DataHandler} implementation for MIME parts read from a stream.
  */
@@ -51,6 +55,23 @@ public class PartDataHandler extends DataHandler {
         return part;
     }
 
+    /**
+     * Open a channel to read the content of the MIME part, provided that the content has been
+     * buffered in a file. This allows to forward the content to another channel without copying it
+     * through the Java heap. Note that calling this method causes the content of the part to be
+     * buffered.
+     * 
+     * @return a read-only channel that the caller is responsible for closing, or {@code null} if
+     *         the content of the part is not stored in a file
+     * @throws IOException
+     *             if the channel couldn't be opened
+     * @see FileChannelSupport
+     */
+    public final FileChannel openFileChannel() throws IOException {
+        Blob blob = part.getBlob();
+        return blob instanceof FileChannelSupport ? ((FileChannelSupport)blob).openChannel() : null;
+    }
+
     @Override
     public final DataSource getDataSource() {
         if (dataSource == null) {
@@ -85,7 +106,8 @@ public class PartDataHandler extends DataHandler {
     public final void writeTo(OutputStream os) throws IOException {
         // The PartContent may have an implementation of writeTo that is more efficient than the default
         // DataHandler#writeTo method (which requests an input stream and then copies it to the output
-        // stream).
+        // stream). In particular, file based blobs transfer their content directly to the output stream's
+        // channel if there is one.
         part.getBlob().writeTo(os);
     }
 }
@@ -26,14 +26,12 @@ import org.apache.axiom.blob.WritableBlobFactory;
 import org.apache.axiom.ext.io.StreamCopyException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.james.mime4j.MimeException;
-import org.apache.james.mime4j.stream.EntityState;
-import org.apache.james.mime4j.stream.MimeTokenStream;
 
 import javax.activation.DataHandler;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.ParseException;
 import java.util.Collections;
 import java.util.List;
@@ -43,8 +41,8 @@ import java.util.List;
  */
 final class PartImpl implements Part {
     /**
-     * The part has not been read yet. In this case the parser is in state
-     * {@link EntityState#T_BODY}.
+     * The part has not been read yet. In this case the parser is positioned on the content of the
+     * part.
      */
     private static final int STATE_UNREAD = 0;
     
@@ -64,10 +62,29 @@ final class PartImpl implements Part {
      * when the content has been streamed or when it is discarded explicitly after being buffered.
      */
     private static final int STATE_DISCARDED = 3;
+    
+    /**
+     * The part content is being received in push mode, i.e. a {@link MultipartBodyFeeder} writes
+     * the content to a buffer as it arrives. The state changes to {@link #STATE_BUFFERED} once the
+     * content has been received completely.
+     */
+    private static final int STATE_RECEIVING = 4;
+    
+    /**
+     * The part content is being read into a buffer by the read-ahead task. Threads that need the
+     * content wait (on the {@link MultipartBody} monitor) until the state changes to
+     * {@link #STATE_BUFFERED}.
+     */
+    private static final int STATE_FETCHING = 5;
 
     private static final Log log = LogFactory.getLog(PartImpl.class);
     
     private final MultipartBody message;
+    
+    /**
+     * The position of this part in the message, starting at 1.
+     */
+    private final int index;
     private final WritableBlobFactory<?> blobFactory;
     
     private final String contentID;
@@ -80,21 +97,34 @@ final class PartImpl implements Part {
      * The MIME parser from which the content of this part is read. This is only set if the state is
      * {@link #STATE_UNREAD} or {@link #STATE_STREAMING}.
      */
-    private MimeTokenStream parser;
+    private MultipartParser parser;
     
     /**
-     * The content of this part. This is only set if the state is {@link #STATE_BUFFERED}.
+     * The content of this part. This is only set if the state is {@link #STATE_BUFFERED} or
+     * {@link #STATE_FETCHING}.
      */
     private WritableBlob content;
     
+    /**
+     * The stream used to write the content to {@link #content}. This is only set if the state is
+     * {@link #STATE_RECEIVING}.
+     */
+    private OutputStream contentOutputStream;
+    
     private DataHandler dataHandler;
     
     private PartInputStream partInputStream;
     
     private PartImpl nextPart;
     
-    PartImpl(MultipartBody message, WritableBlobFactory<?> blobFactory, String contentID, List<Header> headers, MimeTokenStream parser) {
+    /**
+     * The error that occurred while the read-ahead task was fetching the content.
+     */
+    private RuntimeException fetchFailure;
+    
+    PartImpl(MultipartBody message, int index, WritableBlobFactory<?> blobFactory, String contentID, List<Header> headers, MultipartParser parser) {
         this.message = message;
+        this.index = index;
         this.blobFactory = blobFactory;
         this.contentID = contentID;
         this.headers = headers;
@@ -141,19 +171,60 @@ final class PartImpl implements Part {
     
     @Override
     public DataHandler getDataHandler() {
-        if (dataHandler == null) {
-            dataHandler = message.getDataHandlerFactory().createDataHandler(this);
+        synchronized (message) {
+            if (dataHandler == null) {
+                dataHandler = message.getDataHandlerFactory().createDataHandler(this);
+            }
+            return dataHandler;
+        }
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    boolean isUnread() {
+        return state == STATE_UNREAD;
+    }
+
+    /**
+     * Determine whether the parser no longer needs to be positioned on the content of this part,
+     * i.e. whether it can move on to the next part without blocking on this one.
+     * 
+     * @return {@code true} if the content has been buffered or discarded
+     */
+    boolean isContentConsumed() {
+        return state == STATE_BUFFERED || state == STATE_DISCARDED;
+    }
+
+    /**
+     * Wait until the read-ahead task has finished fetching the content of this part. The caller
+     * must hold the {@link MultipartBody} monitor.
+     */
+    private void awaitFetched() {
+        while (state == STATE_FETCHING) {
+            try {
+                message.wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new MIMEException("Interrupted while waiting for the MIME part content", ex);
+            }
         }
-        return dataHandler;
     }
 
     private WritableBlob getContent() {
+        awaitFetched();
+        if (fetchFailure != null) {
+            throw new MIMEException("Failed to fetch the MIME part content", fetchFailure);
+        }
         switch (state) {
             case STATE_UNREAD:
                 fetch();
                 // Fall through
             case STATE_BUFFERED:
                 return content;
+            case STATE_RECEIVING:
+                throw new IllegalStateException("The content of the MIME part has not been received completely");
             default:
                 throw new IllegalStateException("The content of the MIME part has already been consumed");
         }
@@ -161,7 +232,10 @@ final class PartImpl implements Part {
     
     @Override
     public Blob getBlob() {
-        WritableBlob blob = getContent();
+        WritableBlob blob;
+        synchronized (message) {
+            blob = getContent();
+        }
         if (blob instanceof OverflowableBlob) {
             WritableBlob overflowBlob = ((OverflowableBlob)blob).getOverflowBlob();
             if (overflowBlob != null) {
@@ -171,13 +245,6 @@ final class PartImpl implements Part {
         return blob;
     }
 
-    private static void checkParserState(EntityState state, EntityState expected) throws IllegalStateException {
-        if (expected != state) {
-            throw new IllegalStateException("Internal error: expected parser to be in state "
-                    + expected + ", but got " + state);
-        }
-    }
-    
     private InputStream getDecodedInputStream() {
         InputStream in = parser.getDecodedInputStream();
         if (log.isDebugEnabled()) {
@@ -186,106 +253,257 @@ final class PartImpl implements Part {
         return in;
     }
     
+    private void readContent() {
+        content = blobFactory.createBlob();
+        if (log.isDebugEnabled()) {
+            log.debug("Using blob of type " + content.getClass().getName());
+        }
+        try {
+            content.readFrom(getDecodedInputStream());
+        } catch (StreamCopyException ex) {
+            if (ex.getOperation() == StreamCopyException.READ) {
+                throw new MIMEException("Failed to fetch the MIME part content", ex.getCause());
+            } else {
+                throw new MIMEException("Failed to write the MIME part content to temporary storage", ex.getCause());
+            }
+        }
+    }
+    
     public void fetch() {
+        synchronized (message) {
+            awaitFetched();
+            switch (state) {
+                case STATE_UNREAD:
+                    readContent();
+                    parser = null;
+                    state = STATE_BUFFERED;
+                    break;
+                case STATE_STREAMING:
+                    // If the stream is still open, buffer the remaining content
+                    try {
+                        partInputStream.detach();
+                    } catch (IOException ex) {
+                        throw new MIMEException(ex);
+                    }
+                    partInputStream = null;
+                    parser = null;
+                    state = STATE_DISCARDED;
+                    break;
+                default:
+                    return;
+            }
+            message.scheduleReadAhead();
+        }
+    }
+    
+    /**
+     * Prepare the part for {@link #fetchContent()}. The caller must hold the {@link MultipartBody}
+     * monitor.
+     */
+    void startFetching() {
+        state = STATE_FETCHING;
+    }
+    
+    /**
+     * Read the content of the part into a buffer. This method is used by the read-ahead task and
+     * is called without holding the {@link MultipartBody} monitor, so that the application can
+     * access other parts in the meantime. No other thread uses the parser during that time:
+     * {@link MultipartBody} only lets the read-ahead task claim a part while no call to
+     * {@link MultipartBody#getNextPart()} is in progress, and {@link #fetch()} waits for the
+     * {@link #STATE_FETCHING} state to end before the parser can be used again.
+     */
+    void fetchContent() {
+        RuntimeException failure = null;
+        try {
+            readContent();
+        } catch (RuntimeException ex) {
+            failure = ex;
+        }
+        synchronized (message) {
+            parser = null;
+            if (failure == null) {
+                state = STATE_BUFFERED;
+            } else {
+                fetchFailure = failure;
+                content = null;
+                state = STATE_DISCARDED;
+            }
+            message.notifyAll();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    /**
+     * Called by {@link PartInputStream} when the application has streamed the content of this
+     * part to the end. This releases the parser without waiting for the next call to
+     * {@link #fetch()}.
+     */
+    void streamingCompleted() {
+        synchronized (message) {
+            if (state == STATE_STREAMING) {
+                partInputStream = null;
+                parser = null;
+                state = STATE_DISCARDED;
+                message.scheduleReadAhead();
+            }
+        }
+    }
+    
+    @Override
+    public InputStream getInputStream(boolean preserve) {
+        synchronized (message) {
+            if (!preserve && state == STATE_UNREAD) {
+                state = STATE_STREAMING;
+                partInputStream = new PartInputStream(getDecodedInputStream(), blobFactory, this);
+                return partInputStream;
+            } else {
+                WritableBlob content = getContent();
+                try {
+                    if (preserve) {
+                        return content.getInputStream();
+                    } else {
+                        return new PartInputStream(content);
+                    }
+                } catch (IOException ex) {
+                    throw new MIMEException("Failed to retrieve part content from blob", ex);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void discard() {
+        synchronized (message) {
+            awaitFetched();
+            discardContent();
+        }
+    }
+    
+    private void discardContent() {
         switch (state) {
             case STATE_UNREAD:
-                checkParserState(parser.getState(), EntityState.T_BODY);
-
-                content = blobFactory.createBlob();
-                if (log.isDebugEnabled()) {
-                    log.debug("Using blob of type " + content.getClass().getName());
+                // The content is skipped when the parser moves to the next part
+                parser = null;
+                state = STATE_DISCARDED;
+                break;
+            case STATE_RECEIVING:
+                // Content received from now on is ignored
+                state = STATE_DISCARDED;
+                if (content == null) {
+                    break;
                 }
                 try {
-                    content.readFrom(getDecodedInputStream());
-                } catch (StreamCopyException ex) {
-                    if (ex.getOperation() == StreamCopyException.READ) {
-                        throw new MIMEException("Failed to fetch the MIME part content", ex.getCause());
-                    } else {
-                        throw new MIMEException("Failed to write the MIME part content to temporary storage", ex.getCause());
+                    if (contentOutputStream != null) {
+                        contentOutputStream.close();
+                        contentOutputStream = null;
                     }
+                } catch (IOException ex) {
+                    throw new MIMEException(ex);
                 }
-                moveToNextPart();
-                state = STATE_BUFFERED;
-                break;
-            case STATE_STREAMING:
-                // If the stream is still open, buffer the remaining content
+                // Fall through
+            case STATE_BUFFERED:
                 try {
-                    partInputStream.detach();
+                    content.release();
                 } catch (IOException ex) {
                     throw new MIMEException(ex);
                 }
-                partInputStream = null;
-                moveToNextPart();
-                state = STATE_DISCARDED;
         }
     }
     
-    private void moveToNextPart() {
-        try {
-            checkParserState(parser.next(), EntityState.T_END_BODYPART);
-            EntityState state = parser.next();
-            if (state == EntityState.T_EPILOGUE) {
-                while (parser.next() != EntityState.T_END_MULTIPART) {
-                    // Just loop
+    void startReceiving() {
+        parser = null;
+        state = STATE_RECEIVING;
+    }
+    
+    /**
+     * Add content received in push mode.
+     * 
+     * @param b
+     *            the buffer containing the data
+     * @param off
+     *            the start offset
+     * @param len
+     *            the number of bytes to write
+     */
+    void receive(byte[] b, int off, int len) {
+        if (state == STATE_RECEIVING) {
+            try {
+                if (contentOutputStream == null) {
+                    content = blobFactory.createBlob();
+                    contentOutputStream = content.getOutputStream();
                 }
-            } else if (state != EntityState.T_START_BODYPART && state != EntityState.T_END_MULTIPART) {
-                throw new IllegalStateException("Internal error: unexpected parser state " + state);
+                contentOutputStream.write(b, off, len);
+            } catch (IOException ex) {
+                throw new MIMEException("Failed to write the MIME part content to temporary storage", ex);
             }
-        } catch (IOException ex) {
-            throw new MIMEException(ex);
-        } catch (MimeException ex) {
-            throw new MIMEException(ex);
         }
-        parser = null;
     }
     
-    @Override
-    public InputStream getInputStream(boolean preserve) {
-        if (!preserve && state == STATE_UNREAD) {
-            checkParserState(parser.getState(), EntityState.T_BODY);
-            state = STATE_STREAMING;
-            partInputStream = new PartInputStream(getDecodedInputStream(), blobFactory);
-            return partInputStream;
-        } else {
-            WritableBlob content = getContent();
+    /**
+     * Create a blob using the same factory as for the content of this part. This is used in push
+     * mode to store the raw content of the part if it needs to be decoded.
+     * 
+     * @return the new blob
+     */
+    WritableBlob createBlob() {
+        return blobFactory.createBlob();
+    }
+    
+    /**
+     * Set the content of a part received in push mode.
+     * 
+     * @param in
+     *            a stream with the (decoded) content
+     */
+    void receive(InputStream in) {
+        if (state == STATE_RECEIVING) {
+            content = blobFactory.createBlob();
             try {
-                if (preserve) {
-                    return content.getInputStream();
+                content.readFrom(in);
+            } catch (StreamCopyException ex) {
+                if (ex.getOperation() == StreamCopyException.READ) {
+                    throw new MIMEException("Failed to decode the MIME part content", ex.getCause());
                 } else {
-                    return new PartInputStream(content);
+                    throw new MIMEException("Failed to write the MIME part content to temporary storage", ex.getCause());
                 }
-            } catch (IOException ex) {
-                throw new MIMEException("Failed to retrieve part content from blob", ex);
             }
         }
     }
     
-    @Override
-    public void discard() {
+    /**
+     * Signal that the content of a part received in push mode is complete.
+     * 
+     * @return {@code true} if the part is now in buffered state, {@code false} if it has been
+     *         discarded
+     */
+    boolean endReceiving() {
+        if (state != STATE_RECEIVING) {
+            return false;
+        }
         try {
-            switch (state) {
-                case STATE_UNREAD:
-                    EntityState parserState;
-                    do {
-                        parserState = parser.next();
-                    } while (parserState != EntityState.T_START_BODYPART && parserState != EntityState.T_END_MULTIPART);
-                    state = STATE_DISCARDED;
-                    break;
-                case STATE_BUFFERED:
-                    content.release();
+            if (contentOutputStream != null) {
+                contentOutputStream.close();
+                contentOutputStream = null;
+            } else if (content == null) {
+                content = blobFactory.createBlob();
+                content.getOutputStream().close();
             }
-        } catch (MimeException ex) {
-            throw new MIMEException(ex);
         } catch (IOException ex) {
-            throw new MIMEException(ex);
+            throw new MIMEException("Failed to write the MIME part content to temporary storage", ex);
         }
+        state = STATE_BUFFERED;
+        return true;
     }
     
     PartImpl getNextPart() {
-        if (nextPart == null) {
-            message.getNextPart();
+        synchronized (message) {
+            if (nextPart == null) {
+                message.getNextPart();
+            }
+            return nextPart;
         }
-        return nextPart;
     }
 
     void setNextPart(PartImpl nextPart) {
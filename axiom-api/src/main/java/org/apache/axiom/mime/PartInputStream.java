@@ -30,14 +30,20 @@ final class PartInputStream extends InputStream {
     private InputStream in;
     private WritableBlobFactory<?> blobFactory;
     
+    /**
+     * The part being streamed, or {@code null} if the content has been buffered.
+     */
+    private PartImpl part;
+    
     PartInputStream(WritableBlob content) throws IOException {
         this.content = content;
         in = getInputStream(content);
     }
     
-    PartInputStream(InputStream in, WritableBlobFactory<?> blobFactory) {
+    PartInputStream(InputStream in, WritableBlobFactory<?> blobFactory, PartImpl part) {
         this.in = in;
         this.blobFactory = blobFactory;
+        this.part = part;
     }
     
     private static InputStream getInputStream(WritableBlob content) throws IOException {
@@ -59,6 +65,7 @@ final class PartInputStream extends InputStream {
             in = getInputStream(content);
         }
         blobFactory = null;
+        part = null;
     }
     
     @Override
@@ -120,5 +127,11 @@ final class PartInputStream extends InputStream {
             content.release();
             content = null;
         }
+        if (part != null) {
+            // The parser can now skip the remaining content (if any)
+            PartImpl part = this.part;
+            this.part = null;
+            part.streamingCompleted();
+        }
     }
 }
@@ -47,6 +47,7 @@ final class PartIterator implements Iterator<Part> {
     public Part next() {
         if (hasNext()) {
             hasNextCalled = false;
+            message.partRequested(part);
             return part;
         } else {
             throw new NoSuchElementException();
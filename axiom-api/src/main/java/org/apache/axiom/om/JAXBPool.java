@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.JAXBIntrospector;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.ds.jaxb.JAXBOMDataSource;
+
+/**
+ * Bounded pool of {@link Marshaller} and {@link Unmarshaller} instances for a given
+ * {@link JAXBContext}. Creating marshallers and unmarshallers is expensive with some JAXB
+ * implementations (in particular the reference implementation), but they are not thread safe and
+ * can't be shared. Applications that marshal and unmarshal objects frequently should create one
+ * pool per {@link JAXBContext} and use it with {@link JAXBOMDataSource#JAXBOMDataSource(JAXBPool, Object)}
+ * and {@link OMContainer#unmarshal(JAXBPool, UnmarshallerConfigurator, boolean)}.
+ * <p>
+ * Instances taken from the pool must only be used by a single thread at a time and must be
+ * returned to the pool once they are no longer used. Marshallers are created with the
+ * {@link Marshaller#JAXB_FRAGMENT} property set to <code>true</code>, as required to marshal
+ * objects into an existing document or stream. When an instance is returned, its
+ * {@link javax.xml.bind.attachment.AttachmentMarshaller} or
+ * {@link javax.xml.bind.attachment.AttachmentUnmarshaller} is reset. Callers must not change any
+ * other settings on pooled instances; an instance that has been customized (e.g. by an
+ * {@link UnmarshallerConfigurator}) or that threw an exception must simply not be returned to the
+ * pool. If the pool is full, returned instances are left to the garbage collector.
+ * <p>
+ * Instances of this class are thread safe.
+ */
+public final class JAXBPool {
+    /**
+     * The default maximum number of marshallers (resp. unmarshallers) retained by a pool.
+     */
+    public static final int DEFAULT_MAX_SIZE = 32;
+    
+    private final JAXBContext context;
+    private final int maxSize;
+    private final Queue<Marshaller> marshallers = new ConcurrentLinkedQueue<Marshaller>();
+    private final AtomicInteger pooledMarshallers = new AtomicInteger();
+    private final Queue<Unmarshaller> unmarshallers = new ConcurrentLinkedQueue<Unmarshaller>();
+    private final AtomicInteger pooledUnmarshallers = new AtomicInteger();
+    private final AtomicLong createdMarshallers = new AtomicLong();
+    private final AtomicLong createdUnmarshallers = new AtomicLong();
+    private volatile JAXBIntrospector introspector;
+
+    /**
+     * Create a pool with the default maximum size.
+     * 
+     * @param context
+     *            the JAXB context
+     */
+    public JAXBPool(JAXBContext context) {
+        this(context, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create a pool.
+     * 
+     * @param context
+     *            the JAXB context
+     * @param maxSize
+     *            the maximum number of marshallers and the maximum number of unmarshallers
+     *            retained by the pool
+     */
+    public JAXBPool(JAXBContext context, int maxSize) {
+        if (context == null) {
+            throw new IllegalArgumentException("context must not be null");
+        }
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        this.context = context;
+        this.maxSize = maxSize;
+    }
+
+    public JAXBContext getContext() {
+        return context;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Take a marshaller from the pool or create a new one if the pool is empty. The marshaller has
+     * the {@link Marshaller#JAXB_FRAGMENT} property set to <code>true</code>.
+     * 
+     * @return the marshaller
+     * @throws JAXBException
+     *             if the marshaller couldn't be created
+     */
+    public Marshaller acquireMarshaller() throws JAXBException {
+        Marshaller marshaller = marshallers.poll();
+        if (marshaller == null) {
+            marshaller = context.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+            createdMarshallers.incrementAndGet();
+        } else {
+            pooledMarshallers.decrementAndGet();
+        }
+        return marshaller;
+    }
+
+    /**
+     * Return a marshaller to the pool.
+     * 
+     * @param marshaller
+     *            a marshaller previously obtained from {@link #acquireMarshaller()}
+     */
+    public void releaseMarshaller(Marshaller marshaller) {
+        marshaller.setAttachmentMarshaller(null);
+        if (reserve(pooledMarshallers)) {
+            marshallers.offer(marshaller);
+        }
+    }
+
+    /**
+     * Take an unmarshaller from the pool or create a new one if the pool is empty.
+     * 
+     * @return the unmarshaller
+     * @throws JAXBException
+     *             if the unmarshaller couldn't be created
+     */
+    public Unmarshaller acquireUnmarshaller() throws JAXBException {
+        Unmarshaller unmarshaller = unmarshallers.poll();
+        if (unmarshaller == null) {
+            unmarshaller = context.createUnmarshaller();
+            createdUnmarshallers.incrementAndGet();
+        } else {
+            pooledUnmarshallers.decrementAndGet();
+        }
+        return unmarshaller;
+    }
+
+    /**
+     * Return an unmarshaller to the pool.
+     * 
+     * @param unmarshaller
+     *            an unmarshaller previously obtained from {@link #acquireUnmarshaller()}
+     */
+    public void releaseUnmarshaller(Unmarshaller unmarshaller) {
+        unmarshaller.setAttachmentUnmarshaller(null);
+        if (reserve(pooledUnmarshallers)) {
+            unmarshallers.offer(unmarshaller);
+        }
+    }
+
+    private boolean reserve(AtomicInteger pooled) {
+        int current;
+        do {
+            current = pooled.get();
+            if (current >= maxSize) {
+                return false;
+            }
+        } while (!pooled.compareAndSet(current, current+1));
+        return true;
+    }
+
+    /**
+     * Determine the element name of a JAXB object. Contrary to
+     * {@link JAXBContext#createJAXBIntrospector()}, this method reuses the same
+     * {@link JAXBIntrospector} instance for all calls.
+     * 
+     * @param object
+     *            the JAXB object; this may be a plain Java bean or a {@link JAXBElement}
+     * @return the element name, or <code>null</code> if the object is not a JAXB element
+     */
+    public QName getElementName(Object object) {
+        if (object instanceof JAXBElement) {
+            return ((JAXBElement<?>)object).getName();
+        }
+        JAXBIntrospector introspector = this.introspector;
+        if (introspector == null) {
+            // JAXBIntrospector instances are stateless; it doesn't matter if two threads create
+            // one concurrently
+            introspector = context.createJAXBIntrospector();
+            this.introspector = introspector;
+        }
+        return introspector.getElementName(object);
+    }
+
+    /**
+     * Get the number of marshallers created by this pool so far.
+     * 
+     * @return the number of marshallers created
+     */
+    public long getCreatedMarshallerCount() {
+        return createdMarshallers.get();
+    }
+
+    /**
+     * Get the number of unmarshallers created by this pool so far.
+     * 
+     * @return the number of unmarshallers created
+     */
+    public long getCreatedUnmarshallerCount() {
+        return createdUnmarshallers.get();
+    }
+}
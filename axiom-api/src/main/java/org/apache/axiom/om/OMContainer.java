@@ -448,4 +448,39 @@ public interface OMContainer extends OMSerializable {
      *             if an error occurred while unmarshalling
      */
     <T> JAXBElement<T> unmarshal(JAXBContext context, UnmarshallerConfigurator configurator, Class<T> declaredType, boolean preserve) throws JAXBException;
+    
+    /**
+     * Unmarshall the information item using JAXB, with an unmarshaller taken from a pool. If a
+     * configurator is specified, a new unmarshaller is created and discarded after use, so that
+     * the custom settings never leak into pooled instances.
+     * 
+     * @param pool
+     *            the pool for the JAXB context
+     * @param configurator
+     *            custom unmarshaller settings to apply; may be {@code null}
+     * @param preserve
+     *            specifies whether the content of the information item should be preserved
+     * @return the unmarshalled object
+     * @throws JAXBException
+     *             if an error occurred while unmarshalling
+     */
+    Object unmarshal(JAXBPool pool, UnmarshallerConfigurator configurator, boolean preserve) throws JAXBException;
+    
+    /**
+     * Unmarshall the information item using JAXB, with an unmarshaller taken from a pool. If a
+     * configurator is specified, a new unmarshaller is created and discarded after use.
+     * 
+     * @param pool
+     *            the pool for the JAXB context
+     * @param configurator
+     *            custom unmarshaller settings to apply; may be {@code null}
+     * @param declaredType
+     *            a JAXB mapped class to hold the XML data.
+     * @param preserve
+     *            specifies whether the content of the information item should be preserved
+     * @return the unmarshalled object
+     * @throws JAXBException
+     *             if an error occurred while unmarshalling
+     */
+    <T> JAXBElement<T> unmarshal(JAXBPool pool, UnmarshallerConfigurator configurator, Class<T> declaredType, boolean preserve) throws JAXBException;
 }
@@ -21,6 +21,8 @@ package org.apache.axiom.om;
 
 import java.util.Iterator;
 
+import javax.xml.namespace.QName;
+
 public interface OMDocument extends OMContainer {
 
     /** Field XML_10 XML Version 1.0 */
@@ -117,4 +119,51 @@ public interface OMDocument extends OMContainer {
      */
     @Override
     Iterator<OMSerializable> getDescendants(boolean includeSelf);
+
+    /**
+     * Enable or disable the element index of this document. If indexing is enabled, an index of
+     * the elements of the document by ID and by name is built on first use and reused until the
+     * document is modified. The index is used by {@link #getOMElementById(String)} and
+     * {@link #getOMElementsByName(QName)}, as well as by
+     * {@link org.apache.axiom.om.xpath.AXIOMXPath} to evaluate the {@code id()} function and
+     * expressions of the form {@code //name}.
+     * <p>
+     * Building the index causes the document to be built completely (including the expansion of
+     * {@link OMSourcedElement}s). Indexing is therefore disabled by default.
+     * 
+     * @param enabled
+     *            <code>true</code> to enable indexing, <code>false</code> to disable it and
+     *            discard the index
+     */
+    void setIndexingEnabled(boolean enabled);
+    
+    /**
+     * Determine if indexing is enabled for this document. See {@link #setIndexingEnabled(boolean)}.
+     * 
+     * @return <code>true</code> if indexing is enabled, <code>false</code> otherwise
+     */
+    boolean isIndexingEnabled();
+    
+    /**
+     * Get the element with the given ID. An attribute is considered as an ID if its type is
+     * <code>ID</code> (see {@link OMAttribute#getAttributeType()}) or if it is an
+     * <code>xml:id</code> attribute. If indexing is disabled, this method searches the document.
+     * 
+     * @param id
+     *            the ID to look for
+     * @return the first element (in document order) with the given ID, or <code>null</code> if
+     *         there is no such element
+     */
+    OMElement getOMElementById(String id);
+    
+    /**
+     * Get all elements with the given name. If indexing is disabled, this method searches the
+     * document.
+     * 
+     * @param name
+     *            the name of the elements; the prefix is ignored
+     * @return an iterator over the matching elements, in document order; the iterator doesn't
+     *         reflect changes made to the document after this method returns
+     */
+    Iterator<OMElement> getOMElementsByName(QName name);
 }
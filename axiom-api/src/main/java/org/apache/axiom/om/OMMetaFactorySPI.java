@@ -19,12 +19,15 @@
 
 package org.apache.axiom.om;
 
+import java.util.List;
+
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.Source;
 import javax.xml.transform.sax.SAXSource;
 
 import org.apache.axiom.mime.MultipartBody;
 import org.apache.axiom.om.util.StAXParserConfiguration;
+import org.apache.axiom.om.xpath.StreamingXPath;
 import org.apache.axiom.soap.SOAPFactory;
 import org.apache.axiom.soap.SOAPModelBuilder;
 import org.w3c.dom.EntityReference;
@@ -146,6 +149,18 @@ public interface OMMetaFactorySPI extends OMMetaFactory {
      */
     SOAPModelBuilder createSOAPModelBuilder(InputSource is);
     
+    /**
+     * Create an object model builder for SOAP that reads a message from the provided input source
+     * and that leaves the content of the SOAP body unparsed until it is accessed. See
+     * {@link OMXMLBuilderFactory#createSOAPModelBuilderWithRawBody(OMMetaFactory, java.io.InputStream, String)}
+     * for more details.
+     * 
+     * @param is
+     *            the source of the SOAP message
+     * @return the builder
+     */
+    SOAPModelBuilder createSOAPModelBuilderWithRawBody(InputSource is);
+    
     /**
      * Create an object model builder for SOAP that reads a message from the provided {@link Source}.
      * The implementation will select the appropriate {@link SOAPFactory} based on the namespace URI
@@ -167,4 +182,32 @@ public interface OMMetaFactorySPI extends OMMetaFactory {
     SOAPModelBuilder createSOAPModelBuilder(MultipartBody message);
     
     SOAPModelBuilder createSOAPModelBuilder(Source rootPart, OMAttachmentAccessor attachmentAccessor);
+    
+    /**
+     * Evaluate a streaming XPath expression and build the selected elements. See
+     * {@link StreamingXPath#selectElements(OMMetaFactory, Source, int)} for more details.
+     * 
+     * @param xpath
+     *            the expression to evaluate
+     * @param source
+     *            the source of the XML document
+     * @param maxResults
+     *            the maximum number of elements to return, or -1 to return all matching elements
+     * @return the list of selected elements
+     */
+    List<OMElement> selectElements(StreamingXPath xpath, Source source, int maxResults);
+    
+    /**
+     * Evaluate a streaming XPath expression and return the string values of the selected nodes.
+     * See {@link StreamingXPath#selectStringValues(OMMetaFactory, Source, int)} for more details.
+     * 
+     * @param xpath
+     *            the expression to evaluate
+     * @param source
+     *            the source of the XML document
+     * @param maxResults
+     *            the maximum number of values to return, or -1 to return all values
+     * @return the list of string values
+     */
+    List<String> selectStringValues(StreamingXPath xpath, Source source, int maxResults);
 }
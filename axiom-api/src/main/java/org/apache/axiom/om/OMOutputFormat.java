@@ -84,6 +84,32 @@ public class OMOutputFormat {
     public static final String USE_CTE_BASE64_FOR_NON_TEXTUAL_ATTACHMENTS = 
         "org.apache.axiom.om.OMFormat.use.cteBase64.forNonTextualAttachments";
     
+    /**
+     * Property specifying the {@link java.util.concurrent.Executor} used to fetch the content of
+     * attachments concurrently while the preceding attachments are written. If this property is
+     * not set, the content of each attachment is fetched when it is written. Parts are always
+     * written in the same order, regardless of this setting.
+     * 
+     * @see org.apache.axiom.om.impl.MultipartAttachmentWriter
+     */
+    public static final String ATTACHMENT_PREFETCH_EXECUTOR =
+        "org.apache.axiom.om.OMFormat.attachmentPrefetchExecutor";
+    
+    /**
+     * Property specifying the maximum number of attachments fetched ahead of the attachment being
+     * written. The value is an {@link Integer}; if the property is not set,
+     * {@link org.apache.axiom.om.impl.MultipartAttachmentWriter#DEFAULT_PREFETCH_LIMIT} is used.
+     */
+    public static final String ATTACHMENT_PREFETCH_LIMIT =
+        "org.apache.axiom.om.OMFormat.attachmentPrefetchLimit";
+    
+    /**
+     * Property specifying an {@link org.apache.axiom.om.impl.AttachmentWriteMetrics} instance
+     * that collects statistics about the attachments written.
+     */
+    public static final String ATTACHMENT_WRITE_METRICS =
+        "org.apache.axiom.om.OMFormat.attachmentWriteMetrics";
+    
     /**
      * @deprecated As of version 1.2.13, Axiom always respects the order of attachments.
      */
@@ -581,6 +581,53 @@ public class OMXMLBuilderFactory {
         return ((OMMetaFactorySPI)metaFactory).createSOAPModelBuilder(is);
     }
     
+    /**
+     * Create an object model builder for SOAP that reads a message from the provided input stream
+     * and that leaves the content of the SOAP body unparsed. This is equivalent to
+     * {@link #createSOAPModelBuilderWithRawBody(OMMetaFactory, InputStream, String)} with the
+     * default meta factory.
+     * 
+     * @param in
+     *            the input stream containing the SOAP message
+     * @param encoding
+     *            the charset encoding of the SOAP message or <code>null</code> if the parser should
+     *            determine the charset encoding
+     * @return the builder
+     */
+    public static SOAPModelBuilder createSOAPModelBuilderWithRawBody(InputStream in, String encoding) {
+        return createSOAPModelBuilderWithRawBody(OMAbstractFactory.getMetaFactory(), in, encoding);
+    }
+    
+    /**
+     * Create an object model builder for SOAP that reads a message from the provided input stream
+     * and that leaves the content of the SOAP body unparsed. This is useful for intermediaries that
+     * only need to process the SOAP header. The builder parses the message up to the start of the
+     * SOAP body and then copies the raw bytes of the body content into memory without parsing them.
+     * The content is only parsed if the application accesses the children of the SOAP body. As
+     * long as that is not the case, serializing the message (or the SOAP body) to an
+     * output stream with the same charset encoding copies the original bytes of the body
+     * content verbatim.
+     * <p>
+     * The raw content can only be captured if the message uses a charset encoding compatible with
+     * ASCII (such as UTF-8 or ISO-8859-1). In all other cases, the returned builder behaves like
+     * the one returned by {@link #createSOAPModelBuilder(OMMetaFactory, InputStream, String)}.
+     * Custom builders are not applied to the content of the SOAP body.
+     * 
+     * @param metaFactory
+     *            the meta factory for the Axiom implementation to use
+     * @param in
+     *            the input stream containing the SOAP message
+     * @param encoding
+     *            the charset encoding of the SOAP message or <code>null</code> if the parser should
+     *            determine the charset encoding
+     * @return the builder
+     */
+    public static SOAPModelBuilder createSOAPModelBuilderWithRawBody(OMMetaFactory metaFactory, InputStream in, String encoding) {
+        InputSource is = new InputSource(in);
+        is.setEncoding(encoding);
+        return ((OMMetaFactorySPI)metaFactory).createSOAPModelBuilderWithRawBody(is);
+    }
+    
     /**
      * Create an object model builder for SOAP that reads a message from the provided character
      * stream. The method will select the appropriate {@link SOAPFactory} based on the namespace URI
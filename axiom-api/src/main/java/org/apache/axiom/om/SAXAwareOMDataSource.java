@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.axiom.om.impl.MTOMXMLStreamWriter;
+import org.xml.sax.ContentHandler;
+
+/**
+ * Optional interface implemented by {@link OMDataSource} implementations that can produce their
+ * content as a sequence of SAX events. When an {@link OMSourcedElement} backed by such a data
+ * source is serialized by Axiom or expanded, Axiom uses
+ * {@link #serialize(ContentHandler, MTOMXMLStreamWriter)} instead of
+ * {@link OMDataSource#serialize(XMLStreamWriter)}, so that the events are passed directly to the
+ * serializer (resp. the builder) without going through an {@link XMLStreamWriter} adapter and the
+ * namespace context it maintains. {@link OMDataSource#serialize(XMLStreamWriter)} may still be
+ * used in some cases (e.g. if the element is serialized to an {@link MTOMXMLStreamWriter} supplied
+ * by the application), and both methods must produce the same content.
+ * <p>
+ * This interface should only be implemented by data sources that have an efficient way to
+ * generate SAX events, typically because they use a Java-to-XML mapping framework that supports
+ * SAX output natively.
+ */
+public interface SAXAwareOMDataSource extends OMDataSource {
+    /**
+     * Serialize the data source to a SAX {@link ContentHandler}. The same rules apply as for
+     * {@link OMDataSource#serialize(XMLStreamWriter)}; in particular the implementation must
+     * produce a single element and must not call {@link ContentHandler#startDocument()} or
+     * {@link ContentHandler#endDocument()}. Namespace declarations must be reported using
+     * {@link ContentHandler#startPrefixMapping(String, String)}.
+     * <p>
+     * The qualified names of elements and attributes should be specified. They may be empty (as
+     * permitted by SAX if the <code>namespace-prefixes</code> feature is disabled), in which case
+     * the prefix is determined from the namespace bindings reported using
+     * {@link ContentHandler#startPrefixMapping(String, String)}; every namespace URI used by the
+     * element and its descendants must then be bound to a prefix (a non empty prefix for
+     * attributes).
+     * 
+     * @param contentHandler
+     *            the content handler that receives the events
+     * @param writer
+     *            an {@link MTOMXMLStreamWriter} that gives access to the output format and to
+     *            {@link MTOMXMLStreamWriter#prepareDataHandler(javax.activation.DataHandler)} for
+     *            content that should be optimized as XOP/MTOM attachments; the implementation
+     *            must not write any events to it
+     * @throws XMLStreamException
+     *             if an error occurs
+     */
+    void serialize(ContentHandler contentHandler, MTOMXMLStreamWriter writer) throws XMLStreamException;
+}
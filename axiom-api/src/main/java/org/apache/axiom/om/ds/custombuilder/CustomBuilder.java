@@ -41,6 +41,10 @@ public interface CustomBuilder {
     /**
      * Selects the elements to which a custom builder is applied. Note that this interface may be
      * implemented by the {@link CustomBuilder} itself.
+     * <p>
+     * Selectors that only depend on the name and depth of the element should be implemented using
+     * {@link ElementNameSelector}: the builder looks them up by name instead of evaluating them
+     * for every element.
      */
     public interface Selector {
         /**
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.ds.custombuilder;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMContainer;
+
+/**
+ * {@link CustomBuilder.Selector} that selects elements by name and (optionally) depth. In contrast
+ * to arbitrary selectors, which are evaluated one after the other for every element, the builder
+ * looks up selectors of this type by element name, so that the cost of registering a large number
+ * of them (e.g. one for each payload element name of a service) doesn't grow with the number of
+ * registrations.
+ */
+public final class ElementNameSelector implements CustomBuilder.Selector {
+    /**
+     * Depth value indicating that the selector matches elements at any depth.
+     */
+    public static final int ANY_DEPTH = -1;
+    
+    private final String namespaceURI;
+    private final String localName;
+    private final int depth;
+
+    /**
+     * Constructor.
+     * 
+     * @param namespaceURI
+     *            the namespace URI of the elements to select; the empty string for elements with no
+     *            namespace
+     * @param localName
+     *            the local name of the elements to select
+     * @param depth
+     *            the depth of the elements to select (with the root element having depth 1), or
+     *            {@link #ANY_DEPTH}
+     */
+    public ElementNameSelector(String namespaceURI, String localName, int depth) {
+        if (namespaceURI == null || localName == null) {
+            throw new IllegalArgumentException("namespaceURI and localName must not be null");
+        }
+        if (depth < 1 && depth != ANY_DEPTH) {
+            throw new IllegalArgumentException("Invalid depth " + depth);
+        }
+        this.namespaceURI = namespaceURI;
+        this.localName = localName;
+        this.depth = depth;
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param qname
+     *            the name of the elements to select; the prefix is ignored
+     * @param depth
+     *            the depth of the elements to select (with the root element having depth 1), or
+     *            {@link #ANY_DEPTH}
+     */
+    public ElementNameSelector(QName qname, int depth) {
+        this(qname.getNamespaceURI(), qname.getLocalPart(), depth);
+    }
+
+    public String getNamespaceURI() {
+        return namespaceURI;
+    }
+
+    public String getLocalName() {
+        return localName;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public boolean accepts(OMContainer parent, int depth, String namespaceURI, String localName) {
+        return (this.depth == ANY_DEPTH || this.depth == depth)
+                && localName.equals(this.localName)
+                && namespaceURI.equals(this.namespaceURI);
+    }
+
+    @Override
+    public String toString() {
+        return "{" + namespaceURI + "}" + localName + (depth == ANY_DEPTH ? "" : " at depth " + depth);
+    }
+}
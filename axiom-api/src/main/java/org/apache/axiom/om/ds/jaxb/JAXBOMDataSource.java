@@ -27,14 +27,17 @@ import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
+import org.apache.axiom.om.JAXBPool;
 import org.apache.axiom.om.OMDataSource;
 import org.apache.axiom.om.OMDataSourceExt;
 import org.apache.axiom.om.OMException;
 import org.apache.axiom.om.OMFactory;
 import org.apache.axiom.om.OMSourcedElement;
 import org.apache.axiom.om.QNameAwareOMDataSource;
+import org.apache.axiom.om.SAXAwareOMDataSource;
 import org.apache.axiom.om.ds.AbstractPushOMDataSource;
 import org.apache.axiom.om.impl.MTOMXMLStreamWriter;
+import org.xml.sax.ContentHandler;
 
 /**
  * {@link OMDataSource} backed by a JAXB object. This class can be used both for plain JAXB objects
@@ -52,9 +55,16 @@ import org.apache.axiom.om.impl.MTOMXMLStreamWriter;
  * <p>
  * Instances of this class are non destructive, in the sense defined by
  * {@link OMDataSourceExt#isDestructiveWrite()}.
+ * <p>
+ * If the data source is created with a {@link JAXBPool}, marshallers are taken from the pool
+ * instead of being created for every serialization.
+ * <p>
+ * When the element is serialized by Axiom or expanded, the JAXB object is marshalled directly to
+ * SAX events (see {@link SAXAwareOMDataSource}).
  */
-public class JAXBOMDataSource extends AbstractPushOMDataSource implements QNameAwareOMDataSource {
+public class JAXBOMDataSource extends AbstractPushOMDataSource implements QNameAwareOMDataSource, SAXAwareOMDataSource {
     private final JAXBContext context;
+    private final JAXBPool pool;
     private final Object object;
     private QName cachedQName;
     
@@ -68,6 +78,21 @@ public class JAXBOMDataSource extends AbstractPushOMDataSource implements QNameA
      */
     public JAXBOMDataSource(JAXBContext context, Object object) {
         this.context = context;
+        pool = null;
+        this.object = object;
+    }
+
+    /**
+     * Constructor that uses marshallers from a pool.
+     * 
+     * @param pool
+     *            the pool for the JAXB context to which the object is known
+     * @param object
+     *            the JAXB object; this may be a plain Java bean or a {@link JAXBElement}
+     */
+    public JAXBOMDataSource(JAXBPool pool, Object object) {
+        context = pool.getContext();
+        this.pool = pool;
         this.object = object;
     }
 
@@ -76,18 +101,38 @@ public class JAXBOMDataSource extends AbstractPushOMDataSource implements QNameA
         return false;
     }
 
+    private Marshaller createMarshaller(XMLStreamWriter writer) throws JAXBException {
+        Marshaller marshaller;
+        if (pool == null) {
+            marshaller = context.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+        } else {
+            // Pooled marshallers already have JAXB_FRAGMENT set; they must not be reconfigured
+            marshaller = pool.acquireMarshaller();
+        }
+        if (writer instanceof MTOMXMLStreamWriter) {
+            MTOMXMLStreamWriter mtomWriter = (MTOMXMLStreamWriter)writer;
+            if (mtomWriter.isOptimized()) {
+                marshaller.setAttachmentMarshaller(new AttachmentMarshallerImpl(mtomWriter));
+            }
+        }
+        return marshaller;
+    }
+
+    private void releaseMarshaller(Marshaller marshaller) {
+        // Only return the marshaller to the pool if no exception occurred; otherwise it may
+        // be in an inconsistent state.
+        if (pool != null) {
+            pool.releaseMarshaller(marshaller);
+        }
+    }
+
     @Override
     public void serialize(XMLStreamWriter writer) throws XMLStreamException {
         try {
-            Marshaller marshaller = context.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
-            if (writer instanceof MTOMXMLStreamWriter) {
-                MTOMXMLStreamWriter mtomWriter = (MTOMXMLStreamWriter)writer;
-                if (mtomWriter.isOptimized()) {
-                    marshaller.setAttachmentMarshaller(new AttachmentMarshallerImpl(mtomWriter));
-                }
-            }
+            Marshaller marshaller = createMarshaller(writer);
             marshaller.marshal(object, writer);
+            releaseMarshaller(marshaller);
         } catch (JAXBException ex) {
             // Try to propagate the original exception if possible (to avoid unreadable stacktraces)
             Throwable cause = ex.getCause();
@@ -99,12 +144,24 @@ public class JAXBOMDataSource extends AbstractPushOMDataSource implements QNameA
         }
     }
 
+    @Override
+    public void serialize(ContentHandler contentHandler, MTOMXMLStreamWriter writer) throws XMLStreamException {
+        try {
+            Marshaller marshaller = createMarshaller(writer);
+            marshaller.marshal(object, contentHandler);
+            releaseMarshaller(marshaller);
+        } catch (JAXBException ex) {
+            throw new XMLStreamException("Error marshalling JAXB object", ex);
+        }
+    }
+
     private QName getQName() {
         if (cachedQName == null) {
             if (object instanceof JAXBElement) {
                 cachedQName = ((JAXBElement<?>)object).getName();
             } else {
-                cachedQName = context.createJAXBIntrospector().getElementName(object);
+                cachedQName = pool == null ? context.createJAXBIntrospector().getElementName(object)
+                        : pool.getElementName(object);
                 if (cachedQName == null) {
                     // We get here if the class of the object is not known to
                     // the JAXBContext
@@ -137,6 +194,6 @@ public class JAXBOMDataSource extends AbstractPushOMDataSource implements QNameA
 
     @Override
     public OMDataSourceExt copy() {
-        return new JAXBOMDataSource(context, object);
+        return pool == null ? new JAXBOMDataSource(context, object) : new JAXBOMDataSource(pool, object);
     }
 }
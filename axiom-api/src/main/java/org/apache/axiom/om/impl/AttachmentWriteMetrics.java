@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axiom.om.OMOutputFormat;
+
+/**
+ * Collects statistics about the attachment parts written by {@link MultipartAttachmentWriter}. To
+ * get these statistics for a message serialized by Axiom, set an instance of this class as the
+ * {@link OMOutputFormat#ATTACHMENT_WRITE_METRICS} property of the {@link OMOutputFormat}. An
+ * instance may be reused for multiple messages, in which case it accumulates the statistics of all
+ * parts written.
+ * <p>
+ * Instances of this class are thread safe.
+ */
+public final class AttachmentWriteMetrics {
+    /**
+     * Statistics for a single attachment part.
+     */
+    public static final class PartMetrics {
+        private final String contentID;
+        private final long bytes;
+        private final long fetchNanos;
+        private final long writeNanos;
+        private final boolean prefetched;
+        private final boolean zeroCopy;
+
+        PartMetrics(String contentID, long bytes, long fetchNanos, long writeNanos,
+                boolean prefetched, boolean zeroCopy) {
+            this.contentID = contentID;
+            this.bytes = bytes;
+            this.fetchNanos = fetchNanos;
+            this.writeNanos = writeNanos;
+            this.prefetched = prefetched;
+            this.zeroCopy = zeroCopy;
+        }
+
+        public String getContentID() {
+            return contentID;
+        }
+
+        /**
+         * Get the size of the content of the part, before applying the content transfer encoding.
+         * 
+         * @return the number of bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Get the time spent opening the content of the part (and reading the first bytes if the
+         * content is not file based).
+         * 
+         * @return the time in nanoseconds
+         */
+        public long getFetchNanos() {
+            return fetchNanos;
+        }
+
+        /**
+         * Get the time spent writing the part, including the MIME headers.
+         * 
+         * @return the time in nanoseconds
+         */
+        public long getWriteNanos() {
+            return writeNanos;
+        }
+
+        /**
+         * Determine whether the content of the part was fetched by the prefetch executor.
+         * 
+         * @return <code>true</code> if the content was fetched concurrently, <code>false</code> if
+         *         it was fetched by the thread writing the message
+         */
+        public boolean isPrefetched() {
+            return prefetched;
+        }
+
+        /**
+         * Determine whether the content was transferred from a file channel directly to the
+         * channel backing the output stream.
+         * 
+         * @return <code>true</code> if the content was not copied through the Java heap
+         */
+        public boolean isZeroCopy() {
+            return zeroCopy;
+        }
+
+        /**
+         * Get the throughput achieved when writing the part.
+         * 
+         * @return the number of bytes written per second
+         */
+        public double getBytesPerSecond() {
+            return writeNanos <= 0 ? 0 : (double)bytes * TimeUnit.SECONDS.toNanos(1) / writeNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "contentID=" + contentID + ", bytes=" + bytes + ", fetchNanos=" + fetchNanos
+                    + ", writeNanos=" + writeNanos + ", bytesPerSecond=" + (long)getBytesPerSecond()
+                    + ", prefetched=" + prefetched + ", zeroCopy=" + zeroCopy;
+        }
+    }
+
+    private final List<PartMetrics> parts = new ArrayList<PartMetrics>();
+
+    synchronized void add(PartMetrics part) {
+        parts.add(part);
+    }
+
+    /**
+     * Get the statistics of the parts written so far, in the order in which they were written.
+     * 
+     * @return a snapshot of the statistics
+     */
+    public synchronized List<PartMetrics> getParts() {
+        return new ArrayList<PartMetrics>(parts);
+    }
+
+    /**
+     * Get the total number of bytes written so far.
+     * 
+     * @return the number of bytes
+     */
+    public synchronized long getTotalBytes() {
+        long total = 0;
+        for (PartMetrics part : parts) {
+            total += part.bytes;
+        }
+        return total;
+    }
+
+    /**
+     * Get the throughput for all parts written so far.
+     * 
+     * @return the number of bytes written per second
+     */
+    public synchronized double getBytesPerSecond() {
+        long bytes = 0;
+        long nanos = 0;
+        for (PartMetrics part : parts) {
+            bytes += part.bytes;
+            nanos += part.writeNanos;
+        }
+        return nanos <= 0 ? 0 : (double)bytes * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    public synchronized void reset() {
+        parts.clear();
+    }
+}
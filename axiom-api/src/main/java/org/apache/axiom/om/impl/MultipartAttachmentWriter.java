@@ -0,0 +1,366 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.impl;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+import javax.activation.FileDataSource;
+
+import org.apache.axiom.mime.PartDataHandler;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.util.io.IOUtils;
+
+/**
+ * Writes the attachment parts of an XOP/MTOM or SwA message to an {@link OMMultipartWriter}. In
+ * contrast to {@link OMMultipartWriter#writePart(DataHandler, String)}, this class separates
+ * fetching the content of a part (opening a file or the input stream of the {@link DataHandler}
+ * and reading the first bytes) from writing it, so that the content of the parts following the
+ * one being written can be fetched concurrently by an {@link Executor}. The parts are always
+ * written in the order in which they have been added.
+ * <p>
+ * File based content (parts backed by a {@link org.apache.axiom.blob.FileChannelSupport} blob and
+ * {@link FileDataSource} instances) is transferred using
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}. If the underlying output stream
+ * is backed by a channel and no content transfer encoding is applied, the content is not copied
+ * through the Java heap. The beginning of other content is read ahead into a set of buffers that
+ * are written using a single gathering write where possible.
+ * <p>
+ * Axiom uses this class when serializing a message if the
+ * {@link OMOutputFormat#ATTACHMENT_PREFETCH_EXECUTOR} or
+ * {@link OMOutputFormat#ATTACHMENT_WRITE_METRICS} property is set. Note that in that case
+ * {@link DataHandler} instances may be accessed by a thread other than the one serializing the
+ * message.
+ */
+public final class MultipartAttachmentWriter {
+    /**
+     * The default maximum number of parts fetched ahead of the part being written.
+     */
+    public static final int DEFAULT_PREFETCH_LIMIT = 4;
+
+    private static final int CHUNK_SIZE = 8192;
+    private static final int MAX_CHUNKS = 8;
+    private static final ByteBuffer[] NO_CHUNKS = new ByteBuffer[0];
+
+    private static final class Content {
+        final FileChannel channel;
+        final InputStream in;
+        final ByteBuffer[] chunks;
+        final long fetchNanos;
+
+        Content(FileChannel channel, InputStream in, ByteBuffer[] chunks, long fetchNanos) {
+            this.channel = channel;
+            this.in = in;
+            this.chunks = chunks;
+            this.fetchNanos = fetchNanos;
+        }
+
+        void close() {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+                if (in != null) {
+                    in.close();
+                }
+            } catch (IOException ex) {
+                // Ignore
+            }
+        }
+    }
+
+    private static final class PendingPart implements Callable<Content> {
+        final DataHandler dataHandler;
+        final String contentID;
+        final boolean streaming;
+        FutureTask<Content> future;
+        private Content content;
+        private boolean discarded;
+
+        PendingPart(DataHandler dataHandler, String contentID, boolean streaming) {
+            this.dataHandler = dataHandler;
+            this.contentID = contentID;
+            this.streaming = streaming;
+        }
+
+        @Override
+        public Content call() throws IOException {
+            Content content = fetch(this);
+            synchronized (this) {
+                if (discarded) {
+                    content.close();
+                } else {
+                    this.content = content;
+                }
+            }
+            return content;
+        }
+
+        void discard() {
+            if (future != null) {
+                future.cancel(false);
+            }
+            synchronized (this) {
+                discarded = true;
+                if (content != null) {
+                    content.close();
+                }
+            }
+        }
+    }
+
+    private final OMMultipartWriter writer;
+    private final Executor executor;
+    private final int prefetchLimit;
+    private final AttachmentWriteMetrics metrics;
+    private final List<PendingPart> parts = new ArrayList<PendingPart>();
+
+    /**
+     * Constructor.
+     * 
+     * @param writer
+     *            the multipart writer to write the parts to
+     * @param executor
+     *            the executor used to fetch the content of the parts, or <code>null</code> to
+     *            fetch the content of each part on the calling thread just before writing it
+     * @param prefetchLimit
+     *            the maximum number of parts fetched ahead of the part being written
+     * @param metrics
+     *            the object collecting the statistics for the parts written, or
+     *            <code>null</code>
+     */
+    public MultipartAttachmentWriter(OMMultipartWriter writer, Executor executor,
+            int prefetchLimit, AttachmentWriteMetrics metrics) {
+        if (prefetchLimit < 0) {
+            throw new IllegalArgumentException("prefetchLimit must not be negative");
+        }
+        this.writer = writer;
+        this.executor = executor;
+        this.prefetchLimit = prefetchLimit;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Add a part to be written by {@link #writeParts()}.
+     * 
+     * @param dataHandler
+     *            the content of the part
+     * @param contentID
+     *            the content ID of the part
+     * @param preserve
+     *            if the data handler is a {@link PartDataHandler}, specifies whether the content
+     *            of the MIME part it represents should be preserved; if <code>false</code>, the
+     *            content is streamed directly from the underlying stream and is not fetched
+     *            concurrently
+     */
+    public void addPart(DataHandler dataHandler, String contentID, boolean preserve) {
+        parts.add(new PendingPart(dataHandler, contentID,
+                !preserve && dataHandler instanceof PartDataHandler));
+    }
+
+    /**
+     * Write all parts added so far, in the order in which they were added.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs when fetching the content of a part or when writing to
+     *             the underlying stream
+     */
+    public void writeParts() throws IOException {
+        int count = parts.size();
+        int scheduled = 0;
+        int written = 0;
+        try {
+            while (written < count) {
+                if (scheduled == written) {
+                    // The part about to be written is fetched on the calling thread; only the
+                    // parts following it are submitted to the executor
+                    scheduled++;
+                }
+                while (scheduled < count && scheduled <= written + prefetchLimit) {
+                    schedule(parts.get(scheduled++));
+                }
+                writePart(parts.get(written));
+                written++;
+            }
+        } finally {
+            for (int i=written; i<scheduled; i++) {
+                parts.get(i).discard();
+            }
+            parts.clear();
+        }
+    }
+
+    private void schedule(PendingPart part) {
+        if (executor != null && !part.streaming) {
+            FutureTask<Content> future = new FutureTask<Content>(part);
+            try {
+                executor.execute(future);
+                part.future = future;
+            } catch (RejectedExecutionException ex) {
+                // The content will be fetched on demand
+            }
+        }
+    }
+
+    private void writePart(PendingPart part) throws IOException {
+        Content content = getContent(part);
+        try {
+            long start = System.nanoTime();
+            OutputStream out = writer.startPart(part.dataHandler, part.contentID);
+            long bytes = 0;
+            boolean zeroCopy;
+            if (content.channel != null) {
+                zeroCopy = out instanceof WritableByteChannel;
+                WritableByteChannel target = zeroCopy ? (WritableByteChannel)out : Channels.newChannel(out);
+                FileChannel in = content.channel;
+                long size = in.size();
+                while (bytes < size) {
+                    long transferred = in.transferTo(bytes, size-bytes, target);
+                    // transferTo returns 0 if the position is at or past the end of the file,
+                    // i.e. if the file has been truncated in the meantime
+                    if (transferred == 0 && bytes >= in.size()) {
+                        throw new IOException("File truncated while writing attachment part "
+                                + part.contentID);
+                    }
+                    bytes += transferred;
+                }
+            } else {
+                zeroCopy = false;
+                ByteBuffer[] chunks = content.chunks;
+                for (ByteBuffer chunk : chunks) {
+                    bytes += chunk.remaining();
+                }
+                if (out instanceof GatheringByteChannel) {
+                    GatheringByteChannel channel = (GatheringByteChannel)out;
+                    long remaining = bytes;
+                    while (remaining > 0) {
+                        remaining -= channel.write(chunks);
+                    }
+                } else {
+                    for (ByteBuffer chunk : chunks) {
+                        out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                    }
+                }
+                if (content.in != null) {
+                    bytes += IOUtils.copy(content.in, out, -1);
+                }
+            }
+            out.close();
+            if (metrics != null) {
+                metrics.add(new AttachmentWriteMetrics.PartMetrics(part.contentID, bytes,
+                        content.fetchNanos, System.nanoTime() - start, part.future != null, zeroCopy));
+            }
+        } finally {
+            content.close();
+        }
+    }
+
+    private static Content getContent(PendingPart part) throws IOException {
+        if (part.future == null) {
+            return fetch(part);
+        }
+        try {
+            return part.future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            } else {
+                throw new IOException(cause);
+            }
+        }
+    }
+
+    private static Content fetch(PendingPart part) throws IOException {
+        long start = System.nanoTime();
+        DataHandler dataHandler = part.dataHandler;
+        if (part.streaming) {
+            InputStream in = ((PartDataHandler)dataHandler).getPart().getInputStream(false);
+            return new Content(null, in, NO_CHUNKS, System.nanoTime() - start);
+        }
+        FileChannel channel = openFileChannel(dataHandler);
+        if (channel != null) {
+            return new Content(channel, null, null, System.nanoTime() - start);
+        }
+        InputStream in = dataHandler.getInputStream();
+        List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+        boolean eof = false;
+        try {
+            while (!eof && chunks.size() < MAX_CHUNKS) {
+                byte[] buffer = new byte[CHUNK_SIZE];
+                int len = 0;
+                while (len < buffer.length) {
+                    int c = in.read(buffer, len, buffer.length-len);
+                    if (c == -1) {
+                        eof = true;
+                        break;
+                    }
+                    len += c;
+                }
+                if (len > 0) {
+                    chunks.add(ByteBuffer.wrap(buffer, 0, len));
+                }
+            }
+            if (eof) {
+                in.close();
+                in = null;
+            }
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+        return new Content(null, in, chunks.toArray(new ByteBuffer[chunks.size()]),
+                System.nanoTime() - start);
+    }
+
+    private static FileChannel openFileChannel(DataHandler dataHandler) throws IOException {
+        if (dataHandler instanceof PartDataHandler) {
+            return ((PartDataHandler)dataHandler).openFileChannel();
+        }
+        DataSource dataSource = dataHandler.getDataSource();
+        if (dataSource instanceof FileDataSource) {
+            return new FileInputStream(((FileDataSource)dataSource).getFile()).getChannel();
+        }
+        return null;
+    }
+}
@@ -157,6 +157,27 @@ public class OMMultipartWriter {
      *             if an I/O error occurs when writing the part to the underlying stream
      */
     public void writePart(DataHandler dataHandler, String contentID, List<Header> extraHeaders) throws IOException {
+        writer.writePart(dataHandler, getContentTransferEncoding(dataHandler), contentID, extraHeaders);
+    }
+    
+    /**
+     * Start writing an attachment part with the content type and content transfer encoding that
+     * {@link #writePart(DataHandler, String)} would use for the given {@link DataHandler}, but
+     * let the caller write the content.
+     * 
+     * @param dataHandler
+     *            the data handler for the content of the MIME part
+     * @param contentID
+     *            the content ID of the MIME part
+     * @return an output stream to write the content of the MIME part
+     * @throws IOException
+     *             if an I/O error occurs when writing to the underlying stream
+     */
+    OutputStream startPart(DataHandler dataHandler, String contentID) throws IOException {
+        return writer.writePart(dataHandler.getContentType(), getContentTransferEncoding(dataHandler), contentID, null);
+    }
+    
+    private String getContentTransferEncoding(DataHandler dataHandler) {
         String contentTransferEncoding = null;
         if (dataHandler instanceof ConfigurableDataHandler) {
             contentTransferEncoding = ((ConfigurableDataHandler)dataHandler).getTransferEncoding();
@@ -164,7 +185,7 @@ public class OMMultipartWriter {
         if (contentTransferEncoding == null) {
             contentTransferEncoding = getContentTransferEncoding(dataHandler.getContentType());
         }
-        writer.writePart(dataHandler, contentTransferEncoding, contentID, extraHeaders);
+        return contentTransferEncoding;
     }
     
     /**
@@ -44,6 +44,10 @@ import java.util.TreeMap;
 /**
  * Helper class to provide the functionality of the digest value generation. This is an
  * implementation of the DOMHASH algorithm on OM.
+ * <p>
+ * This class computes the digest of each node separately and allocates a buffer for each element.
+ * For large documents, consider using {@link StreamingDigestGenerator}, which produces the same
+ * digests from a stream of StAX events.
  */
 public class DigestGenerator {
 
@@ -39,11 +39,9 @@ import java.io.Reader;
 import java.io.Writer;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
-import java.util.WeakHashMap;
 
 /**
  * Utility class containing StAX related methods.
@@ -84,11 +82,11 @@ import java.util.WeakHashMap;
 public class StAXUtils {
     private static final Log log = LogFactory.getLog(StAXUtils.class);
     
-    private static final Map<StAXParserConfiguration,XMLInputFactory> inputFactoryMap
-            = Collections.synchronizedMap(new WeakHashMap<StAXParserConfiguration,XMLInputFactory>());
+    private static final WeakKeyCache<StAXParserConfiguration,XMLInputFactory> inputFactoryMap
+            = new WeakKeyCache<StAXParserConfiguration,XMLInputFactory>();
     @SuppressWarnings("deprecation")
-    private static final Map<StAXWriterConfiguration,XMLOutputFactory> outputFactoryMap
-            = Collections.synchronizedMap(new WeakHashMap<StAXWriterConfiguration,XMLOutputFactory>());
+    private static final WeakKeyCache<StAXWriterConfiguration,XMLOutputFactory> outputFactoryMap
+            = new WeakKeyCache<StAXWriterConfiguration,XMLOutputFactory>();
     
     /**
      * Get a cached {@link XMLInputFactory} instance using the default
@@ -427,12 +425,12 @@ public class StAXUtils {
         }
         XMLInputFactory f = inputFactoryMap.get(configuration);
         if (f == null) {
-            f = newXMLInputFactory(StAXUtils.class.getClassLoader(), configuration);
-            inputFactoryMap.put(configuration, f);
-            if (log.isDebugEnabled()) {
-                if (f != null) {
-                    log.debug("Created singleton XMLInputFactory " + f.getClass() + " with configuration " + configuration);
-                }
+            // Multiple threads may create a factory for the same configuration concurrently; only
+            // one of them is retained.
+            XMLInputFactory newFactory = newXMLInputFactory(StAXUtils.class.getClassLoader(), configuration);
+            f = inputFactoryMap.putIfAbsent(configuration, newFactory);
+            if (f == newFactory && log.isDebugEnabled()) {
+                log.debug("Created singleton XMLInputFactory " + f.getClass() + " with configuration " + configuration);
             }
         }
         
@@ -493,12 +491,10 @@ public class StAXUtils {
         }
         XMLOutputFactory f = outputFactoryMap.get(configuration);
         if (f == null) {
-            f = newXMLOutputFactory(StAXUtils.class.getClassLoader(), configuration);
-            outputFactoryMap.put(configuration, f);
-            if (log.isDebugEnabled()) {
-                if (f != null) {
-                    log.debug("Created singleton XMLOutputFactory " + f.getClass() + " with configuration " + configuration);
-                }
+            XMLOutputFactory newFactory = newXMLOutputFactory(StAXUtils.class.getClassLoader(), configuration);
+            f = outputFactoryMap.putIfAbsent(configuration, newFactory);
+            if (f == newFactory && log.isDebugEnabled()) {
+                log.debug("Created singleton XMLOutputFactory " + f.getClass() + " with configuration " + configuration);
             }
         }
         return f;
@@ -0,0 +1,464 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.util;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.om.OMException;
+
+/**
+ * Computes DOMHASH digests from a stream of StAX events. This class produces the same digests as
+ * {@link DigestGenerator}, but it doesn't require an object model: it can be used directly on a
+ * parser, or on the {@link XMLStreamReader} returned by
+ * {@link org.apache.axiom.om.OMContainer#getXMLStreamReader()}.
+ * <p>
+ * In contrast to {@link DigestGenerator}, this class doesn't allocate byte arrays for the
+ * serialized form of each node. Instead, it keeps one {@link MessageDigest} instance and one buffer
+ * for the digests of the child nodes per depth level, and reuses them for all elements at that
+ * depth (as well as for subsequent invocations). Instances are not thread safe.
+ * <p>
+ * To produce identical results, this class reproduces the following quirks of
+ * {@link DigestGenerator}: adjacent text nodes are not merged, and CDATA sections as well as
+ * ignorable whitespace are counted as child nodes of an element, but don't contribute a digest.
+ */
+public final class StreamingDigestGenerator {
+    private static final int INITIAL_DEPTH = 16;
+    
+    private static final byte[] ELEMENT = { 0, 0, 0, 1 };
+    private static final byte[] ATTRIBUTE = { 0, 0, 0, 2 };
+    private static final byte[] TEXT = { 0, 0, 0, 3 };
+    private static final byte[] PROCESSING_INSTRUCTION = { 0, 0, 0, 7 };
+    private static final byte[] DOCUMENT = { 0, 0, 0, 9 };
+    
+    private final String digestAlgorithm;
+    
+    /**
+     * The {@link MessageDigest} used for leaf nodes, i.e. attributes, text nodes and processing
+     * instructions.
+     */
+    private final MessageDigest leafDigest;
+    
+    /**
+     * The {@link MessageDigest} instances for the element (or document) at each depth.
+     */
+    private MessageDigest[] digests = new MessageDigest[INITIAL_DEPTH];
+    
+    /**
+     * The concatenated digests of the child nodes for the element (or document) at each depth.
+     */
+    private byte[][] childDigests = new byte[INITIAL_DEPTH][];
+    private int[] childDigestsLength = new int[INITIAL_DEPTH];
+    private int[] childCount = new int[INITIAL_DEPTH];
+    private int depth;
+    
+    private final byte[] encodeBuffer = new byte[512];
+    private char[] charBuffer = new char[64];
+    private int[] attributeIndexes = new int[8];
+    
+    /**
+     * Constructor.
+     * 
+     * @param digestAlgorithm
+     *            the digest algorithm to use, e.g. {@link DigestGenerator#md5DigestAlgorithm}
+     * @throws OMException
+     *             if the digest algorithm is not supported
+     */
+    public StreamingDigestGenerator(String digestAlgorithm) throws OMException {
+        this.digestAlgorithm = digestAlgorithm;
+        leafDigest = createMessageDigest();
+    }
+
+    private MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance(digestAlgorithm);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new OMException(ex);
+        }
+    }
+    
+    /**
+     * Compute the digest of a document. The reader must be positioned on the
+     * {@link XMLStreamConstants#START_DOCUMENT} event. On return, it will be positioned on the
+     * {@link XMLStreamConstants#END_DOCUMENT} event.
+     * 
+     * @param reader
+     *            the reader to consume
+     * @return the digest value; identical to the value returned by
+     *         {@link DigestGenerator#getDigest(org.apache.axiom.om.OMDocument, String)}
+     * @throws XMLStreamException
+     *             if the underlying parser throws an exception
+     */
+    public byte[] getDocumentDigest(XMLStreamReader reader) throws XMLStreamException {
+        if (reader.getEventType() != XMLStreamConstants.START_DOCUMENT) {
+            throw new IllegalStateException("Expected START_DOCUMENT event");
+        }
+        depth = 0;
+        pushLevel().update(DOCUMENT);
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    processElement(reader);
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    processProcessingInstruction(reader.getPITarget(), reader.getPIData());
+                    break;
+                case XMLStreamConstants.END_DOCUMENT:
+                    return popLevel().digest();
+                default:
+                    // Text nodes, comments and the DTD are not taken into account at the
+                    // document level
+            }
+        }
+    }
+    
+    /**
+     * Compute the digest of an element. The reader must be positioned on the
+     * {@link XMLStreamConstants#START_ELEMENT} event for that element, or on the
+     * {@link XMLStreamConstants#START_DOCUMENT} event, in which case the digest of the document
+     * element is computed. On return, the reader will be positioned on the corresponding
+     * {@link XMLStreamConstants#END_ELEMENT} event.
+     * 
+     * @param reader
+     *            the reader to consume
+     * @return the digest value; identical to the value returned by
+     *         {@link DigestGenerator#getDigest(org.apache.axiom.om.OMElement, String)}
+     * @throws XMLStreamException
+     *             if the underlying parser throws an exception
+     */
+    public byte[] getElementDigest(XMLStreamReader reader) throws XMLStreamException {
+        if (reader.getEventType() == XMLStreamConstants.START_DOCUMENT) {
+            reader.nextTag();
+        } else if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+            throw new IllegalStateException("Expected START_DOCUMENT or START_ELEMENT event");
+        }
+        depth = 0;
+        // Use a dummy level to collect the digest of the element
+        pushLevel();
+        processElement(reader);
+        byte[] digest = new byte[childDigestsLength[0]];
+        System.arraycopy(childDigests[0], 0, digest, 0, digest.length);
+        depth = 0;
+        return digest;
+    }
+    
+    /**
+     * Process an element and its descendants and add its digest to the current level.
+     */
+    private void processElement(XMLStreamReader reader) throws XMLStreamException {
+        int startDepth = depth;
+        startElement(reader);
+        while (depth > startDepth) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    startElement(reader);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    addChildDigest(popLevel());
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                    processText(reader);
+                    break;
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    childCount[depth-1]++;
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    processProcessingInstruction(reader.getPITarget(), reader.getPIData());
+                    break;
+                default:
+                    // Comments and entity references are skipped
+            }
+        }
+    }
+    
+    private void startElement(XMLStreamReader reader) {
+        MessageDigest md = pushLevel();
+        md.update(ELEMENT);
+        updateExpandedName(md, reader.getNamespaceURI(), reader.getLocalName());
+        md.update((byte)0);
+        md.update((byte)0);
+        int attributeCount = 0;
+        for (int i=0, count=reader.getAttributeCount(); i<count; i++) {
+            String localName = reader.getAttributeLocalName(i);
+            if (!(localName.equals("xmlns") || localName.startsWith("xmlns:"))) {
+                if (attributeCount == attributeIndexes.length) {
+                    int[] newAttributeIndexes = new int[attributeIndexes.length*2];
+                    System.arraycopy(attributeIndexes, 0, newAttributeIndexes, 0, attributeCount);
+                    attributeIndexes = newAttributeIndexes;
+                }
+                attributeIndexes[attributeCount++] = i;
+            }
+        }
+        updateInt(md, attributeCount);
+        sortAttributes(reader, attributeCount);
+        for (int i=0; i<attributeCount; i++) {
+            int index = attributeIndexes[i];
+            leafDigest.update(ATTRIBUTE);
+            updateExpandedName(leafDigest, reader.getAttributeNamespace(index), reader.getAttributeLocalName(index));
+            leafDigest.update((byte)0);
+            leafDigest.update((byte)0);
+            updateString(leafDigest, reader.getAttributeValue(index));
+            updateWithDigest(md, leafDigest);
+        }
+    }
+
+    /**
+     * Sort the attributes referenced by {@link #attributeIndexes} by expanded name.
+     */
+    private void sortAttributes(XMLStreamReader reader, int attributeCount) {
+        for (int i=1; i<attributeCount; i++) {
+            int index = attributeIndexes[i];
+            String namespaceURI = reader.getAttributeNamespace(index);
+            String localName = reader.getAttributeLocalName(index);
+            int j = i;
+            while (j > 0) {
+                int otherIndex = attributeIndexes[j-1];
+                if (compareExpandedNames(reader.getAttributeNamespace(otherIndex),
+                        reader.getAttributeLocalName(otherIndex), namespaceURI, localName) <= 0) {
+                    break;
+                }
+                attributeIndexes[j] = otherIndex;
+                j--;
+            }
+            attributeIndexes[j] = index;
+        }
+    }
+    
+    private static int getExpandedNameLength(String namespaceURI, String localName) {
+        return namespaceURI == null || namespaceURI.length() == 0
+                ? localName.length() : namespaceURI.length() + 1 + localName.length();
+    }
+    
+    private static char getExpandedNameChar(String namespaceURI, String localName, int index) {
+        if (namespaceURI == null || namespaceURI.length() == 0) {
+            return localName.charAt(index);
+        }
+        int namespaceURILength = namespaceURI.length();
+        if (index < namespaceURILength) {
+            return namespaceURI.charAt(index);
+        } else if (index == namespaceURILength) {
+            return ':';
+        } else {
+            return localName.charAt(index - namespaceURILength - 1);
+        }
+    }
+    
+    /**
+     * Compare two expanded names in the same way as {@link DigestGenerator} does (i.e. using
+     * {@link String#compareTo(String)} on the expanded names), but without building the expanded
+     * names.
+     */
+    private static int compareExpandedNames(String namespaceURI1, String localName1,
+            String namespaceURI2, String localName2) {
+        int length1 = getExpandedNameLength(namespaceURI1, localName1);
+        int length2 = getExpandedNameLength(namespaceURI2, localName2);
+        int length = Math.min(length1, length2);
+        for (int i=0; i<length; i++) {
+            char c1 = getExpandedNameChar(namespaceURI1, localName1, i);
+            char c2 = getExpandedNameChar(namespaceURI2, localName2, i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return length1 - length2;
+    }
+    
+    private void processText(XMLStreamReader reader) {
+        leafDigest.update(TEXT);
+        updateChars(leafDigest, reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        addChildDigest(leafDigest);
+    }
+    
+    private void processProcessingInstruction(String target, String data) {
+        leafDigest.update(PROCESSING_INSTRUCTION);
+        updateString(leafDigest, target);
+        leafDigest.update((byte)0);
+        leafDigest.update((byte)0);
+        updateString(leafDigest, data);
+        addChildDigest(leafDigest);
+    }
+    
+    private MessageDigest pushLevel() {
+        if (depth == digests.length) {
+            int newLength = depth*2;
+            MessageDigest[] newDigests = new MessageDigest[newLength];
+            System.arraycopy(digests, 0, newDigests, 0, depth);
+            digests = newDigests;
+            byte[][] newChildDigests = new byte[newLength][];
+            System.arraycopy(childDigests, 0, newChildDigests, 0, depth);
+            childDigests = newChildDigests;
+            int[] newChildDigestsLength = new int[newLength];
+            System.arraycopy(childDigestsLength, 0, newChildDigestsLength, 0, depth);
+            childDigestsLength = newChildDigestsLength;
+            int[] newChildCount = new int[newLength];
+            System.arraycopy(childCount, 0, newChildCount, 0, depth);
+            childCount = newChildCount;
+        }
+        MessageDigest md = digests[depth];
+        if (md == null) {
+            md = createMessageDigest();
+            digests[depth] = md;
+        } else {
+            md.reset();
+        }
+        childDigestsLength[depth] = 0;
+        childCount[depth] = 0;
+        depth++;
+        return md;
+    }
+    
+    /**
+     * Complete the digest for the element (or document) at the current depth and decrease the
+     * depth.
+     * 
+     * @return the {@link MessageDigest} containing the digest; this instance must be consumed
+     *         before the next call to {@link #pushLevel()}
+     */
+    private MessageDigest popLevel() {
+        depth--;
+        MessageDigest md = digests[depth];
+        updateInt(md, childCount[depth]);
+        md.update(childDigests[depth] == null ? encodeBuffer : childDigests[depth], 0, childDigestsLength[depth]);
+        return md;
+    }
+    
+    /**
+     * Complete the digest in the given {@link MessageDigest} (which is reset) and add it to the
+     * child digests of the element (or document) at the current depth.
+     */
+    private void addChildDigest(MessageDigest md) {
+        int level = depth-1;
+        byte[] buffer = childDigests[level];
+        int length = childDigestsLength[level];
+        int digestLength = md.getDigestLength();
+        if (digestLength == 0) {
+            // The provider doesn't know the digest length in advance
+            byte[] digest = md.digest();
+            buffer = ensureCapacity(level, length + digest.length);
+            System.arraycopy(digest, 0, buffer, length, digest.length);
+            digestLength = digest.length;
+        } else {
+            buffer = ensureCapacity(level, length + digestLength);
+            try {
+                md.digest(buffer, length, digestLength);
+            } catch (DigestException ex) {
+                throw new OMException(ex);
+            }
+        }
+        childDigestsLength[level] = length + digestLength;
+        childCount[level]++;
+    }
+    
+    private byte[] ensureCapacity(int level, int capacity) {
+        byte[] buffer = childDigests[level];
+        if (buffer == null) {
+            buffer = new byte[Math.max(capacity, 256)];
+            childDigests[level] = buffer;
+        } else if (buffer.length < capacity) {
+            byte[] newBuffer = new byte[Math.max(capacity, buffer.length*2)];
+            System.arraycopy(buffer, 0, newBuffer, 0, childDigestsLength[level]);
+            buffer = newBuffer;
+            childDigests[level] = buffer;
+        }
+        return buffer;
+    }
+    
+    /**
+     * Complete the digest in the given {@link MessageDigest} (which is reset) and use it to update
+     * another {@link MessageDigest}.
+     */
+    private void updateWithDigest(MessageDigest md, MessageDigest source) {
+        int digestLength = source.getDigestLength();
+        if (digestLength == 0 || digestLength > encodeBuffer.length) {
+            md.update(source.digest());
+        } else {
+            try {
+                source.digest(encodeBuffer, 0, digestLength);
+            } catch (DigestException ex) {
+                throw new OMException(ex);
+            }
+            md.update(encodeBuffer, 0, digestLength);
+        }
+    }
+    
+    private static void updateInt(MessageDigest md, int value) {
+        md.update((byte)(value >>> 24));
+        md.update((byte)(value >>> 16));
+        md.update((byte)(value >>> 8));
+        md.update((byte)value);
+    }
+    
+    private void updateExpandedName(MessageDigest md, String namespaceURI, String localName) {
+        if (namespaceURI != null && namespaceURI.length() > 0) {
+            updateString(md, namespaceURI);
+            md.update((byte)0);
+            md.update((byte)':');
+        }
+        updateString(md, localName);
+    }
+    
+    private void updateString(MessageDigest md, String s) {
+        int length = s.length();
+        if (charBuffer.length < length) {
+            charBuffer = new char[Math.max(length, charBuffer.length*2)];
+        }
+        s.getChars(0, length, charBuffer, 0);
+        updateChars(md, charBuffer, 0, length);
+    }
+    
+    private void updateChars(MessageDigest md, char[] chars, int start, int length) {
+        int end = start+length;
+        int offset = start;
+        while (offset < end) {
+            int chunkEnd = Math.min(end, offset + encodeBuffer.length/2);
+            if (chunkEnd < end && Character.isHighSurrogate(chars[chunkEnd-1])) {
+                chunkEnd--;
+                if (chunkEnd == offset) {
+                    chunkEnd += 2;
+                }
+            }
+            int pos = 0;
+            for (int i=offset; i<chunkEnd; i++) {
+                pos = encode(chars[i], i+1 < end ? chars[i+1] : 0, i > start ? chars[i-1] : 0, pos);
+            }
+            md.update(encodeBuffer, 0, pos);
+            offset = chunkEnd;
+        }
+    }
+    
+    /**
+     * Encode a character in UTF-16BE. Unpaired surrogates are replaced by U+FFFD, in the same way
+     * as {@link String#getBytes(String)} does.
+     */
+    private int encode(char c, char next, char previous, int pos) {
+        if (Character.isHighSurrogate(c) && !Character.isLowSurrogate(next)
+                || Character.isLowSurrogate(c) && !Character.isHighSurrogate(previous)) {
+            c = '\uFFFD';
+        }
+        encodeBuffer[pos++] = (byte)(c >>> 8);
+        encodeBuffer[pos++] = (byte)c;
+        return pos;
+    }
+}
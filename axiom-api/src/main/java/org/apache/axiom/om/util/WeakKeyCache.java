@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache with weak keys that supports concurrent access without locking on lookups. This is used
+ * instead of a synchronized {@link java.util.WeakHashMap}, which serializes all lookups on a
+ * single monitor (note that even {@link java.util.WeakHashMap#get(Object)} modifies the map
+ * because it expunges stale entries).
+ * <p>
+ * As with {@link java.util.WeakHashMap}, keys are compared using {@link Object#equals(Object)}, and
+ * values should not hold strong references to their keys.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ */
+final class WeakKeyCache<K,V> {
+    private static final class Key<K> extends WeakReference<K> {
+        private final int hash;
+
+        Key(K referent, ReferenceQueue<? super K> queue) {
+            super(referent, queue);
+            hash = referent.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (obj instanceof LookupKey) {
+                return ((LookupKey)obj).equals(this);
+            } else if (obj instanceof Key) {
+                Object referent = get();
+                return referent != null && referent.equals(((Key<?>)obj).get());
+            } else {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Key used for lookups. This avoids creating a {@link WeakReference} for every lookup.
+     */
+    private static final class LookupKey {
+        private final Object key;
+
+        LookupKey(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && key.equals(((Key<?>)obj).get());
+        }
+    }
+
+    private final ConcurrentMap<Object,V> map = new ConcurrentHashMap<Object,V>();
+    private final ReferenceQueue<K> queue = new ReferenceQueue<K>();
+
+    /**
+     * Get the value for a given key.
+     * 
+     * @param key
+     *            the key
+     * @return the value, or <code>null</code> if there is no value for the key
+     */
+    V get(K key) {
+        return map.get(new LookupKey(key));
+    }
+
+    /**
+     * Add a value to the cache unless another thread has already done that.
+     * 
+     * @param key
+     *            the key
+     * @param value
+     *            the value to add
+     * @return the value that is now associated with the key, i.e. either <code>value</code> or the
+     *         value added by another thread
+     */
+    V putIfAbsent(K key, V value) {
+        Reference<? extends K> ref;
+        while ((ref = queue.poll()) != null) {
+            map.remove(ref);
+        }
+        V existing = map.putIfAbsent(new Key<K>(key, queue), value);
+        return existing == null ? value : existing;
+    }
+
+    /**
+     * Get the number of entries in the cache, including entries whose keys have been garbage
+     * collected but that have not been removed yet.
+     * 
+     * @return the number of entries
+     */
+    int size() {
+        return map.size();
+    }
+}
@@ -20,21 +20,52 @@
 package org.apache.axiom.om.xpath;
 
 import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMDocument;
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMNode;
 import org.jaxen.BaseXPath;
+import org.jaxen.Context;
+import org.jaxen.FunctionContext;
 import org.jaxen.JaxenException;
+import org.jaxen.NamespaceContext;
+import org.jaxen.VariableContext;
+import org.jaxen.expr.AllNodeStep;
+import org.jaxen.expr.Expr;
+import org.jaxen.expr.LocationPath;
+import org.jaxen.expr.NameStep;
+import org.jaxen.expr.Step;
+import org.jaxen.saxpath.Axis;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
+import javax.xml.namespace.QName;
+
 public class AXIOMXPath extends BaseXPath {
 
     private static final long serialVersionUID = -5839161412925154639L;
 
     private Map<String,String> namespaces = new HashMap<String,String>();
 
+    /**
+     * Set by {@link AXIOMXPathCache} to prevent modifications of shared instances.
+     */
+    private boolean frozen;
+
+    /**
+     * The name step of an expression of the form <code>//name</code> or
+     * <code>/descendant::name</code> (which can be evaluated using the element index of the
+     * document), or <code>null</code> if the expression is not of that form. Only meaningful if
+     * {@link #analyzed} is <code>true</code>.
+     */
+    private transient NameStep indexableNameStep;
+    private transient boolean analyzed;
+
     /**
      * Construct an XPath expression from a given string.
      *
@@ -87,6 +118,7 @@ public class AXIOMXPath extends BaseXPath {
      */
     @Override
     public void addNamespace(String prefix, String uri) throws JaxenException {
+        checkNotFrozen();
         try {
             super.addNamespace(prefix, uri);
         } catch (JaxenException e) {
@@ -132,6 +164,100 @@ public class AXIOMXPath extends BaseXPath {
      * @return a Map of namespace prefixes to the URIs
      */
     public Map<String,String> getNamespaces() {
-        return namespaces;
+        return frozen ? Collections.unmodifiableMap(namespaces) : namespaces;
+    }
+
+    @Override
+    public void setNamespaceContext(NamespaceContext namespaceContext) {
+        checkNotFrozen();
+        super.setNamespaceContext(namespaceContext);
+    }
+
+    @Override
+    public void setFunctionContext(FunctionContext functionContext) {
+        checkNotFrozen();
+        super.setFunctionContext(functionContext);
+    }
+
+    @Override
+    public void setVariableContext(VariableContext variableContext) {
+        checkNotFrozen();
+        super.setVariableContext(variableContext);
+    }
+
+    void freeze() {
+        // Eagerly initialize the state that is otherwise created lazily, so that the instance can
+        // be safely shared between threads.
+        getContextSupport();
+        getIndexableNameStep();
+        frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException(
+                    "This expression is shared by an AXIOMXPathCache and can't be modified");
+        }
+    }
+
+    private NameStep getIndexableNameStep() {
+        if (!analyzed) {
+            NameStep nameStep = null;
+            Expr expr = getRootExpr();
+            if (expr instanceof LocationPath && ((LocationPath)expr).isAbsolute()) {
+                List<?> steps = ((LocationPath)expr).getSteps();
+                if (steps.size() == 2) {
+                    Step first = (Step)steps.get(0);
+                    Step second = (Step)steps.get(1);
+                    if (first instanceof AllNodeStep && first.getAxis() == Axis.DESCENDANT_OR_SELF
+                            && first.getPredicates().isEmpty() && second instanceof NameStep
+                            && second.getAxis() == Axis.CHILD) {
+                        nameStep = (NameStep)second;
+                    }
+                } else if (steps.size() == 1) {
+                    Step step = (Step)steps.get(0);
+                    if (step instanceof NameStep && step.getAxis() == Axis.DESCENDANT) {
+                        nameStep = (NameStep)step;
+                    }
+                }
+                if (nameStep != null && (!nameStep.getPredicates().isEmpty()
+                        || nameStep.getLocalName().equals("*"))) {
+                    nameStep = null;
+                }
+            }
+            indexableNameStep = nameStep;
+            analyzed = true;
+        }
+        return indexableNameStep;
+    }
+
+    /**
+     * Evaluates expressions of the form <code>//name</code> using the element index of the
+     * document if indexing is enabled (see {@link OMDocument#setIndexingEnabled(boolean)}).
+     * All other expressions are evaluated by Jaxen.
+     */
+    @Override
+    protected List selectNodesForContext(Context context) throws JaxenException {
+        NameStep nameStep = getIndexableNameStep();
+        List<?> nodeSet = context.getNodeSet();
+        if (nameStep != null && nodeSet.size() == 1) {
+            Object node = nodeSet.get(0);
+            Object document = node instanceof OMNode || node instanceof OMDocument
+                    ? getNavigator().getDocumentNode(node) : null;
+            if (document instanceof OMDocument && ((OMDocument)document).isIndexingEnabled()) {
+                String prefix = nameStep.getPrefix();
+                String namespaceURI = prefix.length() == 0 ? ""
+                        : getNamespaceContext().translateNamespacePrefixToUri(prefix);
+                if (namespaceURI != null) {
+                    List<Object> result = new ArrayList<Object>();
+                    for (Iterator<OMElement> it = ((OMDocument)document).getOMElementsByName(
+                            new QName(namespaceURI, nameStep.getLocalName())); it.hasNext(); ) {
+                        result.add(it.next());
+                    }
+                    return result;
+                }
+            }
+        }
+        return super.selectNodesForContext(context);
     }
 }
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.xpath;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jaxen.JaxenException;
+
+/**
+ * Thread safe, bounded cache of compiled {@link AXIOMXPath} expressions. Parsing an XPath
+ * expression is relatively expensive; applications that repeatedly evaluate the same expressions
+ * can use this class to parse each expression (with a given set of namespace bindings) only once.
+ * When the maximum size is reached, the least recently used expression is evicted.
+ * <p>
+ * The {@link AXIOMXPath} instances returned by this class are shared between all callers and
+ * threads and therefore can't be modified: attempts to add namespaces or to change the function,
+ * variable or namespace context result in an {@link UnsupportedOperationException}. Evaluating a
+ * shared expression concurrently is safe as long as the evaluated documents are not shared.
+ */
+public final class AXIOMXPathCache {
+    private static final class Key {
+        private final String expression;
+        private final Map<String,String> namespaces;
+        private final int hashCode;
+
+        Key(String expression, Map<String,String> namespaces) {
+            this.expression = expression;
+            this.namespaces = namespaces;
+            hashCode = 31*expression.hashCode() + namespaces.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)obj;
+            return hashCode == other.hashCode && expression.equals(other.expression)
+                    && namespaces.equals(other.namespaces);
+        }
+    }
+
+    private final int maxSize;
+    private final LinkedHashMap<Key,AXIOMXPath> cache;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Create a new cache.
+     * 
+     * @param maxSize
+     *            the maximum number of expressions to keep
+     */
+    public AXIOMXPathCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        cache = new LinkedHashMap<Key,AXIOMXPath>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key,AXIOMXPath> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the compiled form of an expression that doesn't use namespace prefixes.
+     * 
+     * @param expression
+     *            the XPath expression
+     * @return the (shared) compiled expression
+     * @throws JaxenException
+     *             if there is a syntax error in the expression
+     */
+    public AXIOMXPath get(String expression) throws JaxenException {
+        return get(expression, null);
+    }
+
+    /**
+     * Get the compiled form of an expression with a given set of namespace bindings.
+     * 
+     * @param expression
+     *            the XPath expression
+     * @param namespaces
+     *            a map from prefixes to namespace URIs, or <code>null</code>
+     * @return the (shared) compiled expression
+     * @throws JaxenException
+     *             if there is a syntax error in the expression
+     */
+    public AXIOMXPath get(String expression, Map<String,String> namespaces) throws JaxenException {
+        Key key = new Key(expression, namespaces == null || namespaces.isEmpty()
+                ? Collections.<String,String>emptyMap() : new HashMap<String,String>(namespaces));
+        synchronized (cache) {
+            AXIOMXPath xpath = cache.get(key);
+            if (xpath != null) {
+                hitCount++;
+                return xpath;
+            }
+            missCount++;
+        }
+        // Parse the expression without holding the lock. If another thread does the same
+        // concurrently, the instance that was added first wins.
+        AXIOMXPath xpath = new AXIOMXPath(expression);
+        for (Map.Entry<String,String> entry : key.namespaces.entrySet()) {
+            xpath.addNamespace(entry.getKey(), entry.getValue());
+        }
+        xpath.freeze();
+        synchronized (cache) {
+            AXIOMXPath existing = cache.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            cache.put(key, xpath);
+        }
+        return xpath;
+    }
+
+    /**
+     * Get the number of expressions currently in the cache.
+     * 
+     * @return the number of cached expressions
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Get the number of calls to {@link #get(String, Map)} that returned a cached expression.
+     * 
+     * @return the hit count
+     */
+    public long getHitCount() {
+        synchronized (cache) {
+            return hitCount;
+        }
+    }
+
+    /**
+     * Get the number of calls to {@link #get(String, Map)} that had to parse the expression.
+     * 
+     * @return the miss count
+     */
+    public long getMissCount() {
+        synchronized (cache) {
+            return missCount;
+        }
+    }
+}
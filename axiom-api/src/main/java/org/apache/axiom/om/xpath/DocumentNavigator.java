@@ -606,16 +606,28 @@ public class DocumentNavigator extends DefaultNavigator {
      * Returns the element whose ID is given by elementId. If no such element exists, returns null.
      * Attributes with the name "ID" are not of type ID unless so defined. Implementations that do
      * not know whether attributes are of type ID or not are expected to return null.
+     * <p>
+     * The lookup is delegated to {@link OMDocument#getOMElementById(String)}, which uses the
+     * element index if indexing is enabled on the document (see
+     * {@link OMDocument#setIndexingEnabled(boolean)}) and searches the document otherwise.
      *
      * @param contextNode a node from the document in which to look for the id
      * @param elementId   id to look for
      * @return Returns element whose ID is given by elementId, or null if no such element exists in
-     *         the document or if the implementation does not know about attribute types.
+     *         the document.
      */
     @Override
     public Object getElementById(Object contextNode, String elementId) {
-        //TODO: Fix this better?
-        return super.getElementById(contextNode, elementId);
+        if (contextNode instanceof OMAttribute) {
+            contextNode = ((OMAttribute)contextNode).getOwner();
+        }
+        Object document = contextNode instanceof OMNode || contextNode instanceof OMDocument
+                ? getDocumentNode(contextNode) : null;
+        if (document instanceof OMDocument) {
+            return ((OMDocument)document).getOMElementById(elementId);
+        } else {
+            return super.getElementById(contextNode, elementId);
+        }
     }
 
     /**
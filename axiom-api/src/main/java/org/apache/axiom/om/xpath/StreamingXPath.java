@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.xpath;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.transform.Source;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMMetaFactorySPI;
+
+/**
+ * An XPath expression that is evaluated in a single pass over an XML document, without building
+ * an object model for the entire document. This is useful to extract a few values or elements
+ * from large documents.
+ * <p>
+ * In contrast to {@link AXIOMXPath}, only a forward-only subset of XPath is supported:
+ * <ul>
+ * <li>absolute location paths, using {@code /} and {@code //} as separators;
+ * <li>the {@code child}, {@code descendant} and {@code attribute} axes (with {@code @} as
+ * abbreviation for the latter), where an attribute step can only appear as the last step;
+ * <li>name tests of the form {@code *}, {@code prefix:*}, {@code name} and {@code prefix:name};
+ * <li>positional predicates (e.g. {@code [2]}) and predicates that test the presence or value
+ * of an attribute ({@code [@name]}, {@code [@name='value']} and {@code [@name!='value']}).
+ * </ul>
+ * <p>
+ * Note that as in XPath 1.0, unprefixed names always refer to elements or attributes without
+ * namespace. Expressions outside of the supported subset are rejected with an
+ * {@link IllegalArgumentException} when they are evaluated.
+ * <p>
+ * Instances of this class are immutable and can be shared between threads.
+ */
+public final class StreamingXPath {
+    private final String expression;
+    private final Map<String,String> namespaces;
+
+    /**
+     * Construct an expression that doesn't use any namespace prefixes.
+     * 
+     * @param expression
+     *            the XPath expression
+     */
+    public StreamingXPath(String expression) {
+        this(expression, null);
+    }
+
+    /**
+     * Construct an expression with a given set of namespace bindings.
+     * 
+     * @param expression
+     *            the XPath expression
+     * @param namespaces
+     *            a map from prefixes to namespace URIs used to resolve the prefixes in the
+     *            expression; may be {@code null}
+     */
+    public StreamingXPath(String expression, Map<String,String> namespaces) {
+        if (expression == null) {
+            throw new IllegalArgumentException("expression must not be null");
+        }
+        this.expression = expression;
+        this.namespaces = namespaces == null ? Collections.<String,String>emptyMap()
+                : Collections.unmodifiableMap(new HashMap<String,String>(namespaces));
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Get the namespace bindings used to resolve the prefixes in the expression.
+     * 
+     * @return an unmodifiable map from prefixes to namespace URIs
+     */
+    public Map<String,String> getNamespaces() {
+        return namespaces;
+    }
+
+    /**
+     * Select elements from a document using the default meta factory. See
+     * {@link #selectElements(OMMetaFactory, Source, int)} for more details.
+     * 
+     * @param source
+     *            the source of the XML document
+     * @param maxResults
+     *            the maximum number of elements to return, or -1 to return all matching elements
+     * @return the list of selected elements
+     * @throws OMException
+     *             if an error occurs while reading the document
+     */
+    public List<OMElement> selectElements(Source source, int maxResults) throws OMException {
+        return selectElements(OMAbstractFactory.getMetaFactory(), source, maxResults);
+    }
+
+    /**
+     * Select elements from a document. For each selected element, an {@link OMElement} is built
+     * that contains the element and its descendants; the remaining parts of the document are
+     * skipped without building any nodes. The returned elements have no parent and carry the
+     * namespace declarations that are in scope in the original document, so that they can be
+     * used independently. The document is only read until {@code maxResults} elements have been
+     * found.
+     * 
+     * @param metaFactory
+     *            the meta factory for the object model implementation to use
+     * @param source
+     *            the source of the XML document
+     * @param maxResults
+     *            the maximum number of elements to return, or -1 to return all matching elements
+     * @return the list of selected elements, in document order
+     * @throws IllegalArgumentException
+     *             if the expression is not supported or if it selects attributes
+     * @throws OMException
+     *             if an error occurs while reading the document
+     */
+    public List<OMElement> selectElements(OMMetaFactory metaFactory, Source source, int maxResults)
+            throws OMException {
+        return ((OMMetaFactorySPI)metaFactory).selectElements(this, source, maxResults);
+    }
+
+    /**
+     * Select string values from a document using the default meta factory. See
+     * {@link #selectStringValues(OMMetaFactory, Source, int)} for more details.
+     * 
+     * @param source
+     *            the source of the XML document
+     * @param maxResults
+     *            the maximum number of values to return, or -1 to return all values
+     * @return the list of string values
+     * @throws OMException
+     *             if an error occurs while reading the document
+     */
+    public List<String> selectStringValues(Source source, int maxResults) throws OMException {
+        return selectStringValues(OMAbstractFactory.getMetaFactory(), source, maxResults);
+    }
+
+    /**
+     * Select the string values of the nodes matching the expression. For attributes this is the
+     * attribute value; for elements this is the concatenation of all text nodes (including CDATA
+     * sections) in the element. No object model nodes are built.
+     * 
+     * @param metaFactory
+     *            the meta factory for the object model implementation to use
+     * @param source
+     *            the source of the XML document
+     * @param maxResults
+     *            the maximum number of values to return, or -1 to return all values
+     * @return the list of string values, in document order
+     * @throws IllegalArgumentException
+     *             if the expression is not supported
+     * @throws OMException
+     *             if an error occurs while reading the document
+     */
+    public List<String> selectStringValues(OMMetaFactory metaFactory, Source source, int maxResults)
+            throws OMException {
+        return ((OMMetaFactorySPI)metaFactory).selectStringValues(this, source, maxResults);
+    }
+
+    /**
+     * Get the string value of the first node matching the expression.
+     * 
+     * @param source
+     *            the source of the XML document
+     * @return the string value, or {@code null} if the expression doesn't match any node
+     * @throws OMException
+     *             if an error occurs while reading the document
+     */
+    public String selectStringValue(Source source) throws OMException {
+        List<String> values = selectStringValues(source, 1);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -146,6 +146,35 @@ public class Base64Utils {
      * @return the decoded data
      */
     public static byte[] decode(String data) {
+        int length = data.length();
+        if (length >= 4 && length % 4 == 0 && !containsWhitespace(data, length-4, length)) {
+            // Fast path for data without white space: decode the last group (which may contain
+            // padding) using the validating code below and the remaining groups in bulk. If
+            // the bulk decoder encounters white space or an invalid character, fall back to the
+            // validating code for the entire data.
+            int bodyLength = length-4;
+            byte[] tail = decodeSlow(data.substring(bodyLength));
+            byte[] result = new byte[bodyLength/4*3 + tail.length];
+            if (Base64Codec.decode(data, 0, bodyLength, result, 0) == bodyLength) {
+                System.arraycopy(tail, 0, result, bodyLength/4*3, tail.length);
+                return result;
+            }
+        }
+        return decodeSlow(data);
+    }
+    
+    private static boolean containsWhitespace(String data, int start, int end) {
+        for (int i=start; i<end; i++) {
+            char c = data.charAt(i);
+            if (c < Base64Constants.S_DECODETABLE.length
+                    && Base64Constants.S_DECODETABLE[c] == Base64Constants.WHITE_SPACE) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static byte[] decodeSlow(String data) {
         int symbols = 0;
         int padding = 0;
         for (int i = 0; i < data.length(); i++) {
@@ -23,10 +23,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Locale;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 
@@ -72,8 +71,8 @@ public class StAXDialectDetector {
      * in the case of a JAR file, this is not the URL pointing to the JAR, but a <tt>jar:</tt>
      * URL that points to the root folder of the archive.
      */
-    private static final Map<URL,StAXDialect> dialectByUrl =
-            Collections.synchronizedMap(new HashMap<URL,StAXDialect>());
+    private static final ConcurrentMap<URL,StAXDialect> dialectByUrl =
+            new ConcurrentHashMap<URL,StAXDialect>();
 
     private StAXDialectDetector() {}
     
@@ -198,8 +197,8 @@ public class StAXDialectDetector {
             return dialect;
         } else {
             dialect = detectDialect(classLoader, rootUrl);
-            dialectByUrl.put(rootUrl, dialect);
-            return dialect;
+            StAXDialect existing = dialectByUrl.putIfAbsent(rootUrl, dialect);
+            return existing == null ? dialect : existing;
         }
     }
     
@@ -28,6 +28,9 @@ import javax.activation.DataSource;
 
 import java.io.File;
 import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.axiom.attachments.lifecycle.impl.LifecycleManagerImpl;
 
 import junit.framework.TestCase;
 
@@ -116,6 +119,27 @@ public class PartOnFileTest extends TestCase {
 
     }
 
+    public void testChannelAccessRequiresCommittedBlob() throws Exception {
+        LegacyTempFileBlob blob = new LegacyTempFileBlob(new LifecycleManagerImpl(), temp.getPath());
+        OutputStream out = blob.getOutputStream();
+        out.write(new byte[] { 1, 2, 3 });
+        try {
+            blob.openChannel();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+        out.close();
+        assertThat(blob.map().remaining()).isEqualTo(3);
+        blob.release();
+        try {
+            blob.map();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+    }
+
     private void createTemporaryDirectory() throws Exception {
         temp = File.createTempFile("partOnFileTest", ".tmp");
 
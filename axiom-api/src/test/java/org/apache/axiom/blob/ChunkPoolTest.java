@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import junit.framework.TestCase;
+
+public class ChunkPoolTest extends TestCase {
+    public void testGetChunkSize() {
+        assertThat(ChunkPool.getChunkSize(1)).isEqualTo(4096);
+        assertThat(ChunkPool.getChunkSize(4096)).isEqualTo(4096);
+        assertThat(ChunkPool.getChunkSize(4097)).isEqualTo(8192);
+        assertThat(ChunkPool.getChunkSize(Integer.MAX_VALUE)).isEqualTo(1024*1024);
+    }
+
+    public void testRecycle() {
+        ChunkPool pool = new ChunkPool(16384);
+        byte[] chunk = pool.allocate(8192);
+        pool.recycle(chunk);
+        assertThat(pool.getPooledBytes()).isEqualTo(8192);
+        assertThat(pool.allocate(8192)).isSameAs(chunk);
+        assertThat(pool.getPooledBytes()).isEqualTo(0);
+    }
+
+    public void testBounded() {
+        ChunkPool pool = new ChunkPool(16384);
+        pool.recycle(new byte[8192]);
+        pool.recycle(new byte[8192]);
+        pool.recycle(new byte[8192]);
+        assertThat(pool.getPooledBytes()).isEqualTo(16384);
+    }
+
+    public void testRecycleOnRelease() throws Exception {
+        ChunkPool pool = new ChunkPool(1024*1024);
+        MemoryBlob blob = Blobs.createMemoryBlob(pool);
+        MemoryBlobOutputStream out = blob.getOutputStream();
+        out.write(new byte[100000]);
+        out.close();
+        assertThat(blob.getSize()).isEqualTo(100000);
+        blob.release();
+        assertThat(pool.getPooledBytes()).isAtLeast(100000L);
+    }
+}
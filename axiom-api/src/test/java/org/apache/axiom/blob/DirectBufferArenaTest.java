@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.NullInputStream;
+import org.apache.commons.io.output.ProxyOutputStream;
+
+public class DirectBufferArenaTest extends TestCase {
+    public void testCapacity() throws Exception {
+        DirectBufferArena arena = new DirectBufferArena(16384, 4096);
+        WritableBlobFactory<OverflowableBlob> factory = Blobs.createDirectBufferBlobFactory(arena, "test", ".dat", null);
+        OverflowableBlob blob1 = factory.createBlob();
+        blob1.readFrom(new NullInputStream(10000));
+        assertThat(blob1.getOverflowBlob()).isNull();
+        assertThat(arena.getAllocatedBytes()).isEqualTo(12288);
+        OverflowableBlob blob2 = factory.createBlob();
+        blob2.readFrom(new NullInputStream(10000));
+        assertThat(blob2.getOverflowBlob()).isNotNull();
+        assertThat(blob2.getSize()).isEqualTo(10000);
+        assertThat(arena.getAllocatedBytes()).isEqualTo(12288);
+        blob1.release();
+        blob2.release();
+        assertThat(arena.getAllocatedBytes()).isEqualTo(0);
+    }
+    
+    public void testWriteToFileOutputStream() throws Exception {
+        DirectBufferArena arena = new DirectBufferArena(1024*1024);
+        OverflowableBlob blob = Blobs.createDirectBufferBlobFactory(arena, "test", ".dat", null).createBlob();
+        try {
+            byte[] data = new byte[200000];
+            new Random().nextBytes(data);
+            OutputStream out = blob.getOutputStream();
+            out.write(data);
+            out.close();
+            File file = File.createTempFile("test", ".dat");
+            try {
+                FileOutputStream fos = new FileOutputStream(file);
+                try {
+                    blob.writeTo(fos);
+                } finally {
+                    fos.close();
+                }
+                assertThat(FileUtils.readFileToByteArray(file)).isEqualTo(data);
+            } finally {
+                file.delete();
+            }
+        } finally {
+            blob.release();
+        }
+    }
+    
+    public void testReleaseUncommittedAfterOverflow() throws Exception {
+        final boolean[] closed = new boolean[1];
+        WritableBlobFactory<WritableBlob> overflowBlobFactory = new WritableBlobFactory<WritableBlob>() {
+            @Override
+            public WritableBlob createBlob() {
+                final MemoryBlob blob = Blobs.createMemoryBlob();
+                return new AbstractWritableBlob() {
+                    @Override
+                    public OutputStream getOutputStream() {
+                        return new ProxyOutputStream(blob.getOutputStream()) {
+                            @Override
+                            public void close() throws IOException {
+                                closed[0] = true;
+                                super.close();
+                            }
+                        };
+                    }
+                    
+                    @Override
+                    public InputStream getInputStream() {
+                        return blob.getInputStream();
+                    }
+                    
+                    @Override
+                    public long getSize() {
+                        return blob.getSize();
+                    }
+                    
+                    @Override
+                    public void release() {
+                        blob.release();
+                    }
+                };
+            }
+        };
+        DirectBufferArena arena = new DirectBufferArena(8192, 4096);
+        OverflowableBlob blob = new DirectBufferBlobImpl(arena, overflowBlobFactory);
+        OutputStream out = blob.getOutputStream();
+        out.write(new byte[10000]);
+        assertThat(blob.getOverflowBlob()).isNotNull();
+        blob.release();
+        assertThat(closed[0]).isTrue();
+        assertThat(arena.getAllocatedBytes()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.blob;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+
+public class TempFileManagerTest extends TestCase {
+    private static void waitForDeletion(ManagedTempFile file) throws InterruptedException {
+        for (int i=0; i<100 && !file.isDeleted(); i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+    }
+
+    private static int countThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("Axiom temporary file manager")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void testStats() throws Exception {
+        TempFileManager manager = new TempFileManager(0);
+        try {
+            ManagedTempFile file = manager.register(File.createTempFile("test", ".dat"));
+            OutputStream out = file.openOutputStream();
+            out.write(new byte[1000]);
+            out.close();
+            TempFileStats stats = manager.getStats();
+            assertThat(stats.getLiveFiles()).isEqualTo(1);
+            assertThat(stats.getBytesOnDisk()).isEqualTo(1000L);
+            assertThat(file.delete()).isTrue();
+            assertThat(file.getFile().exists()).isFalse();
+            stats = manager.getStats();
+            assertThat(stats.getLiveFiles()).isEqualTo(0);
+            assertThat(stats.getBytesOnDisk()).isEqualTo(0L);
+            assertThat(stats.getDeletions()).isEqualTo(1L);
+            assertThat(manager.get(file.getFile())).isNull();
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    public void testQuotaExceeded() throws Exception {
+        TempFileManager manager = new TempFileManager(1500);
+        try {
+            // The files are deleted by shutdown()
+            ManagedTempFile file1 = manager.register(File.createTempFile("test", ".dat"));
+            ManagedTempFile file2 = manager.register(File.createTempFile("test", ".dat"));
+            OutputStream out = file1.openOutputStream();
+            out.write(new byte[1000]);
+            out.close();
+            out = file2.openOutputStream();
+            try {
+                out.write(new byte[1000]);
+                fail("Expected IOException");
+            } catch (IOException ex) {
+                // Expected
+            } finally {
+                out.close();
+            }
+            assertThat(manager.getStats().getBytesOnDisk()).isEqualTo(1000L);
+            file1.delete();
+            // The space freed by the first file can now be used
+            out = file2.openOutputStream();
+            out.write(new byte[1000]);
+            out.close();
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    public void testDeletionListener() throws Exception {
+        TempFileManager manager = new TempFileManager(0);
+        try {
+            ManagedTempFile file = manager.register(File.createTempFile("test", ".dat"));
+            final AtomicBoolean invoked = new AtomicBoolean();
+            file.setDeletionListener(new Runnable() {
+                @Override
+                public void run() {
+                    invoked.set(true);
+                }
+            });
+            file.delete();
+            assertThat(invoked.get()).isTrue();
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    public void testDeleteAfter() throws Exception {
+        TempFileManager manager = new TempFileManager(0);
+        try {
+            ManagedTempFile file = manager.register(File.createTempFile("test", ".dat"));
+            file.deleteAfter(200, TimeUnit.MILLISECONDS);
+            assertThat(file.getFile().exists()).isTrue();
+            waitForDeletion(file);
+            assertThat(file.isDeleted()).isTrue();
+            assertThat(file.getFile().exists()).isFalse();
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    public void testReclaim() throws Exception {
+        TempFileManager manager = new TempFileManager(0);
+        try {
+            Object owner = new Object();
+            ManagedTempFile file = manager.register(File.createTempFile("test", ".dat"), owner);
+            owner = null;
+            waitForDeletion(file);
+            assertThat(file.isDeleted()).isTrue();
+            assertThat(file.getFile().exists()).isFalse();
+            assertThat(manager.getStats().getReclaimed()).isEqualTo(1L);
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    public void testNoReclaimWhileOwnerReachable() throws Exception {
+        TempFileManager manager = new TempFileManager(0);
+        try {
+            Object owner1 = new Object();
+            Object owner2 = new Object();
+            ManagedTempFile file = manager.register(File.createTempFile("test", ".dat"), owner1);
+            file.addOwner(owner2);
+            owner1 = null;
+            for (int i=0; i<5; i++) {
+                System.gc();
+                Thread.sleep(100);
+            }
+            assertThat(file.isDeleted()).isFalse();
+            assertThat(owner2).isNotNull();
+            file.delete();
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    public void testShutdown() throws Exception {
+        int threads = countThreads();
+        TempFileManager manager = new TempFileManager(0);
+        ManagedTempFile file = manager.register(File.createTempFile("test", ".dat"));
+        assertThat(countThreads()).isEqualTo(threads + 1);
+        manager.shutdown();
+        assertThat(countThreads()).isEqualTo(threads);
+        assertThat(file.isDeleted()).isTrue();
+        assertThat(file.getFile().exists()).isFalse();
+        try {
+            manager.register(new File(file.getFile().getParentFile(), "other.dat"));
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+        manager.shutdown();
+    }
+}
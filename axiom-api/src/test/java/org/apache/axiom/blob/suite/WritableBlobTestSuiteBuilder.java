@@ -72,6 +72,7 @@ public class WritableBlobTestSuiteBuilder extends MatrixTestSuiteBuilder {
         }
         addTest(new TestRandomReadWrite(factory, size));
         addTest(new TestWriteTo(factory, size));
+        addTest(new TestWriteToFileOutputStream(factory, size));
         if (writeToUsesReadFromSupport) {
             addTest(new TestWriteToWithReadFromSupport(factory, size));
         }
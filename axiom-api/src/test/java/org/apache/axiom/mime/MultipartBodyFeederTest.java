@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.blob.MemoryBlob;
+import org.apache.axiom.blob.WritableBlobFactory;
+import org.apache.axiom.mime.MultipartBody.PartCompletionListener;
+import org.apache.axiom.mime.MultipartBody.PartCreationListener;
+import org.apache.axiom.ts.soap.MTOMSample;
+import org.apache.axiom.ts.soap.SwASample;
+import org.apache.axiom.ts.xml.MIMESample;
+import org.apache.axiom.ts.xml.XOPSample;
+import org.apache.commons.io.IOUtils;
+
+public class MultipartBodyFeederTest extends TestCase {
+    private static final String CONTENT_TYPE = "multipart/related; boundary=MIMEBoundary";
+    
+    private static final String MESSAGE = "--MIMEBoundary\r\n"
+            + "Content-ID: <part1>\r\n"
+            + "\r\n"
+            + "first\r\n"
+            + "--MIMEBoundary\r\n"
+            + "Content-ID: <part2>\r\n"
+            + "Content-Transfer-Encoding: base64\r\n"
+            + "\r\n"
+            + "c2Vjb25k\r\n"
+            + "--MIMEBoundary--\r\n";
+    
+    private static void feed(MultipartBodyFeeder feeder, byte[] data, Random random) {
+        int pos = 0;
+        while (pos < data.length) {
+            int len = Math.min(data.length-pos, random.nextInt(100)+1);
+            feeder.feed(ByteBuffer.wrap(data, pos, len));
+            pos += len;
+        }
+    }
+    
+    private static String getContent(Part part) throws Exception {
+        return new String(IOUtils.toByteArray(part.getInputStream(false)), "iso-8859-1");
+    }
+    
+    public void testWithSamples() throws Exception {
+        List<MIMESample> samples = new ArrayList<MIMESample>();
+        samples.add(XOPSample.XOP_SPEC_SAMPLE);
+        samples.add(MTOMSample.SAMPLE1);
+        samples.add(MTOMSample.SAMPLE2);
+        samples.add(MTOMSample.QUOTED_PRINTABLE);
+        samples.add(SwASample.SAMPLE1);
+        Random random = new Random(1234);
+        for (MIMESample sample : samples) {
+            MultipartBodyFeeder feeder = MultipartBody.builder()
+                    .setContentType(sample.getContentType())
+                    .buildAsync();
+            feed(feeder, IOUtils.toByteArray(sample.getInputStream()), random);
+            assertTrue(feeder.isComplete());
+            feeder.complete();
+            MultipartBody expected = MultipartBody.builder()
+                    .setInputStream(sample.getInputStream())
+                    .setContentType(sample.getContentType())
+                    .build();
+            Iterator<Part> expectedIt = expected.iterator();
+            Iterator<Part> actualIt = feeder.getMultipartBody().iterator();
+            while (expectedIt.hasNext()) {
+                assertTrue(actualIt.hasNext());
+                Part expectedPart = expectedIt.next();
+                Part actualPart = actualIt.next();
+                assertEquals(expectedPart.getContentID(), actualPart.getContentID());
+                assertEquals(expectedPart.getHeaders().size(), actualPart.getHeaders().size());
+                assertTrue(Arrays.equals(IOUtils.toByteArray(expectedPart.getInputStream(false)),
+                        IOUtils.toByteArray(actualPart.getInputStream(false))));
+            }
+            assertFalse(actualIt.hasNext());
+        }
+    }
+    
+    public void testListeners() throws Exception {
+        final List<String> events = new ArrayList<String>();
+        MultipartBodyFeeder feeder = MultipartBody.builder()
+                .setContentType(CONTENT_TYPE)
+                .setPartCreationListener(new PartCreationListener() {
+                    @Override
+                    public void partCreated(Part part) {
+                        events.add("created " + part.getContentID());
+                    }
+                })
+                .setPartCompletionListener(new PartCompletionListener() {
+                    @Override
+                    public void partCompleted(Part part) {
+                        try {
+                            events.add("completed " + part.getContentID() + " " + getContent(part));
+                        } catch (Exception ex) {
+                            throw new RuntimeException(ex);
+                        }
+                    }
+                })
+                .buildAsync();
+        feed(feeder, MESSAGE.getBytes("iso-8859-1"), new Random(5678));
+        feeder.complete();
+        assertEquals(Arrays.asList("created part1", "completed part1 first",
+                "created part2", "completed part2 second"), events);
+    }
+    
+    public void testEncodedContentUsesAttachmentBlobFactory() throws Exception {
+        final List<MemoryBlob> blobs = new ArrayList<MemoryBlob>();
+        MultipartBodyFeeder feeder = MultipartBody.builder()
+                .setContentType(CONTENT_TYPE)
+                .setAttachmentBlobFactory(new WritableBlobFactory<MemoryBlob>() {
+                    @Override
+                    public MemoryBlob createBlob() {
+                        MemoryBlob blob = MemoryBlob.FACTORY.createBlob();
+                        blobs.add(blob);
+                        return blob;
+                    }
+                })
+                .buildAsync();
+        feed(feeder, MESSAGE.getBytes("iso-8859-1"), new Random(4321));
+        feeder.complete();
+        // One blob for the raw (base64 encoded) content and one for the decoded content
+        assertEquals(2, blobs.size());
+        assertEquals("second", getContent(feeder.getMultipartBody().getPart("part2")));
+    }
+    
+    public void testAccessBeforeCompletion() throws Exception {
+        MultipartBodyFeeder feeder = MultipartBody.builder()
+                .setContentType(CONTENT_TYPE)
+                .buildAsync();
+        byte[] data = MESSAGE.getBytes("iso-8859-1");
+        int split = MESSAGE.indexOf("first") + 2;
+        feeder.feed(ByteBuffer.wrap(data, 0, split));
+        MultipartBody mb = feeder.getMultipartBody();
+        Part part = mb.getRootPart();
+        try {
+            part.getInputStream(false);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+        try {
+            mb.getPart("part2");
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+        feeder.feed(ByteBuffer.wrap(data, split, data.length-split));
+        assertEquals("first", getContent(part));
+        assertEquals("second", getContent(mb.getPart("part2")));
+    }
+    
+    public void testUnexpectedEndOfStream() throws Exception {
+        MultipartBodyFeeder feeder = MultipartBody.builder()
+                .setContentType(CONTENT_TYPE)
+                .buildAsync();
+        feeder.feed(ByteBuffer.wrap("--MIMEBoundary\r\n\r\ntruncated".getBytes("iso-8859-1")));
+        try {
+            feeder.complete();
+            fail("Expected MIMEException");
+        } catch (MIMEException ex) {
+            // Expected
+        }
+        try {
+            feeder.feed(ByteBuffer.wrap(new byte[1]));
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+    }
+}
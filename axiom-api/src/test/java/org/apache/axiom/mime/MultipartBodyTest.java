@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.mime;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.mime.MultipartBody.Engine;
+import org.apache.axiom.ts.soap.MTOMSample;
+import org.apache.axiom.ts.soap.SwASample;
+import org.apache.axiom.ts.xml.MIMESample;
+import org.apache.axiom.ts.xml.XOPSample;
+import org.apache.commons.io.IOUtils;
+
+public class MultipartBodyTest extends TestCase {
+    /**
+     * Input stream that returns at most a given number of bytes per read operation, so that
+     * delimiters and headers end up split across reads.
+     */
+    private static class ChunkedInputStream extends FilterInputStream {
+        private final int chunkSize;
+
+        ChunkedInputStream(InputStream in, int chunkSize) {
+            super(in);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, chunkSize));
+        }
+    }
+    
+    /**
+     * Input stream that yields the current thread on every read operation. This increases the
+     * chance that the read-ahead task and the application thread interleave.
+     */
+    private static class SlowInputStream extends ChunkedInputStream {
+        SlowInputStream(InputStream in, int chunkSize) {
+            super(in, chunkSize);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Thread.yield();
+            return super.read(b, off, len);
+        }
+    }
+    
+    private static MultipartBody build(InputStream in, String contentType, Engine engine) {
+        return MultipartBody.builder()
+                .setInputStream(in)
+                .setContentType(contentType)
+                .setEngine(engine)
+                .build();
+    }
+    
+    private static MultipartBody build(String message, Engine engine) throws Exception {
+        return build(new ByteArrayInputStream(message.getBytes("iso-8859-1")),
+                "multipart/related; boundary=MIMEBoundary", engine);
+    }
+    
+    private static final Executor SYNCHRONOUS_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+    
+    private static byte[] createReadAheadMessage(int attachmentCount, int attachmentSize) throws Exception {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("--MIMEBoundary\r\nContent-ID: <root>\r\n\r\n<root/>\r\n");
+        for (int i=1; i<=attachmentCount; i++) {
+            buffer.append("--MIMEBoundary\r\nContent-ID: <part" + i + ">\r\n\r\n");
+            for (int j=0; j<attachmentSize; j++) {
+                buffer.append((char)('0' + i));
+            }
+            buffer.append("\r\n");
+        }
+        buffer.append("--MIMEBoundary--\r\n");
+        return buffer.toString().getBytes("iso-8859-1");
+    }
+    
+    private static String getContent(Part part) throws IOException {
+        return new String(IOUtils.toByteArray(part.getInputStream(false)), "iso-8859-1");
+    }
+    
+    private static void assertSameParts(MultipartBody expected, MultipartBody actual) throws IOException {
+        Iterator<Part> expectedIt = expected.iterator();
+        Iterator<Part> actualIt = actual.iterator();
+        while (expectedIt.hasNext()) {
+            assertTrue(actualIt.hasNext());
+            Part expectedPart = expectedIt.next();
+            Part actualPart = actualIt.next();
+            assertEquals(expectedPart.getContentID(), actualPart.getContentID());
+            List<Header> expectedHeaders = expectedPart.getHeaders();
+            List<Header> actualHeaders = actualPart.getHeaders();
+            assertEquals(expectedHeaders.size(), actualHeaders.size());
+            for (int i=0; i<expectedHeaders.size(); i++) {
+                assertEquals(expectedHeaders.get(i).getName(), actualHeaders.get(i).getName());
+                assertEquals(expectedHeaders.get(i).getValue(), actualHeaders.get(i).getValue());
+            }
+            assertTrue(Arrays.equals(IOUtils.toByteArray(expectedPart.getInputStream(false)),
+                    IOUtils.toByteArray(actualPart.getInputStream(false))));
+        }
+        assertFalse(actualIt.hasNext());
+    }
+    
+    public void testBuiltinEngineWithSamples() throws Exception {
+        List<MIMESample> samples = new ArrayList<MIMESample>();
+        samples.add(XOPSample.XOP_SPEC_SAMPLE);
+        samples.add(MTOMSample.SAMPLE1);
+        samples.add(MTOMSample.SAMPLE2);
+        samples.add(MTOMSample.QUOTED_PRINTABLE);
+        samples.add(SwASample.SAMPLE1);
+        for (MIMESample sample : samples) {
+            for (int chunkSize : new int[] { 1, 7, 4096 }) {
+                assertSameParts(
+                        build(sample.getInputStream(), sample.getContentType(), Engine.MIME4J),
+                        build(new ChunkedInputStream(sample.getInputStream(), chunkSize), sample.getContentType(), Engine.BUILTIN));
+            }
+        }
+    }
+    
+    public void testBuiltinEngineDelimiterRecognition() throws Exception {
+        MultipartBody mb = build("preamble\r\n--MIMEBoundary\r\n"
+                + "Content-ID: <part1>\r\n"
+                + "\r\n"
+                + "a\r\n--MIMEBoundaryX\r\nb\r--MIMEBoundary\r\n--MIMEBound\r\n\r\n"
+                + "--MIMEBoundary  \r\n"
+                + "Content-ID: <part2>\r\n"
+                + "\r\n"
+                + "\n--MIMEBoundary\n"
+                + "Content-ID: <part3>\n"
+                + "\n"
+                + "c\n"
+                + "--MIMEBoundary--\r\n"
+                + "epilogue\r\n", Engine.BUILTIN);
+        assertEquals("a\r\n--MIMEBoundaryX\r\nb\r--MIMEBoundary\r\n--MIMEBound\r\n", getContent(mb.getPart("part1")));
+        assertEquals("", getContent(mb.getPart("part2")));
+        assertEquals("c", getContent(mb.getPart("part3")));
+        assertEquals(3, mb.getPartCount());
+    }
+    
+    public void testBuiltinEngineFoldedHeader() throws Exception {
+        MultipartBody mb = build("--MIMEBoundary\r\n"
+                + "Content-Type: text/plain;\r\n"
+                + "\tcharset=us-ascii\r\n"
+                + "Content-Transfer-Encoding: base64\r\n"
+                + "Content-ID:  <part1> \r\n"
+                + "\r\n"
+                + "dGVz\r\ndA==\r\n"
+                + "--MIMEBoundary--", Engine.BUILTIN);
+        Part part = mb.getPart("part1");
+        assertEquals("text/plain;\tcharset=us-ascii", part.getHeader("content-type"));
+        assertEquals("<part1> ", part.getHeader("Content-ID"));
+        assertEquals("test", getContent(part));
+    }
+    
+    public void testBuiltinEngineDiscard() throws Exception {
+        MultipartBody mb = build("--MIMEBoundary\r\n"
+                + "Content-ID: <part1>\r\n"
+                + "\r\n"
+                + "first\r\n"
+                + "--MIMEBoundary\r\n"
+                + "Content-ID: <part2>\r\n"
+                + "\r\n"
+                + "second\r\n"
+                + "--MIMEBoundary--", Engine.BUILTIN);
+        Iterator<Part> it = mb.iterator();
+        it.next().discard();
+        assertEquals("second", getContent(it.next()));
+        assertFalse(it.hasNext());
+    }
+    
+    public void testBuiltinEngineUnexpectedEndOfStream() throws Exception {
+        MultipartBody mb = build("--MIMEBoundary\r\n"
+                + "Content-ID: <part1>\r\n"
+                + "\r\n"
+                + "truncated", Engine.BUILTIN);
+        Part part = mb.iterator().next();
+        try {
+            part.getBlob();
+            fail("Expected MIMEException");
+        } catch (MIMEException ex) {
+            // Expected
+        }
+    }
+    
+    public void testBuiltinEngineInvalidHeader() throws Exception {
+        try {
+            build("--MIMEBoundary\r\n"
+                    + "Content-ID : <part1>\r\n"
+                    + "\r\n"
+                    + "content\r\n"
+                    + "--MIMEBoundary--", Engine.BUILTIN).getPartCount();
+            fail("Expected MIMEException");
+        } catch (MIMEException ex) {
+            // Expected
+        }
+    }
+
+    public void testReadAhead() throws Exception {
+        for (Engine engine : Engine.values()) {
+            ByteArrayInputStream in = new ByteArrayInputStream(createReadAheadMessage(3, 100000));
+            MultipartBody mb = MultipartBody.builder()
+                    .setInputStream(in)
+                    .setContentType("multipart/related; boundary=MIMEBoundary")
+                    .setEngine(engine)
+                    .setReadAheadExecutor(SYNCHRONOUS_EXECUTOR)
+                    .build();
+            assertEquals("<root/>", getContent(mb.getRootPart()));
+            // All attachments should have been read after the root part has been consumed
+            assertEquals(0, in.available());
+            for (int i=1; i<=3; i++) {
+                String content = getContent(mb.getPart("part" + i));
+                assertEquals(100000, content.length());
+                assertEquals((char)('0' + i), content.charAt(0));
+            }
+            assertEquals(4, mb.getPartCount());
+        }
+    }
+    
+    public void testReadAheadLimit() throws Exception {
+        ByteArrayInputStream in = new ByteArrayInputStream(createReadAheadMessage(3, 100000));
+        MultipartBody mb = MultipartBody.builder()
+                .setInputStream(in)
+                .setContentType("multipart/related; boundary=MIMEBoundary")
+                .setEngine(Engine.BUILTIN)
+                .setReadAheadExecutor(SYNCHRONOUS_EXECUTOR)
+                .setReadAheadLimit(1)
+                .build();
+        getContent(mb.getRootPart());
+        // Only the first attachment should have been read
+        assertTrue(in.available() > 100000);
+        // Requesting an attachment moves the read-ahead window
+        assertEquals(100000, getContent(mb.getPart("part1")).length());
+        assertTrue(in.available() > 0);
+        assertTrue(in.available() < 100000);
+        mb.getPart("part2");
+        assertEquals(0, in.available());
+        for (int i=2; i<=3; i++) {
+            assertEquals(100000, getContent(mb.getPart("part" + i)).length());
+        }
+    }
+    
+    public void testReadAheadWithExecutorService() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int attachmentCount : new int[] { 0, 1, 10 }) {
+                for (Engine engine : Engine.values()) {
+                    byte[] message = createReadAheadMessage(attachmentCount, 20000);
+                    MultipartBody mb = MultipartBody.builder()
+                            .setInputStream(new ChunkedInputStream(new ByteArrayInputStream(message), 1000))
+                            .setContentType("multipart/related; boundary=MIMEBoundary")
+                            .setEngine(engine)
+                            .setReadAheadExecutor(executor)
+                            .setReadAheadLimit(2)
+                            .build();
+                    assertEquals("<root/>", getContent(mb.getRootPart()));
+                    for (int i=1; i<=attachmentCount; i++) {
+                        String content = getContent(mb.getPart("part" + i));
+                        assertEquals(20000, content.length());
+                        assertEquals((char)('0' + i), content.charAt(19999));
+                    }
+                    assertEquals(attachmentCount+1, mb.getPartCount());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Tests read-ahead with a real thread pool when parts are requested out of order. In this case
+     * the application thread needs to move the parser while the read-ahead task may be buffering
+     * the current part.
+     */
+    public void testReadAheadOutOfOrderWithExecutorService() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int iteration=0; iteration<20; iteration++) {
+                for (Engine engine : Engine.values()) {
+                    byte[] message = createReadAheadMessage(9, 20000);
+                    MultipartBody mb = MultipartBody.builder()
+                            .setInputStream(new SlowInputStream(new ByteArrayInputStream(message), 500))
+                            .setContentType("multipart/related; boundary=MIMEBoundary")
+                            .setEngine(engine)
+                            .setReadAheadExecutor(executor)
+                            .setReadAheadLimit(3)
+                            .build();
+                    assertEquals("<root/>", getContent(mb.getRootPart()));
+                    for (int i : new int[] { 5, 2, 9, 1, 7, 3, 8, 4, 6 }) {
+                        String content = getContent(mb.getPart("part" + i));
+                        assertEquals(20000, content.length());
+                        assertEquals((char)('0' + i), content.charAt(0));
+                        assertEquals((char)('0' + i), content.charAt(19999));
+                    }
+                    assertEquals(10, mb.getPartCount());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
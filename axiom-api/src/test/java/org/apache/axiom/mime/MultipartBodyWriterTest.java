@@ -19,7 +19,11 @@
 package org.apache.axiom.mime;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 import java.util.Arrays;
 import java.util.Random;
 
@@ -28,6 +32,7 @@ import javax.mail.internet.MimeMultipart;
 
 import org.apache.axiom.attachments.ByteArrayDataSource;
 import org.apache.axiom.util.UIDGenerator;
+import org.apache.commons.io.FileUtils;
 
 import junit.framework.TestCase;
 
@@ -59,4 +64,32 @@ public class MultipartBodyWriterTest extends TestCase {
     public void testBase64() throws Exception {
         test("base64");
     }
+    
+    public void testGatheringWriteToFileOutputStream() throws Exception {
+        File file = File.createTempFile("test", ".mime");
+        try {
+            String boundary = UIDGenerator.generateMimeBoundary();
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                MultipartBodyWriter mpw = new MultipartBodyWriter(out, boundary);
+                OutputStream partOutputStream = mpw.writePart("text/plain", "binary", "part1", null);
+                assertTrue(partOutputStream instanceof GatheringByteChannel);
+                partOutputStream.write("abc".getBytes("ascii"));
+                ((GatheringByteChannel)partOutputStream).write(new ByteBuffer[] {
+                        ByteBuffer.wrap("def".getBytes("ascii")), ByteBuffer.wrap("ghi".getBytes("ascii")) });
+                partOutputStream.close();
+                partOutputStream = mpw.writePart("application/octet-stream", "base64", "part2", null);
+                assertFalse(partOutputStream instanceof GatheringByteChannel);
+                partOutputStream.close();
+                mpw.complete();
+            } finally {
+                out.close();
+            }
+            MimeMultipart mp = new MimeMultipart(new ByteArrayDataSource(FileUtils.readFileToByteArray(file)));
+            assertEquals(2, mp.getCount());
+            assertEquals("abcdefghi", mp.getBodyPart(0).getContent());
+        } finally {
+            file.delete();
+        }
+    }
 }
@@ -19,6 +19,8 @@
 
 package org.apache.axiom.om.util;
 
+import javax.xml.stream.XMLInputFactory;
+
 import junit.framework.TestCase;
 
 public class StAXUtilsTest extends TestCase {
@@ -41,4 +43,25 @@ public class StAXUtilsTest extends TestCase {
             // Expected
         }
     }
+
+    public void testFactoryCachedAcrossThreads() throws Exception {
+        final XMLInputFactory[] factories = new XMLInputFactory[8];
+        Thread[] threads = new Thread[factories.length];
+        for (int i=0; i<threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    factories[index] = StAXUtils.getXMLInputFactory(StAXParserConfiguration.SOAP);
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (XMLInputFactory factory : factories) {
+            assertSame(StAXUtils.getXMLInputFactory(StAXParserConfiguration.SOAP), factory);
+        }
+    }
 }
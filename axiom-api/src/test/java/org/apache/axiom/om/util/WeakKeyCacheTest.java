@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import junit.framework.TestCase;
+
+public class WeakKeyCacheTest extends TestCase {
+    public void testKeysComparedUsingEquals() {
+        WeakKeyCache<String,Object> cache = new WeakKeyCache<String,Object>();
+        Object value = new Object();
+        String key = new String("key");
+        assertThat(cache.putIfAbsent(key, value)).isSameAs(value);
+        assertThat(cache.get(new String("key"))).isSameAs(value);
+        assertThat(cache.get("other")).isNull();
+    }
+
+    public void testPutIfAbsentReturnsExistingValue() {
+        WeakKeyCache<String,Object> cache = new WeakKeyCache<String,Object>();
+        String key = "key";
+        Object value1 = new Object();
+        Object value2 = new Object();
+        assertThat(cache.putIfAbsent(key, value1)).isSameAs(value1);
+        assertThat(cache.putIfAbsent(new String(key), value2)).isSameAs(value1);
+        assertThat(cache.get(key)).isSameAs(value1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.om.xpath;
+
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+public class AXIOMXPathCacheTest extends TestCase {
+    public void testSameInstance() throws Exception {
+        AXIOMXPathCache cache = new AXIOMXPathCache(10);
+        AXIOMXPath xpath = cache.get("//a");
+        assertSame(xpath, cache.get("//a"));
+        assertSame(xpath, cache.get("//a", Collections.<String,String>emptyMap()));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    public void testNamespaces() throws Exception {
+        AXIOMXPathCache cache = new AXIOMXPathCache(10);
+        AXIOMXPath xpath1 = cache.get("//p:a", Collections.singletonMap("p", "urn:ns1"));
+        AXIOMXPath xpath2 = cache.get("//p:a", Collections.singletonMap("p", "urn:ns2"));
+        assertNotSame(xpath1, xpath2);
+        assertEquals("urn:ns1", xpath1.getNamespaces().get("p"));
+        assertEquals("urn:ns2", xpath2.getNamespaces().get("p"));
+        assertSame(xpath1, cache.get("//p:a", Collections.singletonMap("p", "urn:ns1")));
+    }
+
+    public void testEviction() throws Exception {
+        AXIOMXPathCache cache = new AXIOMXPathCache(2);
+        AXIOMXPath a = cache.get("//a");
+        AXIOMXPath b = cache.get("//b");
+        // Access a so that b becomes the least recently used entry
+        cache.get("//a");
+        cache.get("//c");
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get("//a"));
+        assertNotSame(b, cache.get("//b"));
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void testFrozen() throws Exception {
+        AXIOMXPath xpath = new AXIOMXPathCache(10).get("//a");
+        try {
+            xpath.addNamespace("p", "urn:ns");
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException ex) {
+            // Expected
+        }
+        try {
+            xpath.getNamespaces().put("p", "urn:ns");
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException ex) {
+            // Expected
+        }
+    }
+
+    public void testInvalidMaxSize() {
+        try {
+            new AXIOMXPathCache(0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.util.base64;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.codec.binary.Base64;
+
+public class Base64CodecTest extends TestCase {
+    private static byte[] randomBytes(Random random, int len) {
+        byte[] data = new byte[len];
+        random.nextBytes(data);
+        return data;
+    }
+    
+    public void testEncodeToByteArray() throws Exception {
+        Random random = new Random(12345);
+        for (int len=0; len<100; len++) {
+            byte[] data = randomBytes(random, len);
+            byte[] out = new byte[Base64Codec.getEncodedLength(len)+2];
+            int written = Base64Codec.encode(data, 0, len, out, 1);
+            assertThat(written).isEqualTo(Base64Codec.getEncodedLength(len));
+            assertThat(new String(out, 1, written, "ascii")).isEqualTo(Base64.encodeBase64String(data));
+        }
+    }
+    
+    public void testEncodeToCharArray() {
+        Random random = new Random(23456);
+        for (int len=0; len<100; len++) {
+            byte[] data = randomBytes(random, len+3);
+            char[] out = new char[Base64Codec.getEncodedLength(len)];
+            int written = Base64Codec.encode(data, 3, len, out, 0);
+            assertThat(new String(out, 0, written)).isEqualTo(
+                    Base64.encodeBase64String(Arrays.copyOfRange(data, 3, len+3)));
+        }
+    }
+    
+    public void testEncodeByteBuffer() throws Exception {
+        byte[] data = randomBytes(new Random(34567), 1000);
+        for (boolean direct : new boolean[] { false, true }) {
+            ByteBuffer src = ByteBuffer.wrap(data);
+            ByteBuffer dst = direct ? ByteBuffer.allocateDirect(1400) : ByteBuffer.allocate(1400);
+            ByteBuffer chunk = ByteBuffer.allocate(100);
+            while (src.hasRemaining()) {
+                chunk.clear();
+                Base64Codec.encode(src, chunk, true);
+                chunk.flip();
+                dst.put(chunk);
+            }
+            dst.flip();
+            byte[] out = new byte[dst.remaining()];
+            dst.get(out);
+            assertThat(new String(out, "ascii")).isEqualTo(Base64.encodeBase64String(data));
+        }
+    }
+    
+    public void testDecode() {
+        Random random = new Random(45678);
+        for (int len=0; len<100; len++) {
+            byte[] data = randomBytes(random, len*3);
+            String encoded = Base64.encodeBase64String(data);
+            byte[] out = new byte[data.length];
+            assertThat(Base64Codec.decode(encoded, 0, encoded.length(), out, 0)).isEqualTo(encoded.length());
+            assertThat(out).isEqualTo(data);
+            Arrays.fill(out, (byte)0);
+            assertThat(Base64Codec.decode(encoded.toCharArray(), 0, encoded.length(), out, 0)).isEqualTo(encoded.length());
+            assertThat(out).isEqualTo(data);
+        }
+    }
+    
+    public void testDecodeStopsAtNonAlphabetCharacter() {
+        byte[] out = new byte[12];
+        assertThat(Base64Codec.decode("YW55IGNh cm5h", 0, 13, out, 0)).isEqualTo(8);
+        assertThat(Base64Codec.decode("YW55IG==", 0, 8, out, 0)).isEqualTo(4);
+        assertThat(Base64Codec.decode("YW55\u0100GNh", 0, 8, out, 0)).isEqualTo(4);
+        assertThat(Base64Codec.decode("YW5-IGNh", 0, 8, out, 0)).isEqualTo(0);
+    }
+    
+    public void testDecodeByteBuffer() throws Exception {
+        byte[] data = randomBytes(new Random(56789), 999);
+        ByteBuffer src = ByteBuffer.wrap(Base64.encodeBase64(data));
+        ByteBuffer dst = ByteBuffer.allocateDirect(data.length);
+        Base64Codec.decode(src, dst);
+        assertThat(src.hasRemaining()).isFalse();
+        dst.flip();
+        byte[] out = new byte[dst.remaining()];
+        dst.get(out);
+        assertThat(out).isEqualTo(data);
+    }
+    
+    public void testEncodingOutputStream() throws Exception {
+        Random random = new Random(67890);
+        byte[] data = randomBytes(random, 20000);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Base64EncodingOutputStream out = new Base64EncodingOutputStream(baos, 100);
+        int pos = 0;
+        while (pos < data.length) {
+            int len = Math.min(data.length-pos, random.nextInt(5000));
+            if (len == 1) {
+                out.write(data[pos]);
+            } else {
+                out.write(data, pos, len);
+            }
+            pos += len;
+        }
+        out.close();
+        assertThat(new String(baos.toByteArray(), "ascii")).isEqualTo(Base64.encodeBase64String(data));
+    }
+    
+    public void testEncodingWriterOutputStream() throws Exception {
+        byte[] data = randomBytes(new Random(78901), 10000);
+        StringWriter sw = new StringWriter();
+        Base64EncodingWriterOutputStream out = new Base64EncodingWriterOutputStream(sw, 64);
+        out.write(data, 0, 5);
+        out.write(data, 5, data.length-5);
+        out.close();
+        assertThat(sw.toString()).isEqualTo(Base64.encodeBase64String(data));
+    }
+    
+    public void testDecodingWriter() throws Exception {
+        Random random = new Random(89012);
+        byte[] data = randomBytes(random, 20000);
+        // Encode with line breaks, as used in MIME
+        String encoded = new String(Base64.encodeBase64Chunked(data), "ascii");
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Base64DecodingOutputStreamWriter out = new Base64DecodingOutputStreamWriter(baos);
+        char[] chars = encoded.toCharArray();
+        int pos = 0;
+        boolean useString = false;
+        while (pos < chars.length) {
+            int len = Math.min(chars.length-pos, random.nextInt(7000));
+            if (useString) {
+                out.write(encoded, pos, len);
+            } else {
+                out.write(chars, pos, len);
+            }
+            useString = !useString;
+            pos += len;
+        }
+        out.close();
+        assertThat(baos.toByteArray()).isEqualTo(data);
+    }
+}
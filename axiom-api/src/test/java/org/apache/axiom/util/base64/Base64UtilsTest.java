@@ -70,6 +70,18 @@ public class Base64UtilsTest extends TestCase {
                 new String(Base64Utils.decode(" YW55IG\tNhcm5hbC\r\nBwb  GVhc3VyZS4 = "), "utf-8"));
     }
 
+    public void testSpaceInLastGroup() throws Exception {
+        assertEquals("any carnal pleas", new String(Base64Utils.decode("YW55IGNhcm5hbCBwbGVh cw=="), "utf-8"));
+        assertEquals("any carnal pleas", new String(Base64Utils.decode("YW55IGNhcm5hbCBwbGVhcw=   \t="), "utf-8"));
+    }
+    
+    public void testDecodeLarge() {
+        Random random = new Random(13579);
+        byte[] data = new byte[100000];
+        random.nextBytes(data);
+        assertThat(Base64Utils.decode(Base64.encodeBase64String(data))).isEqualTo(data);
+    }
+
     public void testInvalidCharacter() {
         try {
             Base64Utils.decode("//-/");
@@ -24,19 +24,46 @@ import java.io.Writer;
 
 /**
  * Base class for {@link Writer} implementations that decode data in base64.
+ * <p>
+ * Groups of four characters from the base64 alphabet are decoded in bulk using
+ * {@link Base64Codec} and passed to {@link #doWrite(byte[], int, int)}. White space and padding
+ * are processed one character at a time.
  */
 public abstract class AbstractBase64DecodingWriter extends Writer {
+    /**
+     * The maximum number of characters decoded into {@link #block} at once.
+     */
+    private static final int BLOCK_SIZE = 4096;
+    
     private final char[] in = new char[4];
     private final byte[] out = new byte[3];
     private int rest; // Number of characters remaining in the in buffer
+    private byte[] block;
 
     private static boolean isWhitespace(int c) {
         return c <= 32 && (c == ' ' || c == '\n' || c == '\r' || c == '\t'); 
     }
     
+    private byte[] getBlock() {
+        if (block == null) {
+            block = new byte[BLOCK_SIZE/4*3];
+        }
+        return block;
+    }
+    
     @Override
     public final void write(char[] cbuf, int off, int len) throws IOException {
         while (len > 0) {
+            if (rest == 0 && len >= 4) {
+                byte[] block = getBlock();
+                int consumed = Base64Codec.decode(cbuf, off, Math.min(len, BLOCK_SIZE), block, 0);
+                if (consumed > 0) {
+                    doWrite(block, 0, consumed/4*3);
+                    off += consumed;
+                    len -= consumed;
+                    continue;
+                }
+            }
             write(cbuf[off]);
             off++;
             len--;
@@ -46,6 +73,16 @@ public abstract class AbstractBase64DecodingWriter extends Writer {
     @Override
     public final void write(String str, int off, int len) throws IOException {
         while (len > 0) {
+            if (rest == 0 && len >= 4) {
+                byte[] block = getBlock();
+                int consumed = Base64Codec.decode(str, off, Math.min(len, BLOCK_SIZE), block, 0);
+                if (consumed > 0) {
+                    doWrite(block, 0, consumed/4*3);
+                    off += consumed;
+                    len -= consumed;
+                    continue;
+                }
+            }
             write(str.charAt(off));
             off++;
             len--;
@@ -118,4 +155,28 @@ public abstract class AbstractBase64DecodingWriter extends Writer {
      *             if an I/O error occurs
      */
     protected abstract void doWrite(byte[] b, int len) throws IOException;
+    
+    /**
+     * Write a block of base64 decoded data. The default implementation passes the data to
+     * {@link #doWrite(byte[], int)} in chunks of at most 3 bytes. Subclasses should override this
+     * method if they can process larger blocks more efficiently.
+     * 
+     * @param b
+     *            the array containing the decoded data
+     * @param off
+     *            the offset of the data in <code>b</code>
+     * @param len
+     *            the number of bytes to write
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    protected void doWrite(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int c = Math.min(len, 3);
+            System.arraycopy(b, off, out, 0, c);
+            doWrite(out, c);
+            off += c;
+            len -= c;
+        }
+    }
 }
@@ -26,11 +26,22 @@ import javax.activation.DataHandler;
 
 /**
  * Base class for {@link OutputStream} implementations that encode data in base64.
+ * <p>
+ * Data written using {@link #write(byte[], int, int)} is encoded in bulk using
+ * {@link Base64Codec} and passed to {@link #doWrite(byte[], int, int)}. Subclasses should
+ * override that method if they can process blocks of encoded data more efficiently than groups of
+ * four bytes.
  */
 public abstract class AbstractBase64EncodingOutputStream extends OutputStream {
+    /**
+     * The maximum number of bytes encoded into {@link #block} at once.
+     */
+    private static final int BLOCK_SIZE = 3072;
+    
     private final boolean ignoreFlush;
     private final byte[] in = new byte[3];
     private final byte[] out = new byte[4];
+    private byte[] block;
     private int rest; // Number of bytes remaining in the inBuffer
     private boolean completed;
 
@@ -74,10 +85,16 @@ public abstract class AbstractBase64EncodingOutputStream extends OutputStream {
                 rest = 0;
             }
         }
-        while (len >= 3) {
-            encode(b, off, 3);
-            off += 3;
-            len -= 3;
+        if (len >= 3) {
+            if (block == null) {
+                block = new byte[Base64Codec.getEncodedLength(BLOCK_SIZE)];
+            }
+            do {
+                int chunk = Math.min(len/3*3, BLOCK_SIZE);
+                doWrite(block, 0, Base64Codec.encode(b, off, chunk, block, 0));
+                off += chunk;
+                len -= chunk;
+            } while (len >= 3);
         }
         while (len > 0) {
             in[rest++] = b[off++];
@@ -157,6 +174,29 @@ public abstract class AbstractBase64EncodingOutputStream extends OutputStream {
      */
     protected abstract void doWrite(byte[] b) throws IOException;
     
+    /**
+     * Write a block of base64 encoded data. If necessary, the implementation should accumulate the
+     * data in a buffer before writing it to the underlying stream. The default implementation
+     * passes the data to {@link #doWrite(byte[])} in groups of four bytes.
+     * 
+     * @param b
+     *            the array containing the encoded data
+     * @param off
+     *            the offset of the data in <code>b</code>
+     * @param len
+     *            the number of bytes to write; always a multiple of 4
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    protected void doWrite(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            System.arraycopy(b, off, out, 0, 4);
+            doWrite(out);
+            off += 4;
+            len -= 4;
+        }
+    }
+    
     /**
      * Write any pending data to the underlying stream, if applicable.
      * Note that implementations should not flush the underlying stream.
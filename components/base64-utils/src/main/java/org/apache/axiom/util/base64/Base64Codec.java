@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.util.base64;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Table driven base64 encoder and decoder that operates on whole blocks of data. The methods in
+ * this class are used by the base64 encoding output streams and decoding writers in this package
+ * to process data in bulk instead of one group at a time, but they can also be used directly.
+ * <p>
+ * The encoder uses a 4096 entry table that maps 12 bit values to pairs of base64 characters,
+ * so that a group of three bytes is encoded with two lookups. The decoder uses one table per
+ * character position that yields the already shifted 6 bit value (or a marker bit for characters
+ * that are not part of the base64 alphabet), so that a group of four characters is decoded and
+ * validated with four lookups and a single test.
+ * <p>
+ * The decode methods only process complete groups of four characters from the base64 alphabet
+ * and stop at the first group that contains white space, padding or an invalid character. This
+ * allows callers to use them as a fast path and to fall back to a character by character
+ * implementation for the remaining data.
+ */
+public final class Base64Codec {
+    /**
+     * Maps each 12 bit value to the corresponding pair of base64 characters. The characters for
+     * value <code>i</code> are stored at indexes <code>2*i</code> and <code>2*i+1</code>.
+     */
+    private static final byte[] ENCODE_PAIRS = new byte[8192];
+    
+    /**
+     * Marker bit set in the decode tables for characters that are not part of the base64
+     * alphabet (including white space and the padding character).
+     */
+    private static final int INVALID = 1 << 24;
+    
+    private static final int[] DECODE0 = new int[256];
+    private static final int[] DECODE1 = new int[256];
+    private static final int[] DECODE2 = new int[256];
+    private static final int[] DECODE3 = new int[256];
+    
+    static {
+        for (int i=0; i<4096; i++) {
+            ENCODE_PAIRS[2*i] = Base64Constants.S_BASE64CHAR[i >> 6];
+            ENCODE_PAIRS[2*i+1] = Base64Constants.S_BASE64CHAR[i & 0x3f];
+        }
+        for (int c=0; c<256; c++) {
+            int value = c < Base64Constants.S_DECODETABLE.length ? Base64Constants.S_DECODETABLE[c] : -1;
+            if (value < 0) {
+                DECODE0[c] = INVALID;
+                DECODE1[c] = INVALID;
+                DECODE2[c] = INVALID;
+                DECODE3[c] = INVALID;
+            } else {
+                DECODE0[c] = value << 18;
+                DECODE1[c] = value << 12;
+                DECODE2[c] = value << 6;
+                DECODE3[c] = value;
+            }
+        }
+    }
+    
+    private Base64Codec() {}
+    
+    /**
+     * Get the length of the base64 encoded form (including padding) of a given number of bytes.
+     * 
+     * @param length
+     *            the number of bytes to encode
+     * @return the number of base64 characters
+     */
+    public static int getEncodedLength(int length) {
+        return (length+2) / 3 * 4;
+    }
+    
+    /**
+     * Encode data in base64, including padding.
+     * 
+     * @param src
+     *            the data to encode
+     * @param off
+     *            the offset of the data in <code>src</code>
+     * @param len
+     *            the number of bytes to encode
+     * @param dst
+     *            the array to write the base64 characters to (in ASCII); it must have space for
+     *            at least <code>{@link #getEncodedLength(int) getEncodedLength}(len)</code> bytes
+     * @param dstOff
+     *            the offset in <code>dst</code> where the encoded data is written
+     * @return the number of bytes written to <code>dst</code>
+     */
+    public static int encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        final byte[] pairs = ENCODE_PAIRS;
+        int end = off + len/3*3;
+        int dstPos = dstOff;
+        while (off < end) {
+            int i = ((src[off] & 0xff) << 16) | ((src[off+1] & 0xff) << 8) | (src[off+2] & 0xff);
+            off += 3;
+            int p1 = (i >>> 12) << 1;
+            int p2 = (i & 0xfff) << 1;
+            dst[dstPos] = pairs[p1];
+            dst[dstPos+1] = pairs[p1+1];
+            dst[dstPos+2] = pairs[p2];
+            dst[dstPos+3] = pairs[p2+1];
+            dstPos += 4;
+        }
+        switch (len % 3) {
+            case 1: {
+                int i = src[off] & 0xff;
+                dst[dstPos++] = Base64Constants.S_BASE64CHAR[i >> 2];
+                dst[dstPos++] = Base64Constants.S_BASE64CHAR[(i << 4) & 0x3f];
+                dst[dstPos++] = Base64Constants.S_BASE64PAD;
+                dst[dstPos++] = Base64Constants.S_BASE64PAD;
+                break;
+            }
+            case 2: {
+                int i = ((src[off] & 0xff) << 8) | (src[off+1] & 0xff);
+                dst[dstPos++] = Base64Constants.S_BASE64CHAR[i >> 10];
+                dst[dstPos++] = Base64Constants.S_BASE64CHAR[(i >> 4) & 0x3f];
+                dst[dstPos++] = Base64Constants.S_BASE64CHAR[(i << 2) & 0x3f];
+                dst[dstPos++] = Base64Constants.S_BASE64PAD;
+            }
+        }
+        return dstPos - dstOff;
+    }
+    
+    /**
+     * Encode data in base64, including padding.
+     * 
+     * @param src
+     *            the data to encode
+     * @param off
+     *            the offset of the data in <code>src</code>
+     * @param len
+     *            the number of bytes to encode
+     * @param dst
+     *            the array to write the base64 characters to; it must have space for at least
+     *            <code>{@link #getEncodedLength(int) getEncodedLength}(len)</code> characters
+     * @param dstOff
+     *            the offset in <code>dst</code> where the encoded data is written
+     * @return the number of characters written to <code>dst</code>
+     */
+    public static int encode(byte[] src, int off, int len, char[] dst, int dstOff) {
+        final byte[] pairs = ENCODE_PAIRS;
+        int end = off + len/3*3;
+        int dstPos = dstOff;
+        while (off < end) {
+            int i = ((src[off] & 0xff) << 16) | ((src[off+1] & 0xff) << 8) | (src[off+2] & 0xff);
+            off += 3;
+            int p1 = (i >>> 12) << 1;
+            int p2 = (i & 0xfff) << 1;
+            dst[dstPos] = (char)pairs[p1];
+            dst[dstPos+1] = (char)pairs[p1+1];
+            dst[dstPos+2] = (char)pairs[p2];
+            dst[dstPos+3] = (char)pairs[p2+1];
+            dstPos += 4;
+        }
+        switch (len % 3) {
+            case 1: {
+                int i = src[off] & 0xff;
+                dst[dstPos++] = (char)Base64Constants.S_BASE64CHAR[i >> 2];
+                dst[dstPos++] = (char)Base64Constants.S_BASE64CHAR[(i << 4) & 0x3f];
+                dst[dstPos++] = (char)Base64Constants.S_BASE64PAD;
+                dst[dstPos++] = (char)Base64Constants.S_BASE64PAD;
+                break;
+            }
+            case 2: {
+                int i = ((src[off] & 0xff) << 8) | (src[off+1] & 0xff);
+                dst[dstPos++] = (char)Base64Constants.S_BASE64CHAR[i >> 10];
+                dst[dstPos++] = (char)Base64Constants.S_BASE64CHAR[(i >> 4) & 0x3f];
+                dst[dstPos++] = (char)Base64Constants.S_BASE64CHAR[(i << 2) & 0x3f];
+                dst[dstPos++] = (char)Base64Constants.S_BASE64PAD;
+            }
+        }
+        return dstPos - dstOff;
+    }
+    
+    /**
+     * Encode the content of a buffer in base64. This method encodes as many complete groups of
+     * three bytes as fit into <code>dst</code>. If <code>endOfInput</code> is <code>true</code>
+     * and less than three bytes remain, these bytes are encoded with padding (provided that there
+     * is enough space in <code>dst</code>). On return, the positions of the two buffers have been
+     * advanced by the number of bytes consumed and produced.
+     * 
+     * @param src
+     *            the buffer containing the data to encode
+     * @param dst
+     *            the buffer to write the base64 characters to (in ASCII)
+     * @param endOfInput
+     *            specifies whether <code>src</code> contains the end of the data to encode
+     */
+    public static void encode(ByteBuffer src, ByteBuffer dst, boolean endOfInput) {
+        int groups = Math.min(src.remaining()/3, dst.remaining()/4);
+        int len = groups*3;
+        if (endOfInput && groups == src.remaining()/3 && src.remaining()%3 != 0
+                && dst.remaining() >= groups*4+4) {
+            len = src.remaining();
+        }
+        if (len == 0) {
+            return;
+        }
+        if (src.hasArray() && dst.hasArray()) {
+            int written = encode(src.array(), src.arrayOffset() + src.position(), len,
+                    dst.array(), dst.arrayOffset() + dst.position());
+            src.position(src.position() + len);
+            dst.position(dst.position() + written);
+        } else {
+            byte[] in = new byte[Math.min(len, 3072)];
+            byte[] out = new byte[getEncodedLength(in.length)];
+            while (len > 0) {
+                int chunk = Math.min(len, in.length);
+                src.get(in, 0, chunk);
+                dst.put(out, 0, encode(in, 0, chunk, out, 0));
+                len -= chunk;
+            }
+        }
+    }
+    
+    /**
+     * Decode complete groups of four base64 characters. Decoding stops at the first group that
+     * contains a character that is not part of the base64 alphabet, i.e. white space, the padding
+     * character or an invalid character. These groups must be processed by the caller.
+     * 
+     * @param src
+     *            the base64 encoded data
+     * @param off
+     *            the offset of the data in <code>src</code>
+     * @param len
+     *            the number of characters available in <code>src</code>
+     * @param dst
+     *            the array to write the decoded data to; it must have space for at least
+     *            <code>len/4*3</code> bytes
+     * @param dstOff
+     *            the offset in <code>dst</code> where the decoded data is written
+     * @return the number of characters consumed (which is always a multiple of 4); the number of
+     *         bytes written to <code>dst</code> is this value divided by 4 and multiplied by 3
+     */
+    public static int decode(char[] src, int off, int len, byte[] dst, int dstOff) {
+        final int[] d0 = DECODE0, d1 = DECODE1, d2 = DECODE2, d3 = DECODE3;
+        int start = off;
+        int end = off + len/4*4;
+        int dstPos = dstOff;
+        while (off < end) {
+            int c0 = src[off];
+            int c1 = src[off+1];
+            int c2 = src[off+2];
+            int c3 = src[off+3];
+            if ((c0 | c1 | c2 | c3) > 0xff) {
+                break;
+            }
+            int i = d0[c0] | d1[c1] | d2[c2] | d3[c3];
+            if ((i & INVALID) != 0) {
+                break;
+            }
+            dst[dstPos] = (byte)(i >> 16);
+            dst[dstPos+1] = (byte)(i >> 8);
+            dst[dstPos+2] = (byte)i;
+            dstPos += 3;
+            off += 4;
+        }
+        return off - start;
+    }
+    
+    /**
+     * Decode complete groups of four base64 characters from a string. See
+     * {@link #decode(char[], int, int, byte[], int)} for more information.
+     * 
+     * @param src
+     *            the base64 encoded data
+     * @param off
+     *            the offset of the data in <code>src</code>
+     * @param len
+     *            the number of characters available in <code>src</code>
+     * @param dst
+     *            the array to write the decoded data to
+     * @param dstOff
+     *            the offset in <code>dst</code> where the decoded data is written
+     * @return the number of characters consumed
+     */
+    public static int decode(String src, int off, int len, byte[] dst, int dstOff) {
+        final int[] d0 = DECODE0, d1 = DECODE1, d2 = DECODE2, d3 = DECODE3;
+        int start = off;
+        int end = off + len/4*4;
+        int dstPos = dstOff;
+        while (off < end) {
+            int c0 = src.charAt(off);
+            int c1 = src.charAt(off+1);
+            int c2 = src.charAt(off+2);
+            int c3 = src.charAt(off+3);
+            if ((c0 | c1 | c2 | c3) > 0xff) {
+                break;
+            }
+            int i = d0[c0] | d1[c1] | d2[c2] | d3[c3];
+            if ((i & INVALID) != 0) {
+                break;
+            }
+            dst[dstPos] = (byte)(i >> 16);
+            dst[dstPos+1] = (byte)(i >> 8);
+            dst[dstPos+2] = (byte)i;
+            dstPos += 3;
+            off += 4;
+        }
+        return off - start;
+    }
+    
+    /**
+     * Decode complete groups of four base64 characters encoded in ASCII. See
+     * {@link #decode(char[], int, int, byte[], int)} for more information.
+     * 
+     * @param src
+     *            the base64 encoded data
+     * @param off
+     *            the offset of the data in <code>src</code>
+     * @param len
+     *            the number of bytes available in <code>src</code>
+     * @param dst
+     *            the array to write the decoded data to
+     * @param dstOff
+     *            the offset in <code>dst</code> where the decoded data is written
+     * @return the number of bytes consumed
+     */
+    public static int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        final int[] d0 = DECODE0, d1 = DECODE1, d2 = DECODE2, d3 = DECODE3;
+        int start = off;
+        int end = off + len/4*4;
+        int dstPos = dstOff;
+        while (off < end) {
+            int i = d0[src[off] & 0xff] | d1[src[off+1] & 0xff] | d2[src[off+2] & 0xff] | d3[src[off+3] & 0xff];
+            if ((i & INVALID) != 0) {
+                break;
+            }
+            dst[dstPos] = (byte)(i >> 16);
+            dst[dstPos+1] = (byte)(i >> 8);
+            dst[dstPos+2] = (byte)i;
+            dstPos += 3;
+            off += 4;
+        }
+        return off - start;
+    }
+    
+    /**
+     * Decode complete groups of four base64 characters (encoded in ASCII) from a buffer. This
+     * method decodes as many groups as fit into <code>dst</code> and stops at the first group that
+     * contains a character that is not part of the base64 alphabet (see
+     * {@link #decode(char[], int, int, byte[], int)}). On return, the positions of the two buffers
+     * have been advanced by the number of bytes consumed and produced.
+     * 
+     * @param src
+     *            the buffer containing the base64 encoded data
+     * @param dst
+     *            the buffer to write the decoded data to
+     */
+    public static void decode(ByteBuffer src, ByteBuffer dst) {
+        int len = Math.min(src.remaining()/4, dst.remaining()/3)*4;
+        if (len == 0) {
+            return;
+        }
+        if (src.hasArray() && dst.hasArray()) {
+            int consumed = decode(src.array(), src.arrayOffset() + src.position(), len,
+                    dst.array(), dst.arrayOffset() + dst.position());
+            src.position(src.position() + consumed);
+            dst.position(dst.position() + consumed/4*3);
+        } else {
+            byte[] in = new byte[Math.min(len, 4096)];
+            byte[] out = new byte[in.length/4*3];
+            while (len > 0) {
+                int chunk = Math.min(len, in.length);
+                int position = src.position();
+                src.get(in, 0, chunk);
+                int consumed = decode(in, 0, chunk, out, 0);
+                dst.put(out, 0, consumed/4*3);
+                if (consumed < chunk) {
+                    src.position(position + consumed);
+                    break;
+                }
+                len -= chunk;
+            }
+        }
+    }
+}
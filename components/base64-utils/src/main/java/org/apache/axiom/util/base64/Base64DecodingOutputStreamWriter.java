@@ -38,6 +38,11 @@ public class Base64DecodingOutputStreamWriter extends AbstractBase64DecodingWrit
         stream.write(b, 0, len);
     }
 
+    @Override
+    protected void doWrite(byte[] b, int off, int len) throws IOException {
+        stream.write(b, off, len);
+    }
+
     @Override
     public void flush() throws IOException {
         stream.flush();
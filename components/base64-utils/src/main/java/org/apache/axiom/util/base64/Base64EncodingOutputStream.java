@@ -61,6 +61,20 @@ public class Base64EncodingOutputStream extends AbstractBase64EncodingOutputStre
         len += 4;
     }
     
+    @Override
+    protected void doWrite(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (this.len == buffer.length) {
+                flushBuffer();
+            }
+            int c = Math.min(len, buffer.length - this.len);
+            System.arraycopy(b, off, buffer, this.len, c);
+            this.len += c;
+            off += c;
+            len -= c;
+        }
+    }
+
     @Override
     protected void flushBuffer() throws IOException {
         parent.write(buffer, 0, len);
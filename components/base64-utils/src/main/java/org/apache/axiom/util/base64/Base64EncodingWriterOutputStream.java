@@ -79,6 +79,20 @@ public class Base64EncodingWriterOutputStream extends AbstractBase64EncodingOutp
         }
     }
     
+    @Override
+    protected void doWrite(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (this.len == buffer.length) {
+                flushBuffer();
+            }
+            int c = Math.min(len, buffer.length - this.len);
+            for (int i=0; i<c; i++) {
+                buffer[this.len++] = (char)(b[off++] & 0xFF);
+            }
+            len -= c;
+        }
+    }
+    
     @Override
     protected void flushBuffer() throws IOException {
         writer.write(buffer, 0, len);
@@ -18,6 +18,12 @@
  */
 package org.apache.axiom.core.stream;
 
+import org.apache.axiom.util.xml.NamespaceURIInterner;
+
+/**
+ * Filter that interns all namespace URIs. Lookups go through {@link NamespaceURIInterner}, which
+ * avoids the cost of {@link String#intern()} for namespace URIs seen recently.
+ */
 public final class NamespaceURIInterningFilterHandler extends XmlHandlerWrapper {
     public NamespaceURIInterningFilterHandler(XmlHandler parent) {
         super(parent);
@@ -25,16 +31,16 @@ public final class NamespaceURIInterningFilterHandler extends XmlHandlerWrapper
 
     @Override
     public void startElement(String namespaceURI, String localName, String prefix) throws StreamException {
-        super.startElement(namespaceURI.intern(), localName, prefix);
+        super.startElement(NamespaceURIInterner.intern(namespaceURI), localName, prefix);
     }
 
     @Override
     public void processAttribute(String namespaceURI, String localName, String prefix, String value, String type, boolean specified) throws StreamException {
-        super.processAttribute(namespaceURI.intern(), localName, prefix, value, type, specified);
+        super.processAttribute(NamespaceURIInterner.intern(namespaceURI), localName, prefix, value, type, specified);
     }
 
     @Override
     public void processNamespaceDeclaration(String prefix, String namespaceURI) throws StreamException {
-        super.processNamespaceDeclaration(prefix, namespaceURI.intern());
+        super.processNamespaceDeclaration(prefix, NamespaceURIInterner.intern(namespaceURI));
     }
 }
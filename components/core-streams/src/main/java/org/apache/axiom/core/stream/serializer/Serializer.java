@@ -23,6 +23,7 @@ package org.apache.axiom.core.stream.serializer;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.util.Arrays;
 
 import org.apache.axiom.core.stream.CharacterData;
 import org.apache.axiom.core.stream.CharacterDataSink;
@@ -53,6 +54,26 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
     private static final int PROCESSING_INSTRUCTION = 4;
     private static final int CDATA_SECTION = 5;
 
+    /**
+     * The ASCII characters that can be written as is in mixed content. Note that ']' and '>' are
+     * excluded because they need to be tracked to escape the '>' in ']]>'.
+     */
+    private static final boolean[] CLEAN_IN_MIXED_CONTENT = new boolean[128];
+    
+    /**
+     * The ASCII characters that can be written as is in attribute values.
+     */
+    private static final boolean[] CLEAN_IN_ATTRIBUTE_VALUE = new boolean[128];
+    
+    static {
+        for (char c = 0x20; c < 0x7F; c++) {
+            CLEAN_IN_MIXED_CONTENT[c] = c != '<' && c != '&' && c != '>' && c != ']';
+            CLEAN_IN_ATTRIBUTE_VALUE[c] = c != '<' && c != '&' && c != '"';
+        }
+        CLEAN_IN_MIXED_CONTENT['\t'] = true;
+        CLEAN_IN_MIXED_CONTENT['\n'] = true;
+    }
+    
     private static final String[] illegalCharacterSequences = { null, null, null, "--", "?>", "]]>" };
 
     private static final UnmappableCharacterHandler[] unmappableCharacterHandlers = {
@@ -63,8 +84,9 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
             UnmappableCharacterHandler.THROW_EXCEPTION,
             UnmappableCharacterHandler.THROW_EXCEPTION };
     
-    private final XmlWriter writer;
-    private final OutputStream outputStream;
+    private XmlWriter writer;
+    private OutputStream outputStream;
+    private String encoding;
     
     /**
      * Add space before '/>' for XHTML.
@@ -97,6 +119,8 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
      */
     private final char[] charsBuff = new char[CHUNK_SIZE];
 
+    private SerializerWriter serializerWriter;
+
     public Serializer(Writer out) {
         writer = new WriterXmlWriter(out);
         outputStream = null;
@@ -105,6 +129,66 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
     public Serializer(OutputStream out, String encoding) {
         writer = XmlWriter.create(out, encoding);
         outputStream = out;
+        this.encoding = encoding;
+    }
+
+    /**
+     * Prepare this serializer for reuse with a different output stream. This discards any pending
+     * data and resets the serializer to its initial state, but keeps the buffers allocated by the
+     * serializer and (if the encoding permits) by the underlying {@link XmlWriter}.
+     * 
+     * @param out
+     *            the output stream to write to
+     * @param encoding
+     *            the encoding to use
+     */
+    public void reset(OutputStream out, String encoding) {
+        if (!writer.reset(out, encoding)) {
+            writer = XmlWriter.create(out, encoding);
+        }
+        outputStream = out;
+        this.encoding = encoding;
+        resetState();
+    }
+
+    /**
+     * Prepare this serializer for reuse with a different {@link Writer}. See
+     * {@link #reset(OutputStream, String)} for more information.
+     * 
+     * @param out
+     *            the writer to write to
+     */
+    public void reset(Writer out) {
+        if (!writer.reset(out)) {
+            writer = new WriterXmlWriter(out);
+        }
+        outputStream = null;
+        encoding = null;
+        resetState();
+    }
+
+    /**
+     * Release the references to the output stream or writer and to the element names, but keep the
+     * configured encoding so that the underlying {@link XmlWriter} can be reused. Used by
+     * {@link SerializerPool}.
+     */
+    void detach() {
+        if (encoding == null) {
+            reset((Writer)null);
+        } else {
+            reset((OutputStream)null, encoding);
+        }
+    }
+
+    private void resetState() {
+        spaceBeforeClose = false;
+        inDoctype = false;
+        context = MIXED_CONTENT;
+        matchedIllegalCharacters = 0;
+        squareBrackets = 0;
+        Arrays.fill(elementNameStack, null);
+        depth = 0;
+        startTagOpen = false;
     }
 
     private void switchContext(int context) throws StreamException {
@@ -136,6 +220,15 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
         }
     }
 
+    /**
+     * Get the encoding used to write to the output stream.
+     *
+     * @return the encoding, or {@code null} if this serializer is not writing to an output stream
+     */
+    public String getEncoding() {
+        return outputStream == null ? null : encoding;
+    }
+
     /**
      *   Report an element type declaration.
      *  
@@ -338,6 +431,31 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
         if (length == 0)
             return;
         
+        if (context == MIXED_CONTENT || context == ATTRIBUTE_VALUE) {
+            final XmlWriter writer = this.writer;
+            final boolean[] cleanASCIIChars = context == MIXED_CONTENT ? CLEAN_IN_MIXED_CONTENT : CLEAN_IN_ATTRIBUTE_VALUE;
+            final int end = start + length;
+            try {
+                while (true) {
+                    int i = writer.writeClean(chars, start, end, cleanASCIIChars);
+                    if (i > start) {
+                        squareBrackets = 0;
+                    }
+                    if (i == end) {
+                        break;
+                    }
+                    writeEscaped(chars, i, 1);
+                    start = i + 1;
+                }
+            } catch (IOException ex) {
+                throw new StreamException(ex);
+            }
+        } else {
+            writeEscaped(chars, start, length);
+        }
+    }
+    
+    private void writeEscaped(char chars[], int start, int length) throws StreamException {
         final XmlWriter writer = this.writer;
         final int context = this.context;
         final String illegalCharacterSequence = illegalCharacterSequences[context];
@@ -485,6 +603,33 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
     }
 
     void characters(String s, int start, int length) throws StreamException {
+        if (length == 0) {
+            return;
+        }
+        if (context == MIXED_CONTENT || context == ATTRIBUTE_VALUE) {
+            // Escape and encode the characters directly from the string, without copying them to
+            // charsBuff first.
+            final XmlWriter writer = this.writer;
+            final boolean[] cleanASCIIChars = context == MIXED_CONTENT ? CLEAN_IN_MIXED_CONTENT : CLEAN_IN_ATTRIBUTE_VALUE;
+            final int end = start + length;
+            try {
+                while (true) {
+                    int i = writer.writeClean(s, start, end, cleanASCIIChars);
+                    if (i > start) {
+                        squareBrackets = 0;
+                    }
+                    if (i == end) {
+                        break;
+                    }
+                    charsBuff[0] = s.charAt(i);
+                    writeEscaped(charsBuff, 0, 1);
+                    start = i + 1;
+                }
+            } catch (IOException ex) {
+                throw new StreamException(ex);
+            }
+            return;
+        }
         while (length > 0) {
             int count = Math.min(length, CHUNK_SIZE);
             s.getChars(start, start+count, charsBuff, 0);
@@ -496,7 +641,10 @@ public final class Serializer implements XmlHandler, CharacterDataSink {
 
     @Override
     public Writer getWriter() {
-        return new SerializerWriter(this);
+        if (serializerWriter == null) {
+            serializerWriter = new SerializerWriter(this);
+        }
+        return serializerWriter;
     }
 
     @Override
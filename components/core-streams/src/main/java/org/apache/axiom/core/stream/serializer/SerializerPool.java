@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.serializer;
+
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Per-thread pool of {@link Serializer} instances. Creating a {@link Serializer} allocates several
+ * buffers, which is significant when serializing many small messages. This class allows to reuse
+ * these instances. A serializer obtained from one of the <code>acquire</code> methods must be
+ * passed to {@link #release(Serializer)} once serialization is complete, and must not be used
+ * afterwards.
+ * <p>
+ * The pool is bounded: each thread keeps at most {@value #MAX_POOLED_SERIALIZERS} idle instances;
+ * additional instances released by the thread are discarded. Pooling can be disabled by setting
+ * the {@value #ENABLED_PROPERTY} system property to <code>false</code>, in which case the
+ * <code>acquire</code> methods simply create new instances. This may be necessary in environments
+ * where Axiom is deployed in a class loader that may be discarded, because the pool keeps a
+ * reference from every thread that uses it to this class.
+ */
+public final class SerializerPool {
+    /**
+     * System property that enables or disables pooling.
+     */
+    public static final String ENABLED_PROPERTY = "org.apache.axiom.core.stream.serializer.SerializerPool.enabled";
+    
+    /**
+     * The maximum number of idle instances kept per thread. More than one instance may be in use
+     * at the same time if serialization is nested, e.g. when an {@code OMDataSource} serializes
+     * other content to a buffer.
+     */
+    private static final int MAX_POOLED_SERIALIZERS = 4;
+    
+    private static final boolean enabled;
+    private static final ThreadLocal<SerializerPool> pools;
+    
+    static {
+        String value;
+        try {
+            value = System.getProperty(ENABLED_PROPERTY);
+        } catch (SecurityException ex) {
+            value = null;
+        }
+        enabled = value == null || Boolean.parseBoolean(value);
+        pools = enabled ? new ThreadLocal<SerializerPool>() {
+            @Override
+            protected SerializerPool initialValue() {
+                return new SerializerPool();
+            }
+        } : null;
+    }
+    
+    private final Serializer[] serializers = new Serializer[MAX_POOLED_SERIALIZERS];
+    private int size;
+    
+    private SerializerPool() {}
+
+    /**
+     * Determine whether pooling is enabled.
+     * 
+     * @return <code>true</code> if pooling is enabled, <code>false</code> otherwise
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    private static Serializer poll() {
+        if (!enabled) {
+            return null;
+        }
+        SerializerPool pool = pools.get();
+        if (pool.size == 0) {
+            return null;
+        }
+        Serializer serializer = pool.serializers[--pool.size];
+        pool.serializers[pool.size] = null;
+        return serializer;
+    }
+    
+    /**
+     * Get a serializer that writes to a given output stream.
+     * 
+     * @param out
+     *            the output stream to write to
+     * @param encoding
+     *            the encoding to use
+     * @return the serializer
+     */
+    public static Serializer acquire(OutputStream out, String encoding) {
+        Serializer serializer = poll();
+        if (serializer == null) {
+            return new Serializer(out, encoding);
+        } else {
+            serializer.reset(out, encoding);
+            return serializer;
+        }
+    }
+
+    /**
+     * Get a serializer that writes to a given {@link Writer}.
+     * 
+     * @param out
+     *            the writer to write to
+     * @return the serializer
+     */
+    public static Serializer acquire(Writer out) {
+        Serializer serializer = poll();
+        if (serializer == null) {
+            return new Serializer(out);
+        } else {
+            serializer.reset(out);
+            return serializer;
+        }
+    }
+
+    /**
+     * Return a serializer to the pool. The serializer doesn't need to be in any particular state;
+     * in particular it is safe to release a serializer after an exception has occurred.
+     * 
+     * @param serializer
+     *            the serializer to release
+     */
+    public static void release(Serializer serializer) {
+        if (!enabled) {
+            return;
+        }
+        SerializerPool pool = pools.get();
+        if (pool.size < MAX_POOLED_SERIALIZERS) {
+            serializer.detach();
+            pool.serializers[pool.size++] = serializer;
+        }
+    }
+}
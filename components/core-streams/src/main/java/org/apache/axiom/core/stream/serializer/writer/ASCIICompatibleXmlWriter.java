@@ -20,12 +20,13 @@ package org.apache.axiom.core.stream.serializer.writer;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 
 import org.apache.axiom.util.base64.AbstractBase64EncodingOutputStream;
 
 abstract class ASCIICompatibleXmlWriter extends XmlWriter {
-    private final OutputStream out;
-    final byte[] buffer = new byte[4096];
+    private OutputStream out;
+    final byte[] buffer = new byte[8192];
     int bufferPosition;
     private char highSurrogate;
     
@@ -33,8 +34,33 @@ abstract class ASCIICompatibleXmlWriter extends XmlWriter {
         this.out = out;
     }
 
+    /**
+     * Get the canonical name of the charset implemented by this writer.
+     * 
+     * @return the charset name, as returned by {@link Charset#name()}
+     */
+    abstract String getCharsetName();
+
+    /**
+     * Reset the encoding specific state of this writer. Called by
+     * {@link #reset(OutputStream, String)}.
+     */
+    abstract void resetState();
+
     protected abstract void writeNonASCIICharacter(int codePoint) throws IOException;
 
+    @Override
+    public final boolean reset(OutputStream out, String encoding) {
+        if (!Charset.forName(encoding).name().equals(getCharsetName())) {
+            return false;
+        }
+        this.out = out;
+        bufferPosition = 0;
+        highSurrogate = 0;
+        resetState();
+        return true;
+    }
+
     protected final void writeByte(byte b) throws IOException {
         if (bufferPosition == buffer.length) {
             flushBuffer();
@@ -77,11 +103,16 @@ abstract class ASCIICompatibleXmlWriter extends XmlWriter {
 
     @Override
     public final void write(String s) throws IOException {
+        write(s, 0, s.length());
+    }
+
+    @Override
+    public final void write(String s, int start, int length) throws IOException {
         final byte[] buffer = this.buffer;
         final int bufferLength = buffer.length;
         int bufferPosition = this.bufferPosition;
         int highSurrogate = this.highSurrogate;
-        for (int i=0, length=s.length(); i<length; i++) {
+        for (int i=start, end=start+length; i<end; i++) {
             char c = s.charAt(i);
             if (c < 128 && highSurrogate == 0) {
                 if (bufferPosition == bufferLength) {
@@ -123,6 +154,100 @@ abstract class ASCIICompatibleXmlWriter extends XmlWriter {
         this.bufferPosition = bufferPosition;
     }
 
+    @Override
+    public final int writeClean(String s, int start, int end, boolean[] cleanASCIIChars) throws IOException {
+        if (highSurrogate != 0) {
+            return start;
+        }
+        final byte[] buffer = this.buffer;
+        final int bufferLength = buffer.length;
+        int bufferPosition = this.bufferPosition;
+        int i = start;
+        while (i < end) {
+            char c = s.charAt(i);
+            if (c < 128) {
+                if (!cleanASCIIChars[c]) {
+                    break;
+                }
+                if (bufferPosition == bufferLength) {
+                    out.write(buffer, 0, bufferLength);
+                    bufferPosition = 0;
+                }
+                buffer[bufferPosition++] = (byte)c;
+                i++;
+            } else if (c <= 0x9F || c == 0x2028) {
+                break;
+            } else {
+                int codePoint;
+                if (Character.isHighSurrogate(c)) {
+                    char low;
+                    if (i+1 == end || !Character.isLowSurrogate(low = s.charAt(i+1))) {
+                        break;
+                    }
+                    codePoint = Character.toCodePoint(c, low);
+                    i += 2;
+                } else if (Character.isLowSurrogate(c)) {
+                    break;
+                } else {
+                    codePoint = c;
+                    i++;
+                }
+                this.bufferPosition = bufferPosition;
+                writeNonASCIICharacter(codePoint);
+                bufferPosition = this.bufferPosition;
+            }
+        }
+        this.bufferPosition = bufferPosition;
+        return i;
+    }
+
+    @Override
+    public final int writeClean(char[] chars, int start, int end, boolean[] cleanASCIIChars) throws IOException {
+        if (highSurrogate != 0) {
+            return start;
+        }
+        final byte[] buffer = this.buffer;
+        final int bufferLength = buffer.length;
+        int bufferPosition = this.bufferPosition;
+        int i = start;
+        while (i < end) {
+            char c = chars[i];
+            if (c < 128) {
+                if (!cleanASCIIChars[c]) {
+                    break;
+                }
+                if (bufferPosition == bufferLength) {
+                    out.write(buffer, 0, bufferLength);
+                    bufferPosition = 0;
+                }
+                buffer[bufferPosition++] = (byte)c;
+                i++;
+            } else if (c <= 0x9F || c == 0x2028) {
+                break;
+            } else {
+                int codePoint;
+                if (Character.isHighSurrogate(c)) {
+                    char low;
+                    if (i+1 == end || !Character.isLowSurrogate(low = chars[i+1])) {
+                        break;
+                    }
+                    codePoint = Character.toCodePoint(c, low);
+                    i += 2;
+                } else if (Character.isLowSurrogate(c)) {
+                    break;
+                } else {
+                    codePoint = c;
+                    i++;
+                }
+                this.bufferPosition = bufferPosition;
+                writeNonASCIICharacter(codePoint);
+                bufferPosition = this.bufferPosition;
+            }
+        }
+        this.bufferPosition = bufferPosition;
+        return i;
+    }
+
     @Override
     public AbstractBase64EncodingOutputStream getBase64EncodingOutputStream() {
         return new AbstractBase64EncodingOutputStream() {
@@ -135,6 +260,20 @@ abstract class ASCIICompatibleXmlWriter extends XmlWriter {
                 bufferPosition += 4;
             }
             
+            @Override
+            protected void doWrite(byte[] b, int off, int len) throws IOException {
+                while (len > 0) {
+                    if (bufferPosition == buffer.length) {
+                        ASCIICompatibleXmlWriter.this.flushBuffer();
+                    }
+                    int c = Math.min(len, buffer.length-bufferPosition);
+                    System.arraycopy(b, off, buffer, bufferPosition, c);
+                    bufferPosition += c;
+                    off += c;
+                    len -= c;
+                }
+            }
+            
             @Override
             protected void flushBuffer() throws IOException {
             }
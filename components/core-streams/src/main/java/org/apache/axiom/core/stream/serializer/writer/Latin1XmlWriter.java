@@ -30,6 +30,16 @@ final class Latin1XmlWriter extends ASCIICompatibleXmlWriter {
         this.maxChar = maxChar;
     }
 
+    @Override
+    String getCharsetName() {
+        return maxChar == 127 ? "US-ASCII" : "ISO-8859-1";
+    }
+
+    @Override
+    void resetState() {
+        unmappableCharacterHandler = UnmappableCharacterHandler.THROW_EXCEPTION;
+    }
+
     @Override
     public void setUnmappableCharacterHandler(UnmappableCharacterHandler unmappableCharacterHandler) throws IOException {
         this.unmappableCharacterHandler = unmappableCharacterHandler;
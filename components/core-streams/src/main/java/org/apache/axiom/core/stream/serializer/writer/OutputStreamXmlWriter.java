@@ -29,7 +29,7 @@ import java.nio.charset.CoderResult;
 import org.apache.axiom.util.base64.AbstractBase64EncodingOutputStream;
 
 final class OutputStreamXmlWriter extends XmlWriter {
-    private final OutputStream out;
+    private OutputStream out;
     private final CharBuffer encoderIn;
     private final ByteBuffer encoderOut;
     private final CharsetEncoder encoder;
@@ -44,6 +44,23 @@ final class OutputStreamXmlWriter extends XmlWriter {
         encoder = charset.newEncoder();
     }
 
+    @Override
+    public boolean reset(OutputStream out, String encoding) {
+        if (!Charset.forName(encoding).equals(encoder.charset())) {
+            return false;
+        }
+        this.out = out;
+        encoderIn.clear();
+        encoderOut.clear();
+        encoder.reset();
+        unmappableCharacterHandler = UnmappableCharacterHandler.THROW_EXCEPTION;
+        processingUnmappableCharacter = false;
+        if (encoderInAlt != null) {
+            encoderInAlt.clear();
+        }
+        return true;
+    }
+
     private void flushEncodingOut() throws IOException {
         out.write(encoderOut.array(), 0, encoderOut.position());
         encoderOut.clear();
@@ -113,15 +130,18 @@ final class OutputStreamXmlWriter extends XmlWriter {
 
     @Override
     public void write(String src) throws IOException {
+        write(src, 0, src.length());
+    }
+
+    @Override
+    public void write(String src, int offset, int length) throws IOException {
         CharBuffer encoderIn = getEncoderIn();
-        int offset = 0;
-        int length = src.length();
         while (length > 0) {
             if (!encoderIn.hasRemaining()) {
                 flush(encoderIn);
             }
             int c = Math.min(length, encoderIn.remaining());
-            encoderIn.put(src, offset, length);
+            encoderIn.put(src, offset, offset+c);
             offset += c;
             length -= c;
         }
@@ -135,7 +155,7 @@ final class OutputStreamXmlWriter extends XmlWriter {
                 flush(encoderIn);
             }
             int c = Math.min(length, encoderIn.remaining());
-            encoderIn.put(src, offset, length);
+            encoderIn.put(src, offset, c);
             offset += c;
             length -= c;
         }
@@ -155,6 +175,21 @@ final class OutputStreamXmlWriter extends XmlWriter {
                 }
             }
             
+            @Override
+            protected void doWrite(byte[] b, int off, int len) throws IOException {
+                CharBuffer encoderIn = getEncoderIn();
+                while (len > 0) {
+                    if (!encoderIn.hasRemaining()) {
+                        OutputStreamXmlWriter.this.flush(encoderIn);
+                    }
+                    int c = Math.min(len, encoderIn.remaining());
+                    for (int i=0; i<c; i++) {
+                        encoderIn.put((char)(b[off++] & 0xFF));
+                    }
+                    len -= c;
+                }
+            }
+            
             @Override
             protected void flushBuffer() throws IOException {
             }
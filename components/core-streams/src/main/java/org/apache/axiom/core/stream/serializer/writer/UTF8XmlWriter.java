@@ -26,6 +26,15 @@ final class UTF8XmlWriter extends ASCIICompatibleXmlWriter {
         super(out);
     }
 
+    @Override
+    String getCharsetName() {
+        return "UTF-8";
+    }
+
+    @Override
+    void resetState() {
+    }
+
     @Override
     public void setUnmappableCharacterHandler(UnmappableCharacterHandler unmappableCharacterHandler) {
         // There are no unmappable characters in UTF-8
@@ -25,12 +25,18 @@ import org.apache.axiom.util.base64.AbstractBase64EncodingOutputStream;
 import org.apache.axiom.util.base64.Base64EncodingWriterOutputStream;
 
 public final class WriterXmlWriter extends XmlWriter {
-    private final Writer out;
+    private Writer out;
 
     public WriterXmlWriter(Writer out) {
         this.out = out;
     }
 
+    @Override
+    public boolean reset(Writer out) {
+        this.out = out;
+        return true;
+    }
+
     @Override
     public void setUnmappableCharacterHandler(UnmappableCharacterHandler unmappableCharacterHandler) {
     }
@@ -45,6 +51,11 @@ public final class WriterXmlWriter extends XmlWriter {
         out.write(s);
     }
 
+    @Override
+    public void write(String s, int start, int length) throws IOException {
+        out.write(s, start, length);
+    }
+
     @Override
     public void write(char[] chars, int start, int length) throws IOException {
         out.write(chars, start, length);
@@ -20,11 +20,18 @@ package org.apache.axiom.core.stream.serializer.writer;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Writer;
 import java.nio.charset.Charset;
 
 import org.apache.axiom.util.base64.AbstractBase64EncodingOutputStream;
 
 public abstract class XmlWriter {
+    /**
+     * Buffer used to format the code point in {@link #writeCharacterReference(int)}. Code points
+     * have at most 7 decimal digits.
+     */
+    private final char[] characterReferenceBuffer = new char[10];
+    
     public static XmlWriter create(OutputStream out, String encoding) {
         Charset charset = Charset.forName(encoding);
         String name = charset.name();
@@ -39,11 +46,111 @@ public abstract class XmlWriter {
         }
     }
 
+    /**
+     * Prepare this writer for reuse with a different output stream. Any data remaining in the
+     * writer's buffers is discarded and the unmappable character handler is reset to its default.
+     * 
+     * @param out
+     *            the output stream to write to
+     * @param encoding
+     *            the encoding to use
+     * @return <code>true</code> if the writer has been reset, <code>false</code> if it can't be
+     *         reused for the given encoding, in which case the caller should use
+     *         {@link #create(OutputStream, String)} instead
+     */
+    public boolean reset(OutputStream out, String encoding) {
+        return false;
+    }
+
+    /**
+     * Prepare this writer for reuse with a different {@link Writer}. See
+     * {@link #reset(OutputStream, String)} for more information.
+     * 
+     * @param out
+     *            the writer to write to
+     * @return <code>true</code> if the writer has been reset, <code>false</code> if it can't be
+     *         reused with a {@link Writer}
+     */
+    public boolean reset(Writer out) {
+        return false;
+    }
+
     public abstract void setUnmappableCharacterHandler(UnmappableCharacterHandler unmappableCharacterHandler) throws IOException;
     public abstract void write(char c) throws IOException;
     public abstract void write(String s) throws IOException;
+    public abstract void write(String s, int start, int length) throws IOException;
     public abstract void write(char chars[], int start, int length) throws IOException;
 
+    /**
+     * Write a run of characters that can be written without escaping. This method writes
+     * characters starting at <code>start</code> and stops at the first character that requires
+     * special treatment by the caller, i.e.
+     * <ul>
+     * <li>an ASCII character for which the corresponding entry in <code>cleanASCIIChars</code> is
+     * <code>false</code>;
+     * <li>a character in the range 0x7F to 0x9F or the line separator (U+2028), which are always
+     * replaced by character references;
+     * <li>depending on the implementation, a character that can't be written in the output
+     * encoding or that is part of a surrogate pair.
+     * </ul>
+     * <p>
+     * Implementations for the common encodings escape and encode the characters in a single pass
+     * directly into their output buffer.
+     * 
+     * @param s
+     *            the string containing the characters to write
+     * @param start
+     *            the index of the first character to write
+     * @param end
+     *            the index after the last character to write
+     * @param cleanASCIIChars
+     *            a table of length 128 specifying which ASCII characters can be written as is
+     * @return the index of the first character that has not been written
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public int writeClean(String s, int start, int end, boolean[] cleanASCIIChars) throws IOException {
+        int i = start;
+        while (i < end && isClean(s.charAt(i), cleanASCIIChars)) {
+            i++;
+        }
+        if (i > start) {
+            write(s, start, i-start);
+        }
+        return i;
+    }
+    
+    /**
+     * Write a run of characters that can be written without escaping. See
+     * {@link #writeClean(String, int, int, boolean[])} for more information.
+     * 
+     * @param chars
+     *            the array containing the characters to write
+     * @param start
+     *            the index of the first character to write
+     * @param end
+     *            the index after the last character to write
+     * @param cleanASCIIChars
+     *            a table of length 128 specifying which ASCII characters can be written as is
+     * @return the index of the first character that has not been written
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public int writeClean(char[] chars, int start, int end, boolean[] cleanASCIIChars) throws IOException {
+        int i = start;
+        while (i < end && isClean(chars[i], cleanASCIIChars)) {
+            i++;
+        }
+        if (i > start) {
+            write(chars, start, i-start);
+        }
+        return i;
+    }
+    
+    private static boolean isClean(char c, boolean[] cleanASCIIChars) {
+        return c < 128 ? cleanASCIIChars[c] : c > 0x9F && c != 0x2028;
+    }
+
     public abstract AbstractBase64EncodingOutputStream getBase64EncodingOutputStream();
 
     /**
@@ -54,9 +161,15 @@ public abstract class XmlWriter {
     public abstract void flushBuffer() throws IOException;
     
     public final void writeCharacterReference(int codePoint) throws IOException {
-        write("&#");
-        // TODO: optimize this
-        write(Integer.toString(codePoint));
-        write(';');
+        char[] buffer = characterReferenceBuffer;
+        int pos = buffer.length;
+        buffer[--pos] = ';';
+        do {
+            buffer[--pos] = (char)('0' + codePoint % 10);
+            codePoint /= 10;
+        } while (codePoint > 0);
+        buffer[--pos] = '#';
+        buffer[--pos] = '&';
+        write(buffer, pos, buffer.length-pos);
     }
 }
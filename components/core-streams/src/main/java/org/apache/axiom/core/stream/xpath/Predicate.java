@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.xpath;
+
+/**
+ * A predicate of a {@link Step}. Only predicates that can be evaluated when the start tag of an
+ * element is encountered are supported, namely positional predicates ({@code [2]}) and tests on
+ * attributes ({@code [@name]}, {@code [@name='value']} and {@code [@name!='value']}).
+ */
+final class Predicate {
+    /**
+     * The position to match for positional predicates, or 0 if this is an attribute test.
+     */
+    final int position;
+    
+    /**
+     * The index of the counter used to evaluate a positional predicate.
+     */
+    final int counter;
+    
+    final String namespaceURI;
+    final String localName;
+    
+    /**
+     * The attribute value to compare to, or {@code null} if the predicate only checks the
+     * presence of the attribute.
+     */
+    final String value;
+    
+    final boolean negate;
+
+    private Predicate(int position, int counter, String namespaceURI, String localName,
+            String value, boolean negate) {
+        this.position = position;
+        this.counter = counter;
+        this.namespaceURI = namespaceURI;
+        this.localName = localName;
+        this.value = value;
+        this.negate = negate;
+    }
+
+    static Predicate position(int position, int counter) {
+        return new Predicate(position, counter, null, null, null, false);
+    }
+
+    static Predicate attribute(String namespaceURI, String localName, String value,
+            boolean negate) {
+        return new Predicate(0, -1, namespaceURI, localName, value, negate);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.xpath;
+
+/**
+ * A location step of a {@link StreamingXPathExpression}.
+ */
+final class Step {
+    /**
+     * {@code true} if the step uses the descendant axis (i.e. is preceded by {@code //}),
+     * {@code false} if it uses the child or attribute axis.
+     */
+    final boolean descendant;
+    
+    /**
+     * {@code true} if the step selects attributes.
+     */
+    final boolean attribute;
+    
+    /**
+     * The namespace URI to match, or {@code null} if any namespace URI matches.
+     */
+    final String namespaceURI;
+    
+    /**
+     * The local name to match, or {@code null} if any local name matches.
+     */
+    final String localName;
+    
+    final Predicate[] predicates;
+
+    Step(boolean descendant, boolean attribute, String namespaceURI, String localName,
+            Predicate[] predicates) {
+        this.descendant = descendant;
+        this.attribute = attribute;
+        this.namespaceURI = namespaceURI;
+        this.localName = localName;
+        this.predicates = predicates;
+    }
+
+    boolean matches(String namespaceURI, String localName) {
+        return (this.localName == null || this.localName.equals(localName))
+                && (this.namespaceURI == null || this.namespaceURI.equals(namespaceURI));
+    }
+}
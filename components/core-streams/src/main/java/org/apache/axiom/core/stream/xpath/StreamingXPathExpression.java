@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.xpath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+
+/**
+ * A compiled XPath expression that can be evaluated in a single pass over a stream of events.
+ * Only a forward-only subset of XPath is supported:
+ * <ul>
+ * <li>absolute location paths, using {@code /} and {@code //} as separators;
+ * <li>the {@code child}, {@code descendant} and {@code attribute} axes (with {@code @} as
+ * abbreviation for the latter), where an attribute step can only appear as the last step;
+ * <li>name tests of the form {@code *}, {@code prefix:*}, {@code name} and {@code prefix:name};
+ * <li>positional predicates ({@code [2]}) and predicates that test the presence or value of an
+ * attribute ({@code [@name]}, {@code [@name='value']} and {@code [@name!='value']}).
+ * </ul>
+ * <p>
+ * As in XPath 1.0, unprefixed names in name tests always refer to elements or attributes without
+ * namespace. Instances of this class are immutable and can be shared between threads.
+ */
+public final class StreamingXPathExpression {
+    private static final int MAX_STEPS = 63;
+    
+    private final String expression;
+    private final Step[] steps;
+    private final long descendantMask;
+    private final int counterCount;
+
+    private StreamingXPathExpression(String expression, Step[] steps, int counterCount) {
+        this.expression = expression;
+        this.steps = steps;
+        long descendantMask = 0;
+        for (int i=0; i<steps.length; i++) {
+            if (steps[i].descendant) {
+                descendantMask |= 1L << i;
+            }
+        }
+        this.descendantMask = descendantMask;
+        this.counterCount = counterCount;
+    }
+
+    /**
+     * Compile an XPath expression.
+     * 
+     * @param expression
+     *            the XPath expression
+     * @param namespaces
+     *            the namespace bindings used to resolve prefixes in the expression, or
+     *            {@code null} if the expression doesn't use any prefixes
+     * @return the compiled expression
+     * @throws IllegalArgumentException
+     *             if the expression is invalid or not part of the subset supported by the
+     *             streaming evaluator
+     */
+    public static StreamingXPathExpression compile(String expression, Map<String,String> namespaces) {
+        return new Parser(expression,
+                namespaces == null ? Collections.<String,String>emptyMap() : namespaces).parse();
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Determine whether the expression selects attributes (instead of elements).
+     * 
+     * @return {@code true} if the last step of the expression uses the attribute axis
+     */
+    public boolean isAttributeExpression() {
+        return steps[steps.length-1].attribute;
+    }
+
+    Step[] getSteps() {
+        return steps;
+    }
+
+    long getDescendantMask() {
+        return descendantMask;
+    }
+
+    int getCounterCount() {
+        return counterCount;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static final class Parser {
+        private final String expression;
+        private final Map<String,String> namespaces;
+        private int pos;
+        private int counterCount;
+        
+        Parser(String expression, Map<String,String> namespaces) {
+            this.expression = expression;
+            this.namespaces = namespaces;
+        }
+
+        StreamingXPathExpression parse() {
+            List<Step> steps = new ArrayList<Step>();
+            skipWhitespace();
+            if (!lookingAt("/")) {
+                throw error("only absolute location paths are supported");
+            }
+            while (pos < expression.length()) {
+                if (!steps.isEmpty() && steps.get(steps.size()-1).attribute) {
+                    throw error("an attribute step must be the last step");
+                }
+                boolean descendant;
+                if (consume("//")) {
+                    descendant = true;
+                } else if (consume("/")) {
+                    descendant = false;
+                } else {
+                    throw error("expected '/' or '//'");
+                }
+                steps.add(parseStep(descendant));
+                skipWhitespace();
+            }
+            if (steps.isEmpty()) {
+                throw error("expected a location step");
+            }
+            if (steps.size() > MAX_STEPS) {
+                throw error("too many location steps");
+            }
+            return new StreamingXPathExpression(expression, steps.toArray(new Step[steps.size()]),
+                    counterCount);
+        }
+
+        private Step parseStep(boolean descendant) {
+            skipWhitespace();
+            boolean attribute = false;
+            boolean descendantAxis = false;
+            if (consume("@") || consume("attribute::")) {
+                attribute = true;
+            } else if (consume("descendant::")) {
+                descendantAxis = true;
+            } else {
+                consume("child::");
+            }
+            skipWhitespace();
+            String namespaceURI;
+            String localName;
+            if (consume("*")) {
+                namespaceURI = null;
+                localName = null;
+            } else {
+                String name = parseNCName();
+                if (consume(":")) {
+                    namespaceURI = resolvePrefix(name);
+                    localName = consume("*") ? null : parseNCName();
+                } else {
+                    namespaceURI = "";
+                    localName = name;
+                }
+            }
+            List<Predicate> predicates = new ArrayList<Predicate>();
+            skipWhitespace();
+            while (consume("[")) {
+                if (attribute) {
+                    throw error("predicates are not supported on attribute steps");
+                }
+                skipWhitespace();
+                if (pos < expression.length() && Character.isDigit(expression.charAt(pos))) {
+                    if (descendantAxis) {
+                        throw error("positional predicates are not supported on the descendant axis");
+                    }
+                    int start = pos;
+                    while (pos < expression.length() && Character.isDigit(expression.charAt(pos))) {
+                        pos++;
+                    }
+                    int position;
+                    try {
+                        position = Integer.parseInt(expression.substring(start, pos));
+                    } catch (NumberFormatException ex) {
+                        throw error("invalid position");
+                    }
+                    if (position < 1) {
+                        throw error("positions start at 1");
+                    }
+                    predicates.add(Predicate.position(position, counterCount++));
+                } else if (consume("@")) {
+                    skipWhitespace();
+                    String attNamespaceURI;
+                    String attLocalName;
+                    String name = parseNCName();
+                    if (consume(":")) {
+                        attNamespaceURI = resolvePrefix(name);
+                        attLocalName = parseNCName();
+                    } else {
+                        attNamespaceURI = "";
+                        attLocalName = name;
+                    }
+                    skipWhitespace();
+                    String value;
+                    boolean negate;
+                    if (consume("!=")) {
+                        negate = true;
+                        value = parseLiteral();
+                    } else if (consume("=")) {
+                        negate = false;
+                        value = parseLiteral();
+                    } else {
+                        negate = false;
+                        value = null;
+                    }
+                    predicates.add(Predicate.attribute(attNamespaceURI, attLocalName, value, negate));
+                } else {
+                    throw error("unsupported predicate");
+                }
+                skipWhitespace();
+                if (!consume("]")) {
+                    throw error("expected ']'");
+                }
+                skipWhitespace();
+            }
+            return new Step(descendant || descendantAxis, attribute, namespaceURI, localName,
+                    predicates.toArray(new Predicate[predicates.size()]));
+        }
+
+        private String parseNCName() {
+            int start = pos;
+            while (pos < expression.length()) {
+                char c = expression.charAt(pos);
+                if (Character.isLetter(c) || c == '_'
+                        || (pos > start && (Character.isDigit(c) || c == '-' || c == '.'))) {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            if (pos == start) {
+                throw error("expected a name");
+            }
+            return expression.substring(start, pos);
+        }
+
+        private String parseLiteral() {
+            skipWhitespace();
+            if (pos == expression.length()) {
+                throw error("expected a literal");
+            }
+            char quote = expression.charAt(pos);
+            if (quote != '\'' && quote != '"') {
+                throw error("expected a literal");
+            }
+            int end = expression.indexOf(quote, pos+1);
+            if (end == -1) {
+                throw error("unterminated literal");
+            }
+            String literal = expression.substring(pos+1, end);
+            pos = end+1;
+            return literal;
+        }
+
+        private String resolvePrefix(String prefix) {
+            String namespaceURI = namespaces.get(prefix);
+            if (namespaceURI == null) {
+                if (prefix.equals(XMLConstants.XML_NS_PREFIX)) {
+                    return XMLConstants.XML_NS_URI;
+                }
+                throw error("unbound prefix '" + prefix + "'");
+            }
+            return namespaceURI;
+        }
+
+        private void skipWhitespace() {
+            while (pos < expression.length() && Character.isWhitespace(expression.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private boolean lookingAt(String s) {
+            return expression.startsWith(s, pos);
+        }
+
+        private boolean consume(String s) {
+            if (expression.startsWith(s, pos)) {
+                pos += s.length();
+                return true;
+            } else {
+                return false;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid or unsupported XPath expression \""
+                    + expression + "\" at position " + pos + ": " + message);
+        }
+    }
+}
@@ -16,27 +16,22 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-package org.apache.axiom.soap.impl.common;
+package org.apache.axiom.core.stream.xpath;
 
-import org.apache.axiom.core.ElementMatcher;
-import org.apache.axiom.om.impl.intf.AxiomElement;
-import org.apache.axiom.soap.impl.intf.SOAPHelper;
+import org.apache.axiom.core.stream.XmlFilter;
+import org.apache.axiom.core.stream.XmlHandler;
 
-/**
- * A Checker to make sure headers match a given role.  If the role we're looking for is null, then
- * everything matches.
- */
-public class RoleChecker implements ElementMatcher<AxiomElement> {
-    private final SOAPHelper soapHelper;
-    private final String role;
+public final class XPathFilter implements XmlFilter {
+    private final StreamingXPathExpression expression;
+    private final XPathMatchHandler matchHandler;
 
-    public RoleChecker(SOAPHelper soapHelper, String role) {
-        this.soapHelper = soapHelper;
-        this.role = role;
+    public XPathFilter(StreamingXPathExpression expression, XPathMatchHandler matchHandler) {
+        this.expression = expression;
+        this.matchHandler = matchHandler;
     }
 
     @Override
-    public boolean matches(AxiomElement element, String namespaceURI, String name) {
-        return role == null || role.equals(SOAPHeaderBlockHelper.getRole(element, soapHelper));
+    public XmlHandler createFilterHandler(XmlHandler parent) {
+        return new XPathFilterHandler(parent, expression, matchHandler);
     }
 }
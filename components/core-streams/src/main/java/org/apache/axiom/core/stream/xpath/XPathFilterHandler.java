@@ -0,0 +1,403 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.xpath;
+
+import java.util.Arrays;
+
+import org.apache.axiom.core.stream.StreamException;
+import org.apache.axiom.core.stream.XmlHandler;
+import org.apache.axiom.core.stream.XmlHandlerWrapper;
+
+/**
+ * Evaluates a {@link StreamingXPathExpression} on the events passing through the handler. All
+ * events are forwarded unchanged to the parent handler; selected nodes are reported to a
+ * {@link XPathMatchHandler}.
+ * <p>
+ * The set of steps for which an element is a context node is represented as a bit mask, so
+ * that memory usage only depends on the depth of the document, not on its size.
+ */
+public final class XPathFilterHandler extends XmlHandlerWrapper {
+    private final Step[] steps;
+    private final long descendantMask;
+    private final int counterCount;
+    private final XPathMatchHandler matchHandler;
+    
+    /**
+     * The context bit masks, indexed by depth. Index 0 is the document node.
+     */
+    private long[] contexts = new long[16];
+    
+    /**
+     * The counters for positional predicates, indexed by the depth of the parent node.
+     */
+    private int[][] counters;
+    
+    private int depth;
+    
+    private String[] nsPrefixes = new String[16];
+    private String[] nsURIs = new String[16];
+    private int nsCount;
+    private int[] nsCountStack = new int[16];
+    
+    private String namespaceURI;
+    private String localName;
+    private String prefix;
+    private String[] attributes = new String[5*8];
+    private boolean[] attributeSpecified = new boolean[8];
+    private int attributeCount;
+    
+    private XmlHandler[] captures = new XmlHandler[4];
+    private int[] captureDepths = new int[4];
+    private int captureCount;
+
+    public XPathFilterHandler(XmlHandler parent, StreamingXPathExpression expression,
+            XPathMatchHandler matchHandler) {
+        super(parent);
+        steps = expression.getSteps();
+        descendantMask = expression.getDescendantMask();
+        counterCount = expression.getCounterCount();
+        this.matchHandler = matchHandler;
+        if (counterCount > 0) {
+            counters = new int[16][];
+        }
+    }
+
+    /**
+     * Determine whether the events for a selected element are currently being sent to a
+     * handler returned by {@link XPathMatchHandler#elementMatched(String, String)}.
+     * 
+     * @return {@code true} if there is at least one capture in progress
+     */
+    public boolean isCapturing() {
+        return captureCount > 0;
+    }
+
+    private void resetCounters(int depth) {
+        if (counters != null) {
+            if (depth == counters.length) {
+                counters = Arrays.copyOf(counters, depth*2);
+            }
+            int[] frame = counters[depth];
+            if (frame == null) {
+                counters[depth] = new int[counterCount];
+            } else {
+                Arrays.fill(frame, 0);
+            }
+        }
+    }
+
+    private void init() {
+        depth = 0;
+        nsCount = 0;
+        captureCount = 0;
+        contexts[0] = 1L;
+        resetCounters(0);
+    }
+
+    @Override
+    public void startDocument(String inputEncoding, String xmlVersion, String xmlEncoding,
+            Boolean standalone) throws StreamException {
+        init();
+        super.startDocument(inputEncoding, xmlVersion, xmlEncoding, standalone);
+    }
+
+    @Override
+    public void startFragment() throws StreamException {
+        init();
+        super.startFragment();
+    }
+
+    @Override
+    public void startElement(String namespaceURI, String localName, String prefix)
+            throws StreamException {
+        super.startElement(namespaceURI, localName, prefix);
+        for (int i=0; i<captureCount; i++) {
+            captures[i].startElement(namespaceURI, localName, prefix);
+        }
+        this.namespaceURI = namespaceURI;
+        this.localName = localName;
+        this.prefix = prefix;
+        attributeCount = 0;
+        depth++;
+        if (depth == contexts.length) {
+            contexts = Arrays.copyOf(contexts, depth*2);
+            nsCountStack = Arrays.copyOf(nsCountStack, depth*2);
+        }
+        nsCountStack[depth] = nsCount;
+    }
+
+    @Override
+    public void processNamespaceDeclaration(String prefix, String namespaceURI)
+            throws StreamException {
+        super.processNamespaceDeclaration(prefix, namespaceURI);
+        for (int i=0; i<captureCount; i++) {
+            captures[i].processNamespaceDeclaration(prefix, namespaceURI);
+        }
+        if (nsCount == nsPrefixes.length) {
+            nsPrefixes = Arrays.copyOf(nsPrefixes, nsCount*2);
+            nsURIs = Arrays.copyOf(nsURIs, nsCount*2);
+        }
+        nsPrefixes[nsCount] = prefix;
+        nsURIs[nsCount] = namespaceURI;
+        nsCount++;
+    }
+
+    private void addAttribute(String namespaceURI, String localName, String prefix, String value,
+            String type, boolean specified) {
+        if (attributeCount == attributeSpecified.length) {
+            attributes = Arrays.copyOf(attributes, attributes.length*2);
+            attributeSpecified = Arrays.copyOf(attributeSpecified, attributeCount*2);
+        }
+        int idx = attributeCount*5;
+        attributes[idx] = namespaceURI;
+        attributes[idx+1] = localName;
+        attributes[idx+2] = prefix;
+        attributes[idx+3] = value;
+        attributes[idx+4] = type;
+        attributeSpecified[attributeCount] = specified;
+        attributeCount++;
+    }
+
+    @Override
+    public void processAttribute(String namespaceURI, String localName, String prefix,
+            String value, String type, boolean specified) throws StreamException {
+        super.processAttribute(namespaceURI, localName, prefix, value, type, specified);
+        for (int i=0; i<captureCount; i++) {
+            captures[i].processAttribute(namespaceURI, localName, prefix, value, type, specified);
+        }
+        addAttribute(namespaceURI, localName, prefix, value, type, specified);
+    }
+
+    @Override
+    public void processAttribute(String name, String value, String type, boolean specified)
+            throws StreamException {
+        super.processAttribute(name, value, type, specified);
+        for (int i=0; i<captureCount; i++) {
+            captures[i].processAttribute(name, value, type, specified);
+        }
+        addAttribute("", name, null, value, type, specified);
+    }
+
+    private String getAttributeValue(String namespaceURI, String localName) {
+        for (int i=0; i<attributeCount; i++) {
+            int idx = i*5;
+            if (localName.equals(attributes[idx+1]) && namespaceURI.equals(attributes[idx])) {
+                return attributes[idx+3];
+            }
+        }
+        return null;
+    }
+
+    private boolean evaluatePredicates(Predicate[] predicates, int[] counters) {
+        for (Predicate predicate : predicates) {
+            if (predicate.position != 0) {
+                if (++counters[predicate.counter] != predicate.position) {
+                    return false;
+                }
+            } else {
+                String value = getAttributeValue(predicate.namespaceURI, predicate.localName);
+                if (value == null) {
+                    return false;
+                }
+                if (predicate.value != null && predicate.value.equals(value) == predicate.negate) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void attributesCompleted() throws StreamException {
+        long parentContext = contexts[depth-1];
+        int[] parentCounters = counters == null ? null : counters[depth-1];
+        long context = parentContext & descendantMask;
+        int stepCount = steps.length;
+        for (int i=0; i<stepCount; i++) {
+            if ((parentContext & (1L << i)) != 0) {
+                Step step = steps[i];
+                if (!step.attribute && step.matches(namespaceURI, localName)
+                        && evaluatePredicates(step.predicates, parentCounters)) {
+                    context |= 1L << (i+1);
+                }
+            }
+        }
+        contexts[depth] = context;
+        resetCounters(depth);
+        super.attributesCompleted();
+        for (int i=0; i<captureCount; i++) {
+            captures[i].attributesCompleted();
+        }
+        Step lastStep = steps[stepCount-1];
+        if (lastStep.attribute) {
+            if ((context & (1L << (stepCount-1))) != 0) {
+                for (int i=0; i<attributeCount; i++) {
+                    int idx = i*5;
+                    if (lastStep.matches(attributes[idx], attributes[idx+1])) {
+                        matchHandler.attributeMatched(attributes[idx], attributes[idx+1],
+                                attributes[idx+3]);
+                    }
+                }
+            }
+        } else if ((context & (1L << stepCount)) != 0) {
+            XmlHandler capture = matchHandler.elementMatched(namespaceURI, localName);
+            if (capture != null) {
+                startCapture(capture);
+            }
+        }
+    }
+
+    private void startCapture(XmlHandler capture) throws StreamException {
+        capture.startFragment();
+        capture.startElement(namespaceURI, localName, prefix);
+        // Replay the namespace declarations in scope, giving precedence to the innermost ones
+        // and skipping the declarations of the element itself; these are replayed last to
+        // preserve their order.
+        int elementNsStart = nsCountStack[depth];
+        for (int i=elementNsStart-1; i>=0; i--) {
+            String nsPrefix = nsPrefixes[i];
+            if (nsPrefix.length() == 0 && nsURIs[i].length() == 0) {
+                continue;
+            }
+            boolean overridden = false;
+            for (int j=i+1; j<nsCount; j++) {
+                if (nsPrefixes[j].equals(nsPrefix)) {
+                    overridden = true;
+                    break;
+                }
+            }
+            if (!overridden) {
+                capture.processNamespaceDeclaration(nsPrefix, nsURIs[i]);
+            }
+        }
+        for (int i=elementNsStart; i<nsCount; i++) {
+            capture.processNamespaceDeclaration(nsPrefixes[i], nsURIs[i]);
+        }
+        for (int i=0; i<attributeCount; i++) {
+            int idx = i*5;
+            if (attributes[idx+2] == null) {
+                capture.processAttribute(attributes[idx+1], attributes[idx+3], attributes[idx+4],
+                        attributeSpecified[i]);
+            } else {
+                capture.processAttribute(attributes[idx], attributes[idx+1], attributes[idx+2],
+                        attributes[idx+3], attributes[idx+4], attributeSpecified[i]);
+            }
+        }
+        capture.attributesCompleted();
+        if (captureCount == captures.length) {
+            captures = Arrays.copyOf(captures, captureCount*2);
+            captureDepths = Arrays.copyOf(captureDepths, captureCount*2);
+        }
+        captures[captureCount] = capture;
+        captureDepths[captureCount] = depth;
+        captureCount++;
+    }
+
+    @Override
+    public void endElement() throws StreamException {
+        super.endElement();
+        int newCaptureCount = 0;
+        for (int i=0; i<captureCount; i++) {
+            XmlHandler capture = captures[i];
+            capture.endElement();
+            if (captureDepths[i] == depth) {
+                capture.completed();
+            } else {
+                captures[newCaptureCount] = capture;
+                captureDepths[newCaptureCount] = captureDepths[i];
+                newCaptureCount++;
+            }
+        }
+        for (int i=newCaptureCount; i<captureCount; i++) {
+            captures[i] = null;
+        }
+        captureCount = newCaptureCount;
+        for (int i=nsCountStack[depth]; i<nsCount; i++) {
+            nsPrefixes[i] = null;
+            nsURIs[i] = null;
+        }
+        nsCount = nsCountStack[depth];
+        depth--;
+    }
+
+    @Override
+    public void processCharacterData(Object data, boolean ignorable) throws StreamException {
+        super.processCharacterData(data, ignorable);
+        for (int i=0; i<captureCount; i++) {
+            captures[i].processCharacterData(data, ignorable);
+        }
+    }
+
+    @Override
+    public void startProcessingInstruction(String target) throws StreamException {
+        super.startProcessingInstruction(target);
+        for (int i=0; i<captureCount; i++) {
+            captures[i].startProcessingInstruction(target);
+        }
+    }
+
+    @Override
+    public void endProcessingInstruction() throws StreamException {
+        super.endProcessingInstruction();
+        for (int i=0; i<captureCount; i++) {
+            captures[i].endProcessingInstruction();
+        }
+    }
+
+    @Override
+    public void startComment() throws StreamException {
+        super.startComment();
+        for (int i=0; i<captureCount; i++) {
+            captures[i].startComment();
+        }
+    }
+
+    @Override
+    public void endComment() throws StreamException {
+        super.endComment();
+        for (int i=0; i<captureCount; i++) {
+            captures[i].endComment();
+        }
+    }
+
+    @Override
+    public void startCDATASection() throws StreamException {
+        super.startCDATASection();
+        for (int i=0; i<captureCount; i++) {
+            captures[i].startCDATASection();
+        }
+    }
+
+    @Override
+    public void endCDATASection() throws StreamException {
+        super.endCDATASection();
+        for (int i=0; i<captureCount; i++) {
+            captures[i].endCDATASection();
+        }
+    }
+
+    @Override
+    public void processEntityReference(String name, String replacementText)
+            throws StreamException {
+        super.processEntityReference(name, replacementText);
+        for (int i=0; i<captureCount; i++) {
+            captures[i].processEntityReference(name, replacementText);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.xpath;
+
+import org.apache.axiom.core.stream.StreamException;
+import org.apache.axiom.core.stream.XmlHandler;
+
+/**
+ * Receives the nodes selected by a {@link XPathFilterHandler}.
+ */
+public interface XPathMatchHandler {
+    /**
+     * Notify the handler that an attribute has been selected. This method is only used for
+     * expressions that select attributes.
+     * 
+     * @param namespaceURI
+     *            the namespace URI of the attribute (empty string if the attribute has no
+     *            namespace)
+     * @param localName
+     *            the local name of the attribute
+     * @param value
+     *            the attribute value
+     * @throws StreamException
+     */
+    void attributeMatched(String namespaceURI, String localName, String value) throws StreamException;
+
+    /**
+     * Notify the handler that an element has been selected. This method is called after the
+     * attributes of the element have been processed. If the handler returns a non null value,
+     * then the filter will send the events for the element and its descendants to that handler.
+     * The events start with {@link XmlHandler#startFragment()}, followed by the start tag of the
+     * element (including the namespace declarations of all namespaces in scope, so that the
+     * element can be processed in isolation) and end with {@link XmlHandler#completed()}.
+     * 
+     * @param namespaceURI
+     *            the namespace URI of the element (empty string if the element has no namespace)
+     * @param localName
+     *            the local name of the element
+     * @return the handler that should receive the events for the element, or {@code null} if
+     *         the content of the element is not needed
+     * @throws StreamException
+     */
+    XmlHandler elementMatched(String namespaceURI, String localName) throws StreamException;
+}
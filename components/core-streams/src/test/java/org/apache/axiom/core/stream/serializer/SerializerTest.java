@@ -174,4 +174,75 @@ public class SerializerTest {
             assertThat(sw.toString()).matches("xxx]]&gt;yyy");
         }
     }
+
+    @Test
+    public void testGTEscapedAfterSquareBracketsUTF8() throws Exception {
+        String sequence = "xxx]]>yyy";
+        for (int i=1; i<sequence.length()-1; i++) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            Serializer handler = new Serializer(baos, "UTF-8");
+            handler.startFragment();
+            handler.processCharacterData(sequence.substring(0, i), false);
+            handler.processCharacterData(sequence.substring(i), false);
+            handler.completed();
+            assertThat(new String(baos.toByteArray(), "UTF-8")).isEqualTo("xxx]]&gt;yyy");
+        }
+    }
+
+    @Test
+    public void testEscapingUTF8() throws Exception {
+        String text = "a<b>&c\"d\te\nf\rg\u0085h\u2028i\u00E9j\u20ACk\uD83D\uDE00l";
+        for (int i=0; i<=text.length(); i++) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            Serializer handler = new Serializer(baos, "UTF-8");
+            handler.startFragment();
+            handler.startElement("", "test", "");
+            handler.processAttribute("", "attr", "", text, "CDATA", true);
+            handler.attributesCompleted();
+            handler.processCharacterData(text.substring(0, i), false);
+            handler.processCharacterData(text.substring(i), false);
+            handler.endElement();
+            handler.completed();
+            assertThat(new String(baos.toByteArray(), "UTF-8")).isEqualTo(
+                    "<test attr=\"a&lt;b>&amp;c&quot;d&#9;e&#10;f&#13;g&#133;h&#8232;i\u00E9j\u20ACk\uD83D\uDE00l\">"
+                    + "a&lt;b>&amp;c\"d\te\nf&#13;g&#133;h&#8232;i\u00E9j\u20ACk\uD83D\uDE00l</test>");
+        }
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        ByteArrayOutputStream baos1 = new ByteArrayOutputStream();
+        Serializer handler = new Serializer(baos1, "iso-8859-1");
+        handler.startFragment();
+        handler.startElement("", "a", "");
+        handler.processAttribute("", "attr", "", "\u20AC", "CDATA", true);
+        handler.attributesCompleted();
+        handler.startElement("p", "b", "");
+        handler.attributesCompleted();
+        handler.processCharacterData("]]", false);
+        // Reset in the middle of the document, with pending data in the buffers
+        ByteArrayOutputStream baos2 = new ByteArrayOutputStream();
+        handler.reset(baos2, "iso-8859-1");
+        handler.startFragment();
+        handler.startElement("", "c", "");
+        handler.attributesCompleted();
+        handler.processCharacterData(">\u00E9", false);
+        handler.endElement();
+        handler.completed();
+        assertThat(new String(baos2.toByteArray(), "iso-8859-1")).isEqualTo("<c>>\u00E9</c>");
+        StringWriter sw = new StringWriter();
+        handler.reset(sw);
+        handler.startFragment();
+        handler.startElement("", "d", "");
+        handler.attributesCompleted();
+        handler.endElement();
+        handler.completed();
+        assertThat(sw.toString()).matches("<d ?/>");
+        ByteArrayOutputStream baos3 = new ByteArrayOutputStream();
+        handler.reset(baos3, "UTF-8");
+        handler.startFragment();
+        handler.processCharacterData("\u20AC", false);
+        handler.completed();
+        assertThat(new String(baos3.toByteArray(), "UTF-8")).isEqualTo("\u20AC");
+    }
 }
@@ -38,4 +38,21 @@ public class OutputStreamXmlWriterTest {
         writer.flushBuffer();
         assertThat(baos.toString("iso-8859-1")).isEqualTo("abc&#8364;def");
     }
+
+    @Test
+    public void testWriteLargeString() throws Exception {
+        StringBuilder buffer = new StringBuilder();
+        for (int i=0; i<2000; i++) {
+            buffer.append("abc\u00E9");
+        }
+        String s = buffer.toString();
+        for (int start=0; start<3; start++) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            XmlWriter writer = new OutputStreamXmlWriter(baos, Charset.forName("UTF-16BE"));
+            writer.write(s, start, s.length()-start);
+            writer.write(s.toCharArray(), start, s.length()-start);
+            writer.flushBuffer();
+            assertThat(baos.toString("UTF-16BE")).isEqualTo(s.substring(start) + s.substring(start));
+        }
+    }
 }
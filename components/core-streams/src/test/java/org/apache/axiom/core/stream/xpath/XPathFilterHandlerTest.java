@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.core.stream.xpath;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.core.stream.NullXmlHandler;
+import org.apache.axiom.core.stream.StreamException;
+import org.apache.axiom.core.stream.XmlHandler;
+import org.apache.axiom.core.stream.XmlHandlerWrapper;
+import org.apache.axiom.core.stream.XmlReader;
+import org.apache.axiom.core.stream.dom.DOMInput;
+import org.apache.axiom.core.stream.serializer.Serializer;
+import org.apache.axiom.core.stream.stax.pull.StAXPivot;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+public class XPathFilterHandlerTest {
+    private static final String XML =
+            "<root xmlns:p='urn:p'>"
+            + "<item id='1'>a</item>"
+            + "<group><item id='2' type='x'>b</item><p:item id='3'>c</p:item></group>"
+            + "<item id='4' type='y'><item id='5'>d</item></item>"
+            + "</root>";
+
+    private static final class Collector implements XPathMatchHandler {
+        final List<String> results = new ArrayList<String>();
+        final boolean capture;
+        
+        Collector(boolean capture) {
+            this.capture = capture;
+        }
+
+        @Override
+        public void attributeMatched(String namespaceURI, String localName, String value) {
+            results.add(value);
+        }
+
+        @Override
+        public XmlHandler elementMatched(String namespaceURI, String localName) {
+            if (capture) {
+                final StringWriter sw = new StringWriter();
+                final int idx = results.size();
+                results.add(null);
+                return new XmlHandlerWrapper(new Serializer(sw)) {
+                    @Override
+                    public void completed() throws StreamException {
+                        super.completed();
+                        results.set(idx, sw.toString());
+                    }
+                };
+            } else {
+                results.add(localName);
+                return null;
+            }
+        }
+    }
+
+    private static Document parse(String xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    private static List<String> evaluate(String expression, boolean capture) throws Exception {
+        Collector collector = new Collector(capture);
+        XmlReader reader = new DOMInput(parse(XML), false).createReader(new XPathFilterHandler(
+                NullXmlHandler.INSTANCE,
+                StreamingXPathExpression.compile(expression, Collections.singletonMap("q", "urn:p")),
+                collector));
+        while (!reader.proceed()) {
+            // Just loop
+        }
+        return collector.results;
+    }
+
+    @Test
+    public void testChildAxis() throws Exception {
+        assertThat(evaluate("/root/item/@id", false)).containsExactly("1", "4").inOrder();
+    }
+
+    @Test
+    public void testDescendantAxis() throws Exception {
+        assertThat(evaluate("//item/@id", false)).containsExactly("1", "2", "4", "5").inOrder();
+        assertThat(evaluate("/root/descendant::item/@id", false)).containsExactly("1", "2", "4", "5").inOrder();
+    }
+
+    @Test
+    public void testNamespaces() throws Exception {
+        assertThat(evaluate("//q:item/@id", false)).containsExactly("3");
+        assertThat(evaluate("//q:*/@id", false)).containsExactly("3");
+        assertThat(evaluate("/root/group/*/@id", false)).containsExactly("2", "3").inOrder();
+    }
+
+    @Test
+    public void testPositionalPredicate() throws Exception {
+        assertThat(evaluate("/root/item[2]/@id", false)).containsExactly("4");
+        assertThat(evaluate("//item[1]/@id", false)).containsExactly("1", "2", "5").inOrder();
+    }
+
+    @Test
+    public void testAttributePredicates() throws Exception {
+        assertThat(evaluate("//item[@type]/@id", false)).containsExactly("2", "4").inOrder();
+        assertThat(evaluate("//item[@type='y']/@id", false)).containsExactly("4");
+        assertThat(evaluate("//item[@type!='y']/@id", false)).containsExactly("2");
+        assertThat(evaluate("/root/item[@type][1]/@id", false)).containsExactly("4");
+    }
+
+    @Test
+    public void testElementMatch() throws Exception {
+        assertThat(evaluate("//group/*", false)).containsExactly("item", "item").inOrder();
+    }
+
+    @Test
+    public void testCapture() throws Exception {
+        assertThat(evaluate("//item[@type='y']", true)).containsExactly(
+                "<item xmlns:p=\"urn:p\" id=\"4\" type=\"y\"><item id=\"5\">d</item></item>");
+        assertThat(evaluate("//q:item", true)).containsExactly(
+                "<p:item xmlns:p=\"urn:p\" id=\"3\">c</p:item>");
+    }
+
+    @Test
+    public void testNestedCaptures() throws Exception {
+        assertThat(evaluate("/root/item/descendant::item", true)).containsExactly(
+                "<item xmlns:p=\"urn:p\" id=\"5\">d</item>");
+        assertThat(evaluate("//item[@id!='1'][@id!='2'][@id!='3']", true)).containsExactly(
+                "<item xmlns:p=\"urn:p\" id=\"4\" type=\"y\"><item id=\"5\">d</item></item>",
+                "<item xmlns:p=\"urn:p\" id=\"5\">d</item>").inOrder();
+    }
+
+    @Test
+    public void testWithStAXPivot() throws Exception {
+        Collector collector = new Collector(false);
+        StAXPivot pivot = new StAXPivot(null);
+        pivot.setReader(new DOMInput(parse(XML), false).createReader(new XPathFilterHandler(
+                pivot, StreamingXPathExpression.compile("//group/item/@id", null), collector)));
+        XMLStreamReader reader = pivot;
+        int elements = 0;
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamReader.START_ELEMENT) {
+                elements++;
+            }
+        }
+        assertThat(elements).isEqualTo(7);
+        assertThat(collector.results).containsExactly("2");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRelativePath() {
+        StreamingXPathExpression.compile("item", null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testAttributeStepNotLast() {
+        StreamingXPathExpression.compile("/root/@id/item", null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testUnboundPrefix() {
+        StreamingXPathExpression.compile("/p:root", null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testUnsupportedPredicate() {
+        StreamingXPathExpression.compile("/root[text()='a']", null);
+    }
+}
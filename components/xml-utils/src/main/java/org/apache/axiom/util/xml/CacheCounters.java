@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.util.xml;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hit, miss and eviction counters for caches and interning tables, such as {@link QNameCache} and
+ * {@link NamespaceURIInterner}. To avoid contention, the counters are striped by thread and each
+ * stripe is padded to occupy its own cache line.
+ */
+public final class CacheCounters {
+    private static final int HITS = 0;
+    private static final int MISSES = 1;
+    private static final int EVICTIONS = 2;
+    
+    /**
+     * The distance (in number of longs) between two stripes. This corresponds to 64 bytes, i.e. the
+     * cache line size on common architectures.
+     */
+    private static final int STRIDE = 8;
+    
+    private final AtomicLongArray counters;
+    private final int stripeMask;
+
+    /**
+     * Constructor.
+     * 
+     * @param stripes
+     *            the number of stripes; must be a power of two
+     */
+    public CacheCounters(int stripes) {
+        counters = new AtomicLongArray(stripes*STRIDE);
+        stripeMask = stripes-1;
+    }
+
+    private int getStripeBase() {
+        return ((int)Thread.currentThread().getId() & stripeMask) * STRIDE;
+    }
+
+    /**
+     * Record a lookup that returned an existing entry.
+     */
+    public void hit() {
+        counters.incrementAndGet(getStripeBase() + HITS);
+    }
+
+    /**
+     * Record a lookup that required a new entry to be added.
+     * 
+     * @param evicted
+     *            <code>true</code> if adding the entry caused another entry to be removed
+     */
+    public void miss(boolean evicted) {
+        int base = getStripeBase();
+        counters.incrementAndGet(base + MISSES);
+        if (evicted) {
+            counters.incrementAndGet(base + EVICTIONS);
+        }
+    }
+
+    private long sum(int counter) {
+        long sum = 0;
+        for (int i=counter; i<counters.length(); i+=STRIDE) {
+            sum += counters.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Get the number of hits.
+     * 
+     * @return the sum of the hit counters of all stripes
+     */
+    public long getHits() {
+        return sum(HITS);
+    }
+
+    /**
+     * Get the number of misses.
+     * 
+     * @return the sum of the miss counters of all stripes
+     */
+    public long getMisses() {
+        return sum(MISSES);
+    }
+
+    /**
+     * Get the number of evictions.
+     * 
+     * @return the sum of the eviction counters of all stripes
+     */
+    public long getEvictions() {
+        return sum(EVICTIONS);
+    }
+
+    /**
+     * Reset all counters to zero.
+     */
+    public void reset() {
+        for (int i=0; i<counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+}
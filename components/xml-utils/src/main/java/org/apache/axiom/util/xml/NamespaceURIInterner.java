@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.util.xml;
+
+/**
+ * Process-wide table of interned namespace URIs. {@link #intern(String)} returns the same instance
+ * as {@link String#intern()}, but namespace URIs that have been seen recently are looked up in a
+ * small lock free table instead of the JVM's string pool, which is significantly more expensive.
+ * <p>
+ * The table is set associative (with 4 entries per set) and shared by all threads. Its behavior
+ * can be tuned using the following system properties (which are read once, when the class is
+ * initialized):
+ * <dl>
+ * <dt>{@value #SIZE_PROPERTY}
+ * <dd>The number of entries. The value is rounded up to a power of two. The default is 256.
+ * <dt>{@value #STATISTICS_PROPERTY}
+ * <dd>Enables the statistics returned by {@link #getStats()}. Disabled by default.
+ * </dl>
+ */
+public final class NamespaceURIInterner {
+    /**
+     * System property that specifies the number of entries.
+     */
+    public static final String SIZE_PROPERTY = "org.apache.axiom.util.xml.NamespaceURIInterner.size";
+    
+    /**
+     * System property that enables the collection of statistics.
+     */
+    public static final String STATISTICS_PROPERTY = "org.apache.axiom.util.xml.NamespaceURIInterner.statistics";
+    
+    private static final int WAYS = 4;
+    private static final int MAX_SIZE = 1 << 16;
+    
+    /**
+     * The table entries. The table is not synchronized: strings are immutable, so that a thread
+     * reading a slot always sees a fully initialized instance, and races between concurrent updates
+     * only cause entries to be lost. Since all entries are interned strings, a lost entry doesn't
+     * affect the result of {@link NamespaceURIInterner#intern(String)}.
+     */
+    private static final String[] entries;
+    private static final int setMask;
+    private static final CacheCounters counters;
+    
+    static {
+        int size = 256;
+        String value = getProperty(SIZE_PROPERTY);
+        if (value != null) {
+            try {
+                size = Math.max(WAYS, Math.min(MAX_SIZE, Integer.parseInt(value.trim())));
+            } catch (NumberFormatException ex) {
+                // Use the default
+            }
+        }
+        int roundedSize = Integer.highestOneBit(size);
+        if (roundedSize != size) {
+            roundedSize <<= 1;
+        }
+        entries = new String[roundedSize];
+        setMask = roundedSize/WAYS - 1;
+        counters = Boolean.parseBoolean(getProperty(STATISTICS_PROPERTY))
+                ? new CacheCounters(Math.min(Integer.highestOneBit(
+                        Runtime.getRuntime().availableProcessors())*4, 64)) : null;
+    }
+    
+    private NamespaceURIInterner() {}
+    
+    private static String getProperty(String name) {
+        try {
+            return System.getProperty(name);
+        } catch (SecurityException ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Get the canonical representation of the given namespace URI.
+     * 
+     * @param namespaceURI
+     *            the namespace URI
+     * @return the same instance as returned by {@link String#intern()}
+     */
+    public static String intern(String namespaceURI) {
+        String[] entries = NamespaceURIInterner.entries;
+        int h = namespaceURI.hashCode();
+        int base = ((h ^ (h >>> 16)) & setMask) * WAYS;
+        int end = base + WAYS;
+        for (int i=base; i<end; i++) {
+            String entry = entries[i];
+            if (entry == null) {
+                break;
+            }
+            if (entry == namespaceURI || entry.equals(namespaceURI)) {
+                if (counters != null) {
+                    counters.hit();
+                }
+                return entry;
+            }
+        }
+        String interned = namespaceURI.intern();
+        boolean evicted = entries[end-1] != null;
+        System.arraycopy(entries, base, entries, base+1, WAYS-1);
+        entries[base] = interned;
+        if (counters != null) {
+            counters.miss(evicted);
+        }
+        return interned;
+    }
+    
+    /**
+     * Get the number of entries in the table.
+     * 
+     * @return the number of entries
+     */
+    public static int getSize() {
+        return entries.length;
+    }
+    
+    /**
+     * Determine whether the collection of statistics has been enabled using the
+     * {@value #STATISTICS_PROPERTY} system property.
+     * 
+     * @return <code>true</code> if statistics are collected, <code>false</code> otherwise
+     */
+    public static boolean isStatisticsEnabled() {
+        return counters != null;
+    }
+    
+    /**
+     * Get a snapshot of the statistics. If the collection of statistics is not enabled, all
+     * counters are zero.
+     * 
+     * @return the statistics
+     */
+    public static InterningStats getStats() {
+        return counters == null ? new InterningStats(0, 0, 0)
+                : new InterningStats(counters.getHits(), counters.getMisses(), counters.getEvictions());
+    }
+    
+    /**
+     * Reset the statistics.
+     */
+    public static void resetStats() {
+        if (counters != null) {
+            counters.reset();
+        }
+    }
+}
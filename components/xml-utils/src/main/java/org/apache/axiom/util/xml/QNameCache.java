@@ -20,33 +20,225 @@ package org.apache.axiom.util.xml;
 
 import javax.xml.namespace.QName;
 
+/**
+ * Cache for {@link QName} objects. The cache avoids creating new {@link QName} instances each time a
+ * parser or an object model needs to return the name of an element or attribute.
+ * <p>
+ * The cache is set associative and lock free. Its behavior can be tuned using the following system
+ * properties (which are read once, when the class is initialized):
+ * <dl>
+ * <dt>{@value #SIZE_PROPERTY}
+ * <dd>The number of entries per segment. The value is rounded up to a power of two. The default
+ * is 1024.
+ * <dt>{@value #ASSOCIATIVITY_PROPERTY}
+ * <dd>The number of entries per set, i.e. the number of distinct {@link QName} objects that can be
+ * cached for a given hash bucket before one of them is evicted. The default is 4. A value of 1
+ * gives a direct mapped cache.
+ * <dt>{@value #MODE_PROPERTY}
+ * <dd>Determines how the cache is segmented. With {@value #MODE_SHARED} (the default), all threads
+ * use a single segment. With {@value #MODE_STRIPED}, threads are mapped to one of a fixed number
+ * of segments (as determined by {@value #SEGMENTS_PROPERTY}) based on their ID, which reduces
+ * write contention on the cache when there are many misses. With {@value #MODE_THREAD}, each
+ * thread gets its own segment. Note that the latter mode keeps a reference from every thread that
+ * uses the cache to this class, which may not be appropriate in environments where Axiom is
+ * deployed in a class loader that may be discarded.
+ * <dt>{@value #SEGMENTS_PROPERTY}
+ * <dd>The number of segments in {@value #MODE_STRIPED} mode. The value is rounded up to a power of
+ * two. The default is the number of available processors.
+ * <dt>{@value #STATISTICS_PROPERTY}
+ * <dd>Enables the collection of hit, miss and eviction statistics (see {@link #getStats()}). This
+ * is disabled by default.
+ * </dl>
+ */
 public final class QNameCache {
-    private static final QNameCacheEntry[] cache;
+    /**
+     * System property that specifies the number of entries per segment.
+     */
+    public static final String SIZE_PROPERTY = "org.apache.axiom.util.xml.QNameCache.size";
+    
+    /**
+     * System property that specifies the number of entries per set.
+     */
+    public static final String ASSOCIATIVITY_PROPERTY = "org.apache.axiom.util.xml.QNameCache.associativity";
+    
+    /**
+     * System property that specifies how the cache is segmented. Supported values are
+     * {@value #MODE_SHARED}, {@value #MODE_STRIPED} and {@value #MODE_THREAD}.
+     */
+    public static final String MODE_PROPERTY = "org.apache.axiom.util.xml.QNameCache.mode";
+    
+    /**
+     * System property that specifies the number of segments in {@value #MODE_STRIPED} mode.
+     */
+    public static final String SEGMENTS_PROPERTY = "org.apache.axiom.util.xml.QNameCache.segments";
+    
+    /**
+     * System property that enables the collection of statistics.
+     */
+    public static final String STATISTICS_PROPERTY = "org.apache.axiom.util.xml.QNameCache.statistics";
+    
+    /**
+     * Mode in which all threads share a single segment.
+     */
+    public static final String MODE_SHARED = "shared";
+    
+    /**
+     * Mode in which threads are distributed over a fixed number of segments.
+     */
+    public static final String MODE_STRIPED = "striped";
+    
+    /**
+     * Mode in which each thread has its own segment.
+     */
+    public static final String MODE_THREAD = "thread";
+    
+    private static final int MAX_SIZE = 1 << 20;
+    private static final int MAX_ASSOCIATIVITY = 16;
+    private static final int MAX_SEGMENTS = 256;
+    
+    private static final String mode;
+    private static final int sets;
+    private static final int ways;
+    private static final QNameCacheSegment[] segments;
+    private static final int segmentMask;
+    private static final ThreadLocal<QNameCacheSegment> threadSegment;
+    private static final CacheCounters counters;
     
     static {
-        cache = new QNameCacheEntry[1024];
-        for (int i=0; i<cache.length; i++) {
-            cache[i] = new QNameCacheEntry();
+        int processors = Runtime.getRuntime().availableProcessors();
+        ways = getIntProperty(ASSOCIATIVITY_PROPERTY, 4, 1, MAX_ASSOCIATIVITY);
+        int size = roundUpToPowerOfTwo(getIntProperty(SIZE_PROPERTY, 1024, 1, MAX_SIZE));
+        sets = Integer.highestOneBit(Math.max(1, size / ways));
+        String modeValue = getProperty(MODE_PROPERTY);
+        if (MODE_STRIPED.equals(modeValue)) {
+            mode = MODE_STRIPED;
+            segments = new QNameCacheSegment[roundUpToPowerOfTwo(
+                    getIntProperty(SEGMENTS_PROPERTY, processors, 1, MAX_SEGMENTS))];
+            for (int i=0; i<segments.length; i++) {
+                segments[i] = new QNameCacheSegment(sets, ways);
+            }
+            threadSegment = null;
+        } else if (MODE_THREAD.equals(modeValue)) {
+            mode = MODE_THREAD;
+            segments = null;
+            threadSegment = new ThreadLocal<QNameCacheSegment>() {
+                @Override
+                protected QNameCacheSegment initialValue() {
+                    return new QNameCacheSegment(sets, ways);
+                }
+            };
+        } else {
+            mode = MODE_SHARED;
+            segments = new QNameCacheSegment[] { new QNameCacheSegment(sets, ways) };
+            threadSegment = null;
         }
+        segmentMask = segments == null ? 0 : segments.length-1;
+        counters = Boolean.parseBoolean(getProperty(STATISTICS_PROPERTY))
+                ? new CacheCounters(Math.min(roundUpToPowerOfTwo(processors)*2, 64)) : null;
     }
 
     private QNameCache() {}
 
+    private static String getProperty(String name) {
+        try {
+            return System.getProperty(name);
+        } catch (SecurityException ex) {
+            return null;
+        }
+    }
+    
+    private static int getIntProperty(String name, int defaultValue, int min, int max) {
+        String value = getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(min, Math.min(max, Integer.parseInt(value.trim())));
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+    
+    private static int roundUpToPowerOfTwo(int value) {
+        int result = Integer.highestOneBit(value);
+        return result == value ? value : result << 1;
+    }
+    
+    static int hash(String namespaceURI, String localPart, String prefix) {
+        int h = (namespaceURI.hashCode()*31 + localPart.hashCode())*31 + prefix.hashCode();
+        return h ^ (h >>> 16);
+    }
+    
     public static QName getQName(String namespaceURI, String localPart, String prefix) {
-        int index = (namespaceURI.hashCode() ^ localPart.hashCode() ^ prefix.hashCode()) & (cache.length-1);
-        QNameCacheEntry entry = cache[index];
-        QName qname = entry.get();
-        if (qname == null
-                || !qname.getNamespaceURI().equals(namespaceURI)
-                || !qname.getLocalPart().equals(localPart)
-                || !qname.getPrefix().equals(prefix)) {
-            qname = new QName(namespaceURI, localPart, prefix);
-            entry.set(qname);
+        QNameCacheSegment segment;
+        if (threadSegment != null) {
+            segment = threadSegment.get();
+        } else if (segmentMask == 0) {
+            segment = segments[0];
+        } else {
+            segment = segments[(int)Thread.currentThread().getId() & segmentMask];
         }
-        return qname;
+        return segment.get(namespaceURI, localPart, prefix, hash(namespaceURI, localPart, prefix), counters);
     }
 
     public static QName getQName(String namespaceURI, String localPart) {
         return getQName(namespaceURI, localPart, "");
     }
+    
+    /**
+     * Get the segmentation mode used by the cache.
+     * 
+     * @return one of {@link #MODE_SHARED}, {@link #MODE_STRIPED} or {@link #MODE_THREAD}
+     */
+    public static String getMode() {
+        return mode;
+    }
+    
+    /**
+     * Get the number of entries per segment.
+     * 
+     * @return the number of entries per segment
+     */
+    public static int getSize() {
+        return sets*ways;
+    }
+    
+    /**
+     * Get the number of entries per set.
+     * 
+     * @return the associativity of the cache
+     */
+    public static int getAssociativity() {
+        return ways;
+    }
+    
+    /**
+     * Determine whether the collection of statistics has been enabled using the
+     * {@value #STATISTICS_PROPERTY} system property.
+     * 
+     * @return <code>true</code> if statistics are collected, <code>false</code> otherwise
+     */
+    public static boolean isStatisticsEnabled() {
+        return counters != null;
+    }
+    
+    /**
+     * Get a snapshot of the cache statistics. If the collection of statistics is not enabled, all
+     * counters are zero.
+     * 
+     * @return the cache statistics
+     */
+    public static InterningStats getStats() {
+        return counters == null ? new InterningStats(0, 0, 0)
+                : new InterningStats(counters.getHits(), counters.getMisses(), counters.getEvictions());
+    }
+    
+    /**
+     * Reset the cache statistics.
+     */
+    public static void resetStats() {
+        if (counters != null) {
+            counters.reset();
+        }
+    }
 }
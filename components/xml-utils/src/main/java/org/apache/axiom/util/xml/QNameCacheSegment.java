@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.util.xml;
+
+import javax.xml.namespace.QName;
+
+/**
+ * A set associative table of {@link QName} objects. The table is not synchronized: {@link QName}
+ * is immutable and its fields are final, so that a thread reading a slot always sees a fully
+ * initialized instance, and races between concurrent updates only cause entries to be lost (which
+ * is acceptable for a cache).
+ * <p>
+ * Within a set, entries are kept in insertion order: a miss inserts the new entry in the first way
+ * and shifts the existing entries, evicting the one in the last way. Hits never modify the table,
+ * so that segments shared by multiple threads don't suffer from false sharing on the hot path.
+ */
+final class QNameCacheSegment {
+    private final QName[] entries;
+    private final int setMask;
+    private final int ways;
+
+    /**
+     * Constructor.
+     * 
+     * @param sets
+     *            the number of sets; must be a power of two
+     * @param ways
+     *            the number of entries per set
+     */
+    QNameCacheSegment(int sets, int ways) {
+        entries = new QName[sets*ways];
+        setMask = sets-1;
+        this.ways = ways;
+    }
+
+    QName get(String namespaceURI, String localPart, String prefix, int hash, CacheCounters counters) {
+        QName[] entries = this.entries;
+        int base = (hash & setMask) * ways;
+        int end = base + ways;
+        for (int i=base; i<end; i++) {
+            QName qname = entries[i];
+            if (qname == null) {
+                break;
+            }
+            if (qname.getLocalPart().equals(localPart)
+                    && qname.getNamespaceURI().equals(namespaceURI)
+                    && qname.getPrefix().equals(prefix)) {
+                if (counters != null) {
+                    counters.hit();
+                }
+                return qname;
+            }
+        }
+        QName qname = new QName(namespaceURI, localPart, prefix);
+        boolean evicted = entries[end-1] != null;
+        System.arraycopy(entries, base, entries, base+1, ways-1);
+        entries[base] = qname;
+        if (counters != null) {
+            counters.miss(evicted);
+        }
+        return qname;
+    }
+}
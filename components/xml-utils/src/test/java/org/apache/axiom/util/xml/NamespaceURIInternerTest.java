@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.util.xml;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class NamespaceURIInternerTest {
+    @Test
+    public void testIntern() {
+        String uri = new String("urn:test:intern");
+        assertThat(NamespaceURIInterner.intern(uri)).isSameAs(uri.intern());
+        // Second lookup is served from the table
+        assertThat(NamespaceURIInterner.intern(new String(uri))).isSameAs(uri.intern());
+    }
+
+    @Test
+    public void testEviction() {
+        // Fill the table with more URIs than it can hold; the results must still be interned
+        for (int i=0; i<NamespaceURIInterner.getSize()*2; i++) {
+            String uri = new String("urn:test:" + i);
+            assertThat(NamespaceURIInterner.intern(uri)).isSameAs(uri.intern());
+        }
+    }
+
+    @Test
+    public void testDefaultConfiguration() {
+        assertThat(NamespaceURIInterner.getSize()).isEqualTo(256);
+        assertThat(NamespaceURIInterner.isStatisticsEnabled()).isFalse();
+        assertThat(NamespaceURIInterner.getStats().getHits()).isEqualTo(0L);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.util.xml;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+
+public class QNameCacheSegmentTest {
+    private static QName get(QNameCacheSegment segment, CacheCounters counters, String localPart) {
+        return segment.get("urn:test", localPart, "p", 0, counters);
+    }
+    
+    @Test
+    public void testAssociativity() {
+        QNameCacheSegment segment = new QNameCacheSegment(1, 2);
+        CacheCounters counters = new CacheCounters(1);
+        QName a = get(segment, counters, "a");
+        QName b = get(segment, counters, "b");
+        assertThat(get(segment, counters, "a")).isSameAs(a);
+        assertThat(get(segment, counters, "b")).isSameAs(b);
+        assertThat(counters.getHits()).isEqualTo(2);
+        assertThat(counters.getMisses()).isEqualTo(2);
+        assertThat(counters.getEvictions()).isEqualTo(0);
+    }
+    
+    @Test
+    public void testEviction() {
+        QNameCacheSegment segment = new QNameCacheSegment(1, 2);
+        CacheCounters counters = new CacheCounters(1);
+        QName a = get(segment, counters, "a");
+        QName b = get(segment, counters, "b");
+        get(segment, counters, "c");
+        assertThat(get(segment, counters, "b")).isSameAs(b);
+        assertThat(get(segment, counters, "a")).isNotSameAs(a);
+        assertThat(counters.getHits()).isEqualTo(1);
+        assertThat(counters.getMisses()).isEqualTo(4);
+        assertThat(counters.getEvictions()).isEqualTo(2);
+    }
+    
+    @Test
+    public void testReset() {
+        QNameCacheSegment segment = new QNameCacheSegment(4, 1);
+        CacheCounters counters = new CacheCounters(4);
+        get(segment, counters, "a");
+        get(segment, counters, "a");
+        assertThat(counters.getHits()).isEqualTo(1);
+        assertThat(counters.getMisses()).isEqualTo(1);
+        counters.reset();
+        assertThat(counters.getHits()).isEqualTo(0);
+        assertThat(counters.getMisses()).isEqualTo(0);
+    }
+}
@@ -48,4 +48,12 @@ public class QNameCacheTest {
         QName qname2 = QNameCache.getQName("urn:ns2", "foo", "");
         assertThat(qname2).isNotSameAs(qname1);
     }
+
+    @Test
+    public void testDefaultConfiguration() {
+        assertThat(QNameCache.getMode()).isEqualTo(QNameCache.MODE_SHARED);
+        assertThat(QNameCache.getSize()).isEqualTo(1024);
+        assertThat(QNameCache.getAssociativity()).isEqualTo(4);
+        assertThat(QNameCache.isStatisticsEnabled()).isFalse();
+    }
 }
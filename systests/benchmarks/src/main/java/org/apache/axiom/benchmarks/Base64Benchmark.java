@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axiom.core.stream.StreamException;
+import org.apache.axiom.core.stream.serializer.Serializer;
+import org.apache.axiom.util.base64.AbstractBase64EncodingOutputStream;
+import org.apache.axiom.util.base64.Base64Codec;
+import org.apache.axiom.util.base64.Base64DecodingOutputStreamWriter;
+import org.apache.axiom.util.base64.Base64EncodingOutputStream;
+import org.apache.axiom.util.base64.Base64Utils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures base64 encoding and decoding throughput for payload sizes ranging from 1 KB to 64 MB,
+ * both with {@link Base64Codec} directly and through the stream based APIs used for inline
+ * (non optimized) binary content.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class Base64Benchmark {
+    @Param({ "1024", "65536", "1048576", "67108864" })
+    private int size;
+    
+    private byte[] data;
+    private byte[] encodedBytes;
+    private char[] encodedChars;
+    private String encodedString;
+    private byte[] decoded;
+
+    @Setup
+    public void setUp() {
+        data = new byte[size];
+        new Random(1234).nextBytes(data);
+        encodedBytes = new byte[Base64Codec.getEncodedLength(size)];
+        Base64Codec.encode(data, 0, size, encodedBytes, 0);
+        encodedChars = new char[encodedBytes.length];
+        Base64Codec.encode(data, 0, size, encodedChars, 0);
+        encodedString = new String(encodedChars);
+        decoded = new byte[size/3*3+3];
+    }
+
+    @Benchmark
+    public int codecEncode() {
+        return Base64Codec.encode(data, 0, data.length, encodedBytes, 0);
+    }
+
+    @Benchmark
+    public int codecDecode() {
+        return Base64Codec.decode(encodedChars, 0, encodedChars.length, decoded, 0);
+    }
+
+    @Benchmark
+    public void encodingOutputStream() throws IOException {
+        Base64EncodingOutputStream out = new Base64EncodingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        out.write(data);
+        out.complete();
+    }
+
+    /**
+     * Encodes the data as the content of an element using the serializer, as done for binary text
+     * nodes when MTOM is disabled.
+     */
+    private void serialize(String encoding) throws IOException, StreamException {
+        Serializer serializer = new Serializer(NullOutputStream.NULL_OUTPUT_STREAM, encoding);
+        serializer.startFragment();
+        serializer.startElement("", "data", "");
+        serializer.attributesCompleted();
+        serializer.processCharacterData("", false);
+        AbstractBase64EncodingOutputStream out = serializer.getBase64EncodingOutputStream();
+        out.write(data);
+        out.complete();
+        serializer.endElement();
+        serializer.completed();
+    }
+
+    @Benchmark
+    public void serializerUTF8() throws IOException, StreamException {
+        serialize("UTF-8");
+    }
+
+    @Benchmark
+    public void serializerUTF16() throws IOException, StreamException {
+        serialize("UTF-16");
+    }
+
+    @Benchmark
+    public void decodingWriter() throws IOException {
+        Base64DecodingOutputStreamWriter out = new Base64DecodingOutputStreamWriter(NullOutputStream.NULL_OUTPUT_STREAM);
+        out.write(encodedChars, 0, encodedChars.length);
+        out.close();
+    }
+
+    @Benchmark
+    public byte[] decodeString() {
+        return Base64Utils.decode(encodedString);
+    }
+}
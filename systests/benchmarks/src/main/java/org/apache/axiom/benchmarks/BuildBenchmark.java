@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.ts.xml.XMLSample;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of parsing a document and building the complete object model. This
+ * benchmark is sensitive to the cost of node instantiation (see
+ * {@link org.apache.axiom.core.NodeFactory}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BuildBenchmark {
+    @Param({ OMAbstractFactory.FEATURE_DEFAULT, OMAbstractFactory.FEATURE_DOM })
+    private String feature;
+    
+    private OMMetaFactory metaFactory;
+    private byte[] document;
+
+    @Setup
+    public void setUp() throws IOException {
+        metaFactory = OMAbstractFactory.getMetaFactory(feature);
+        InputStream in = XMLSample.LARGE.getInputStream();
+        try {
+            document = IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public OMDocument build() {
+        OMDocument result = OMXMLBuilderFactory.createOMBuilder(metaFactory.getOMFactory(),
+                new ByteArrayInputStream(document)).getDocument();
+        result.build();
+        return result;
+    }
+}
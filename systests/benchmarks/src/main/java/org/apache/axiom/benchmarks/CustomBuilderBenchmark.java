@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axiom.blob.MemoryBlob;
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.om.OMXMLParserWrapper;
+import org.apache.axiom.om.ds.custombuilder.BlobOMDataSourceCustomBuilder;
+import org.apache.axiom.om.ds.custombuilder.CustomBuilder;
+import org.apache.axiom.om.ds.custombuilder.CustomBuilderSupport;
+import org.apache.axiom.om.ds.custombuilder.ElementNameSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the overhead of custom builder dispatch when building a document with many elements,
+ * none of which is accepted by the registered selectors. Compares {@link ElementNameSelector}
+ * instances (looked up by name) with equivalent arbitrary selectors (evaluated for every element).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CustomBuilderBenchmark {
+    private static final String NS = "urn:example:service";
+    
+    @Param({ "1", "100" })
+    private int builderCount;
+    
+    @Param({ "name", "predicate" })
+    private String selectorType;
+    
+    private OMFactory factory;
+    private String document;
+    private CustomBuilder.Selector[] selectors;
+    private CustomBuilder customBuilder;
+
+    @Setup
+    public void setUp() {
+        factory = OMAbstractFactory.getOMFactory();
+        StringBuilder buffer = new StringBuilder("<root xmlns='").append(NS).append("'>");
+        for (int i=0; i<1000; i++) {
+            buffer.append("<element").append(i % 50).append(" attr='value'>text</element")
+                    .append(i % 50).append(">");
+        }
+        buffer.append("</root>");
+        document = buffer.toString();
+        selectors = new CustomBuilder.Selector[builderCount];
+        for (int i=0; i<builderCount; i++) {
+            final String localName = "operation" + i + "Response";
+            if (selectorType.equals("name")) {
+                selectors[i] = new ElementNameSelector(NS, localName, 2);
+            } else {
+                selectors[i] = new CustomBuilder.Selector() {
+                    @Override
+                    public boolean accepts(OMContainer parent, int depth, String namespaceURI, String localName2) {
+                        return depth == 2 && localName2.equals(localName) && namespaceURI.equals(NS);
+                    }
+                };
+            }
+        }
+        customBuilder = new BlobOMDataSourceCustomBuilder(MemoryBlob.FACTORY, "utf-8");
+    }
+
+    @Benchmark
+    public OMDocument build() {
+        OMXMLParserWrapper builder = OMXMLBuilderFactory.createOMBuilder(factory, new StringReader(document));
+        for (CustomBuilder.Selector selector : selectors) {
+            ((CustomBuilderSupport)builder).registerCustomBuilder(selector, customBuilder);
+        }
+        OMDocument result = builder.getDocument();
+        result.build();
+        return result;
+    }
+}
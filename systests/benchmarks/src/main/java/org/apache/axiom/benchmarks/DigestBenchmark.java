@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.om.util.DigestGenerator;
+import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.om.util.StreamingDigestGenerator;
+import org.apache.axiom.ts.xml.XMLSample;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the DOMHASH implementations in {@link DigestGenerator} and
+ * {@link StreamingDigestGenerator}. Run with <code>-prof gc</code> to see the difference in
+ * allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DigestBenchmark {
+    private byte[] content;
+    private OMDocument document;
+    private StreamingDigestGenerator streamingDigestGenerator;
+
+    @Setup
+    public void setUp() throws IOException {
+        InputStream in = XMLSample.LARGE.getInputStream();
+        try {
+            content = IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+        document = OMXMLBuilderFactory.createOMBuilder(new ByteArrayInputStream(content)).getDocument();
+        document.build();
+        streamingDigestGenerator = new StreamingDigestGenerator(DigestGenerator.sha1DigestAlgorithm);
+    }
+
+    @Benchmark
+    public byte[] tree() {
+        return new DigestGenerator().getDigest(document, DigestGenerator.sha1DigestAlgorithm);
+    }
+
+    @Benchmark
+    public byte[] streamingFromTree() throws XMLStreamException {
+        return streamingDigestGenerator.getDocumentDigest(document.getXMLStreamReader());
+    }
+
+    @Benchmark
+    public byte[] streamingFromParser() throws XMLStreamException {
+        XMLStreamReader reader = StAXUtils.createXMLStreamReader(new ByteArrayInputStream(content));
+        try {
+            return streamingDigestGenerator.getDocumentDigest(reader);
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.dom.DOMMetaFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Measures the throughput of the usual loop over the {@link NodeList} returned by
+ * {@link Element#getElementsByTagName(String)},
+ * {@link Element#getElementsByTagNameNS(String, String)} and {@link Element#getChildNodes()},
+ * comparing Axiom's DOM implementation with Xerces (as shipped with the JRE). Without caching in
+ * the node list, this loop is quadratic in the number of elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ElementsByTagNameBenchmark {
+    private static final String NS = "urn:test";
+    
+    @Param({ "axiom", "xerces" })
+    private String implementation;
+    
+    @Param({ "10000", "50000" })
+    private int elementCount;
+    
+    private Document document;
+    private Element root;
+
+    @Setup
+    public void setUp() throws ParserConfigurationException {
+        DocumentBuilderFactory dbf;
+        if (implementation.equals("axiom")) {
+            dbf = ((DOMMetaFactory)OMAbstractFactory.getMetaFactory(OMAbstractFactory.FEATURE_DOM)).newDocumentBuilderFactory();
+        } else {
+            dbf = DocumentBuilderFactory.newInstance();
+        }
+        dbf.setNamespaceAware(true);
+        document = dbf.newDocumentBuilder().newDocument();
+        root = document.createElementNS(NS, "p:root");
+        document.appendChild(root);
+        for (int i=0; i<elementCount; i++) {
+            Element item = document.createElementNS(NS, "p:item");
+            item.setAttributeNS(null, "id", String.valueOf(i));
+            Element name = document.createElementNS(NS, "p:name");
+            name.appendChild(document.createTextNode("name" + i));
+            item.appendChild(name);
+            root.appendChild(item);
+        }
+    }
+
+    private static int iterate(NodeList list) {
+        int count = 0;
+        for (int i=0; i<list.getLength(); i++) {
+            if (list.item(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    @Benchmark
+    public int elementsByTagName() {
+        return iterate(root.getElementsByTagName("p:item"));
+    }
+
+    @Benchmark
+    public int elementsByTagNameNS() {
+        return iterate(root.getElementsByTagNameNS(NS, "item"));
+    }
+
+    @Benchmark
+    public int childNodes() {
+        return iterate(root.getChildNodes());
+    }
+
+    /**
+     * Iterates over the list while modifying the document, so that the cached nodes are
+     * discarded on every iteration.
+     */
+    @Benchmark
+    public int elementsByTagNameNSWithModification() {
+        NodeList list = document.getElementsByTagNameNS(NS, "name");
+        int count = 0;
+        for (int i=0; i<list.getLength(); i += 1000) {
+            Element name = (Element)list.item(i);
+            Element parent = (Element)name.getParentNode();
+            parent.removeChild(name);
+            parent.appendChild(name);
+            count++;
+        }
+        return count;
+    }
+}
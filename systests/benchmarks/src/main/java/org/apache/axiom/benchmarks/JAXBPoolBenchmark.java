@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.axiom.om.JAXBPool;
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.om.ds.jaxb.JAXBOMDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures request/response round-trips of a small JAXB bean: the request is unmarshalled from a
+ * parsed document and the response is serialized through a {@link JAXBOMDataSource}. Compares
+ * marshallers and unmarshallers created per call with instances taken from a {@link JAXBPool}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JAXBPoolBenchmark {
+    @XmlRootElement(name="order", namespace="urn:example:order")
+    public static class Order {
+        @XmlElement(namespace="urn:example:order")
+        public String id;
+        
+        @XmlElement(name="item", namespace="urn:example:order")
+        public List<String> items = new ArrayList<String>();
+    }
+    
+    @Param({ "false", "true" })
+    private boolean pooled;
+    
+    private OMFactory factory;
+    private JAXBContext context;
+    private JAXBPool pool;
+    private String request;
+
+    @Setup
+    public void setUp() throws JAXBException {
+        factory = OMAbstractFactory.getOMFactory();
+        context = JAXBContext.newInstance(Order.class);
+        pool = new JAXBPool(context);
+        StringBuilder buffer = new StringBuilder("<order xmlns='urn:example:order'><id>12345</id>");
+        for (int i=0; i<10; i++) {
+            buffer.append("<item>item").append(i).append("</item>");
+        }
+        buffer.append("</order>");
+        request = buffer.toString();
+    }
+
+    @Benchmark
+    public String roundTrip() throws JAXBException, XMLStreamException {
+        OMElement requestElement = OMXMLBuilderFactory.createOMBuilder(factory, new StringReader(request)).getDocumentElement();
+        Order order = (Order)(pooled ? requestElement.unmarshal(pool, null, false)
+                : requestElement.unmarshal(context, null, false));
+        order.id = order.id + "-confirmed";
+        OMElement responseElement = factory.createOMElement(pooled ? new JAXBOMDataSource(pool, order)
+                : new JAXBOMDataSource(context, order));
+        StringWriter sw = new StringWriter();
+        responseElement.serialize(sw);
+        return sw.toString();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.axiom.om.JAXBPool;
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMDataSource;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.SAXAwareOMDataSource;
+import org.apache.axiom.om.ds.AbstractPushOMDataSource;
+import org.apache.axiom.om.ds.jaxb.JAXBOMDataSource;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the serialization of an element backed by a {@link JAXBOMDataSource}, comparing the
+ * direct SAX path (see {@link SAXAwareOMDataSource}) with the {@link XMLStreamWriter} adapter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JAXBSerializeBenchmark {
+    /**
+     * Data source that hides the {@link SAXAwareOMDataSource} interface of the wrapped data
+     * source.
+     */
+    private static final class StAXOnlyOMDataSource extends AbstractPushOMDataSource {
+        private final OMDataSource parent;
+
+        StAXOnlyOMDataSource(OMDataSource parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void serialize(XMLStreamWriter writer) throws XMLStreamException {
+            parent.serialize(writer);
+        }
+
+        @Override
+        public boolean isDestructiveWrite() {
+            return false;
+        }
+    }
+
+    @Param({ "stax", "sax" })
+    private String path;
+    
+    @Param({ "10", "1000" })
+    private int itemCount;
+    
+    private OMFactory factory;
+    private JAXBPool pool;
+    private JAXBPoolBenchmark.Order order;
+
+    @Setup
+    public void setUp() throws JAXBException {
+        factory = OMAbstractFactory.getOMFactory();
+        pool = new JAXBPool(JAXBContext.newInstance(JAXBPoolBenchmark.Order.class));
+        order = new JAXBPoolBenchmark.Order();
+        order.id = "12345";
+        for (int i=0; i<itemCount; i++) {
+            order.items.add("item" + i);
+        }
+    }
+
+    @Benchmark
+    public void serialize() throws XMLStreamException {
+        OMDataSource ds = new JAXBOMDataSource(pool, order);
+        if (path.equals("stax")) {
+            ds = new StAXOnlyOMDataSource(ds);
+        }
+        factory.createOMElement(ds, "order", factory.createOMNamespace("urn:example:order", "")).serialize(new NullOutputStream());
+    }
+}
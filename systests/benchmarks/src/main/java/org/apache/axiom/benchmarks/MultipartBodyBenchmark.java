@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axiom.mime.MultipartBody;
+import org.apache.axiom.mime.MultipartBodyWriter;
+import org.apache.axiom.mime.Part;
+import org.apache.axiom.ts.soap.MTOMSample;
+import org.apache.axiom.ts.soap.SwASample;
+import org.apache.axiom.ts.xml.MIMESample;
+import org.apache.axiom.ts.xml.XOPSample;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link MultipartBody.Engine} implementations by reading all parts of a MIME
+ * message. The messages are the {@link MIMESample} instances from the test suites
+ * ({@link XOPSample#XOP_SPEC_SAMPLE}, {@link MTOMSample#SAMPLE1} and {@link SwASample#SAMPLE1}),
+ * as well as a generated MTOM message with twenty 64 KB attachments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MultipartBodyBenchmark {
+    @Param({"xop-spec", "mtom", "swa", "generated"})
+    private String message;
+
+    @Param({"MIME4J", "BUILTIN"})
+    private MultipartBody.Engine engine;
+
+    private byte[] content;
+    private String contentType;
+    private final byte[] buffer = new byte[4096];
+
+    @Setup
+    public void setUp() throws IOException {
+        MIMESample sample;
+        if (message.equals("xop-spec")) {
+            sample = XOPSample.XOP_SPEC_SAMPLE;
+        } else if (message.equals("mtom")) {
+            sample = MTOMSample.SAMPLE1;
+        } else if (message.equals("swa")) {
+            sample = SwASample.SAMPLE1;
+        } else {
+            sample = null;
+        }
+        if (sample != null) {
+            InputStream in = sample.getInputStream();
+            try {
+                content = IOUtils.toByteArray(in);
+            } finally {
+                in.close();
+            }
+            contentType = sample.getContentType();
+        } else {
+            String boundary = "MIMEBoundary_0123456789abcdef0123456789abcdef";
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            MultipartBodyWriter writer = new MultipartBodyWriter(baos, boundary);
+            Random random = new Random(1234);
+            byte[] data = new byte[65536];
+            for (int i=0; i<21; i++) {
+                OutputStream out = writer.writePart(i == 0 ? "application/xop+xml" : "application/octet-stream",
+                        "binary", "part" + i + "@example.org", null);
+                random.nextBytes(data);
+                out.write(data, 0, i == 0 ? 2048 : data.length);
+                out.close();
+            }
+            writer.complete();
+            content = baos.toByteArray();
+            contentType = "multipart/related; boundary=\"" + boundary
+                    + "\"; type=\"application/xop+xml\"; start=\"<part0@example.org>\"";
+        }
+    }
+
+    @Benchmark
+    public long readAllParts() throws IOException {
+        MultipartBody mb = MultipartBody.builder()
+                .setInputStream(new ByteArrayInputStream(content))
+                .setContentType(contentType)
+                .setEngine(engine)
+                .build();
+        long total = 0;
+        for (Part part : mb) {
+            InputStream in = part.getInputStream(false);
+            int c;
+            while ((c = in.read(buffer)) != -1) {
+                total += c;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axiom.core.CoreCharacterDataNode;
+import org.apache.axiom.core.NodeFactory;
+import org.apache.axiom.om.impl.dom.factory.DOOMNodeFactory;
+import org.apache.axiom.om.impl.llom.factory.LLOMNodeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the different ways to instantiate nodes: reflective instantiation (which was used by
+ * {@link NodeFactory} implementations before they switched to generated instantiators), the generic
+ * {@link NodeFactory#createNode(Class)} method and the typed methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NodeFactoryBenchmark {
+    @Param({ "llom", "doom" })
+    private String implementation;
+    
+    private NodeFactory nodeFactory;
+    private Constructor<? extends CoreCharacterDataNode> constructor;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        if (implementation.equals("llom")) {
+            nodeFactory = LLOMNodeFactory.INSTANCE;
+        } else {
+            nodeFactory = DOOMNodeFactory.INSTANCE;
+        }
+        constructor = nodeFactory.createCharacterDataNode().getClass().getConstructor();
+    }
+
+    @Benchmark
+    public CoreCharacterDataNode reflective() throws Exception {
+        return constructor.newInstance();
+    }
+
+    @Benchmark
+    public CoreCharacterDataNode createNode() {
+        return nodeFactory.createNode(CoreCharacterDataNode.class);
+    }
+
+    @Benchmark
+    public CoreCharacterDataNode createCharacterDataNode() {
+        return nodeFactory.createCharacterDataNode();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.util.xml.QNameCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link QNameCache} lookups with a working set of names typical for WS-* messages in the
+ * different segmentation modes. Since the cache is configured using system properties, each
+ * parameter combination must run in a separate fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class QNameCacheBenchmark {
+    private static final String[] namespaces = {
+            "http://www.w3.org/2003/05/soap-envelope",
+            "http://www.w3.org/2005/08/addressing",
+            "http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-secext-1.0.xsd",
+            "http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-utility-1.0.xsd",
+            "http://www.w3.org/2000/09/xmldsig#",
+            "http://www.w3.org/2001/04/xmlenc#",
+            "http://docs.oasis-open.org/ws-rx/wsrm/200702",
+            "urn:example:service" };
+    
+    @Param({ QNameCache.MODE_SHARED, QNameCache.MODE_STRIPED, QNameCache.MODE_THREAD })
+    private String mode;
+    
+    @Param({ "1", "4" })
+    private String associativity;
+    
+    private String[] nsArray;
+    private String[] localPartArray;
+    private String[] prefixArray;
+
+    @Setup
+    public void setUp() {
+        System.setProperty(QNameCache.MODE_PROPERTY, mode);
+        System.setProperty(QNameCache.ASSOCIATIVITY_PROPERTY, associativity);
+        int count = 512;
+        nsArray = new String[count];
+        localPartArray = new String[count];
+        prefixArray = new String[count];
+        for (int i=0; i<count; i++) {
+            int ns = i % namespaces.length;
+            nsArray[i] = namespaces[ns];
+            localPartArray[i] = "element" + (i / namespaces.length);
+            prefixArray[i] = "ns" + ns;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+    }
+
+    @Benchmark
+    public QName getQName(Cursor cursor) {
+        int i = cursor.index;
+        cursor.index = (i+1) & (nsArray.length-1);
+        return QNameCache.getQName(nsArray[i], localPartArray[i], prefixArray[i]);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.ts.xml.XMLSample;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link OMElement#serialize(OutputStream, OMOutputFormat)} on a markup heavy document
+ * ({@link XMLSample#LARGE}), on a text heavy document with a few long text nodes containing
+ * occasional characters that need to be escaped and on a small (about 2 KB) message, for which
+ * the cost of setting up the serializer matters. Run with <code>-prof gc</code> to check that the
+ * serializer doesn't allocate per text node, and with
+ * <code>-jvmArgs -Dorg.apache.axiom.core.stream.serializer.SerializerPool.enabled=false</code> to
+ * see the effect of serializer pooling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SerializeBenchmark {
+    @Param({"markup", "text", "small"})
+    private String document;
+
+    @Param({"UTF-8", "ISO-8859-1"})
+    private String encoding;
+
+    private OMElement element;
+    private OMOutputFormat format;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (document.equals("markup")) {
+            InputStream in = XMLSample.LARGE.getInputStream();
+            try {
+                element = OMXMLBuilderFactory.createOMBuilder(
+                        new ByteArrayInputStream(IOUtils.toByteArray(in))).getDocumentElement();
+            } finally {
+                in.close();
+            }
+        } else if (document.equals("small")) {
+            OMFactory factory = OMAbstractFactory.getOMFactory();
+            OMNamespace ns = factory.createOMNamespace("urn:test", "t");
+            element = factory.createOMElement("response", ns);
+            for (int i=0; i<30; i++) {
+                OMElement item = factory.createOMElement("item", ns, element);
+                item.addAttribute("id", String.valueOf(i), null);
+                factory.createOMElement("name", ns, item).setText("Item number " + i);
+                factory.createOMElement("price", ns, item).setText(String.valueOf(i * 1.5));
+            }
+        } else {
+            OMFactory factory = OMAbstractFactory.getOMFactory();
+            element = factory.createOMElement("root", null);
+            Random random = new Random(1234);
+            for (int i=0; i<20; i++) {
+                StringBuilder buffer = new StringBuilder();
+                for (int j=0; j<50000; j++) {
+                    int r = random.nextInt(100);
+                    if (r == 0) {
+                        buffer.append('&');
+                    } else if (r == 1) {
+                        buffer.append('<');
+                    } else if (r == 2) {
+                        buffer.append('\u00E9');
+                    } else if (r < 20) {
+                        buffer.append(' ');
+                    } else {
+                        buffer.append((char)('a' + random.nextInt(26)));
+                    }
+                }
+                factory.createOMElement("p", null, element).setText(buffer.toString());
+            }
+        }
+        element.build();
+        format = new OMOutputFormat();
+        format.setCharSetEncoding(encoding);
+    }
+
+    @Benchmark
+    public void serialize() throws Exception {
+        element.serialize(NullOutputStream.NULL_OUTPUT_STREAM, format);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.benchmarks;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLInputFactory;
+
+import org.apache.axiom.om.util.StAXParserConfiguration;
+import org.apache.axiom.om.util.StAXUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link StAXUtils#getXMLInputFactory(StAXParserConfiguration)} with
+ * 1, 8 and 64 threads. For comparison, the <code>synchronizedMap</code> benchmarks perform the same
+ * lookup in a synchronized {@link WeakHashMap}, which is how the factories used to be cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StAXFactoryCacheBenchmark {
+    private final Map<StAXParserConfiguration,XMLInputFactory> synchronizedMap
+            = Collections.synchronizedMap(new WeakHashMap<StAXParserConfiguration,XMLInputFactory>());
+
+    @Setup
+    public void setUp() {
+        synchronizedMap.put(StAXParserConfiguration.SOAP,
+                StAXUtils.getXMLInputFactory(StAXParserConfiguration.SOAP));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public XMLInputFactory staxUtils1() {
+        return StAXUtils.getXMLInputFactory(StAXParserConfiguration.SOAP);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public XMLInputFactory staxUtils8() {
+        return StAXUtils.getXMLInputFactory(StAXParserConfiguration.SOAP);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public XMLInputFactory staxUtils64() {
+        return StAXUtils.getXMLInputFactory(StAXParserConfiguration.SOAP);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public XMLInputFactory synchronizedMap1() {
+        return synchronizedMap.get(StAXParserConfiguration.SOAP);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public XMLInputFactory synchronizedMap8() {
+        return synchronizedMap.get(StAXParserConfiguration.SOAP);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public XMLInputFactory synchronizedMap64() {
+        return synchronizedMap.get(StAXParserConfiguration.SOAP);
+    }
+}
@@ -20,15 +20,18 @@ package org.apache.axiom.ts.om;
 
 import org.apache.axiom.om.OMAttribute;
 import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMInformationItem;
 import org.apache.axiom.om.OMMetaFactory;
 import org.apache.axiom.om.OMNode;
 import org.apache.axiom.om.util.DigestGenerator;
+import org.apache.axiom.om.util.StreamingDigestGenerator;
 import org.apache.axiom.testutils.DigestUtils;
 import org.apache.axiom.ts.AxiomTestCase;
 
 /**
- * Base class for unit tests validating the DOMHASH implementation.
+ * Base class for unit tests validating the DOMHASH implementation. For documents and elements, the
+ * test also checks that {@link StreamingDigestGenerator} produces the same result.
  * <p>
  * Note that the only DOMHASH implementation available for reference is IBM's XSS4J. Unfortunately,
  * XSS4J is no longer available for download, but it can still be found in WebSphere (see the
@@ -57,6 +60,15 @@ public abstract class DigestTestCase extends AxiomTestCase {
             digest = digestGenerator.getDigest((OMNode)node, algorithm);
         }
         assertEquals(expectedDigest, DigestUtils.toHexString(digest));
+        if (node instanceof OMDocument) {
+            digest = new StreamingDigestGenerator(algorithm).getDocumentDigest(
+                    ((OMDocument)node).getXMLStreamReader());
+            assertEquals(expectedDigest, DigestUtils.toHexString(digest));
+        } else if (node instanceof OMElement) {
+            digest = new StreamingDigestGenerator(algorithm).getElementDigest(
+                    ((OMElement)node).getXMLStreamReader());
+            assertEquals(expectedDigest, DigestUtils.toHexString(digest));
+        }
     }
     
     protected abstract OMInformationItem createInformationItem() throws Exception;
@@ -153,6 +153,7 @@ public class OMTestSuiteBuilder extends MatrixTestSuiteBuilder {
         addTest(new org.apache.axiom.ts.om.builder.TestRegisterCustomBuilderForPayloadJAXBPlain(metaFactory));
         addTest(new org.apache.axiom.ts.om.builder.TestRegisterCustomBuilderForPayloadJAXBWithDataHandlerReaderExtension(metaFactory));
         addTest(new org.apache.axiom.ts.om.builder.TestRegisterCustomBuilderForPayloadJAXBWithXOP(metaFactory));
+        addTest(new org.apache.axiom.ts.om.builder.TestRegisterCustomBuilderWithElementNameSelector(metaFactory));
         addTest(new org.apache.axiom.ts.om.builder.TestRootPartStreaming(metaFactory));
         addTest(new org.apache.axiom.ts.om.builder.TestStandaloneConfiguration(metaFactory));
         addTest(new org.apache.axiom.ts.om.comment.TestSerialize(metaFactory));
@@ -193,9 +194,14 @@ public class OMTestSuiteBuilder extends MatrixTestSuiteBuilder {
         addTest(new org.apache.axiom.ts.om.document.TestDigest(metaFactory, "digest2.xml", "SHA1", "3c47a807517d867d42ffacb2d3e9da81895d5aac"));
         addTest(new org.apache.axiom.ts.om.document.TestDigest(metaFactory, "digest3.xml", "SHA", "41466144c1cab4234fb127cfb8cf92f9"));
         addTest(new org.apache.axiom.ts.om.document.TestDigest(metaFactory, "digest4.xml", "SHA", "be3b0836cd6f0ceacdf3d40b49a0468d03d2ba2e"));
+        addTest(new org.apache.axiom.ts.om.document.TestElementIndexInvalidation(metaFactory));
         addTest(new org.apache.axiom.ts.om.document.TestGetOMDocumentElement(metaFactory));
         addTest(new org.apache.axiom.ts.om.document.TestGetOMDocumentElementAfterDetach(metaFactory));
         addTest(new org.apache.axiom.ts.om.document.TestGetOMDocumentElementWithParser(metaFactory));
+        addTest(new org.apache.axiom.ts.om.document.TestGetOMElementById(metaFactory, false));
+        addTest(new org.apache.axiom.ts.om.document.TestGetOMElementById(metaFactory, true));
+        addTest(new org.apache.axiom.ts.om.document.TestGetOMElementsByName(metaFactory, false));
+        addTest(new org.apache.axiom.ts.om.document.TestGetOMElementsByName(metaFactory, true));
         for (XSLTImplementation xsltImplementation : getInstances(XSLTImplementation.class)) {
             if (xsltImplementation.supportsLexicalHandlerWithStreamSource()) {
                 for (XMLSample file : getInstances(XMLSample.class)) {
@@ -299,6 +305,7 @@ public class OMTestSuiteBuilder extends MatrixTestSuiteBuilder {
         addTest(new org.apache.axiom.ts.om.element.TestGetAttributeValueWithXmlPrefix2(metaFactory));
         addTest(new org.apache.axiom.ts.om.element.TestGetAttributeWithXmlPrefix1(metaFactory));
         addTest(new org.apache.axiom.ts.om.element.TestGetAttributeWithXmlPrefix2(metaFactory));
+        addTest(new org.apache.axiom.ts.om.element.TestGetAttributeWithManyAttributes(metaFactory));
         addTest(new org.apache.axiom.ts.om.element.TestGetChildElements(metaFactory));
         addTest(new org.apache.axiom.ts.om.element.TestGetChildElementsConcurrentModification(metaFactory));
         addTest(new org.apache.axiom.ts.om.element.TestGetChildElementsConsumed(metaFactory));
@@ -443,6 +450,7 @@ public class OMTestSuiteBuilder extends MatrixTestSuiteBuilder {
         addTest(new org.apache.axiom.ts.om.element.TestSetTextQNameWithoutNamespace(metaFactory));
         addTest(new org.apache.axiom.ts.om.element.TestUndeclarePrefix(metaFactory));
         addTest(new org.apache.axiom.ts.om.element.TestUnmarshalWithDataHandler(metaFactory));
+        addTest(new org.apache.axiom.ts.om.element.TestUnmarshalWithPool(metaFactory));
         addTest(new org.apache.axiom.ts.om.element.TestWriteTextTo(metaFactory));
         addTest(new org.apache.axiom.ts.om.element.TestWriteTextToWithNonTextNodes(metaFactory));
         addTest(new org.apache.axiom.ts.om.element.sr.TestCloseAndContinueBuilding(metaFactory, true));
@@ -601,6 +609,8 @@ public class OMTestSuiteBuilder extends MatrixTestSuiteBuilder {
             addTest(new org.apache.axiom.ts.om.sourcedelement.TestPushOMDataSourceExpansion(metaFactory, PushOMDataSourceScenario.INSTANCES[i]));
         }
         addTest(new org.apache.axiom.ts.om.sourcedelement.TestRemoveChildrenUnexpanded(metaFactory));
+        addTest(new org.apache.axiom.ts.om.sourcedelement.TestSAXAwareOMDataSource(metaFactory));
+        addTest(new org.apache.axiom.ts.om.sourcedelement.TestSAXAwareOMDataSourceWithoutQNames(metaFactory));
         for (ElementContext ec : getInstances(ElementContext.class)) {
             for (ExpansionStrategy es : getInstances(ExpansionStrategy.class)) {
                 for (SerializationStrategy ss : getInstances(SerializationStrategy.class)) {
@@ -640,6 +650,7 @@ public class OMTestSuiteBuilder extends MatrixTestSuiteBuilder {
         addTest(new org.apache.axiom.ts.om.sourcedelement.jaxb.TestExceptionDuringSerialization(metaFactory));
         addTest(new org.apache.axiom.ts.om.sourcedelement.jaxb.TestGetNameFromJAXBElement(metaFactory));
         addTest(new org.apache.axiom.ts.om.sourcedelement.jaxb.TestGetNameFromPlainObject(metaFactory));
+        addTest(new org.apache.axiom.ts.om.sourcedelement.jaxb.TestSerializeWithPool(metaFactory));
         addTest(new org.apache.axiom.ts.om.sourcedelement.sr.TestGetName(metaFactory));
         for (int events = 0; events < 7; events++) {
             addTest(new org.apache.axiom.ts.om.sourcedelement.sr.TestCloseWithoutCaching(metaFactory, events));
@@ -659,6 +670,8 @@ public class OMTestSuiteBuilder extends MatrixTestSuiteBuilder {
         addTest(new org.apache.axiom.ts.om.text.TestSerialize(metaFactory, OMNode.CDATA_SECTION_NODE));
         addTest(new org.apache.axiom.ts.om.xop.TestSerialize(metaFactory, false));
         addTest(new org.apache.axiom.ts.om.xop.TestSerialize(metaFactory, true));
+        addTest(new org.apache.axiom.ts.om.xop.TestSerializeWithPrefetch(metaFactory, false));
+        addTest(new org.apache.axiom.ts.om.xop.TestSerializeWithPrefetch(metaFactory, true));
         addTest(new org.apache.axiom.ts.om.xop.TestSetOptimize(metaFactory, false));
         addTest(new org.apache.axiom.ts.om.xop.TestSetOptimize(metaFactory, true));
         addTest(new org.apache.axiom.ts.om.xop.XOPRoundtripTest(metaFactory));
@@ -671,6 +684,8 @@ public class OMTestSuiteBuilder extends MatrixTestSuiteBuilder {
         }
         addTest(new org.apache.axiom.ts.om.xpath.TestAddNamespaces(metaFactory));
         addTest(new org.apache.axiom.ts.om.xpath.TestAddNamespaces2(metaFactory));
+        addTest(new org.apache.axiom.ts.om.xpath.TestAXIOMXPathWithElementIndex(metaFactory));
         addTest(new org.apache.axiom.ts.om.xpath.TestGetAttributeQName(metaFactory));
+        addTest(new org.apache.axiom.ts.om.xpath.TestStreamingXPath(metaFactory));
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.builder;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.axiom.blob.MemoryBlob;
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMDataSource;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMSourcedElement;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.om.OMXMLParserWrapper;
+import org.apache.axiom.om.ds.custombuilder.BlobOMDataSourceCustomBuilder;
+import org.apache.axiom.om.ds.custombuilder.CustomBuilder;
+import org.apache.axiom.om.ds.custombuilder.CustomBuilderSupport;
+import org.apache.axiom.om.ds.custombuilder.ElementNameSelector;
+import org.apache.axiom.ts.AxiomTestCase;
+
+/**
+ * Tests custom builders registered with {@link ElementNameSelector} instances, mixed with custom
+ * builders registered with arbitrary selectors. Checks that if multiple selectors accept an
+ * element, the one registered first wins, regardless of its type.
+ */
+public class TestRegisterCustomBuilderWithElementNameSelector extends AxiomTestCase {
+    private static class RecordingCustomBuilder implements CustomBuilder {
+        private final String name;
+        private final List<String> log;
+        
+        RecordingCustomBuilder(String name, List<String> log) {
+            this.name = name;
+            this.log = log;
+        }
+
+        @Override
+        public OMDataSource create(OMElement element) throws OMException {
+            log.add(name + ":" + element.getLocalName());
+            return new BlobOMDataSourceCustomBuilder(MemoryBlob.FACTORY, "utf-8").create(element);
+        }
+    }
+    
+    public TestRegisterCustomBuilderWithElementNameSelector(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        OMXMLParserWrapper builder = OMXMLBuilderFactory.createOMBuilder(metaFactory.getOMFactory(),
+                new StringReader("<root><a xmlns='urn:ns'><b/></a><b/><c/><d><b/><a/></d></root>"));
+        List<String> log = new ArrayList<String>();
+        CustomBuilderSupport cbs = (CustomBuilderSupport)builder;
+        cbs.registerCustomBuilder(
+                new CustomBuilder.Selector() {
+                    @Override
+                    public boolean accepts(OMContainer parent, int depth, String namespaceURI, String localName) {
+                        return depth == 2 && localName.equals("b");
+                    }
+                },
+                new RecordingCustomBuilder("selector1", log));
+        cbs.registerCustomBuilder(new ElementNameSelector("urn:ns", "a", 2),
+                new RecordingCustomBuilder("selector2", log));
+        cbs.registerCustomBuilder(new ElementNameSelector("", "b", ElementNameSelector.ANY_DEPTH),
+                new RecordingCustomBuilder("selector3", log));
+        cbs.registerCustomBuilder(
+                new CustomBuilder.Selector() {
+                    @Override
+                    public boolean accepts(OMContainer parent, int depth, String namespaceURI, String localName) {
+                        return depth == 2;
+                    }
+                },
+                new RecordingCustomBuilder("selector4", log));
+        cbs.registerCustomBuilder(new ElementNameSelector("", "a", 3),
+                new RecordingCustomBuilder("selector5", log));
+        OMElement root = builder.getDocumentElement();
+        root.build();
+        assertThat(log).containsExactly("selector2:a", "selector1:b", "selector4:c", "selector4:d").inOrder();
+        Iterator<OMElement> it = root.getChildElements();
+        while (it.hasNext()) {
+            assertThat(it.next()).isInstanceOf(OMSourcedElement.class);
+        }
+    }
+}
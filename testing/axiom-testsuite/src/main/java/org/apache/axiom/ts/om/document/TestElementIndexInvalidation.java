@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.document;
+
+import java.io.StringReader;
+import java.util.Iterator;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.ts.AxiomTestCase;
+
+/**
+ * Tests that the element index enabled with {@link OMDocument#setIndexingEnabled(boolean)} is
+ * updated when the document is modified.
+ */
+public class TestElementIndexInvalidation extends AxiomTestCase {
+    private static final QName ITEM = new QName("item");
+    private static final QName XML_ID = new QName(XMLConstants.XML_NS_URI, "id");
+
+    public TestElementIndexInvalidation(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    private static int count(Iterator<?> it) {
+        int count = 0;
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        OMFactory factory = metaFactory.getOMFactory();
+        OMNamespace xmlNS = factory.createOMNamespace(XMLConstants.XML_NS_URI, XMLConstants.XML_NS_PREFIX);
+        OMDocument document = OMXMLBuilderFactory.createOMBuilder(factory,
+                new StringReader("<root><item xml:id='a'/><x><item xml:id='b'/></x></root>")).getDocument();
+        document.setIndexingEnabled(true);
+        assertEquals(2, count(document.getOMElementsByName(ITEM)));
+        OMElement b = document.getOMElementById("b");
+        assertNotNull(b);
+        
+        // Add an element deep in the tree
+        OMElement x = (OMElement)b.getParent();
+        OMElement c = factory.createOMElement("item", null, x);
+        assertEquals(3, count(document.getOMElementsByName(ITEM)));
+        
+        // Modify the newly added element (which was not part of the tree when the index was
+        // first built)
+        c.addAttribute("id", "c", xmlNS);
+        assertSame(c, document.getOMElementById("c"));
+        
+        // Change an ID
+        OMAttribute attr = b.getAttribute(XML_ID);
+        attr.setAttributeValue("b2");
+        assertNull(document.getOMElementById("b"));
+        assertSame(b, document.getOMElementById("b2"));
+        
+        // Rename an element
+        b.setLocalName("renamed");
+        assertEquals(2, count(document.getOMElementsByName(ITEM)));
+        
+        // Remove an element
+        c.detach();
+        assertNull(document.getOMElementById("c"));
+        assertEquals(1, count(document.getOMElementsByName(ITEM)));
+        
+        // Remove an attribute
+        document.getOMElementById("a").removeAttribute(document.getOMElementById("a").getAttribute(XML_ID));
+        assertNull(document.getOMElementById("a"));
+        
+        // Disable indexing
+        document.setIndexingEnabled(false);
+        assertFalse(document.isIndexingEnabled());
+        assertSame(b, document.getOMElementById("b2"));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.document;
+
+import java.io.StringReader;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.ts.AxiomTestCase;
+
+/**
+ * Tests {@link OMDocument#getOMElementById(String)} with attributes of type ID declared in the
+ * internal DTD subset and with <code>xml:id</code> attributes.
+ */
+public class TestGetOMElementById extends AxiomTestCase {
+    private final boolean indexingEnabled;
+
+    public TestGetOMElementById(OMMetaFactory metaFactory, boolean indexingEnabled) {
+        super(metaFactory);
+        this.indexingEnabled = indexingEnabled;
+        addTestParameter("indexingEnabled", indexingEnabled);
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        OMDocument document = OMXMLBuilderFactory.createOMBuilder(metaFactory.getOMFactory(),
+                new StringReader("<!DOCTYPE root [<!ATTLIST item key ID #IMPLIED>]>"
+                        + "<root><item key='a'/><x><item key='b' xml:id='c'/></x>"
+                        + "<other xml:id='d' key='e'/><item key='a' name='dup'/></root>")).getDocument();
+        document.setIndexingEnabled(indexingEnabled);
+        assertEquals(indexingEnabled, document.isIndexingEnabled());
+        assertEquals("b", document.getOMElementById("c").getAttributeValue(new QName("key")));
+        assertEquals("item", document.getOMElementById("b").getLocalName());
+        assertEquals("other", document.getOMElementById("d").getLocalName());
+        // The first element in document order wins
+        assertNull(document.getOMElementById("a").getAttributeValue(new QName("name")));
+        // key is only of type ID on item elements
+        assertNull(document.getOMElementById("e"));
+        assertNull(document.getOMElementById("root"));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.document;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.ts.AxiomTestCase;
+
+/**
+ * Tests {@link OMDocument#getOMElementsByName(QName)}.
+ */
+public class TestGetOMElementsByName extends AxiomTestCase {
+    private final boolean indexingEnabled;
+
+    public TestGetOMElementsByName(OMMetaFactory metaFactory, boolean indexingEnabled) {
+        super(metaFactory);
+        this.indexingEnabled = indexingEnabled;
+        addTestParameter("indexingEnabled", indexingEnabled);
+    }
+
+    private static List<String> getIds(Iterator<OMElement> it) {
+        List<String> ids = new ArrayList<String>();
+        while (it.hasNext()) {
+            ids.add(it.next().getAttributeValue(new QName("id")));
+        }
+        return ids;
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        OMDocument document = OMXMLBuilderFactory.createOMBuilder(metaFactory.getOMFactory(),
+                new StringReader("<root xmlns:p='urn:p'><item id='1'/><p:item id='2'/>"
+                        + "<x><item id='3'><item id='4'/></item></x></root>")).getDocument();
+        document.setIndexingEnabled(indexingEnabled);
+        assertThat(getIds(document.getOMElementsByName(new QName("item")))).containsExactly("1", "3", "4").inOrder();
+        assertThat(getIds(document.getOMElementsByName(new QName("urn:p", "item", "q")))).containsExactly("2");
+        assertThat(getIds(document.getOMElementsByName(new QName("root")))).containsExactly((String)null);
+        assertFalse(document.getOMElementsByName(new QName("urn:p", "root")).hasNext());
+    }
+}
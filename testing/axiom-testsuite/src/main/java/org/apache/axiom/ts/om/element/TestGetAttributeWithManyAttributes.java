@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.element;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.ts.AxiomTestCase;
+
+/**
+ * Tests attribute lookups on an element with a large number of attributes (for which the
+ * implementation uses an index) while attributes are added, removed, replaced and renamed.
+ */
+public class TestGetAttributeWithManyAttributes extends AxiomTestCase {
+    public TestGetAttributeWithManyAttributes(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    private static void checkAttributes(OMElement element, List<OMAttribute> expected) {
+        List<OMAttribute> actual = new ArrayList<OMAttribute>();
+        for (Iterator<OMAttribute> it = element.getAllAttributes(); it.hasNext(); ) {
+            actual.add(it.next());
+        }
+        assertThat(actual).containsExactlyElementsIn(expected).inOrder();
+        for (OMAttribute attr : expected) {
+            assertThat(element.getAttribute(attr.getQName())).isSameAs(attr);
+            assertThat(element.getAttributeValue(attr.getQName())).isEqualTo(attr.getAttributeValue());
+        }
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        OMFactory factory = metaFactory.getOMFactory();
+        StringBuilder xml = new StringBuilder("<root xmlns:p='urn:p' xmlns:q='urn:q'");
+        for (int i=0; i<100; i++) {
+            xml.append(' ');
+            xml.append(i % 3 == 0 ? "p:" : i % 3 == 1 ? "q:" : "");
+            xml.append("a");
+            xml.append(i % 50);
+            xml.append("='");
+            xml.append(i);
+            xml.append("'");
+        }
+        xml.append("/>");
+        OMElement element = OMXMLBuilderFactory.createOMBuilder(factory,
+                new StringReader(xml.toString())).getDocumentElement();
+        List<OMAttribute> expected = new ArrayList<OMAttribute>();
+        for (Iterator<OMAttribute> it = element.getAllAttributes(); it.hasNext(); ) {
+            expected.add(it.next());
+        }
+        assertThat(expected).hasSize(100);
+        checkAttributes(element, expected);
+        assertThat(element.getAttribute(new QName("urn:p", "a99"))).isNull();
+        assertThat(element.getAttributeValue(new QName("urn:r", "a0"))).isNull();
+        // The namespace declarations are not affected
+        assertThat(element.findNamespaceURI("p").getNamespaceURI()).isEqualTo("urn:p");
+        assertThat(element.findNamespaceURI("q").getNamespaceURI()).isEqualTo("urn:q");
+        
+        // Remove every fourth attribute
+        for (int i=expected.size()-1; i>=0; i-=4) {
+            element.removeAttribute(expected.remove(i));
+        }
+        checkAttributes(element, expected);
+        
+        // Replace an attribute
+        OMAttribute oldAttr = expected.get(10);
+        OMAttribute newAttr = element.addAttribute(oldAttr.getLocalName(), "new", oldAttr.getNamespace());
+        expected.set(10, newAttr);
+        checkAttributes(element, expected);
+        
+        // Rename attributes
+        OMAttribute attr = expected.get(20);
+        QName oldName = attr.getQName();
+        attr.setLocalName("renamed");
+        checkAttributes(element, expected);
+        assertThat(element.getAttribute(oldName)).isNull();
+        attr = expected.get(30);
+        oldName = attr.getQName();
+        attr.setNamespace(factory.createOMNamespace("urn:r", "r"), true);
+        checkAttributes(element, expected);
+        assertThat(element.getAttribute(oldName)).isNull();
+        
+        // Append new attributes
+        OMNamespace ns = factory.createOMNamespace("urn:s", "s");
+        for (int i=0; i<20; i++) {
+            expected.add(element.addAttribute("b" + i, String.valueOf(i), ns));
+        }
+        checkAttributes(element, expected);
+        
+        // Remove most attributes
+        while (expected.size() > 5) {
+            element.removeAttribute(expected.remove(0));
+        }
+        checkAttributes(element, expected);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.element;
+
+import javax.activation.DataHandler;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.helpers.DefaultValidationEventHandler;
+
+import org.apache.axiom.om.JAXBPool;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.UnmarshallerConfigurator;
+import org.apache.axiom.om.ds.jaxb.JAXBOMDataSource;
+import org.apache.axiom.ts.AxiomTestCase;
+import org.apache.axiom.ts.jaxb.beans.DocumentBean;
+
+/**
+ * Tests {@link OMElement#unmarshal(JAXBPool, UnmarshallerConfigurator, boolean)}. Checks that
+ * unmarshallers are reused and that unmarshallers customized by an
+ * {@link UnmarshallerConfigurator} are not returned to the pool.
+ */
+public class TestUnmarshalWithPool extends AxiomTestCase {
+    public TestUnmarshalWithPool(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        OMFactory factory = metaFactory.getOMFactory();
+        JAXBPool pool = new JAXBPool(JAXBContext.newInstance(DocumentBean.class));
+        for (int i=0; i<3; i++) {
+            DocumentBean orgBean = new DocumentBean();
+            orgBean.setId("AB" + i);
+            orgBean.setContent(new DataHandler("test content " + i, "text/plain"));
+            OMElement element = factory.createOMElement(new JAXBOMDataSource(pool, orgBean));
+            DocumentBean bean = (DocumentBean)element.unmarshal(pool, null, true);
+            assertEquals(orgBean.getId(), bean.getId());
+            assertEquals(orgBean.getContent(), bean.getContent());
+        }
+        assertEquals(1, pool.getCreatedUnmarshallerCount());
+        assertEquals(1, pool.getCreatedMarshallerCount());
+        
+        final DefaultValidationEventHandler eventHandler = new DefaultValidationEventHandler();
+        DocumentBean orgBean = new DocumentBean();
+        orgBean.setId("XYZ");
+        OMElement element = factory.createOMElement(new JAXBOMDataSource(pool, orgBean));
+        DocumentBean bean = (DocumentBean)element.unmarshal(pool, new UnmarshallerConfigurator() {
+            @Override
+            public void configure(Unmarshaller unmarshaller) throws JAXBException {
+                unmarshaller.setEventHandler(eventHandler);
+            }
+        }, true);
+        assertEquals("XYZ", bean.getId());
+        Unmarshaller unmarshaller = pool.acquireUnmarshaller();
+        assertNotSame(eventHandler, unmarshaller.getEventHandler());
+        pool.releaseUnmarshaller(unmarshaller);
+        assertEquals(1, pool.getCreatedUnmarshallerCount());
+    }
+}
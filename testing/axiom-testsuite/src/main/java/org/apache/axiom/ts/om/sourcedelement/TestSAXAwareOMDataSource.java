@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.sourcedelement;
+
+import java.io.StringWriter;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMSourcedElement;
+import org.apache.axiom.om.SAXAwareOMDataSource;
+import org.apache.axiom.om.ds.AbstractPushOMDataSource;
+import org.apache.axiom.om.impl.MTOMXMLStreamWriter;
+import org.apache.axiom.ts.AxiomTestCase;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Tests that {@link OMSourcedElement} uses
+ * {@link SAXAwareOMDataSource#serialize(ContentHandler, MTOMXMLStreamWriter)} when the element is
+ * serialized and when it is expanded. Also checks that namespace declarations reported as
+ * attributes are skipped, but not attributes whose name merely starts with <code>xmlns</code>.
+ */
+public class TestSAXAwareOMDataSource extends AxiomTestCase {
+    static class SAXOMDataSource extends AbstractPushOMDataSource implements SAXAwareOMDataSource {
+        int saxCount;
+        int staxCount;
+        
+        @Override
+        public void serialize(XMLStreamWriter writer) throws XMLStreamException {
+            staxCount++;
+            writer.writeStartElement("p", "root", "urn:test");
+            writer.writeNamespace("p", "urn:test");
+            writer.writeStartElement("", "child", "");
+            writer.writeAttribute("attr", "value");
+            writer.writeAttribute("xmlnsFoo", "bar");
+            writer.writeCharacters("text");
+            writer.writeEndElement();
+            writer.writeEndElement();
+        }
+
+        @Override
+        public void serialize(ContentHandler contentHandler, MTOMXMLStreamWriter writer) throws XMLStreamException {
+            saxCount++;
+            try {
+                contentHandler.startPrefixMapping("p", "urn:test");
+                AttributesImpl attrs = new AttributesImpl();
+                attrs.addAttribute("", "", "xmlns:p", "CDATA", "urn:test");
+                contentHandler.startElement("urn:test", "root", "p:root", attrs);
+                attrs = new AttributesImpl();
+                attrs.addAttribute("", "attr", "attr", "CDATA", "value");
+                attrs.addAttribute("", "xmlnsFoo", "xmlnsFoo", "CDATA", "bar");
+                contentHandler.startElement("", "child", "child", attrs);
+                contentHandler.characters("text".toCharArray(), 0, 4);
+                contentHandler.endElement("", "child", "child");
+                contentHandler.endElement("urn:test", "root", "p:root");
+                contentHandler.endPrefixMapping("p");
+            } catch (SAXException ex) {
+                throw new XMLStreamException(ex);
+            }
+        }
+
+        @Override
+        public boolean isDestructiveWrite() {
+            return false;
+        }
+    }
+    
+    public TestSAXAwareOMDataSource(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        OMFactory factory = metaFactory.getOMFactory();
+        SAXOMDataSource ds = new SAXOMDataSource();
+        OMSourcedElement element = factory.createOMElement(ds);
+        StringWriter sw = new StringWriter();
+        element.serialize(sw);
+        assertEquals("<p:root xmlns:p=\"urn:test\"><child attr=\"value\" xmlnsFoo=\"bar\">text</child></p:root>", sw.toString());
+        assertFalse(element.isExpanded());
+        OMElement child = element.getFirstElement();
+        assertTrue(element.isExpanded());
+        assertEquals("urn:test", element.getNamespaceURI());
+        assertEquals("p", element.getPrefix());
+        assertEquals("child", child.getLocalName());
+        assertNull(child.getNamespace());
+        OMAttribute attr = child.getAttribute(new QName("attr"));
+        assertEquals("value", attr.getAttributeValue());
+        assertEquals("bar", child.getAttributeValue(new QName("xmlnsFoo")));
+        assertFalse(element.getAllAttributes().hasNext());
+        assertEquals("text", child.getText());
+        assertEquals(2, ds.saxCount);
+        assertEquals(0, ds.staxCount);
+    }
+}
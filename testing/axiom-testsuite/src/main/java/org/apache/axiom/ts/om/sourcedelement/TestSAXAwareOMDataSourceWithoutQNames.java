@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.sourcedelement;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.StringWriter;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMSourcedElement;
+import org.apache.axiom.om.SAXAwareOMDataSource;
+import org.apache.axiom.om.ds.AbstractPushOMDataSource;
+import org.apache.axiom.om.impl.MTOMXMLStreamWriter;
+import org.apache.axiom.ts.AxiomTestCase;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Tests that the prefixes of elements and attributes are determined from the namespace bindings if
+ * a {@link SAXAwareOMDataSource} reports empty qualified names (as is the case if the
+ * <code>namespace-prefixes</code> feature is disabled). Also checks that a prefix hidden by a more
+ * recent binding and the default namespace (for attributes) are not used.
+ */
+public class TestSAXAwareOMDataSourceWithoutQNames extends AxiomTestCase {
+    static class SAXOMDataSource extends AbstractPushOMDataSource implements SAXAwareOMDataSource {
+        @Override
+        public void serialize(XMLStreamWriter writer) throws XMLStreamException {
+            writer.writeStartElement("p", "root", "urn:p");
+            writer.writeNamespace("p", "urn:p");
+            writer.writeNamespace("q", "urn:q");
+            writer.writeAttribute("q", "urn:q", "attr", "value1");
+            writer.writeStartElement("", "child", "urn:q");
+            writer.writeDefaultNamespace("urn:q");
+            writer.writeNamespace("p", "urn:p2");
+            writer.writeAttribute("q", "urn:q", "attr", "value2");
+            writer.writeStartElement("p", "grandchild", "urn:p2");
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndElement();
+        }
+
+        @Override
+        public void serialize(ContentHandler contentHandler, MTOMXMLStreamWriter writer) throws XMLStreamException {
+            try {
+                contentHandler.startPrefixMapping("p", "urn:p");
+                contentHandler.startPrefixMapping("q", "urn:q");
+                AttributesImpl attrs = new AttributesImpl();
+                attrs.addAttribute("urn:q", "attr", "", "CDATA", "value1");
+                contentHandler.startElement("urn:p", "root", "", attrs);
+                contentHandler.startPrefixMapping("", "urn:q");
+                contentHandler.startPrefixMapping("p", "urn:p2");
+                attrs = new AttributesImpl();
+                attrs.addAttribute("urn:q", "attr", "", "CDATA", "value2");
+                contentHandler.startElement("urn:q", "child", "", attrs);
+                contentHandler.startElement("urn:p2", "grandchild", "", new AttributesImpl());
+                contentHandler.endElement("urn:p2", "grandchild", "");
+                contentHandler.endElement("urn:q", "child", "");
+                contentHandler.endPrefixMapping("p");
+                contentHandler.endPrefixMapping("");
+                contentHandler.endElement("urn:p", "root", "");
+                contentHandler.endPrefixMapping("q");
+                contentHandler.endPrefixMapping("p");
+            } catch (SAXException ex) {
+                throw new XMLStreamException(ex);
+            }
+        }
+
+        @Override
+        public boolean isDestructiveWrite() {
+            return false;
+        }
+    }
+    
+    public TestSAXAwareOMDataSourceWithoutQNames(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        OMFactory factory = metaFactory.getOMFactory();
+        OMSourcedElement element = factory.createOMElement(new SAXOMDataSource());
+        StringWriter sw = new StringWriter();
+        element.serialize(sw);
+        assertThat(sw.toString()).contains("<p:root");
+        assertThat(sw.toString()).contains("q:attr=\"value1\"");
+        assertThat(sw.toString()).contains("<child");
+        assertThat(sw.toString()).contains("q:attr=\"value2\"");
+        assertThat(sw.toString()).contains("<p:grandchild");
+        assertEquals("p", element.getPrefix());
+        assertEquals("q", element.getAttribute(new QName("urn:q", "attr")).getPrefix());
+        OMElement child = element.getFirstElement();
+        assertEquals("urn:q", child.getNamespaceURI());
+        assertNull(child.getPrefix());
+        assertEquals("q", child.getAttribute(new QName("urn:q", "attr")).getPrefix());
+        OMElement grandchild = child.getFirstElement();
+        assertEquals("urn:p2", grandchild.getNamespaceURI());
+        assertEquals("p", grandchild.getPrefix());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.sourcedelement.jaxb;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.StringWriter;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+
+import org.apache.axiom.om.JAXBPool;
+import org.apache.axiom.om.OMDataSourceExt;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMSourcedElement;
+import org.apache.axiom.om.ds.jaxb.JAXBOMDataSource;
+import org.apache.axiom.ts.AxiomTestCase;
+import org.apache.axiom.ts.jaxb.beans.DocumentBean;
+
+/**
+ * Tests that {@link JAXBOMDataSource} instances created with a {@link JAXBPool} reuse the
+ * marshaller across serializations and copies.
+ */
+public class TestSerializeWithPool extends AxiomTestCase {
+    public TestSerializeWithPool(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        OMFactory omFactory = metaFactory.getOMFactory();
+        JAXBContext context = JAXBContext.newInstance(DocumentBean.class);
+        JAXBPool pool = new JAXBPool(context);
+        DocumentBean bean = new DocumentBean();
+        bean.setId("123456");
+        OMSourcedElement element = omFactory.createOMElement(new JAXBOMDataSource(pool, bean));
+        assertEquals("document", element.getLocalName());
+        for (int i=0; i<3; i++) {
+            StringWriter sw = new StringWriter();
+            element.serialize(sw);
+            assertThat(sw.toString()).contains("<id>123456</id>");
+        }
+        assertFalse(element.isExpanded());
+        OMSourcedElement copy = omFactory.createOMElement(((OMDataSourceExt)element.getDataSource()).copy());
+        copy.serialize(new StringWriter());
+        assertEquals(1, pool.getCreatedMarshallerCount());
+        Marshaller marshaller = pool.acquireMarshaller();
+        assertEquals(Boolean.TRUE, marshaller.getProperty(Marshaller.JAXB_FRAGMENT));
+        pool.releaseMarshaller(marshaller);
+        assertEquals(1, pool.getCreatedMarshallerCount());
+    }
+}
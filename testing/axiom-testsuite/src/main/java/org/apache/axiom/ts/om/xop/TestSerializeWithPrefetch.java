@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.xop;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.activation.DataHandler;
+import javax.activation.FileDataSource;
+
+import org.apache.axiom.attachments.ByteArrayDataSource;
+import org.apache.axiom.mime.MultipartBody;
+import org.apache.axiom.mime.Part;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.impl.AttachmentWriteMetrics;
+import org.apache.axiom.ts.AxiomTestCase;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Tests serialization of an XOP encoded message with
+ * {@link OMOutputFormat#ATTACHMENT_PREFETCH_EXECUTOR} set. Checks that the parts are written in
+ * document order, that file based attachments are transferred without copying if the output
+ * stream is a {@link FileOutputStream} and that only the parts following the one being written
+ * are submitted to the executor.
+ */
+public class TestSerializeWithPrefetch extends AxiomTestCase {
+    private final boolean base64;
+    
+    public TestSerializeWithPrefetch(OMMetaFactory metaFactory, boolean base64) {
+        super(metaFactory);
+        this.base64 = base64;
+        addTestParameter("base64", base64);
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        OMFactory factory = metaFactory.getOMFactory();
+        Random random = new Random(1234);
+        List<byte[]> contents = new ArrayList<byte[]>();
+        List<File> files = new ArrayList<File>();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final AtomicInteger tasks = new AtomicInteger();
+        File outFile = File.createTempFile("message", ".mime");
+        try {
+            OMElement root = factory.createOMElement("root", null);
+            for (int i=0; i<10; i++) {
+                // Alternate between file based and memory based content of varying size
+                byte[] content = new byte[random.nextInt(200000)];
+                random.nextBytes(content);
+                contents.add(content);
+                DataHandler dh;
+                if (i % 2 == 0) {
+                    File file = File.createTempFile("attachment", ".dat");
+                    files.add(file);
+                    FileUtils.writeByteArrayToFile(file, content);
+                    dh = new DataHandler(new FileDataSource(file));
+                } else {
+                    dh = new DataHandler(new ByteArrayDataSource(content, "application/octet-stream"));
+                }
+                OMElement child = factory.createOMElement("data", null, root);
+                child.addChild(factory.createOMText(dh, true));
+            }
+            
+            OMOutputFormat format = new OMOutputFormat();
+            format.setDoOptimize(true);
+            if (base64) {
+                format.setProperty(OMOutputFormat.USE_CTE_BASE64_FOR_NON_TEXTUAL_ATTACHMENTS, Boolean.TRUE);
+            }
+            AttachmentWriteMetrics metrics = new AttachmentWriteMetrics();
+            format.setProperty(OMOutputFormat.ATTACHMENT_PREFETCH_EXECUTOR, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    tasks.incrementAndGet();
+                    executor.execute(command);
+                }
+            });
+            format.setProperty(OMOutputFormat.ATTACHMENT_PREFETCH_LIMIT, 3);
+            format.setProperty(OMOutputFormat.ATTACHMENT_WRITE_METRICS, metrics);
+            FileOutputStream out = new FileOutputStream(outFile);
+            try {
+                root.serialize(out, format);
+            } finally {
+                out.close();
+            }
+            
+            InputStream in = new FileInputStream(outFile);
+            try {
+                MultipartBody mb = MultipartBody.builder()
+                        .setInputStream(in)
+                        .setContentType(format.getContentType())
+                        .build();
+                Iterator<Part> it = mb.iterator();
+                // Skip the root part
+                it.next();
+                for (byte[] content : contents) {
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    IOUtils.copy(it.next().getInputStream(false), baos);
+                    assertThat(baos.toByteArray()).isEqualTo(content);
+                }
+                assertThat(it.hasNext()).isFalse();
+            } finally {
+                in.close();
+            }
+            
+            List<AttachmentWriteMetrics.PartMetrics> parts = metrics.getParts();
+            assertThat(parts).hasSize(contents.size());
+            long totalBytes = 0;
+            for (int i=0; i<parts.size(); i++) {
+                AttachmentWriteMetrics.PartMetrics part = parts.get(i);
+                assertThat(part.getBytes()).isEqualTo(contents.get(i).length);
+                // The first part is fetched by the thread serializing the message
+                assertThat(part.isPrefetched()).isEqualTo(i > 0);
+                assertThat(part.isZeroCopy()).isEqualTo(!base64 && i % 2 == 0);
+                totalBytes += part.getBytes();
+            }
+            assertThat(metrics.getTotalBytes()).isEqualTo(totalBytes);
+            assertThat(tasks.get()).isEqualTo(contents.size() - 1);
+        } finally {
+            executor.shutdown();
+            outFile.delete();
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.xpath;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.om.xpath.AXIOMXPath;
+import org.apache.axiom.ts.AxiomTestCase;
+
+/**
+ * Tests that {@link AXIOMXPath} produces the same results for expressions of the form
+ * <code>//name</code> and for the <code>id()</code> function when the element index of the
+ * document is used, and that modifications of the document are taken into account.
+ */
+public class TestAXIOMXPathWithElementIndex extends AxiomTestCase {
+    public TestAXIOMXPathWithElementIndex(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        OMFactory factory = metaFactory.getOMFactory();
+        OMDocument document = OMXMLBuilderFactory.createOMBuilder(factory,
+                new StringReader("<root xmlns:p='urn:p'><item xml:id='a'/><x><p:item/><item>"
+                        + "<item/></item></x></root>")).getDocument();
+        AXIOMXPath xpath = new AXIOMXPath("//item");
+        AXIOMXPath nsXPath = new AXIOMXPath("/descendant::q:item");
+        nsXPath.addNamespace("q", "urn:p");
+        List<?> expected = xpath.selectNodes(document);
+        assertEquals(3, expected.size());
+        assertEquals(1, nsXPath.selectNodes(document).size());
+        assertSame(expected.get(0), new AXIOMXPath("id('a')").selectSingleNode(document));
+        
+        document.setIndexingEnabled(true);
+        assertEquals(expected, xpath.selectNodes(document));
+        assertEquals(expected, xpath.selectNodes(document.getOMDocumentElement().getFirstElement()));
+        assertEquals(1, nsXPath.selectNodes(document).size());
+        assertEquals(3, new AXIOMXPath("count(//item)").numberValueOf(document).intValue());
+        assertSame(expected.get(0), new AXIOMXPath("id('a')").selectSingleNode(document));
+        
+        factory.createOMElement("item", null, document.getOMDocumentElement());
+        assertEquals(4, xpath.selectNodes(document).size());
+    }
+}
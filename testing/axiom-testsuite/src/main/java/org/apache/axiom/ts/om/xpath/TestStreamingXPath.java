@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.om.xpath;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.xpath.StreamingXPath;
+import org.apache.axiom.ts.AxiomTestCase;
+
+/**
+ * Tests {@link StreamingXPath}.
+ */
+public class TestStreamingXPath extends AxiomTestCase {
+    private static final String XML =
+            "<root xmlns:p='urn:p'>"
+            + "<item id='1'>a</item>"
+            + "<group><item id='2'>b<!--x--></item><p:item id='3'>c<![CDATA[d]]></p:item></group>"
+            + "<item id='4'><item id='5'>e</item></item>"
+            + "</root>";
+
+    public TestStreamingXPath(OMMetaFactory metaFactory) {
+        super(metaFactory);
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        StreamingXPath xpath = new StreamingXPath("//item");
+        List<OMElement> elements = xpath.selectElements(metaFactory,
+                new StreamSource(new StringReader(XML)), -1);
+        assertThat(elements).hasSize(4);
+        assertThat(elements.get(0).getAttributeValue(new QName("id"))).isEqualTo("1");
+        assertThat(elements.get(2).getText()).isEqualTo("");
+        assertThat(elements.get(2).getFirstElement().getText()).isEqualTo("e");
+        assertThat(elements.get(3).getAttributeValue(new QName("id"))).isEqualTo("5");
+        for (OMElement element : elements) {
+            assertThat(element.getParent()).isNull();
+            assertThat(element.isComplete()).isTrue();
+        }
+        
+        // Check that in scope namespace declarations are preserved
+        OMElement pItem = new StreamingXPath("//q:item", Collections.singletonMap("q", "urn:p"))
+                .selectElements(metaFactory, new StreamSource(new StringReader(XML)), -1).get(0);
+        assertThat(pItem.getNamespace().getNamespaceURI()).isEqualTo("urn:p");
+        assertThat(pItem.getNamespace().getPrefix()).isEqualTo("p");
+        
+        assertThat(xpath.selectElements(metaFactory, new StreamSource(new StringReader(XML)), 2))
+                .hasSize(2);
+        
+        assertThat(new StreamingXPath("/root/group/*").selectStringValues(metaFactory,
+                new StreamSource(new StringReader(XML)), -1)).containsExactly("b", "cd").inOrder();
+        assertThat(new StreamingXPath("//item[2]/@id").selectStringValues(metaFactory,
+                new StreamSource(new StringReader(XML)), -1)).containsExactly("4");
+        assertThat(new StreamingXPath("//item/@id").selectStringValues(metaFactory,
+                new StreamSource(new StringReader(XML)), 3)).containsExactly("1", "2", "4").inOrder();
+        
+        try {
+            new StreamingXPath("//item/@id").selectElements(metaFactory,
+                    new StreamSource(new StringReader(XML)), -1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.soap.builder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Locale;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.soap.SOAPBody;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPHeaderBlock;
+import org.apache.axiom.ts.soap.SOAPSpec;
+import org.apache.axiom.ts.soap.SOAPTestCase;
+
+/**
+ * Tests {@link OMXMLBuilderFactory#createSOAPModelBuilderWithRawBody(OMMetaFactory, java.io.InputStream, String)}.
+ * The content of the SOAP body uses constructs that would not be preserved by a parse/serialize
+ * round trip, so that the test can check that the original bytes are copied verbatim.
+ */
+public class TestCreateSOAPModelBuilderWithRawBody extends SOAPTestCase {
+    public TestCreateSOAPModelBuilderWithRawBody(OMMetaFactory metaFactory, SOAPSpec spec) {
+        super(metaFactory, spec);
+    }
+
+    private SOAPEnvelope parse(String message) throws Exception {
+        return OMXMLBuilderFactory.createSOAPModelBuilderWithRawBody(metaFactory,
+                new ByteArrayInputStream(message.getBytes("UTF-8")), null).getSOAPEnvelope();
+    }
+
+    private static String serialize(OMElement element) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        element.serialize(baos);
+        return new String(baos.toByteArray(), "UTF-8");
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        String content = "<p:payload  attr = 'x' ><!-- </soapenv:Body> -->"
+                + "<![CDATA[</soapenv:Body>]]><child>caf\u00E9 &#x26; more</child><empty></empty></p:payload>";
+        String message = "<?xml version='1.0' encoding='UTF-8'?>"
+                + "<soapenv:Envelope xmlns:soapenv='" + spec.getEnvelopeNamespaceURI() + "' xmlns:p='urn:p'>"
+                + "<soapenv:Header><h:header xmlns:h='urn:h'>value</h:header></soapenv:Header>"
+                + "<soapenv:Body>" + content + "</soapenv:Body></soapenv:Envelope>";
+        
+        // Header blocks are available without parsing the body
+        SOAPEnvelope envelope = parse(message);
+        SOAPHeaderBlock headerBlock = (SOAPHeaderBlock)envelope.getHeader().getFirstElement();
+        assertEquals(new QName("urn:h", "header"), headerBlock.getQName());
+        assertEquals("value", headerBlock.getText());
+        
+        // Serializing the message copies the body content verbatim
+        assertTrue(serialize(envelope).contains("<soapenv:Body>" + content + "</soapenv:Body>"));
+        
+        // Serializing the body alone preserves the namespace context of the content
+        SOAPBody body = envelope.getBody();
+        OMElement body2 = OMXMLBuilderFactory.createOMBuilder(
+                new ByteArrayInputStream(serialize(body).getBytes("UTF-8"))).getDocumentElement();
+        assertTrue(serialize(body2).contains("<child>caf\u00E9 &amp; more</child>"));
+        assertEquals(new QName("urn:p", "payload"), body2.getFirstElement().getQName());
+        
+        // The content is still available through the pull API
+        OMElement body3 = OMXMLBuilderFactory.createStAXOMBuilder(
+                body.getXMLStreamReader()).getDocumentElement();
+        assertEquals(new QName("urn:p", "payload"), body3.getFirstElement().getQName());
+        
+        // Navigating into the body parses the content
+        OMElement payload = body.getFirstElement();
+        assertEquals(new QName("urn:p", "payload"), payload.getQName());
+        assertEquals("x", payload.getAttributeValue(new QName("attr")));
+        assertEquals("caf\u00E9 & more", payload.getFirstChildWithName(new QName("child")).getText());
+        assertFalse(body.hasFault());
+        
+        // After the body has been expanded, it is serialized from the tree
+        payload.addAttribute("added", "yes", null);
+        String serialized = serialize(envelope);
+        assertTrue(serialized.contains("added=\"yes\""));
+        assertTrue(serialized.contains("<child>caf\u00E9 &amp; more</child>"));
+        
+        // SOAP faults are recognized when the body is parsed
+        String fault = spec == SOAPSpec.SOAP11
+                ? "<soapenv:Fault><faultcode>soapenv:Server</faultcode><faultstring>error</faultstring></soapenv:Fault>"
+                : "<soapenv:Fault><soapenv:Code><soapenv:Value>soapenv:Receiver</soapenv:Value></soapenv:Code>"
+                        + "<soapenv:Reason><soapenv:Text xml:lang='en'>error</soapenv:Text></soapenv:Reason></soapenv:Fault>";
+        envelope = parse(message.replace(content, fault));
+        assertTrue(envelope.getBody().hasFault());
+        assertEquals("error", envelope.getBody().getFault().getReason().getFaultReasonText(Locale.ENGLISH));
+    }
+}
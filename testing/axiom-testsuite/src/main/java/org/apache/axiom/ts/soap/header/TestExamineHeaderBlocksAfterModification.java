@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.soap.header;
+
+import java.util.Iterator;
+
+import org.apache.axiom.om.OMMetaFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPHeader;
+import org.apache.axiom.soap.SOAPHeaderBlock;
+import org.apache.axiom.ts.soap.SOAPSpec;
+import org.apache.axiom.ts.soap.SOAPTestCase;
+
+/**
+ * Tests that the header block lookup methods of {@link SOAPHeader} take into account changes made
+ * to the header after a previous lookup, i.e. that any information cached by the implementation
+ * is correctly invalidated.
+ */
+public class TestExamineHeaderBlocksAfterModification extends SOAPTestCase {
+    public TestExamineHeaderBlocksAfterModification(OMMetaFactory metaFactory, SOAPSpec spec) {
+        super(metaFactory, spec);
+    }
+
+    private static void assertHeaderBlocks(Iterator<SOAPHeaderBlock> it, SOAPHeaderBlock... expected) {
+        for (SOAPHeaderBlock headerBlock : expected) {
+            assertTrue(it.hasNext());
+            assertSame(headerBlock, it.next());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        String role = "urn:test-role";
+        SOAPEnvelope envelope = soapFactory.createSOAPEnvelope();
+        SOAPHeader header = soapFactory.createSOAPHeader(envelope);
+        OMNamespace ns1 = soapFactory.createOMNamespace("urn:ns1", "ns1");
+        OMNamespace ns2 = soapFactory.createOMNamespace("urn:ns2", "ns2");
+        SOAPHeaderBlock headerBlock1 = header.addHeaderBlock("header1", ns1);
+        SOAPHeaderBlock headerBlock2 = header.addHeaderBlock("header2", ns2);
+        assertHeaderBlocks(header.examineHeaderBlocks(role));
+        assertHeaderBlocks(header.getHeaderBlocksWithNamespaceURI("urn:ns1"), headerBlock1);
+        
+        // Change an attribute
+        headerBlock2.setRole(role);
+        assertHeaderBlocks(header.examineHeaderBlocks(role), headerBlock2);
+        assertHeaderBlocks(header.examineMustUnderstandHeaderBlocks(role));
+        headerBlock2.setMustUnderstand(true);
+        assertHeaderBlocks(header.examineMustUnderstandHeaderBlocks(role), headerBlock2);
+        
+        // Change the namespace of a header block
+        headerBlock2.setNamespace(ns1);
+        assertHeaderBlocks(header.getHeaderBlocksWithNamespaceURI("urn:ns1"), headerBlock1, headerBlock2);
+        
+        // Add and remove header blocks
+        SOAPHeaderBlock headerBlock3 = header.addHeaderBlock("header3", ns1);
+        headerBlock3.setRole(role);
+        assertHeaderBlocks(header.examineHeaderBlocks(role), headerBlock2, headerBlock3);
+        headerBlock2.detach();
+        assertHeaderBlocks(header.examineHeaderBlocks(role), headerBlock3);
+        assertHeaderBlocks(header.examineAllHeaderBlocks(), headerBlock1, headerBlock3);
+        
+        // Remove a header block using the iterator
+        Iterator<SOAPHeaderBlock> it = header.examineAllHeaderBlocks();
+        assertSame(headerBlock1, it.next());
+        it.remove();
+        assertNull(headerBlock1.getParent());
+        assertHeaderBlocks(header.getHeaderBlocksWithNamespaceURI("urn:ns1"), headerBlock3);
+    }
+}
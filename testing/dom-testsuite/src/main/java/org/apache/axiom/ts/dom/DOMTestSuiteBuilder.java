@@ -119,8 +119,11 @@ public final class DOMTestSuiteBuilder extends MatrixTestSuiteBuilder {
         addTest(new org.apache.axiom.ts.dom.element.TestCloneNodeWithAttributeHavingMultipleChildren(dbf));
         addTest(new org.apache.axiom.ts.dom.element.TestCloneNodeWithAttributes(dbf, true));
         addTest(new org.apache.axiom.ts.dom.element.TestCloneNodeWithAttributes(dbf, false));
+        addTest(new org.apache.axiom.ts.dom.element.TestGetChildNodesLive(dbf));
         addTest(new org.apache.axiom.ts.dom.element.TestGetElementsByTagName(dbf));
         addTest(new org.apache.axiom.ts.dom.element.TestGetElementsByTagNameNS(dbf));
+        addTest(new org.apache.axiom.ts.dom.element.TestGetElementsByTagNameLive(dbf));
+        addTest(new org.apache.axiom.ts.dom.element.TestGetElementsByTagNameLiveRename(dbf));
         addTest(new org.apache.axiom.ts.dom.element.TestGetElementsByTagNameRecursive(dbf));
         addTest(new org.apache.axiom.ts.dom.element.TestGetElementsByTagNameWithNamespaces(dbf));
         addTest(new org.apache.axiom.ts.dom.element.TestGetElementsByTagNameWithWildcard(dbf));
@@ -173,6 +176,7 @@ public final class DOMTestSuiteBuilder extends MatrixTestSuiteBuilder {
         }
         addTest(new org.apache.axiom.ts.dom.element.TestSetAttributeNSExisting(dbf));
         addTest(new org.apache.axiom.ts.dom.element.TestSetAttributeNSExistingDefaultNamespaceDeclaration(dbf));
+        addTest(new org.apache.axiom.ts.dom.element.TestSetAttributeNSExistingManyAttributes(dbf));
         for (int i=0; i<invalidAttrQNames.length; i++) {
             addTest(new org.apache.axiom.ts.dom.element.TestSetAttributeNSInvalid(dbf, invalidAttrQNames[i]));
         }
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.dom.element;
+
+import java.io.StringReader;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.axiom.ts.dom.DOMTestCase;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests that the {@link NodeList} returned by {@link Node#getChildNodes()} is live, i.e. that it
+ * reflects changes made to the children of an element or attribute after nodes have been retrieved
+ * from the list.
+ */
+public class TestGetChildNodesLive extends DOMTestCase {
+    public TestGetChildNodesLive(DocumentBuilderFactory dbf) {
+        super(dbf);
+    }
+
+    protected void runTest() throws Throwable {
+        Document doc = dbf.newDocumentBuilder().parse(new InputSource(new StringReader(
+                "<root><a/>text<b/><c/></root>")));
+        Element root = doc.getDocumentElement();
+        NodeList children = root.getChildNodes();
+        assertEquals(4, children.getLength());
+        assertEquals("a", children.item(0).getNodeName());
+        assertEquals("text", children.item(1).getNodeValue());
+        assertEquals("c", children.item(3).getNodeName());
+        assertNull(children.item(4));
+        assertNull(children.item(-1));
+        
+        Element d = doc.createElementNS(null, "d");
+        root.appendChild(d);
+        assertEquals(5, children.getLength());
+        assertSame(d, children.item(4));
+        
+        root.removeChild(root.getFirstChild());
+        assertEquals(4, children.getLength());
+        assertEquals("text", children.item(0).getNodeValue());
+        
+        Element e = doc.createElementNS(null, "e");
+        root.insertBefore(e, root.getFirstChild());
+        assertSame(e, children.item(0));
+        assertSame(d, children.item(4));
+        
+        root.setTextContent("new");
+        assertEquals(1, children.getLength());
+        assertEquals("new", children.item(0).getNodeValue());
+        
+        NodeList eChildren = e.getChildNodes();
+        assertEquals(0, eChildren.getLength());
+        e.setTextContent("text");
+        assertEquals(1, eChildren.getLength());
+        assertEquals("text", eChildren.item(0).getNodeValue());
+        
+        Attr attr = doc.createAttributeNS(null, "attr");
+        attr.setValue("x");
+        NodeList attrChildren = attr.getChildNodes();
+        assertEquals("x", attrChildren.item(0).getNodeValue());
+        attr.setValue("y");
+        assertEquals(1, attrChildren.getLength());
+        assertEquals("y", attrChildren.item(0).getNodeValue());
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.dom.element;
+
+import java.io.StringReader;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.axiom.ts.dom.DOMTestCase;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests that the {@link NodeList} returned by {@link Element#getElementsByTagName(String)} and
+ * {@link Element#getElementsByTagNameNS(String, String)} is live, i.e. that it reflects changes
+ * made to the tree after nodes have been retrieved from the list.
+ */
+public class TestGetElementsByTagNameLive extends DOMTestCase {
+    public TestGetElementsByTagNameLive(DocumentBuilderFactory dbf) {
+        super(dbf);
+    }
+
+    protected void runTest() throws Throwable {
+        Document doc = dbf.newDocumentBuilder().parse(new InputSource(new StringReader(
+                "<root><a><b id='1'/><b id='2'/></a><b id='3'/><c><b id='4'/></c></root>")));
+        Element root = doc.getDocumentElement();
+        NodeList list = root.getElementsByTagName("b");
+        NodeList listNS = root.getElementsByTagNameNS("*", "b");
+        assertEquals("1", ((Element)list.item(0)).getAttribute("id"));
+        assertEquals("4", ((Element)list.item(3)).getAttribute("id"));
+        assertNull(list.item(4));
+        assertEquals(4, list.getLength());
+        assertEquals(4, listNS.getLength());
+        
+        Element newElement = doc.createElementNS(null, "b");
+        root.appendChild(newElement);
+        assertEquals(5, list.getLength());
+        assertSame(newElement, list.item(4));
+        assertSame(newElement, listNS.item(4));
+        
+        root.removeChild(root.getFirstChild());
+        assertEquals(3, list.getLength());
+        assertEquals("3", ((Element)list.item(0)).getAttribute("id"));
+        
+        Element c = (Element)root.getElementsByTagName("c").item(0);
+        Element inserted = doc.createElementNS(null, "b");
+        c.insertBefore(inserted, c.getFirstChild());
+        assertSame(inserted, list.item(1));
+        assertSame(inserted, listNS.item(1));
+        assertEquals("4", ((Element)list.item(2)).getAttribute("id"));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.dom.element;
+
+import java.io.StringReader;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.axiom.ts.dom.DOMTestCase;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests that the {@link NodeList} returned by {@link Element#getElementsByTagName(String)} and
+ * {@link Element#getElementsByTagNameNS(String, String)} reflects the renaming of an element (using
+ * {@link Document#renameNode(org.w3c.dom.Node, String, String)}) after nodes have been retrieved
+ * from the list.
+ */
+public class TestGetElementsByTagNameLiveRename extends DOMTestCase {
+    public TestGetElementsByTagNameLiveRename(DocumentBuilderFactory dbf) {
+        super(dbf);
+    }
+
+    protected void runTest() throws Throwable {
+        Document doc = dbf.newDocumentBuilder().parse(new InputSource(new StringReader(
+                "<root><b id='1'/><b id='2'/><b id='3'/></root>")));
+        Element root = doc.getDocumentElement();
+        NodeList list = root.getElementsByTagName("b");
+        NodeList listNS = root.getElementsByTagNameNS("*", "b");
+        assertEquals(3, list.getLength());
+        assertEquals(3, listNS.getLength());
+        Element second = (Element)list.item(1);
+        
+        doc.renameNode(second, null, "x");
+        assertEquals(2, list.getLength());
+        assertEquals(2, listNS.getLength());
+        assertEquals("3", ((Element)list.item(1)).getAttribute("id"));
+        assertEquals("3", ((Element)listNS.item(1)).getAttribute("id"));
+    }
+}
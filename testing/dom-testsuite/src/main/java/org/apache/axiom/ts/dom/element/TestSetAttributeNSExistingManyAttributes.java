@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.ts.dom.element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.axiom.ts.dom.DOMTestCase;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Tests {@link Element#setAttributeNS(String, String, String)} on an element with many existing
+ * namespaced attributes, each of which is updated with a different prefix. Checks that the
+ * attributes are still found by namespace URI and local name after their prefixes have changed.
+ */
+public class TestSetAttributeNSExistingManyAttributes extends DOMTestCase {
+    private static final int COUNT = 300;
+    
+    public TestSetAttributeNSExistingManyAttributes(DocumentBuilderFactory dbf) {
+        super(dbf);
+    }
+
+    protected void runTest() throws Throwable {
+        Document document = dbf.newDocumentBuilder().newDocument();
+        Element element = document.createElementNS(null, "test");
+        Attr[] attrs = new Attr[COUNT];
+        for (int i=0; i<COUNT; i++) {
+            element.setAttributeNS("urn:ns" + (i % 3), "p1:attr" + i, "value1");
+            attrs[i] = element.getAttributeNodeNS("urn:ns" + (i % 3), "attr" + i);
+        }
+        for (int i=0; i<COUNT; i++) {
+            element.setAttributeNS("urn:ns" + (i % 3), "p2:attr" + i, "value2");
+            assertSame(attrs[i], element.getAttributeNodeNS("urn:ns" + (i % 3), "attr" + i));
+        }
+        assertEquals(COUNT, element.getAttributes().getLength());
+        for (int i=0; i<COUNT; i++) {
+            assertEquals("p2", attrs[i].getPrefix());
+            assertEquals("value2", element.getAttributeNS("urn:ns" + (i % 3), "attr" + i));
+            assertSame(attrs[i], element.getAttributeNode("p2:attr" + i));
+            assertNull(element.getAttributeNode("p1:attr" + i));
+        }
+    }
+}
@@ -25,6 +25,7 @@ import junit.framework.TestSuite;
 
 import org.apache.axiom.ts.dom.document.TestLookupNamespaceURIWithEmptyDocument;
 import org.apache.axiom.ts.dom.document.TestLookupPrefixWithEmptyDocument;
+import org.apache.axiom.ts.dom.element.TestGetElementsByTagNameLiveRename;
 import org.apache.axiom.ts.dom.element.TestImportNode;
 import org.apache.axiom.ts.dom.element.TestLookupNamespaceURIXercesJ1586;
 import org.apache.xerces.jaxp.DocumentBuilderFactoryImpl;
@@ -44,6 +45,9 @@ public class XercesTest extends TestCase {
         // XERCESJ-1586
         builder.exclude(TestLookupNamespaceURIXercesJ1586.class);
         
+        // Xerces doesn't invalidate its cached node lists when an element is renamed
+        builder.exclude(TestGetElementsByTagNameLiveRename.class);
+        
         // Xerces has difficulties importing nodes from Crimson
         builder.exclude(TestImportNode.class, "(from=crimson)");
         